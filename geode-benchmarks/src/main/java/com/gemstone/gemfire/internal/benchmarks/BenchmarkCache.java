@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+
+/**
+ * Creates the loner cache shared by the benchmarks in this project. Everything
+ * that would add noise to a measurement (statistics sampling, membership,
+ * logging) is turned off.
+ */
+public class BenchmarkCache {
+
+  /**
+   * Amount of off-heap memory reserved when a benchmark asks for an
+   * off-heap enabled cache.
+   */
+  public static final String OFF_HEAP_SIZE = "512m";
+
+  private BenchmarkCache() {
+    // no instances
+  }
+
+  public static Cache create(boolean offHeap, boolean pdxReadSerialized) {
+    CacheFactory factory = new CacheFactory()
+        .set(MCAST_PORT, "0")
+        .set(LOCATORS, "")
+        .set(LOG_LEVEL, "warning")
+        .set(STATISTIC_SAMPLING_ENABLED, "false")
+        .set(ENABLE_TIME_STATISTICS, "false")
+        .setPdxReadSerialized(pdxReadSerialized);
+    if (offHeap) {
+      factory.set(OFF_HEAP_MEMORY_SIZE, OFF_HEAP_SIZE);
+    }
+    return factory.create();
+  }
+
+  public static void close(Cache cache) {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+}
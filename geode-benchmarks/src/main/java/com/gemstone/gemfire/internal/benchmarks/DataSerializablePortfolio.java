@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.gemstone.gemfire.DataSerializable;
+import com.gemstone.gemfire.DataSerializer;
+
+/**
+ * A small domain object serialized with {@link DataSerializable}. It has the
+ * same fields as {@link PdxPortfolio} so the two formats can be compared.
+ */
+public class DataSerializablePortfolio implements DataSerializable {
+
+  private int id;
+  private String status;
+  private String type;
+  private long createTime;
+  private double price;
+  private String[] names;
+
+  public DataSerializablePortfolio() {
+    // for deserialization
+  }
+
+  public DataSerializablePortfolio(int id) {
+    this.id = id;
+    this.status = id % 2 == 0 ? "active" : "inactive";
+    this.type = "type" + (id % 3);
+    this.createTime = id * 1000L;
+    this.price = id * 1.5d;
+    this.names = new String[] { "aaa" + id, "bbb" + id, "ccc" + id };
+  }
+
+  public int getId() {
+    return this.id;
+  }
+
+  public String getStatus() {
+    return this.status;
+  }
+
+  public String getType() {
+    return this.type;
+  }
+
+  public long getCreateTime() {
+    return this.createTime;
+  }
+
+  public double getPrice() {
+    return this.price;
+  }
+
+  public String[] getNames() {
+    return this.names;
+  }
+
+  @Override
+  public void toData(DataOutput out) throws IOException {
+    out.writeInt(this.id);
+    DataSerializer.writeString(this.status, out);
+    DataSerializer.writeString(this.type, out);
+    out.writeLong(this.createTime);
+    out.writeDouble(this.price);
+    DataSerializer.writeStringArray(this.names, out);
+  }
+
+  @Override
+  public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    this.id = in.readInt();
+    this.status = DataSerializer.readString(in);
+    this.type = DataSerializer.readString(in);
+    this.createTime = in.readLong();
+    this.price = in.readDouble();
+    this.names = DataSerializer.readStringArray(in);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import com.gemstone.gemfire.pdx.PdxReader;
+import com.gemstone.gemfire.pdx.PdxSerializable;
+import com.gemstone.gemfire.pdx.PdxWriter;
+
+/**
+ * The PDX counterpart of {@link DataSerializablePortfolio}.
+ */
+public class PdxPortfolio implements PdxSerializable {
+
+  private int id;
+  private String status;
+  private String type;
+  private long createTime;
+  private double price;
+  private String[] names;
+
+  public PdxPortfolio() {
+    // for deserialization
+  }
+
+  public PdxPortfolio(int id) {
+    this.id = id;
+    this.status = id % 2 == 0 ? "active" : "inactive";
+    this.type = "type" + (id % 3);
+    this.createTime = id * 1000L;
+    this.price = id * 1.5d;
+    this.names = new String[] { "aaa" + id, "bbb" + id, "ccc" + id };
+  }
+
+  public int getId() {
+    return this.id;
+  }
+
+  public String getStatus() {
+    return this.status;
+  }
+
+  public String getType() {
+    return this.type;
+  }
+
+  public long getCreateTime() {
+    return this.createTime;
+  }
+
+  public double getPrice() {
+    return this.price;
+  }
+
+  public String[] getNames() {
+    return this.names;
+  }
+
+  @Override
+  public void toData(PdxWriter writer) {
+    writer.writeInt("id", this.id)
+        .writeString("status", this.status)
+        .writeString("type", this.type)
+        .writeLong("createTime", this.createTime)
+        .writeDouble("price", this.price)
+        .writeStringArray("names", this.names);
+  }
+
+  @Override
+  public void fromData(PdxReader reader) {
+    this.id = reader.readInt("id");
+    this.status = reader.readString("status");
+    this.type = reader.readString("type");
+    this.createTime = reader.readLong("createTime");
+    this.price = reader.readDouble("price");
+    this.names = reader.readStringArray("names");
+  }
+}
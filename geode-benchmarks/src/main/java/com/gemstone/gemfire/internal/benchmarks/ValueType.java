@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+/**
+ * The kinds of values the benchmarks store and serialize.
+ */
+public enum ValueType {
+
+  DATA_SERIALIZABLE {
+    @Override
+    public Object createValue(int id) {
+      return new DataSerializablePortfolio(id);
+    }
+  },
+
+  PDX {
+    @Override
+    public Object createValue(int id) {
+      return new PdxPortfolio(id);
+    }
+  };
+
+  public abstract Object createValue(int id);
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks.cache;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EntryEvent;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.ClientCache;
+import com.gemstone.gemfire.cache.client.ClientCacheFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
+import com.gemstone.gemfire.cache.client.Pool;
+import com.gemstone.gemfire.cache.execute.Function;
+import com.gemstone.gemfire.cache.execute.FunctionContext;
+import com.gemstone.gemfire.cache.execute.FunctionService;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.cache.util.CacheListenerAdapter;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.internal.benchmarks.BenchmarkCache;
+
+/**
+ * Measures how many subscription events per second a single client receives.
+ * A cache server is started in a separate JVM; each invocation has it update
+ * {@link #EVENTS_PER_INVOCATION} entries the client is interested in and
+ * waits until the client's listener has seen all of them, so the score is
+ * the rate at which <code>CacheClientProxy</code> delivers events.
+ * <code>dispatchBatchSize</code> is the server's
+ * <code>CacheClientProxy.MAXIMUM_DISPATCH_BATCH_SIZE</code>; 1 sends and
+ * flushes every event on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ClientSubscriptionBenchmark {
+
+  public static final int EVENTS_PER_INVOCATION = 10000;
+
+  private static final String REGION_NAME = "benchmark";
+
+  private static final String SERVER_READY = "subscription benchmark server ready";
+
+  private static final long SERVER_START_TIMEOUT_MS = 60000;
+
+  @Param({ "1", "100" })
+  public int dispatchBatchSize;
+
+  @Param({ "100" })
+  public int valueSize;
+
+  @Param({ "1000" })
+  public int keyCount;
+
+  private Process server;
+  private File serverDir;
+  private ClientCache clientCache;
+  private Pool pool;
+  private final AtomicLong received = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void startServerAndClient() throws Exception {
+    int port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET);
+    this.serverDir = File.createTempFile("subscription-benchmark", "");
+    this.serverDir.delete();
+    this.serverDir.mkdirs();
+    this.server = startServer(port);
+
+    this.clientCache = new ClientCacheFactory()
+        .set(LOG_LEVEL, "warning")
+        .set(STATISTIC_SAMPLING_ENABLED, "false")
+        .addPoolServer("localhost", port)
+        .setPoolSubscriptionEnabled(true)
+        .create();
+    this.pool = this.clientCache.getDefaultPool();
+    Region<Object, byte[]> region = this.clientCache
+        .<Object, byte[]>createClientRegionFactory(ClientRegionShortcut.PROXY)
+        .addCacheListener(new CacheListenerAdapter<Object, byte[]>() {
+          @Override
+          public void afterCreate(EntryEvent<Object, byte[]> event) {
+            received.incrementAndGet();
+          }
+
+          @Override
+          public void afterUpdate(EntryEvent<Object, byte[]> event) {
+            received.incrementAndGet();
+          }
+        })
+        .create(REGION_NAME);
+    region.registerInterest("ALL_KEYS");
+  }
+
+  @TearDown(Level.Trial)
+  public void stopServerAndClient() throws Exception {
+    if (this.clientCache != null && !this.clientCache.isClosed()) {
+      this.clientCache.close();
+    }
+    if (this.server != null) {
+      // closing its stdin tells the server to shut down
+      this.server.getOutputStream().close();
+      if (!this.server.waitFor(30, TimeUnit.SECONDS)) {
+        this.server.destroyForcibly();
+      }
+    }
+    if (this.serverDir != null) {
+      deleteRecursively(this.serverDir);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+  public long publishAndReceive() {
+    long target = this.received.get() + EVENTS_PER_INVOCATION;
+    FunctionService.onServer(this.pool)
+        .withArgs(new int[] { EVENTS_PER_INVOCATION, this.keyCount, this.valueSize })
+        .execute(new PublishFunction()).getResult();
+    long count;
+    while ((count = this.received.get()) < target) {
+      LockSupport.parkNanos(10000);
+    }
+    return count;
+  }
+
+  private Process startServer(int port) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<String>();
+    command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add("-D" + DistributionConfig.GEMFIRE_PREFIX
+        + "CacheClientProxy.MAXIMUM_DISPATCH_BATCH_SIZE=" + this.dispatchBatchSize);
+    command.add(Server.class.getName());
+    command.add(String.valueOf(port));
+    Process process = new ProcessBuilder(command)
+        .directory(this.serverDir)
+        .redirectErrorStream(true)
+        .start();
+
+    final BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    long deadline = System.currentTimeMillis() + SERVER_START_TIMEOUT_MS;
+    String line;
+    while ((line = output.readLine()) != null) {
+      if (SERVER_READY.equals(line)) {
+        drain(output);
+        return process;
+      }
+      if (System.currentTimeMillis() > deadline) {
+        break;
+      }
+    }
+    process.destroyForcibly();
+    throw new IllegalStateException("Cache server did not start; last output: " + line);
+  }
+
+  /**
+   * Keeps reading the server's output so that it never blocks writing to it.
+   */
+  private static void drain(final BufferedReader output) {
+    Thread drainer = new Thread("subscription benchmark server output") {
+      @Override
+      public void run() {
+        try {
+          while (output.readLine() != null) {
+            // discard
+          }
+        } catch (IOException ignore) {
+          // the server has gone away
+        }
+      }
+    };
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  /**
+   * Updates entries of the benchmark region on the server. The arguments are
+   * the number of updates, the number of distinct keys and the value size.
+   */
+  public static class PublishFunction implements Function {
+
+    @Override
+    public void execute(FunctionContext context) {
+      int[] args = (int[]) context.getArguments();
+      int updates = args[0];
+      int keyCount = args[1];
+      byte[] value = new byte[args[2]];
+      Region<Integer, byte[]> region = CacheFactory.getAnyInstance().getRegion(REGION_NAME);
+      for (int i = 0; i < updates; i++) {
+        region.put(i % keyCount, value);
+      }
+      context.getResultSender().lastResult(Boolean.TRUE);
+    }
+
+    @Override
+    public String getId() {
+      return getClass().getName();
+    }
+
+    @Override
+    public boolean hasResult() {
+      return true;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+      return false;
+    }
+
+    @Override
+    public boolean isHA() {
+      return false;
+    }
+  }
+
+  /**
+   * The cache server the benchmark publishes through. Runs until its stdin is
+   * closed.
+   */
+  public static class Server {
+
+    public static void main(String[] args) throws Exception {
+      Cache cache = BenchmarkCache.create(false, false);
+      cache.createRegionFactory(RegionShortcut.REPLICATE).create(REGION_NAME);
+      CacheServer cacheServer = cache.addCacheServer();
+      cacheServer.setPort(Integer.parseInt(args[0]));
+      cacheServer.start();
+      System.out.println(SERVER_READY);
+      System.out.flush();
+      while (System.in.read() != -1) {
+        // wait for the benchmark to close our stdin
+      }
+      BenchmarkCache.close(cache);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.internal.benchmarks.BenchmarkCache;
+import com.gemstone.gemfire.internal.benchmarks.ValueType;
+
+/**
+ * Measures {@link Region#put} and {@link Region#get} on a single member. A put
+ * goes through <code>LocalRegion.put</code> and
+ * <code>AbstractRegionMap.basicPut</code>; a get through
+ * <code>LocalRegion.get</code> and value deserialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RegionOperationsBenchmark {
+
+  @Param({ "REPLICATE", "PARTITION" })
+  public RegionShortcut shortcut;
+
+  @Param({ "false", "true" })
+  public boolean offHeap;
+
+  @Param({ "DATA_SERIALIZABLE", "PDX" })
+  public ValueType valueType;
+
+  @Param({ "10000" })
+  public int keyCount;
+
+  private Cache cache;
+  private Region<Integer, Object> region;
+  private Object[] values;
+
+  @Setup(Level.Trial)
+  public void createRegion() {
+    this.cache = BenchmarkCache.create(this.offHeap, false);
+    this.region = this.cache.<Integer, Object>createRegionFactory(this.shortcut)
+        .setOffHeap(this.offHeap)
+        .create("benchmark");
+    this.values = new Object[this.keyCount];
+    for (int i = 0; i < this.keyCount; i++) {
+      this.values[i] = this.valueType.createValue(i);
+      this.region.put(i, this.values[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCache.close(this.cache);
+  }
+
+  @Benchmark
+  public Object put() {
+    int key = ThreadLocalRandom.current().nextInt(this.keyCount);
+    return this.region.put(key, this.values[key]);
+  }
+
+  @Benchmark
+  public Object get() {
+    return this.region.get(ThreadLocalRandom.current().nextInt(this.keyCount));
+  }
+
+  @Benchmark
+  public Object createAndDestroy() {
+    Integer key = this.keyCount + ThreadLocalRandom.current().nextInt(this.keyCount);
+    this.region.put(key, this.values[key - this.keyCount]);
+    return this.region.remove(key);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks.offheap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.internal.benchmarks.BenchmarkCache;
+import com.gemstone.gemfire.internal.offheap.FreeListManager;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocator;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocatorImpl;
+import com.gemstone.gemfire.internal.offheap.StoredObject;
+
+/**
+ * Measures allocate/free throughput of the off-heap {@link MemoryAllocator}
+ * from many threads, with and without the per-thread free list caches of
+ * {@link FreeListManager}.
+ * <p>
+ * Each parameter combination runs in its own fork, which is what lets the
+ * thread cache size, read when the allocator is created, be a parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(32)
+@Fork(1)
+public class MemoryAllocatorBenchmark {
+
+  @Param({ "0", "32" })
+  public int threadCacheSize;
+
+  /**
+   * Objects are between 1 and maxSize bytes.
+   */
+  @Param({ "64", "512" })
+  public int maxSize;
+
+  private Cache cache;
+  private MemoryAllocator allocator;
+
+  @Setup(Level.Trial)
+  public void createAllocator() {
+    System.setProperty(FreeListManager.THREAD_CACHE_SIZE_PROPERTY, Integer.toString(this.threadCacheSize));
+    this.cache = BenchmarkCache.create(true, false);
+    this.allocator = MemoryAllocatorImpl.getAllocator();
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCache.close(this.cache);
+  }
+
+  /**
+   * The objects a thread keeps alive, replaced at random to fragment memory
+   * the way a region under update load does. They are never released; the
+   * fork exits at the end of the trial.
+   */
+  @State(Scope.Thread)
+  public static class LiveObjects {
+    public StoredObject[] objects = new StoredObject[1024];
+  }
+
+  @Benchmark
+  public void allocateAndFree() {
+    StoredObject o = this.allocator.allocate(1 + ThreadLocalRandom.current().nextInt(this.maxSize));
+    o.release();
+  }
+
+  @Benchmark
+  public void replace(LiveObjects live) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int idx = random.nextInt(live.objects.length);
+    StoredObject old = live.objects[idx];
+    live.objects[idx] = this.allocator.allocate(1 + random.nextInt(this.maxSize));
+    if (old != null) {
+      old.release();
+    }
+  }
+}
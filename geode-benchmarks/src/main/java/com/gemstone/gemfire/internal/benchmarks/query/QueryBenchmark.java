@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks.query;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.internal.benchmarks.BenchmarkCache;
+import com.gemstone.gemfire.internal.benchmarks.ValueType;
+
+/**
+ * Measures <code>DefaultQuery.execute</code> for an equality and a range
+ * predicate, with and without an index on the queried field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+  private static final int RANGE_SIZE = 100;
+
+  @Param({ "REPLICATE", "PARTITION" })
+  public RegionShortcut shortcut;
+
+  @Param({ "DATA_SERIALIZABLE", "PDX" })
+  public ValueType valueType;
+
+  @Param({ "false", "true" })
+  public boolean indexed;
+
+  @Param({ "10000" })
+  public int entryCount;
+
+  private Cache cache;
+  private Query equalityQuery;
+  private Query rangeQuery;
+
+  @Setup(Level.Trial)
+  public void createRegion() throws Exception {
+    this.cache = BenchmarkCache.create(false, false);
+    Region<Integer, Object> region = this.cache.<Integer, Object>createRegionFactory(this.shortcut)
+        .create("portfolios");
+    for (int i = 0; i < this.entryCount; i++) {
+      region.put(i, this.valueType.createValue(i));
+    }
+    QueryService queryService = this.cache.getQueryService();
+    if (this.indexed) {
+      queryService.createIndex("idIndex", "p.id", "/portfolios p");
+    }
+    this.equalityQuery = queryService.newQuery("SELECT * FROM /portfolios p WHERE p.id = $1");
+    this.rangeQuery = queryService.newQuery("SELECT * FROM /portfolios p WHERE p.id >= $1 AND p.id < $2");
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCache.close(this.cache);
+  }
+
+  @Benchmark
+  public Object equality() throws Exception {
+    return this.equalityQuery.execute(new Object[] { ThreadLocalRandom.current().nextInt(this.entryCount) });
+  }
+
+  @Benchmark
+  public Object range() throws Exception {
+    int low = ThreadLocalRandom.current().nextInt(this.entryCount - RANGE_SIZE);
+    return this.rangeQuery.execute(new Object[] { low, low + RANGE_SIZE });
+  }
+
+  @Benchmark
+  public Object compileAndExecute() throws Exception {
+    Query query = this.cache.getQueryService().newQuery("SELECT * FROM /portfolios p WHERE p.id = $1");
+    return query.execute(new Object[] { ThreadLocalRandom.current().nextInt(this.entryCount) });
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks.serialization;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.internal.ByteArrayDataInput;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.benchmarks.BenchmarkCache;
+import com.gemstone.gemfire.internal.benchmarks.PdxPortfolio;
+import com.gemstone.gemfire.pdx.PdxInstance;
+
+/**
+ * Measures field access on a {@link PdxInstance}, which reads the serialized
+ * bytes through <code>PdxReaderImpl</code> without deserializing the whole
+ * object.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PdxReaderBenchmark {
+
+  private Cache cache;
+  private byte[] serializedValue;
+  private ByteArrayDataInput in;
+  private PdxInstance instance;
+
+  @Setup(Level.Trial)
+  public void createInstance() throws IOException, ClassNotFoundException {
+    this.cache = BenchmarkCache.create(false, true);
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(new PdxPortfolio(1), out);
+    this.serializedValue = out.toByteArray();
+    this.in = new ByteArrayDataInput();
+    this.instance = readInstance();
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCache.close(this.cache);
+  }
+
+  private PdxInstance readInstance() throws IOException, ClassNotFoundException {
+    this.in.initialize(this.serializedValue, Version.CURRENT);
+    return DataSerializer.readObject(this.in);
+  }
+
+  @Benchmark
+  public PdxInstance readPdxInstance() throws IOException, ClassNotFoundException {
+    return readInstance();
+  }
+
+  @Benchmark
+  public Object readFixedWidthField() {
+    return this.instance.getField("price");
+  }
+
+  @Benchmark
+  public Object readVariableWidthField() {
+    return this.instance.getField("type");
+  }
+
+  @Benchmark
+  public Object readArrayField() {
+    return this.instance.getField("names");
+  }
+
+  @Benchmark
+  public Object getObject() {
+    return this.instance.getObject();
+  }
+}
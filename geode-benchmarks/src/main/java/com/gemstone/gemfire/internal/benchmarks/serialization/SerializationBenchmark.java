@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks.serialization;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.internal.ByteArrayDataInput;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.benchmarks.BenchmarkCache;
+import com.gemstone.gemfire.internal.benchmarks.ValueType;
+
+/**
+ * Measures <code>InternalDataSerializer.writeObject</code> and
+ * <code>readObject</code> for DataSerializable and PDX values. Reading a PDX
+ * value goes through <code>PdxReaderImpl</code> for every field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({ "DATA_SERIALIZABLE", "PDX" })
+  public ValueType valueType;
+
+  private Cache cache;
+  private Object value;
+  private byte[] serializedValue;
+  private HeapDataOutputStream out;
+  private ByteArrayDataInput in;
+
+  @Setup(Level.Trial)
+  public void createValue() throws IOException {
+    // PDX needs a cache for its type registry
+    this.cache = BenchmarkCache.create(false, false);
+    this.value = this.valueType.createValue(1);
+    this.out = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(this.value, this.out);
+    this.serializedValue = this.out.toByteArray();
+    this.in = new ByteArrayDataInput();
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCache.close(this.cache);
+  }
+
+  @Benchmark
+  public int serialize() throws IOException {
+    this.out.reset();
+    DataSerializer.writeObject(this.value, this.out);
+    return this.out.size();
+  }
+
+  @Benchmark
+  public Object deserialize() throws IOException, ClassNotFoundException {
+    this.in.initialize(this.serializedValue, Version.CURRENT);
+    return DataSerializer.readObject(this.in);
+  }
+}
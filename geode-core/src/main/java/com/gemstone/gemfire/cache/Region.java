@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 
@@ -1550,6 +1551,92 @@ public interface Region<K,V>  extends ConcurrentMap<K, V> {
    */
   public <T extends K> Map<T, V> getAll(Collection<T> keys, Object aCallbackArgument);
 
+  /**
+   * Asynchronous version of {@link #get(Object)}. The returned future is
+   * completed with the value, or exceptionally with whatever {@link #get(Object)}
+   * would have thrown.
+   * <p>
+   * A client {@link DataPolicy#EMPTY} region without a loader, writer or
+   * listeners sends the request to the server and returns without waiting for
+   * the reply; the future is completed by the thread that reads the reply.
+   * Dependent actions added without an executor run in that thread and must
+   * not block, in particular they must not wait for another asynchronous
+   * operation; use the <code>Async</code> methods of the future with an
+   * executor for such actions. Other regions do the get in the calling
+   * thread and return a completed future.
+   *
+   * @param key the key whose value is returned
+   * @return a future for the value, or for null if the key has no value
+   * @since Geode 1.0
+   */
+  public default CompletableFuture<V> getAsync(Object key) {
+    CompletableFuture<V> result = new CompletableFuture<V>();
+    try {
+      result.complete(get(key));
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * Asynchronous version of {@link #put(Object, Object)}. The returned future
+   * is completed when the put is done, or exceptionally with whatever
+   * {@link #put(Object, Object)} would have thrown.
+   * <p>
+   * A client {@link DataPolicy#EMPTY} region without a loader, writer or
+   * listeners sends the request to the server and returns without waiting for
+   * the reply; the future is completed by the thread that reads the reply.
+   * Dependent actions added without an executor run in that thread and must
+   * not block, in particular they must not wait for another asynchronous
+   * operation; use the <code>Async</code> methods of the future with an
+   * executor for such actions. Other regions do the put in the calling
+   * thread and return a completed future.
+   *
+   * @param key the key to put
+   * @param value the value to put
+   * @return a future for the value returned by {@link #put(Object, Object)},
+   * which is always null for a client region that does not wait for the reply
+   * @since Geode 1.0
+   */
+  public default CompletableFuture<V> putAsync(K key, V value) {
+    CompletableFuture<V> result = new CompletableFuture<V>();
+    try {
+      result.complete(put(key, value));
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * Asynchronous version of {@link #getAll(Collection)}. The returned future
+   * is completed with the map of values, or exceptionally with whatever
+   * {@link #getAll(Collection)} would have thrown.
+   * <p>
+   * A client {@link DataPolicy#EMPTY} region without a loader, writer or
+   * listeners sends the request to a server and returns without waiting for
+   * the reply; the future is completed by the thread that reads the reply.
+   * Dependent actions added without an executor run in that thread and must
+   * not block, in particular they must not wait for another asynchronous
+   * operation; use the <code>Async</code> methods of the future with an
+   * executor for such actions. Other regions do the getAll in the calling
+   * thread and return a completed future.
+   *
+   * @param keys the keys whose values are returned
+   * @return a future for the map of values for the keys
+   * @since Geode 1.0
+   */
+  public default CompletableFuture<Map<K, V>> getAllAsync(Collection<?> keys) {
+    CompletableFuture<Map<K, V>> result = new CompletableFuture<Map<K, V>>();
+    try {
+      result.complete(getAll(keys));
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
 
   /**
    * Removes the entry with the specified key. The operation removes
@@ -586,6 +586,19 @@ public class ClientCacheFactory {
     return this;
   }
 
+  /**
+   * If set to <code>true</code> then large values are compressed when they
+   * are sent between the pool and the servers.
+   *
+   * @return a reference to <code>this</code>
+   * @see PoolFactory#setValueCompression(boolean)
+   * @since Geode 1.0
+   */
+  public ClientCacheFactory setPoolValueCompression(boolean enabled) {
+    getPoolFactory().setValueCompression(enabled);
+    return this;
+  }
+
   /**
    * If set to <code>true</code> then the created pool can be used by multiple
    * users. <br>
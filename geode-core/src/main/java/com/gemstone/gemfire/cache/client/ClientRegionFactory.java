@@ -303,6 +303,24 @@ public interface ClientRegionFactory<K,V> {
    * @since GemFire 8.0
    */
   public ClientRegionFactory<K,V> setCompressor(Compressor compressor);
+
+  /**
+   * Makes the region a near cache of the server region that holds at most
+   * the given number of entries. Instead of registering interest itself the
+   * region registers interest only in the keys it reads from or writes to
+   * the servers, receives updates of those keys as invalidates, and
+   * unregisters interest in keys once they are evicted. When the region is
+   * full the least recently used entry is locally destroyed; call
+   * {@link #setEvictionAttributes} afterwards to bound the region differently.
+   * <p>The region must have local state, for example
+   * {@link ClientRegionShortcut#CACHING_PROXY}, and its pool must have
+   * subscriptions enabled.
+   * @param maxEntries the maximum number of entries kept in the region
+   * @return a reference to this ClientRegionFactory object
+   * @throws IllegalArgumentException if maxEntries is not positive
+   * @since Geode 1.0
+   */
+  public ClientRegionFactory<K,V> setNearCache(int maxEntries);
   
   /**
    * Creates a region in the {@link ClientCache} using
@@ -152,6 +152,13 @@ public interface Pool {
    * @since GemFire 6.5
    */
   public boolean getMultiuserAuthentication();
+  /**
+   * Returns true if values are compressed when they are sent to and from
+   * the servers of this pool.
+   * @see PoolFactory#setValueCompression(boolean)
+   * @since Geode 1.0
+   */
+  public boolean getValueCompression();
 
   
   /**
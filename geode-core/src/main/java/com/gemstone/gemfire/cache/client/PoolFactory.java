@@ -175,6 +175,12 @@ public interface PoolFactory {
    * @since GemFire 6.5
    */  
   public static final boolean DEFAULT_MULTIUSER_AUTHENTICATION = false;
+  /**
+   * The default value for whether values are compressed on the wire.
+   * <p>Current value: <code>false</code>.
+   * @since Geode 1.0
+   */
+  public static final boolean DEFAULT_VALUE_COMPRESSION = false;
   /**
    * Sets the free connection timeout for this pool.
    * If the pool has a max connections setting, operations will block
@@ -472,5 +478,24 @@ public interface PoolFactory {
    * @since GemFire 6.5
    */
   public PoolFactory setMultiuserAuthentication(boolean enabled);
+
+  /**
+   * If set to <code>true</code> then large values are compressed with
+   * {@link com.gemstone.gemfire.compression.SnappyCompressor Snappy} when
+   * they are sent between this pool and servers that support it. This
+   * applies to values sent by puts and values returned by gets.
+   * <p>
+   * A server that receives a compressed value for a region whose
+   * {@link com.gemstone.gemfire.cache.RegionAttributes#getCompressor()
+   * compressor} is also Snappy stores the value as it was received, without
+   * decompressing and compressing it again.
+   * <p>
+   * Compression is only used when the Snappy native library can be loaded on
+   * both the client and the server. Small values are always sent as they are.
+   *
+   * @return a reference to <code>this</code>
+   * @since Geode 1.0
+   */
+  public PoolFactory setValueCompression(boolean enabled);
   
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client;
+
+
+/**
+ * Indicates that a server was too busy to process a client request and
+ * rejected it without processing it. The request can safely be retried,
+ * which the client does on another server.
+ * @since Geode 1.0
+ */
+public class ServerBusyException extends ServerConnectivityException {
+
+  private static final long serialVersionUID = -1452875329741187383L;
+
+  /**
+   * Create a new instance of ServerBusyException without a detail message or cause.
+   */
+  public ServerBusyException() {
+  }
+
+  /**
+   * Create a new instance of ServerBusyException with a detail message
+   * @param message the detail message
+   */
+  public ServerBusyException(String message) {
+    super(message);
+  }
+
+  /**
+   * Create a new instance of ServerBusyException with a cause
+   * @param cause the cause
+   */
+  public ServerBusyException(Throwable cause) {
+    super(cause);
+  }
+
+  /**
+   * Create a new instance of ServerBusyException with a detail message and cause
+   * @param message the detail message
+   * @param cause the cause
+   */
+  public ServerBusyException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -19,6 +19,7 @@ package com.gemstone.gemfire.cache.client.internal;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 
 import org.apache.logging.log4j.Logger;
 
@@ -153,10 +154,20 @@ public abstract class AbstractOp implements Op {
    * @throws Exception if the execute failed
    */
   protected Object attemptReadResponse(Connection cnx) throws Exception {
+    return attemptReadResponse(cnx, cnx.getCommBuffer());
+  }
+
+  /**
+   * Same as {@link #attemptReadResponse(Connection)} but reads the response
+   * using the given buffer instead of the connection's comm buffer, so that
+   * one thread can read responses while another sends on the connection.
+   */
+  protected Object attemptReadResponse(Connection cnx, ByteBuffer commBuffer)
+      throws Exception {
     Message msg = createResponseMessage();
     if (msg != null) {
       msg.setComms(cnx.getSocket(), cnx.getInputStream(),
-          cnx.getOutputStream(), cnx.getCommBuffer(), cnx.getStats());
+          cnx.getOutputStream(), commBuffer, cnx.getStats());
       if (msg instanceof ChunkedMessage) {
         try {
           return processResponse(msg, cnx);
@@ -389,6 +400,51 @@ public abstract class AbstractOp implements Op {
       endAttempt(cnx.getStats(), start);
     }
   }
+  /**
+   * Sends this op's message on the given connection without reading the
+   * response, which must later be read by {@link #attemptReadPipelined}.
+   * @return the start time to pass to {@link #attemptReadPipelined}
+   * @throws Exception if the send fails
+   */
+  final long attemptSendPipelined(Connection cnx) throws Exception {
+    this.failed = true;
+    this.timedOut = false;
+    long start = startAttempt(cnx.getStats());
+    try {
+      attemptSend(cnx);
+      this.failed = false;
+    } finally {
+      endSendAttempt(cnx.getStats(), start);
+      if (this.failed) {
+        endAttempt(cnx.getStats(), start);
+      }
+    }
+    return start;
+  }
+
+  /**
+   * Reads the response to a message sent by {@link #attemptSendPipelined}.
+   * @param commBuffer the buffer to read the response with
+   * @param start the time returned by {@link #attemptSendPipelined}
+   * @return the result of the operation
+   * @throws Exception if the response could not be read or processed
+   */
+  final Object attemptReadPipelined(Connection cnx, ByteBuffer commBuffer,
+      long start) throws Exception {
+    this.failed = true;
+    try {
+      Object result = attemptReadResponse(cnx, commBuffer);
+      this.failed = false;
+      return result;
+    } catch (SocketTimeoutException ste) {
+      this.failed = false;
+      this.timedOut = true;
+      throw ste;
+    } finally {
+      endAttempt(cnx.getStats(), start);
+    }
+  }
+
   protected final boolean hasFailed() {
     return this.failed;
   }
@@ -16,9 +16,13 @@
  */
 package com.gemstone.gemfire.cache.client.internal;
 
+import java.io.IOException;
+
+import com.gemstone.gemfire.InternalGemFireError;
 import com.gemstone.gemfire.cache.AttributesFactory;
 import com.gemstone.gemfire.cache.CacheListener;
 import com.gemstone.gemfire.cache.CustomExpiry;
+import com.gemstone.gemfire.cache.EvictionAction;
 import com.gemstone.gemfire.cache.EvictionAttributes;
 import com.gemstone.gemfire.cache.ExpirationAttributes;
 import com.gemstone.gemfire.cache.InterestPolicy;
@@ -30,8 +34,10 @@ import com.gemstone.gemfire.cache.SubscriptionAttributes;
 import com.gemstone.gemfire.cache.client.ClientRegionFactory;
 import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
 import com.gemstone.gemfire.cache.client.Pool;
+import com.gemstone.gemfire.cache.client.PoolManager;
 import com.gemstone.gemfire.compression.Compressor;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.UserSpecifiedRegionAttributes;
 
@@ -45,6 +51,7 @@ public class ClientRegionFactoryImpl<K,V> implements ClientRegionFactory<K,V>
 {
   private final AttributesFactory<K,V> attrsFactory;
   private final GemFireCacheImpl cache;
+  private boolean nearCache;
 
   /**
    * Constructs a ClientRegionFactory by creating a DistributedSystem and a Cache. If
@@ -225,16 +232,54 @@ public class ClientRegionFactoryImpl<K,V> implements ClientRegionFactory<K,V>
     return this;
   }
 
+  @Override
+  public ClientRegionFactory<K,V> setNearCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("The maximum number of entries of a near cache must be positive but was " + maxEntries);
+    }
+    this.attrsFactory.setEvictionAttributes(
+        EvictionAttributes.createLRUEntryAttributes(maxEntries, EvictionAction.LOCAL_DESTROY));
+    this.nearCache = true;
+    return this;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public Region<K,V> create(String name) throws RegionExistsException {
-    return getCache().basicCreateRegion(name, createRegionAttributes());
+    RegionAttributes<K,V> ra = createRegionAttributes();
+    if (this.nearCache) {
+      return getCache().basicCreateRegion(name, ra, createNearCacheArguments(ra));
+    }
+    return getCache().basicCreateRegion(name, ra);
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public Region<K,V> createSubregion(Region<?,?> parent, String name) throws RegionExistsException {
-    return ((LocalRegion)parent).createSubregion(name, createRegionAttributes());
+    RegionAttributes<K,V> ra = createRegionAttributes();
+    if (this.nearCache) {
+      InternalRegionArguments ira = createNearCacheArguments(ra).setDestroyLockFlag(true)
+          .setRecreateFlag(false);
+      try {
+        return ((LocalRegion)parent).createSubregion(name, ra, ira);
+      } catch (IOException | ClassNotFoundException e) {
+        // only happens when loading a snapshot, not here
+        throw new InternalGemFireError(e);
+      }
+    }
+    return ((LocalRegion)parent).createSubregion(name, ra);
+  }
+
+  private InternalRegionArguments createNearCacheArguments(RegionAttributes<K,V> ra) {
+    if (!ra.getDataPolicy().withStorage()) {
+      throw new IllegalStateException("A near cache must have local state but its data policy is "
+          + ra.getDataPolicy());
+    }
+    Pool pool = PoolManager.find(ra.getPoolName());
+    if (pool == null || !pool.getSubscriptionEnabled()) {
+      throw new IllegalStateException("A near cache requires a pool with subscriptions enabled");
+    }
+    return new InternalRegionArguments().setNearCache(true);
   }
   
   @SuppressWarnings("deprecation")
@@ -88,6 +88,9 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
     this.socketBufferSize = socketBufferSize;
     this.handShakeTimeout = handShakeTimeout;
     this.handshake.setMultiuserSecureMode(multiuserSecureMode);
+    if (pool != null) {
+      this.handshake.setValueCompression(pool.getValueCompression());
+    }
     this.readTimeout = readTimeout;
     this.usedByGateway = usedByGateway;
     this.gatewaySender = sender;
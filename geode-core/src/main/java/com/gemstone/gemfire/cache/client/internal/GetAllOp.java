@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -30,6 +31,7 @@ import com.gemstone.gemfire.cache.client.ServerOperationException;
 import com.gemstone.gemfire.distributed.internal.ServerLocation;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.PoolStats;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ChunkedMessage;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
@@ -77,47 +79,82 @@ public class GetAllOp {
       return ((VersionedObjectList)pool.execute(op)).setKeys(keys);
     }
     else {
-      VersionedObjectList result = null;
-      ServerConnectivityException se = null;
-      List retryList = new ArrayList();
-      List callableTasks = constructGetAllTasks(region.getFullPath(),
-          serverToFilterMap, (PoolImpl)pool, callback);
-      Map<ServerLocation, Object> results = SingleHopClientExecutor.submitGetAll(
-          serverToFilterMap, callableTasks, cms, (LocalRegion)region);
-      for (ServerLocation server : results.keySet()) {
-        Object serverResult = results.get(server);
-        if (serverResult instanceof ServerConnectivityException) {
-          se = (ServerConnectivityException)serverResult;
-          retryList.addAll(serverToFilterMap.get(server));
-        }
-        else {
-          if (result == null) {
-            result = (VersionedObjectList)serverResult;
-          } else {
-            result.addAll((VersionedObjectList)serverResult);
+      PoolStats stats = ((PoolImpl)pool).getStats();
+      long start = stats.startSingleHopBulkOp(serverToFilterMap.size());
+      try {
+        VersionedObjectList result = null;
+        for (boolean retry = false;; retry = true) {
+          ServerConnectivityException se = null;
+          int failedServerCount = 0;
+          List retryList = new ArrayList();
+          List callableTasks = constructGetAllTasks(region.getFullPath(),
+              serverToFilterMap, (PoolImpl)pool, callback);
+          Map<ServerLocation, Object> results = SingleHopClientExecutor.submitGetAll(
+              serverToFilterMap, callableTasks, cms, (LocalRegion)region);
+          for (ServerLocation server : results.keySet()) {
+            Object serverResult = results.get(server);
+            if (serverResult instanceof ServerConnectivityException) {
+              se = (ServerConnectivityException)serverResult;
+              failedServerCount++;
+              retryList.addAll(serverToFilterMap.get(server));
+            }
+            else {
+              result = addAll(result, (VersionedObjectList)serverResult);
+            }
           }
-        }
-      }
-      
-      if (se != null) {
-        if (retryAttempts == 0) {
-          throw se;
-        }
-        else {
-          VersionedObjectList retryResult = GetAllOp.execute(pool,
-              region.getFullPath(), retryList, callback);
-          if (result == null) {
-            result = retryResult;
-          } else {
-            result.addAll(retryResult);
+
+          if (se == null) {
+            return result;
           }
+          if (retryAttempts == 0) {
+            throw se;
+          }
+          stats.incSingleHopBulkOpRetries(failedServerCount);
+          if (!retry) {
+            // Only the keys of the failed servers are sent again. The failed
+            // servers have been removed from the metadata, so the first retry
+            // is single hop to whichever servers now host those buckets.
+            serverToFilterMap = cms.getServerToFilterMap(retryList, region, true);
+            if (serverToFilterMap != null && !serverToFilterMap.isEmpty()) {
+              continue;
+            }
+          }
+          // The buckets' servers are not known yet, or failed again. The keys
+          // are sent in one op through the pool, which retries it on other
+          // servers as configured.
+          return addAll(result, execute(pool, region.getFullPath(), retryList, callback));
         }
+      } finally {
+        stats.endSingleHopBulkOp(start);
       }
+    }
+  }
 
-      return result;
+  private static VersionedObjectList addAll(VersionedObjectList result,
+      VersionedObjectList values) {
+    if (result == null) {
+      return values;
     }
+    result.addAll(values);
+    return result;
   }
   
+  /**
+   * Sends a region getAll to a server using a pipelined connection from the
+   * given pool without waiting for the reply.
+   * @param pool the pool to use to communicate with the server.
+   * @param region the name of the region to do the getAll on
+   * @param keys list of keys to get
+   * @return a future for the values found by the getAll if any
+   */
+  public static CompletableFuture<VersionedObjectList> executeAsync(
+      PoolImpl pool, String region, final List keys, Object callback) {
+    AbstractOp op = new GetAllOpImpl(region, keys, callback);
+    op.initMessagePart();
+    return pool.executeAsync(op).thenApply(
+        result -> ((VersionedObjectList)result).setKeys(keys));
+  }
+
   private GetAllOp() {
     // no instances allowed
   }
@@ -16,6 +16,8 @@
  */
 package com.gemstone.gemfire.cache.client.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.logging.log4j.Logger;
 
 import com.gemstone.gemfire.cache.CacheClosedException;
@@ -97,6 +99,22 @@ public class GetOp {
     return pool.execute(op);
   }
 
+
+  /**
+   * Sends a region get to a server using a pipelined connection from the
+   * given pool without waiting for the reply.
+   * @param pool the pool to use to communicate with the server.
+   * @param region the region to do the get on
+   * @param key the entry key to do the get on
+   * @param callbackArg an optional callback arg to pass to any cache callbacks
+   * @return a future for the entry value found by the get if any
+   */
+  public static CompletableFuture<Object> executeAsync(PoolImpl pool,
+      LocalRegion region, Object key, Object callbackArg) {
+    AbstractOp op = new GetOpImpl(region, key, callbackArg,
+        pool.getPRSingleHopEnabled(), null);
+    return pool.executeAsync(op);
+  }
                                                                
   private GetOp() {
     // no instances allowed
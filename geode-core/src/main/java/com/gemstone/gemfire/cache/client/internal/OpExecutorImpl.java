@@ -31,6 +31,7 @@ import com.gemstone.gemfire.cache.execute.FunctionException;
 import com.gemstone.gemfire.cache.execute.FunctionInvocationTargetException;
 import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.distributed.internal.ServerLocation;
+import com.gemstone.gemfire.internal.cache.OperationLatencyStats;
 import com.gemstone.gemfire.internal.cache.PoolManagerImpl;
 import com.gemstone.gemfire.internal.cache.PutAllPartialResultException;
 import com.gemstone.gemfire.internal.cache.TXManagerImpl;
@@ -159,11 +160,18 @@ public class OpExecutorImpl implements ExecutablePool {
           throw new GemFireIOException("unable to transmit message to server", e);
         }
         catch (Exception e) {
+          // a request the server shed was not processed so it is retried on
+          // every other server however few retries are allowed
+          boolean serverBusy = isServerBusy(e);
           //This method will throw an exception if we need to stop
           //It also unsets the threadlocal connection and notifies
           //the connection manager if there are failures.
-          handleException(e, conn, attempt, attempt >= retries && retries != -1);
+          handleException(e, conn, attempt, !serverBusy && attempt >= retries && retries != -1);
           attemptedServers.add(conn.getServer());
+          if (serverBusy) {
+            conn = borrowConnectionFromIdleServer(e, conn, attempt, attemptedServers);
+            continue;
+          }
           try {
             conn = connectionManager.exchangeConnection(conn, attemptedServers, serverTimeout);
           }
@@ -207,6 +215,30 @@ public class OpExecutorImpl implements ExecutablePool {
     }
   }
 
+  private static boolean isServerBusy(Exception e) {
+    return e instanceof ServerBusyException || e.getCause() instanceof ServerBusyException;
+  }
+
+  /**
+   * Returns a connection to a server that has not been attempted yet, after
+   * the server of the given connection shed a request. That connection is
+   * still good so it goes back to the pool.
+   * @throws ServerBusyException if every server has been attempted
+   */
+  private Connection borrowConnectionFromIdleServer(Exception busy, Connection busyConn,
+      int attempt, Set attemptedServers) {
+    Connection conn;
+    try {
+      conn = connectionManager.borrowConnection(attemptedServers, serverTimeout);
+    }
+    catch (NoAvailableServersException nse) {
+      handleException(busy, busyConn, attempt, true);
+      throw nse;
+    }
+    connectionManager.returnConnection(busyConn);
+    return conn;
+  }
+
   /**
    * execute the given op on the given server. If the server cannot
    * be reached, sends a TXFailoverOp, then retries the given op
@@ -757,6 +789,14 @@ public class OpExecutorImpl implements ExecutablePool {
       exToThrow =(PutAllPartialResultException) e;
       invalidateServer = false;
     }
+    else if (e instanceof ServerBusyException) {
+      // the server shed the request without processing it and is otherwise
+      // healthy so keep the connection and retry on another server
+      title = null;
+      if (finalAttempt) {
+        exToThrow = (ServerBusyException)e;
+      }
+    }
     else {
       Throwable t = e.getCause();
       if ((t instanceof ConnectException)
@@ -767,6 +807,7 @@ public class OpExecutorImpl implements ExecutablePool {
           || (t instanceof CopyException)
           || (t instanceof GemFireSecurityException)
           || (t instanceof ServerOperationException)
+          || (t instanceof ServerBusyException)
           || (t instanceof TransactionException)
           || (t instanceof CancelException)) {
         handleException(t,  conn, retryCount, finalAttempt, timeoutFatal);
@@ -933,6 +974,20 @@ public class OpExecutorImpl implements ExecutablePool {
 
   private Object executeWithPossibleReAuthentication(Connection conn, Op op)
       throws Exception {
+    OperationLatencyStats latencyStats = this.pool == null ? null : this.pool.getLatencyStats();
+    if (latencyStats == null) {
+      return basicExecuteWithPossibleReAuthentication(conn, op);
+    }
+    long start = System.nanoTime();
+    try {
+      return basicExecuteWithPossibleReAuthentication(conn, op);
+    } finally {
+      latencyStats.record(op.getClass(), System.nanoTime() - start);
+    }
+  }
+
+  private Object basicExecuteWithPossibleReAuthentication(Connection conn, Op op)
+      throws Exception {
     try {
       return conn.execute(op);
 
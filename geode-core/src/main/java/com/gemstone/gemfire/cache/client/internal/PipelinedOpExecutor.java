@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.cache.client.ServerOperationException;
+import com.gemstone.gemfire.cache.client.internal.pooling.ConnectionManager;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ServerConnection;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Executes ops without making the calling thread wait for their replies.
+ * <p>
+ * The calling thread sends the op's message on one of a few connections that
+ * are borrowed from the pool and kept, and gets back a future. Each thread
+ * always sends on the same connection. A server processes the messages it
+ * receives on a connection one at a time, so the replies come back in the
+ * order the ops were sent. Each connection has a reader thread that reads
+ * them in that order and completes their futures, so no thread is handed
+ * the reply. Dependent actions added to a future without an executor run in
+ * the reader thread and must not block. An action that executes another op
+ * and waits for it would stop the reader from reading the reply it waits
+ * for; such actions must be added with an executor of their own.
+ * <p>
+ * Ops are not retried. If a connection fails then every op waiting for a
+ * reply on it fails with a {@link ServerConnectivityException}, and the
+ * connection is replaced by the next op sent.
+ *
+ * @since Geode 1.0
+ */
+public class PipelinedOpExecutor {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of connections ops are pipelined on.
+   */
+  public static final int CONNECTIONS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "PIPELINED_OP_CONNECTIONS", 2);
+
+  /**
+   * The maximum number of ops waiting for a reply. Threads sending more ops
+   * wait until one of the replies is read.
+   */
+  public static final int MAX_PENDING = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "PIPELINED_OP_MAX_PENDING", 1000);
+
+  private final PoolImpl pool;
+  private final ConnectionManager manager;
+  private final long acquireTimeout;
+  private final int socketBufferSize;
+  private final PipelinedConnection[] connections;
+  private final Semaphore pendingPermits = new Semaphore(MAX_PENDING);
+  private final ThreadGroup threadGroup;
+  private volatile boolean closed;
+  private volatile boolean requiresCredentials;
+
+  public PipelinedOpExecutor(PoolImpl pool, ConnectionManager manager,
+      long acquireTimeout, int socketBufferSize) {
+    this.pool = pool;
+    this.manager = manager;
+    this.acquireTimeout = acquireTimeout;
+    this.socketBufferSize = socketBufferSize;
+    this.connections = new PipelinedConnection[Math.max(1, CONNECTIONS)];
+    this.threadGroup = LoggingThreadGroup.createThreadGroup(
+        "Pipelined op readers for pool " + pool.getName(), logger);
+  }
+
+  /**
+   * Sends the given op and returns a future that is completed with its
+   * result. If the servers require credentials then the op is executed by the
+   * pool in the calling thread instead.
+   */
+  public CompletableFuture<Object> execute(AbstractOp op) {
+    CompletableFuture<Object> result = new CompletableFuture<Object>();
+    if (this.requiresCredentials || this.pool.getMultiuserAuthentication()) {
+      executeInline(op, result);
+      return result;
+    }
+    try {
+      this.pendingPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.pool.getCancelCriterion().checkCancelInProgress(e);
+      result.completeExceptionally(e);
+      return result;
+    }
+    boolean sent = false;
+    try {
+      PipelinedConnection cnx = getConnection();
+      if (cnx == null) {
+        executeInline(op, result);
+      } else {
+        cnx.send(op, result);
+        sent = true;
+      }
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    } finally {
+      if (!sent) {
+        this.pendingPermits.release();
+      }
+    }
+    return result;
+  }
+
+  private void executeInline(AbstractOp op, CompletableFuture<Object> result) {
+    try {
+      result.complete(this.pool.execute(op));
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Returns a working connection to send the next op on, borrowing one from
+   * the pool if needed, or null if the servers require credentials.
+   * A thread always uses the same connection so that the server sees its ops
+   * in the order they were sent; ops applied out of order would be dropped
+   * as duplicates by the server's event tracking.
+   */
+  private PipelinedConnection getConnection() {
+    int index = (int)(Thread.currentThread().getId() % this.connections.length);
+    synchronized (this.connections) {
+      PipelinedConnection cnx = this.connections[index];
+      if (cnx != null && !cnx.hasFailed()) {
+        return cnx;
+      }
+      checkClosed();
+    }
+    // borrowing may have to wait for a connection to be created, so the
+    // lock is not held and other threads can keep sending on theirs
+    Connection pooled = this.manager.borrowConnection(this.acquireTimeout);
+    if (pooled.getServer().getRequiresCredentials()) {
+      this.requiresCredentials = true;
+      this.manager.returnConnection(pooled);
+      return null;
+    }
+    PipelinedConnection cnx;
+    try {
+      cnx = new PipelinedConnection(pooled, ServerConnection.allocateCommBuffer(
+          this.socketBufferSize, pooled.getSocket()));
+    } catch (RuntimeException e) {
+      this.manager.returnConnection(pooled);
+      throw e;
+    }
+    PipelinedConnection existing;
+    synchronized (this.connections) {
+      existing = this.connections[index];
+      if (!this.closed && (existing == null || existing.hasFailed())) {
+        this.connections[index] = cnx;
+        cnx.start();
+        return cnx;
+      }
+    }
+    // closed or another thread replaced the connection first
+    cnx.discard();
+    checkClosed();
+    return existing;
+  }
+
+  /**
+   * Throws if the executor has been closed.
+   */
+  private void checkClosed() {
+    if (this.closed) {
+      this.pool.getCancelCriterion().checkCancelInProgress(null);
+      throw new ServerConnectivityException("The pool " + this.pool.getName() + " is closed");
+    }
+  }
+
+  /**
+   * Fails all ops waiting for replies and returns the connections to the pool.
+   */
+  public void close() {
+    PipelinedConnection[] toFail;
+    synchronized (this.connections) {
+      this.closed = true;
+      toFail = this.connections.clone();
+    }
+    for (PipelinedConnection cnx : toFail) {
+      if (cnx != null) {
+        cnx.fail(new ServerConnectivityException("The pool " + this.pool.getName() + " is closed"));
+      }
+    }
+  }
+
+  /**
+   * Completes the given future with the result of an op, or with the
+   * exception it failed with if <code>failure</code> is not null. An
+   * exception thrown by a dependent action is logged so that it does not
+   * stop the reader.
+   */
+  private static void complete(CompletableFuture<Object> result, Object value, Throwable failure) {
+    try {
+      if (failure == null) {
+        result.complete(value);
+      } else {
+        result.completeExceptionally(failure);
+      }
+    } catch (RuntimeException e) {
+      logger.warn("A dependent action of a pipelined op failed", e);
+    }
+  }
+
+  private static final class PendingOp {
+    final AbstractOp op;
+    final CompletableFuture<Object> result;
+    final long start;
+
+    PendingOp(AbstractOp op, CompletableFuture<Object> result, long start) {
+      this.op = op;
+      this.result = result;
+      this.start = start;
+    }
+  }
+
+  /**
+   * A pooled connection with the ops sent on it that are waiting for a reply
+   * and the thread that reads the replies.
+   */
+  private final class PipelinedConnection implements Runnable {
+    private final Connection cnx;
+    private final ByteBuffer readBuffer;
+    private final LinkedBlockingQueue<PendingOp> pending = new LinkedBlockingQueue<PendingOp>();
+    private final Thread reader;
+    /** guarded by this */
+    private RuntimeException failure;
+
+    PipelinedConnection(Connection cnx, ByteBuffer readBuffer) {
+      this.cnx = cnx;
+      this.readBuffer = readBuffer;
+      this.reader = new Thread(threadGroup, this, "Pipelined op reader for " + cnx.getServer());
+      this.reader.setDaemon(true);
+    }
+
+    void start() {
+      this.reader.start();
+    }
+
+    /**
+     * Returns the connection to the pool without ever having used it.
+     */
+    void discard() {
+      manager.returnConnection(this.cnx);
+      ServerConnection.releaseCommBuffer(this.readBuffer);
+    }
+
+    synchronized boolean hasFailed() {
+      return this.failure != null;
+    }
+
+    /**
+     * Sends the op's message; the reply is read by the reader thread.
+     */
+    void send(AbstractOp op, CompletableFuture<Object> result) {
+      synchronized (this) {
+        if (this.failure == null) {
+          try {
+            long start = op.attemptSendPipelined(this.cnx);
+            this.pending.add(new PendingOp(op, result, start));
+            return;
+          } catch (Exception e) {
+            fail(toRuntimeException(e));
+          }
+        }
+        throw this.failure;
+      }
+    }
+
+    /**
+     * Stops sending on this connection and destroys it. The reader fails the
+     * ops still waiting for a reply and returns the connection to the pool.
+     */
+    void fail(RuntimeException cause) {
+      synchronized (this) {
+        if (this.failure != null) {
+          return;
+        }
+        this.failure = cause;
+      }
+      this.cnx.destroy();
+      this.reader.interrupt();
+    }
+
+    public void run() {
+      try {
+        for (;;) {
+          PendingOp p;
+          try {
+            p = this.pending.take();
+          } catch (InterruptedException e) {
+            if (hasFailed()) {
+              break;
+            }
+            continue;
+          }
+          try {
+            Object value = p.op.attemptReadPipelined(this.cnx, this.readBuffer, p.start);
+            pendingPermits.release();
+            complete(p.result, value, null);
+          } catch (ServerOperationException e) {
+            // the whole reply was read so the connection can still be used
+            pendingPermits.release();
+            complete(p.result, null, e);
+          } catch (Exception e) {
+            RuntimeException failure = toRuntimeException(e);
+            pendingPermits.release();
+            complete(p.result, null, failure);
+            fail(failure);
+            break;
+          } catch (Error e) {
+            pendingPermits.release();
+            complete(p.result, null, e);
+            fail(new ServerConnectivityException("Pipelined op failed", e));
+            throw e;
+          }
+        }
+      } finally {
+        RuntimeException failure;
+        synchronized (this) {
+          failure = this.failure;
+        }
+        for (PendingOp p = this.pending.poll(); p != null; p = this.pending.poll()) {
+          pendingPermits.release();
+          complete(p.result, null, failure);
+        }
+        Thread.interrupted(); // clear the interrupt done by fail
+        manager.returnConnection(this.cnx);
+        ServerConnection.releaseCommBuffer(this.readBuffer);
+        if (logger.isDebugEnabled()) {
+          logger.debug("Stopped pipelining ops on {}", this.cnx, failure);
+        }
+      }
+    }
+
+    private RuntimeException toRuntimeException(Exception e) {
+      if (e instanceof ServerConnectivityException) {
+        return (ServerConnectivityException)e;
+      }
+      if (e instanceof IOException || !(e instanceof RuntimeException)) {
+        return new ServerConnectivityException("Pipelined op failed on " + this.cnx.getServer(), e);
+      }
+      return (RuntimeException)e;
+    }
+  }
+}
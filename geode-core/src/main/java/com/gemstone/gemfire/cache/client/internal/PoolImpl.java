@@ -48,6 +48,7 @@ import org.apache.logging.log4j.Logger;
 import java.net.InetSocketAddress;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -84,6 +85,7 @@ public class PoolImpl implements InternalPool {
   private final int readTimeout;
   private final boolean subscriptionEnabled;
   private final boolean prSingleHopEnabled;
+  private final boolean valueCompression;
   private final int subscriptionRedundancyLevel;
   private final int subscriptionMessageTrackingTimeout;
   private final int subscriptionAckInterval;
@@ -108,8 +110,10 @@ public class PoolImpl implements InternalPool {
   protected final InternalLogWriter securityLogWriter;
   protected volatile boolean destroyed;
   private final PoolStats stats;
+  private final OperationLatencyStats latencyStats;
   private ScheduledExecutorService backgroundProcessor; 
   private final OpExecutorImpl executor;
+  private volatile PipelinedOpExecutor pipelinedExecutor;
   private final RegisterInterestTracker riTracker = new RegisterInterestTracker();
   private final InternalDistributedSystem dsys; 
 
@@ -171,6 +175,7 @@ public class PoolImpl implements InternalPool {
     this.statisticInterval = attributes.getStatisticInterval();
     this.subscriptionEnabled = attributes.getSubscriptionEnabled();
     this.prSingleHopEnabled = attributes.getPRSingleHopEnabled();
+    this.valueCompression = attributes.getValueCompression();
     this.subscriptionRedundancyLevel = attributes.getSubscriptionRedundancy();
     this.subscriptionMessageTrackingTimeout = attributes.getSubscriptionMessageTrackingTimeout();
     this.subscriptionAckInterval = attributes.getSubscriptionAckInterval();
@@ -215,6 +220,9 @@ public class PoolImpl implements InternalPool {
     this.stats = this.startDisabled
       ? null
       : new PoolStats(statFactory, getName()+"->"+(serverGroup==null || serverGroup.equals("") ? "[any servers]" : "["+getServerGroup()+"]"));
+    this.latencyStats = this.startDisabled
+      ? null
+      : OperationLatencyStats.createClientStats(statFactory, getName());
     
     source = getSourceImpl(((PoolFactoryImpl.PoolAttributes)attributes).locatorCallback);
     endpointManager = new EndpointManagerImpl(name, ds,this.cancelCriterion, this.stats);
@@ -270,6 +278,7 @@ public class PoolImpl implements InternalPool {
       && getSubscriptionAckInterval() ==            p.getSubscriptionAckInterval()
       && getServerGroup().equals(                   p.getServerGroup())
       && getMultiuserAuthentication() ==         p.getMultiuserAuthentication()
+      && getValueCompression() ==                   p.getValueCompression()
       && getLocators().equals(                      p.getLocators())
       && getServers().equals(                       p.getServers());
   }
@@ -399,6 +408,10 @@ public class PoolImpl implements InternalPool {
   public boolean getPRSingleHopEnabled() {
     return this.prSingleHopEnabled;
   }
+
+  public boolean getValueCompression() {
+    return this.valueCompression;
+  }
   
   public int getSubscriptionRedundancy() {
     return this.subscriptionRedundancyLevel;
@@ -543,6 +556,14 @@ public class PoolImpl implements InternalPool {
         logger.error(LocalizedMessage.create(LocalizedStrings.PoolImpl_ERROR_ENCOUNTERED_WHILE_STOPPING_SUBSCRIPTION_MANAGER), e);
       }
       
+      try {
+        if (this.pipelinedExecutor != null) {
+          this.pipelinedExecutor.close();
+        }
+      } catch(RuntimeException e) {
+        logger.error(LocalizedMessage.create(LocalizedStrings.PoolImpl_ERROR_ENCOUNTERED_WHILE_STOPPING_CONNECTION_MANAGER), e);
+      }
+
       try {
         if(this.manager != null) {
           manager.close(keepAlive);
@@ -561,6 +582,9 @@ public class PoolImpl implements InternalPool {
         if(this.stats!=null) {
           this.stats.close();
         }
+        if(this.latencyStats!=null) {
+          this.latencyStats.close();
+        }
       } catch(RuntimeException e) {
         logger.error(LocalizedMessage.create(LocalizedStrings.PoolImpl_ERROR_WHILE_CLOSING_STATISTICS), e);
       }
@@ -679,6 +703,14 @@ public class PoolImpl implements InternalPool {
     return this.stats;
   }
 
+  /**
+   * Returns the latency histograms of the operations this pool executes or
+   * null if they are not being recorded.
+   */
+  public OperationLatencyStats getLatencyStats() {
+    return this.latencyStats;
+  }
+
 
   /**
    * Execute the given op on the servers that this pool connects to.
@@ -700,6 +732,34 @@ public class PoolImpl implements InternalPool {
     return executor.execute(op);
   }
 
+  /**
+   * Send the given op to one of the servers that this pool connects to
+   * without waiting for the reply. The op is not retried if it fails.
+   * The future is completed by the thread that reads the reply, so actions
+   * that depend on it must not block unless they are given an executor.
+   * @param op the operation to execute
+   * @return a future completed with the result of execution, if any, by the
+   * thread that reads the reply
+   * @since Geode 1.0
+   */
+  public CompletableFuture<Object> executeAsync(AbstractOp op) {
+    PipelinedOpExecutor pipelined = this.pipelinedExecutor;
+    if (pipelined == null) {
+      synchronized (this) {
+        pipelined = this.pipelinedExecutor;
+        if (pipelined == null) {
+          pipelined = new PipelinedOpExecutor(this, this.manager,
+              this.freeConnectionTimeout, this.socketBufferSize);
+          if (this.destroyed) {
+            pipelined.close();
+          }
+          this.pipelinedExecutor = pipelined;
+        }
+      }
+    }
+    return pipelined.execute(op);
+  }
+
   /**
    * Execute the given op on the servers that this pool connects to.
    * This method is responsible for retrying the op if an attempt fails.
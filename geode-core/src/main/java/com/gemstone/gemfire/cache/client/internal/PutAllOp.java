@@ -37,6 +37,7 @@ import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.CachedDeserializable;
 import com.gemstone.gemfire.internal.cache.EventID;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.PoolStats;
 import com.gemstone.gemfire.internal.cache.PutAllPartialResultException;
 import com.gemstone.gemfire.internal.cache.PutAllPartialResultException.PutAllPartialResult;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
@@ -110,6 +111,20 @@ public class PutAllOp {
       return (VersionedObjectList)pool.execute(op);
     }
 
+    PoolStats stats = ((PoolImpl)pool).getStats();
+    long start = stats.startSingleHopBulkOp(serverToFilterMap.size());
+    try {
+      return executeSingleHop(pool, region, map, eventId, skipCallbacks,
+          retryAttempts, callbackArg, cms, serverToFilterMap);
+    } finally {
+      stats.endSingleHopBulkOp(start);
+    }
+  }
+
+  private static VersionedObjectList executeSingleHop(ExecutablePool pool, Region region, Map map, EventID eventId,
+      boolean skipCallbacks, int retryAttempts, Object callbackArg,
+      ClientMetadataService cms, Map<ServerLocation, HashSet> serverToFilterMap)
+  {
     List callableTasks = constructAndGetPutAllTasks(region, map,
         eventId, skipCallbacks, serverToFilterMap, (PoolImpl)pool, callbackArg);
 
@@ -192,6 +207,7 @@ public class PutAllOp {
         }
 
         try {
+          ((PoolImpl)pool).getStats().incSingleHopBulkOpRetries(1);
           VersionedObjectList v = PutAllOp.execute(pool, region, newMap, eventId, skipCallbacks, true, callbackArg);
           if (v == null) {
             result.addKeys(keySet);
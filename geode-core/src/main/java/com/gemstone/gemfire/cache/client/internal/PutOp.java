@@ -29,14 +29,15 @@ import com.gemstone.gemfire.internal.cache.CachedDeserializable;
 import com.gemstone.gemfire.internal.cache.EntryEventImpl;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
-import com.gemstone.gemfire.internal.cache.tier.sockets.ChunkedMessage;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Part;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ServerQueueStatus;
 import com.gemstone.gemfire.internal.cache.versions.VersionTag;
 import com.gemstone.gemfire.internal.logging.LogService;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -143,6 +144,26 @@ public class PutOp {
     pool.executeOn(con, op);
   }
 
+  /**
+   * Sends a region put to a server using a pipelined connection from the
+   * given pool without waiting for the reply.
+   * @param pool the pool to use to communicate with the server.
+   * @param region the region to do the put on
+   * @param key the entry key to do the put on
+   * @param value the entry value to put
+   * @param event the event for this put
+   * @param callbackArg an optional callback arg to pass to any cache callbacks
+   * @return a future for the result of the put
+   */
+  public static CompletableFuture<Object> executeAsync(PoolImpl pool,
+      LocalRegion region, Object key, Object value, EntryEventImpl event,
+      Object callbackArg) {
+    AbstractOp op = new PutOpImpl(region, key, value, null, event,
+        event.getOperation(), false, null, callbackArg,
+        false/*donot send full obj; send delta*/, pool.getPRSingleHopEnabled());
+    return pool.executeAsync(op);
+  }
+
   public static final byte HAS_OLD_VALUE_FLAG = 0x01;
   public static final byte OLD_VALUE_IS_OBJECT_FLAG = 0x02;
   public static final byte HAS_VERSION_TAG = 0x04;
@@ -180,6 +201,9 @@ public class PutOp {
     private boolean requireOldValue;
 
     private Object expectedOldValue;
+
+    /** index of the full value part, or -1 if a delta is sent instead */
+    private int valuePartIndex = -1;
     
     public PutOpImpl(String regionName , Object key, Object value, byte[] deltaBytes, 
         EntryEventImpl event,
@@ -219,6 +243,7 @@ public class PutOp {
           }
         }
         else if (value instanceof CachedDeserializable) {
+          this.valuePartIndex = expectedOldValue != null ? 6 : 5;
           CachedDeserializable cd = (CachedDeserializable) value;
           if (!cd.isSerialized()) {
             // it is a byte[]
@@ -236,6 +261,7 @@ public class PutOp {
           }
         }
         else {
+          this.valuePartIndex = expectedOldValue != null ? 6 : 5;
           getMessage().addObjPart(Boolean.FALSE);
           getMessage().addObjPart(value);
         }
@@ -282,6 +308,7 @@ public class PutOp {
         }
       }
       else if (value instanceof CachedDeserializable) {
+        this.valuePartIndex = expectedOldValue != null ? 6 : 5;
         CachedDeserializable cd = (CachedDeserializable) value;
         if (!cd.isSerialized()) {
           // it is a byte[]
@@ -299,6 +326,7 @@ public class PutOp {
         }
       }
       else {
+        this.valuePartIndex = expectedOldValue != null ? 6 : 5;
         getMessage().addObjPart(Boolean.FALSE);
         getMessage().addObjPart(value);
       }
@@ -459,6 +487,13 @@ public class PutOp {
 
     @Override
     protected void sendMessage(Connection cnx) throws Exception {
+      if (this.valuePartIndex >= 0) {
+        // each attempt may go to a server that does or does not accept
+        // compressed values
+        ServerQueueStatus status = cnx.getQueueStatus();
+        getMessage().getPart(this.valuePartIndex).setSendCompressed(
+            status != null && status.acceptsCompression());
+      }
       if (!this.isMetaRegionPutOp) {
         super.sendMessage(cnx);
       } else {
@@ -503,48 +538,6 @@ public class PutOp {
       return "PutOp:"+key;
     }
     
- /**
-   * Attempts to read a response to this operation by reading it from the given
-   * connection, and returning it.
-   * 
-   * @param cnx
-   *                the connection to read the response from
-   * @return the result of the operation or
-   *         <code>null</code if the operation has no result.
-     * @throws Exception if the execute failed
-   */
-    @Override
-    protected Object attemptReadResponse(Connection cnx) throws Exception
-    {
-      Message msg = createResponseMessage();
-      if (msg != null) {
-        msg.setComms(cnx.getSocket(), cnx.getInputStream(), cnx
-            .getOutputStream(), cnx.getCommBuffer(), cnx.getStats());
-        if (msg instanceof ChunkedMessage) {
-          try {
-            return processResponse(msg, cnx);
-          }
-          finally {
-            msg.unsetComms();
-            processSecureBytes(cnx, msg);
-          }
-        }
-        else {
-          try {
-            msg.recv();
-          }
-          finally {
-            msg.unsetComms();
-            processSecureBytes(cnx, msg);
-          }
-          return processResponse(msg, cnx);
-        }
-      }
-      else {
-        return null;
-      }
-    }
-
     void setMetaRegionPutOp(boolean bool) {
       this.isMetaRegionPutOp = bool;
     }
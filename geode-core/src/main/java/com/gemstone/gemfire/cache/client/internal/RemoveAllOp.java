@@ -35,6 +35,7 @@ import com.gemstone.gemfire.distributed.internal.ServerLocation;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.EventID;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.PoolStats;
 import com.gemstone.gemfire.internal.cache.PutAllPartialResultException;
 import com.gemstone.gemfire.internal.cache.PutAllPartialResultException.PutAllPartialResult;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
@@ -93,7 +94,6 @@ public class RemoveAllOp {
                              EventID eventId, 
                              int retryAttempts, Object callbackArg)
   {
-    final boolean isDebugEnabled = logger.isDebugEnabled();
     ClientMetadataService cms = ((LocalRegion)region).getCache()
         .getClientMetadataService();
 
@@ -107,6 +107,21 @@ public class RemoveAllOp {
       return (VersionedObjectList)pool.execute(op);
     }
 
+    PoolStats stats = ((PoolImpl)pool).getStats();
+    long start = stats.startSingleHopBulkOp(serverToFilterMap.size());
+    try {
+      return executeSingleHop(pool, region, keys, eventId,
+          retryAttempts, callbackArg, cms, serverToFilterMap);
+    } finally {
+      stats.endSingleHopBulkOp(start);
+    }
+  }
+
+  private static VersionedObjectList executeSingleHop(ExecutablePool pool, Region region, Collection<Object> keys,
+      EventID eventId, int retryAttempts, Object callbackArg,
+      ClientMetadataService cms, Map<ServerLocation, HashSet> serverToFilterMap)
+  {
+    final boolean isDebugEnabled = logger.isDebugEnabled();
     List callableTasks = constructAndGetRemoveAllTasks(region,
         eventId, serverToFilterMap, (PoolImpl)pool, callbackArg);
 
@@ -181,6 +196,7 @@ public class RemoveAllOp {
         }
         Collection<Object> newKeys = serverToFilterMap.get(failedServer);
         try {
+          ((PoolImpl)pool).getStats().incSingleHopBulkOpRetries(1);
           VersionedObjectList v = RemoveAllOp.execute(pool, region, newKeys, eventId, true, callbackArg);
           if (v == null) {
             result.addKeys(newKeys);
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -112,8 +113,38 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     return GetOp.execute(this.pool, this.region, key, callbackArg, this.pool.getPRSingleHopEnabled(), clientEvent);
   }
 
-  
-  
+
+  /**
+   * Sends a get to a server without waiting for the reply. Must not be used
+   * in a transaction.
+   * @return a future for the value found by the get if any
+   */
+  public CompletableFuture<Object> getAsync(Object key, Object callbackArg) {
+    return GetOp.executeAsync((PoolImpl)this.pool, this.region, key, callbackArg);
+  }
+
+  /**
+   * Sends a put to a server without waiting for the reply. Must not be used
+   * in a transaction or for a Delta value.
+   * @return a future for the result of the put
+   */
+  public CompletableFuture<Object> putAsync(Object key, Object value,
+      EntryEventImpl event, Object callbackArg) {
+    return PutOp.executeAsync((PoolImpl)this.pool, this.region, key, value,
+        event, callbackArg);
+  }
+
+  /**
+   * Sends a getAll to a server without waiting for the reply. Must not be
+   * used in a transaction.
+   * @return a future for the values found by the getAll
+   */
+  public CompletableFuture<VersionedObjectList> getAllAsync(List keys,
+      Object callback) {
+    return GetAllOp.executeAsync((PoolImpl)this.pool, this.regionName, keys,
+        callback);
+  }
+
   public int size() {
     return SizeOp.execute(this.pool, this.regionName);
   }
@@ -16,17 +16,21 @@
  */
 package com.gemstone.gemfire.cache.client.internal;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -41,6 +45,7 @@ import com.gemstone.gemfire.cache.execute.Function;
 import com.gemstone.gemfire.cache.execute.FunctionException;
 import com.gemstone.gemfire.cache.execute.FunctionInvocationTargetException;
 import com.gemstone.gemfire.cache.execute.ResultCollector;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.distributed.internal.ServerLocation;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.PutAllPartialResultException;
@@ -67,6 +72,26 @@ public class SingleHopClientExecutor {
         }
       });
 
+  /**
+   * The maximum number of per-server getAll, putAll and removeAll requests
+   * that may be running in {@link #execService} at once, across all pools.
+   * Requests beyond this are run in the thread that issued the bulk operation,
+   * so a burst of bulk operations against many servers can not create an
+   * unbounded number of threads.
+   */
+  static final int MAX_BULK_OP_THREADS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "SingleHopClientExecutor.MAX_BULK_OP_THREADS", 64);
+
+  private static final Semaphore bulkOpPermits = new Semaphore(MAX_BULK_OP_THREADS);
+
+  /**
+   * Returns how many more bulk operation requests may be handed to
+   * {@link #execService} now.
+   */
+  static int getAvailableBulkOpPermits() {
+    return bulkOpPermits.availablePermits();
+  }
+
   static void submitAll(List callableTasks) {
     if (callableTasks != null && !callableTasks.isEmpty()) {
       List futures = null;
@@ -232,14 +257,11 @@ public class SingleHopClientExecutor {
       boolean anyPartialResults = false;
       List futures = null;
       try {
-        futures = execService.invokeAll(callableTasks);
+        futures = invokeAllBounded(callableTasks);
       }
       catch (RejectedExecutionException rejectedExecutionEx) {
         throw rejectedExecutionEx;
       }
-      catch (InterruptedException e) {
-        throw new InternalGemFireException(e.getMessage());
-      }
       if (futures != null) {
         Iterator futureItr = futures.iterator();
         Iterator taskItr = callableTasks.iterator();
@@ -323,14 +345,11 @@ public class SingleHopClientExecutor {
       Map<ServerLocation, Object> resultMap = new HashMap<ServerLocation, Object>();
       List futures = null;
       try {
-        futures = execService.invokeAll(callableTasks);
+        futures = invokeAllBounded(callableTasks);
       }
       catch (RejectedExecutionException rejectedExecutionEx) {
         throw rejectedExecutionEx;
       }
-      catch (InterruptedException e) {
-        throw new InternalGemFireException(e.getMessage());
-      }
       if (futures != null) {
         Iterator futureItr = futures.iterator();
         Iterator taskItr = callableTasks.iterator();
@@ -399,6 +418,46 @@ public class SingleHopClientExecutor {
     return null;
   }
   
+  /**
+   * Runs the given tasks, at most {@link #MAX_BULK_OP_THREADS} of them in
+   * {@link #execService} at any time, and returns their futures in task
+   * order. The last task, and any task for which no thread is available, is
+   * run in the calling thread once the others have been handed off, so the
+   * caller does useful work instead of just waiting.
+   */
+  static List<Future> invokeAllBounded(List<Callable> callableTasks) {
+    List<Future> futures = new ArrayList<Future>(callableTasks.size());
+    List<FutureTask> localTasks = new ArrayList<FutureTask>();
+    int last = callableTasks.size() - 1;
+    for (int i = 0; i <= last; i++) {
+      final Callable task = callableTasks.get(i);
+      if (i < last && bulkOpPermits.tryAcquire()) {
+        try {
+          futures.add(execService.submit(new Callable() {
+            public Object call() throws Exception {
+              try {
+                return task.call();
+              } finally {
+                bulkOpPermits.release();
+              }
+            }
+          }));
+        } catch (RejectedExecutionException e) {
+          bulkOpPermits.release();
+          throw e;
+        }
+      } else {
+        FutureTask local = new FutureTask(task);
+        localTasks.add(local);
+        futures.add(local);
+      }
+    }
+    for (FutureTask local : localTasks) {
+      local.run();
+    }
+    return futures;
+  }
+
   static void submitTask(Runnable task) {
     execService.submit(task);
   }
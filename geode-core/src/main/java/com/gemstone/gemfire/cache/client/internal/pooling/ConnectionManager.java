@@ -67,6 +67,24 @@ public interface ConnectionManager {
   Connection borrowConnection(ServerLocation server, long aquireTimeout,boolean onlyUseExistingCnx)
       throws AllConnectionsInUseException, NoAvailableServersException;
 
+  /**
+   * Borrow an existing idle connection or create a new one to a server that
+   * is not in the list of excluded servers. Like
+   * {@link #exchangeConnection} this may exceed the maximum number of
+   * connections.
+   *
+   * @param excludedServers
+   *                servers to exclude when looking for a connection
+   * @param aquireTimeout
+   *                The amount of time to wait for a connection to become
+   *                available.
+   * @return A connection to use.
+   * @throws NoAvailableServersException
+   *                 if we can't connect to any server that is not excluded
+   */
+  Connection borrowConnection(Set/* <ServerLocation> */excludedServers, long aquireTimeout)
+      throws NoAvailableServersException;
+
   /**
    * Return a connection to the pool. The connection should not be
    * used after it is returned.
@@ -240,6 +240,68 @@ public class ConnectionManagerImpl implements ConnectionManager {
     return connection;
   }
   
+  public Connection borrowConnection(Set/* <ServerLocation> */excludedServers, long acquireTimeout)
+      throws NoAvailableServersException {
+    lock.lock();
+    try {
+      if(shuttingDown) {
+        throw new PoolCancelledException();
+      }
+      for(Iterator itr = availableConnections.iterator(); itr.hasNext(); ) {
+        PooledConnection nextConnection = (PooledConnection) itr.next();
+        if(!excludedServers.contains(nextConnection.getServer())) {
+          itr.remove();
+          try {
+            nextConnection.activate();
+            return nextConnection;
+          }
+          catch (ConnectionDestroyedException ex) {
+            // someone else already destroyed this connection so ignore it
+            // but remove it from availableConnections
+          }
+        }
+      }
+      // WARNING: like exchangeConnection we may be going over maxConnections here
+      // We need to create a connection. Reserve space for it.
+      connectionCount++;
+    }
+    finally {
+      lock.unlock();
+    }
+
+    PooledConnection connection = null;
+    try {
+      Connection plainConnection = connectionFactory.createClientToServerConnection(excludedServers);
+      connection = addConnection(plainConnection);
+    }
+    catch(GemFireSecurityException e) {
+      throw new ServerOperationException(e);
+    }
+    catch(ServerRefusedConnectionException srce) {
+      throw new NoAvailableServersException(srce);
+    }
+    finally {
+      //if we failed, release the space we reserved for our connection
+      if(connection == null) {
+        lock.lock();
+        try {
+          --connectionCount;
+          if(connectionCount < minConnections) {
+            startBackgroundPrefill();
+          }
+        }
+        finally {
+          lock.unlock();
+        }
+      }
+    }
+
+    if(connection == null) {
+      throw new NoAvailableServersException();
+    }
+    return connection;
+  }
+
 //   public Connection borrowConnection(ServerLocation server, long acquireTimeout)
 //       throws AllConnectionsInUseException, NoAvailableServersException {
 //     return borrowConnection(server, acquireTimeout, false);
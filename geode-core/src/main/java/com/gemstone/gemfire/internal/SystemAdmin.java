@@ -1533,6 +1533,7 @@ public class SystemAdmin {
         + "  -maxOplogSize=<long> causes the oplogs created by compaction to be no larger than the specified size in megabytes.");
     helpMap.put("compact-disk-store",
                 "Compacts an offline disk store. Compaction removes all unneeded records from the persistent files.\n"
+                + "Oplogs not in the value format selected by the gemfire.disk.checksumValues system property are rewritten in that format.\n"
                 + "  -maxOplogSize=<long> causes the oplogs created by compaction to be no larger than the specified size in megabytes."); 
     helpMap.put("compact-all-disk-stores",
                 "Connects to a running system and tells its members to compact their disk stores. " +
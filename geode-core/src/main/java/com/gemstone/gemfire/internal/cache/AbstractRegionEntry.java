@@ -31,6 +31,7 @@ import com.gemstone.gemfire.distributed.internal.DM;
 import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.distributed.internal.membership.InternalDistributedMember;
 import com.gemstone.gemfire.internal.*;
+import com.gemstone.gemfire.internal.cache.compression.CompressedCachedDeserializable;
 import com.gemstone.gemfire.internal.cache.lru.LRUClockNode;
 import com.gemstone.gemfire.internal.cache.lru.NewLRUClockHand;
 import com.gemstone.gemfire.internal.cache.persistence.DiskStoreID;
@@ -1128,7 +1129,7 @@ public abstract class AbstractRegionEntry implements RegionEntry,
   // Instead add them to LeafRegionEntry.cpp
   
   public static class HashRegionEntryCreator implements
-      CustomEntryConcurrentHashMap.HashEntryCreator<Object, Object> {
+      CustomEntryConcurrentHashMap.DefaultKeyHashEntryCreator<Object, Object> {
 
     public HashEntry<Object, Object> newEntry(final Object key, final int hash,
         final HashEntry<Object, Object> next, final Object value) {
@@ -1259,6 +1260,15 @@ public abstract class AbstractRegionEntry implements RegionEntry,
           }
         }
         // else it is has no refCount so just return it as prepared.
+      } else if (val instanceof CompressedCachedDeserializable
+          && ((CompressedCachedDeserializable) val).isCompressedWith(r.getCompressor())) {
+        // The value is already compressed the way this region compresses
+        // values, for example by the client that sent it, so store it as is.
+        byte[] compressedData = ((CompressedCachedDeserializable) val).getCompressedValue();
+        ReferenceCountHelper.setReferenceCountOwner(this);
+        MemoryAllocator ma = MemoryAllocatorImpl.getAllocator();
+        val = ma.allocateAndInitialize(compressedData, true, true);
+        ReferenceCountHelper.setReferenceCountOwner(null);
       } else {
         byte[] data;
         boolean isSerialized = !(val instanceof byte[]);
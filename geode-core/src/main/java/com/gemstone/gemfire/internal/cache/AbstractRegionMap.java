@@ -254,6 +254,14 @@ public abstract class AbstractRegionMap implements RegionMap {
     return re;
   }
 
+  public final RegionEntry getIntKeyEntry(int key) {
+    return (RegionEntry)_getMap().getIntKey(key);
+  }
+
+  public final RegionEntry getLongKeyEntry(long key) {
+    return (RegionEntry)_getMap().getLongKey(key);
+  }
+
   protected RegionEntry getEntry(EntryEventImpl event) {
     return getEntry(event.getKey());
   }
@@ -267,6 +275,9 @@ public abstract class AbstractRegionMap implements RegionMap {
 
   public final RegionEntry putEntryIfAbsent(Object key, RegionEntry re) {
     RegionEntry value = (RegionEntry)_getMap().putIfAbsent(key, re);
+    if (value == null && re instanceof OffHeapKeyRegionEntry) {
+      OffHeapRegionEntryHelper.storeKeyOffHeap((OffHeapKeyRegionEntry) re);
+    }
     if (value == null && (re instanceof OffHeapRegionEntry) 
         && _isOwnerALocalRegion() && _getOwner().isThisRegionBeingClosedOrDestroyed()) {
       // prevent orphan during concurrent destroy (#48068)
@@ -652,6 +663,9 @@ public abstract class AbstractRegionMap implements RegionMap {
       _getOwner().getDiskRegion().replaceIncompatibleEntry((DiskEntry) oldRe, (DiskEntry) newRe);
     }
     _getMap().put(newRe.getKey(), newRe);
+    if (newRe instanceof OffHeapKeyRegionEntry) {
+      OffHeapRegionEntryHelper.storeKeyOffHeap((OffHeapKeyRegionEntry) newRe);
+    }
   }
 
   @Retained     // Region entry may contain an off-heap value
@@ -1218,6 +1232,9 @@ public abstract class AbstractRegionMap implements RegionMap {
                     continue;
                   }
                   re = (RegionEntry)_getMap().putIfAbsent(event.getKey(), newRe);
+                  if (re == null && newRe instanceof OffHeapKeyRegionEntry) {
+                    OffHeapRegionEntryHelper.storeKeyOffHeap((OffHeapKeyRegionEntry) newRe);
+                  }
                   if (re != null && re != tombstone) {
                     // concurrent change - try again
                     retry = true;
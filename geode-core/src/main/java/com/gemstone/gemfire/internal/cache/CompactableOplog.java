@@ -33,4 +33,11 @@ public interface CompactableOplog {
   public BytesAndBits getBytesAndBits(DiskRegionView dr, DiskId id,
       boolean faultIn, boolean bitOnly);
   public BytesAndBits getNoBuffer(DiskRegion dr, DiskId id);
+  /**
+   * Returns how much compacting this oplog is worth compared to compacting
+   * other oplogs.
+   * 
+   * @see DiskStoreImpl#compactionBenefit
+   */
+  public double getCompactionBenefit();
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the bytes a compactor copies so that on average it does not copy more
+ * than a fixed number of bytes per second. Each copy is charged against the
+ * budget after it is done; the compactor then waits for as long as it takes
+ * the budget to pay for it before it copies the next entry. Time the
+ * compactor was idle is not saved up, so compaction never bursts above its
+ * budget.
+ *
+ * @since Geode 1.0
+ */
+class CompactionThrottle {
+
+  private final long bytesPerSecond;
+
+  /** The time at which the bytes charged so far are paid for */
+  private long paidUntil;
+
+  /**
+   * @param bytesPerSecond
+   *          the budget; 0 or less does not throttle at all
+   */
+  CompactionThrottle(long bytesPerSecond) {
+    this.bytesPerSecond = bytesPerSecond;
+  }
+
+  boolean isEnabled() {
+    return this.bytesPerSecond > 0;
+  }
+
+  /**
+   * Charges the given number of copied bytes against the budget.
+   *
+   * @param now
+   *          the current {@link System#nanoTime}
+   * @return how many nanoseconds to wait before copying more
+   */
+  synchronized long charge(long bytes, long now) {
+    if (!isEnabled() || bytes <= 0) {
+      return 0;
+    }
+    if (this.paidUntil - now < 0) {
+      this.paidUntil = now;
+    }
+    this.paidUntil += bytes * TimeUnit.SECONDS.toNanos(1) / this.bytesPerSecond;
+    return this.paidUntil - now;
+  }
+}
@@ -66,6 +66,7 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
@@ -104,6 +105,20 @@ public class DiskStoreImpl implements DiskStore {
 
   public static final String COMPLETE_COMPACTION_BEFORE_TERMINATION_PROPERTY_NAME =
       DistributionConfig.GEMFIRE_PREFIX + "disk.completeCompactionBeforeTermination";
+
+  /**
+   * The number of value bytes per second the compactor may copy forward. The
+   * default of 0 lets it copy as fast as it can.
+   */
+  public static final String COMPACTION_BYTES_PER_SECOND_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.compactionBytesPerSecond";
+
+  /**
+   * The cost, in bytes copied, of compacting an oplog regardless of how many
+   * live entries it has: reading its live entry list, deleting its files and
+   * rolling to a new oplog.
+   */
+  static final long COMPACTION_FIXED_COST_BYTES = 64 * 1024;
   
   static final int MINIMUM_DIR_SIZE = 1024;
   
@@ -133,7 +148,43 @@ public class DiskStoreImpl implements DiskStore {
       DiskStoreImpl.RECOVER_VALUES_SYNC_PROPERTY_NAME, false);
   boolean FORCE_KRF_RECOVERY = getBoolean(
       DistributionConfig.GEMFIRE_PREFIX + "disk.FORCE_KRF_RECOVERY", false);
-  
+  public static final String RECOVERY_THREADS_PROPERTY_NAME = DistributionConfig.GEMFIRE_PREFIX + "disk.recoveryThreads";
+  public static final String MAX_PREFETCHED_KRF_BYTES_PROPERTY_NAME = DistributionConfig.GEMFIRE_PREFIX + "disk.maxPrefetchedKrfBytes";
+  /**
+   * The number of threads used to read krfs ahead of their oplog during
+   * recovery and to recover values asynchronously. 1 recovers the values of
+   * all the regions on a single thread.
+   */
+  int RECOVERY_THREADS = Integer.getInteger(RECOVERY_THREADS_PROPERTY_NAME,
+      Math.min(4, Runtime.getRuntime().availableProcessors())).intValue();
+  /**
+   * The most bytes of a krf that are read into memory ahead of its oplog. The
+   * rest of a larger krf is read from the file when its oplog is recovered.
+   */
+  int MAX_PREFETCHED_KRF_BYTES = Integer.getInteger(MAX_PREFETCHED_KRF_BYTES_PROPERTY_NAME,
+      8 * 1024 * 1024).intValue();
+  public static final String MAP_SEALED_OPLOGS_PROPERTY_NAME = DistributionConfig.GEMFIRE_PREFIX + "disk.mapSealedOplogs";
+  /**
+   * If true, values are faulted in from the crf files of oplogs that are no
+   * longer being written through a read-only memory mapping of the file
+   * instead of a seek and read under the oplog's lock.
+   */
+  boolean MAP_SEALED_OPLOGS = getBoolean(MAP_SEALED_OPLOGS_PROPERTY_NAME, false);
+  public static final String CHECKSUM_VALUES_PROPERTY_NAME = DistributionConfig.GEMFIRE_PREFIX + "disk.checksumValues";
+  public static final String COMPRESS_VALUES_PROPERTY_NAME = DistributionConfig.GEMFIRE_PREFIX + "disk.compressValues";
+  /**
+   * If true, new oplogs are written in the checksummed format in which every
+   * value in the crf carries a checksum that is verified whenever the value
+   * is read back. Oplogs already on disk keep the format they were written in.
+   */
+  boolean CHECKSUM_VALUES = getBoolean(CHECKSUM_VALUES_PROPERTY_NAME, false)
+      || getBoolean(COMPRESS_VALUES_PROPERTY_NAME, false);
+  /**
+   * If true, values written to checksummed oplogs are also compressed when
+   * that makes them smaller. Implies {@link #CHECKSUM_VALUES}.
+   */
+  boolean COMPRESS_VALUES = getBoolean(COMPRESS_VALUES_PROPERTY_NAME, false);
+
   public static boolean getBoolean(String sysProp, boolean def) {
     return Boolean.valueOf(System.getProperty(sysProp, Boolean.valueOf(def)
         .toString()));
@@ -307,6 +358,13 @@ public class DiskStoreImpl implements DiskStore {
    */
   private final Map<Long, DiskRecoveryStore> currentAsyncValueRecoveryMap = new HashMap<Long, DiskRecoveryStore>();
 
+  /**
+   * Maps the id of each disk recovery store whose values are being recovered
+   * by more than one thread to the part of the stores one of those threads is
+   * working on. Guarded by currentAsyncValueRecoveryMap.
+   */
+  private final Map<Long, Map<Long, DiskRecoveryStore>> asyncValueRecoveryGroups = new HashMap<Long, Map<Long, DiskRecoveryStore>>();
+
   private final Object asyncValueRecoveryLock = new Object();
 
   /**
@@ -564,33 +622,39 @@ public class DiskStoreImpl implements DiskStore {
     // while we are copying the entry map.
     synchronized (currentAsyncValueRecoveryMap) {
       DiskRegionView drv = lr.getDiskRegionView();
-      if (drv.getRecoveredEntryMap() != null) {
-        PersistentOplogSet oplogSet = getPersistentOplogSet(drv);
+      Map<Long, DiskRecoveryStore> recoveryGroup = this.asyncValueRecoveryGroups.get(drv.getId());
+      synchronized (recoveryGroup != null ? recoveryGroup : currentAsyncValueRecoveryMap) {
+        if (drv.getRecoveredEntryMap() != null) {
+          PersistentOplogSet oplogSet = getPersistentOplogSet(drv);
         
-        // acquire CompactorWriteLock only if the region attributes for the 
-        // real region are different from the place holder region's
-        boolean releaseCompactorWriteLock = false;
-        if (drv.isEntriesMapIncompatible()) {
-          acquireCompactorWriteLock(); // fix bug #51097 to prevent concurrent compaction
-          releaseCompactorWriteLock = true;
-        }
-        try {
-          drv.copyExistingRegionMap(lr);
-          getStats().incUncreatedRecoveredRegions(-1);
-          for (Oplog oplog : oplogSet.getAllOplogs()) {
-            if (oplog != null) {
-              oplog.updateDiskRegion(lr.getDiskRegionView());
+          // acquire CompactorWriteLock only if the region attributes for the 
+          // real region are different from the place holder region's
+          boolean releaseCompactorWriteLock = false;
+          if (drv.isEntriesMapIncompatible()) {
+            acquireCompactorWriteLock(); // fix bug #51097 to prevent concurrent compaction
+            releaseCompactorWriteLock = true;
+          }
+          try {
+            drv.copyExistingRegionMap(lr);
+            getStats().incUncreatedRecoveredRegions(-1);
+            for (Oplog oplog : oplogSet.getAllOplogs()) {
+              if (oplog != null) {
+                oplog.updateDiskRegion(lr.getDiskRegionView());
+              }
+            }
+          } finally {
+            if (releaseCompactorWriteLock) {
+              releaseCompactorWriteLock();
             }
           }
-        } finally {
-          if (releaseCompactorWriteLock) {
-            releaseCompactorWriteLock();
+          if (currentAsyncValueRecoveryMap.containsKey(drv.getId())) {
+            currentAsyncValueRecoveryMap.put(drv.getId(), lr);
+            if (recoveryGroup != null && recoveryGroup.containsKey(drv.getId())) {
+              recoveryGroup.put(drv.getId(), lr);
+            }
           }
+          return;
         }
-        if (currentAsyncValueRecoveryMap.containsKey(drv.getId())) {
-          currentAsyncValueRecoveryMap.put(drv.getId(), lr);
-        }
-        return;
       }
     }
 
@@ -668,6 +732,7 @@ public class DiskStoreImpl implements DiskStore {
       if (!async) {
         acquireReadLock(dr);
       }
+      boolean deferringSync = !async && Oplog.startDeferringSync();
       try {
         if (dr.isRegionClosed()) {
           region.getCancelCriterion().checkCancelInProgress(null);
@@ -708,7 +773,14 @@ public class DiskStoreImpl implements DiskStore {
                   .toLocalizedString(new Object[] {
                       ((doingCreate) ? "creation" : "modification"), id }));
         }
+        if (deferringSync) {
+          deferringSync = false;
+          Oplog.syncDeferred();
+        }
       } finally {
+        if (deferringSync) {
+          Oplog.stopDeferringSync();
+        }
         if (!async) {
           releaseReadLock(dr);
         }
@@ -731,6 +803,7 @@ public class DiskStoreImpl implements DiskStore {
     if (!async) {
       acquireReadLock(dr);
     }
+    boolean deferringSync = !async && Oplog.startDeferringSync();
     try {
       if (dr.isRegionClosed()) {
         region.getCancelCriterion().checkCancelInProgress(null);
@@ -749,7 +822,14 @@ public class DiskStoreImpl implements DiskStore {
       PersistentOplogSet oplogSet = getPersistentOplogSet(dr);
 
       oplogSet.getChild().saveConflictVersionTag(region, tag, async);
+      if (deferringSync) {
+        deferringSync = false;
+        Oplog.syncDeferred();
+      }
     } finally {
+      if (deferringSync) {
+        Oplog.stopDeferringSync();
+      }
       if (!async) {
         releaseReadLock(dr);
       }
@@ -1044,6 +1124,7 @@ public class DiskStoreImpl implements DiskStore {
     if (!async) {
       acquireReadLock(dr);
     }
+    boolean deferringSync = !async && Oplog.startDeferringSync();
     try {
       if (dr.isRegionClosed()) {
         throw new RegionDestroyedException(
@@ -1059,6 +1140,10 @@ public class DiskStoreImpl implements DiskStore {
         long start = this.stats.startRemove();
         OplogSet oplogSet = getOplogSet(dr);
         oplogSet.remove(region, entry, async, isClear);
+        if (deferringSync) {
+          deferringSync = false;
+          Oplog.syncDeferred();
+        }
         dr.getStats().endRemove(start, this.stats.endRemove(start));
       } else {
         throw new RegionClearedException(
@@ -1066,6 +1151,9 @@ public class DiskStoreImpl implements DiskStore {
                 .toLocalizedString(entry.getDiskId()));
       }
     } finally {
+      if (deferringSync) {
+        Oplog.stopDeferringSync();
+      }
       if (!async) {
         releaseReadLock(dr);
       }
@@ -2710,17 +2798,60 @@ public class DiskStoreImpl implements DiskStore {
         && MAX_OPLOGS_PER_COMPACTION > 0) {
       max = MAX_OPLOGS_PER_COMPACTION;
     }
-    persistentOplogs.getCompactableOplogs(l, max);
-
-    // Note this always puts overflow oplogs on the end of the list.
-    // They may get starved.
-    overflowOplogs.getCompactableOplogs(l, max);
+    persistentOplogs.getCompactableOplogs(l, Integer.MAX_VALUE);
+    overflowOplogs.getCompactableOplogs(l, Integer.MAX_VALUE);
     
     if(l.isEmpty()) {
       return null;
     }
-      
-    return l.toArray(new CompactableOplog[0]);
+
+    CompactableOplog[] oplogs = l.toArray(new CompactableOplog[l.size()]);
+    sortByCompactionBenefit(oplogs);
+    if (oplogs.length > max) {
+      oplogs = Arrays.copyOf(oplogs, max);
+    }
+    return oplogs;
+  }
+
+  /**
+   * Sorts the given oplogs so that the ones most worth compacting come first.
+   * The benefits are computed once up front because they change while live
+   * entries are modified.
+   */
+  static void sortByCompactionBenefit(CompactableOplog[] oplogs) {
+    final Map<CompactableOplog, Double> benefits = new IdentityHashMap<CompactableOplog, Double>(oplogs.length);
+    for (CompactableOplog oplog : oplogs) {
+      benefits.put(oplog, oplog.getCompactionBenefit());
+    }
+    Arrays.sort(oplogs, new Comparator<CompactableOplog>() {
+      public int compare(CompactableOplog o1, CompactableOplog o2) {
+        return Double.compare(benefits.get(o2), benefits.get(o1));
+      }
+    });
+  }
+
+  /**
+   * Returns how many bytes compacting an oplog frees for every byte it costs.
+   * Compacting frees the garbage in the oplog and costs reading and then
+   * rewriting each live entry, plus {@link #COMPACTION_FIXED_COST_BYTES}. The
+   * live entries are assumed to take up the same share of the oplog's bytes
+   * as they do of its records.
+   * 
+   * @param oplogSize
+   *          the number of bytes in the oplog
+   * @param liveCount
+   *          the number of records in the oplog that are still live
+   * @param totalCount
+   *          the number of records ever written to the oplog
+   */
+  static double compactionBenefit(long oplogSize, long liveCount, long totalCount) {
+    double liveRatio = 0;
+    if (totalCount > 0 && liveCount > 0) {
+      liveRatio = Math.min(1.0, (double) liveCount / totalCount);
+    }
+    double garbageBytes = oplogSize * (1 - liveRatio);
+    double copyBytes = 2 * oplogSize * liveRatio;
+    return garbageBytes / (copyBytes + COMPACTION_FIXED_COST_BYTES);
   }
 
   /**
@@ -2824,6 +2955,12 @@ public class DiskStoreImpl implements DiskStore {
    */
   final AtomicLong undeletedOplogSize = new AtomicLong();
 
+  /**
+   * The longest a throttled compactor parks before checking whether it should
+   * stop waiting.
+   */
+  private static final long MAX_THROTTLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
   /**
    * Compacts oplogs
    * 
@@ -2850,9 +2987,44 @@ public class DiskStoreImpl implements DiskStore {
 
     private final boolean compactionCompletionRequired;
 
+    private final CompactionThrottle throttle;
+
     OplogCompactor() {
       this.compactionCompletionRequired = Boolean
           .getBoolean(COMPLETE_COMPACTION_BEFORE_TERMINATION_PROPERTY_NAME);
+      this.throttle = new CompactionThrottle(Long.getLong(
+          COMPACTION_BYTES_PER_SECOND_PROPERTY_NAME, 0).longValue());
+    }
+
+    /**
+     * Called by an oplog after it copied a live entry forward. Waits until
+     * the copy is paid for by the compaction budget. Stops waiting early if
+     * the compactor is being stopped or another thread needs the compactor
+     * write lock, since this thread holds the read lock while it waits.
+     * 
+     * @param bytes
+     *          the number of value bytes copied
+     */
+    void throttle(long bytes) {
+      if (!this.throttle.isEnabled()) {
+        return;
+      }
+      long start = System.nanoTime();
+      long waitNanos = this.throttle.charge(bytes, start);
+      if (waitNanos <= 0) {
+        return;
+      }
+      final long deadline = start + waitNanos;
+      long remaining = waitNanos;
+      while (remaining > 0 && keepCompactorRunning()
+          && !compactorLock.hasQueuedThreads()) {
+        LockSupport.parkNanos(Math.min(remaining, MAX_THROTTLE_PARK_NANOS));
+        if (Thread.currentThread().isInterrupted()) {
+          break;
+        }
+        remaining = deadline - System.nanoTime();
+      }
+      getStats().incCompactionThrottleTime(System.nanoTime() - start);
     }
 
     /** Creates a new thread and starts the thread* */
@@ -4570,8 +4742,12 @@ public class DiskStoreImpl implements DiskStore {
       synchronized (asyncValueRecoveryLock) {
         DiskStoreObserver.startAsyncValueRecovery(DiskStoreImpl.this);
         try {
-          for (Oplog oplog : oplogSet) {
-            oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+          Oplog[] oplogs = this.oplogSet.toArray(new Oplog[this.oplogSet.size()]);
+          List<Map<Long, DiskRecoveryStore>> groups = createRecoveryGroups();
+          if (groups == null) {
+            recoverValues(oplogs, 0, currentAsyncValueRecoveryMap);
+          } else {
+            recoverValuesInParallel(oplogs, groups);
           }
         } catch (CancelException ignore) {
           // do nothing
@@ -4579,12 +4755,119 @@ public class DiskStoreImpl implements DiskStore {
           synchronized (currentAsyncValueRecoveryMap) {
             DiskStoreImpl.this.currentAsyncValueRecoveryMap.keySet().removeAll(
                 recoveredStores.keySet());
+            DiskStoreImpl.this.asyncValueRecoveryGroups.keySet().removeAll(
+                recoveredStores.keySet());
             currentAsyncValueRecoveryMap.notifyAll();
           }
           DiskStoreObserver.endAsyncValueRecovery(DiskStoreImpl.this);
         }
       }
     }
+
+    /**
+     * Splits the stores being recovered into one group per recovery thread,
+     * or returns null if they should all be recovered by this thread.
+     */
+    private List<Map<Long, DiskRecoveryStore>> createRecoveryGroups() {
+      int groupCount = Math.min(RECOVERY_THREADS, this.recoveredStores.size());
+      if (groupCount <= 1 || this.oplogSet.size() == 0) {
+        return null;
+      }
+      List<Map<Long, DiskRecoveryStore>> groups = new ArrayList<Map<Long, DiskRecoveryStore>>(groupCount);
+      for (int i = 0; i < groupCount; i++) {
+        groups.add(new HashMap<Long, DiskRecoveryStore>());
+      }
+      synchronized (currentAsyncValueRecoveryMap) {
+        int i = 0;
+        for (Long drId : this.recoveredStores.keySet()) {
+          // the map holds the region if it was created since recovery
+          DiskRecoveryStore store = currentAsyncValueRecoveryMap.get(drId);
+          if (store != null) {
+            Map<Long, DiskRecoveryStore> group = groups.get(i++ % groupCount);
+            group.put(drId, store);
+            asyncValueRecoveryGroups.put(drId, group);
+          }
+        }
+      }
+      return groups;
+    }
+
+    /**
+     * Recovers the values of each group of stores on its own thread. Each
+     * thread starts with a different oplog so that they are not all reading
+     * the same one.
+     */
+    private void recoverValuesInParallel(final Oplog[] oplogs,
+        List<Map<Long, DiskRecoveryStore>> groups) {
+      ExecutorService executor = createRecoveryExecutor("Oplog Value Recovery", groups.size() - 1);
+      try {
+        List<Future<?>> results = new ArrayList<Future<?>>(groups.size() - 1);
+        for (int i = 1; i < groups.size(); i++) {
+          final int firstOplog = i * oplogs.length / groups.size();
+          final Map<Long, DiskRecoveryStore> group = groups.get(i);
+          results.add(executor.submit(new Runnable() {
+            public void run() {
+              markBackgroundTaskThread();
+              recoverValues(oplogs, firstOplog, group);
+            }
+          }));
+        }
+        recoverValues(oplogs, 0, groups.get(0));
+        boolean interrupted = false;
+        try {
+          for (Future<?> result : results) {
+            while (true) {
+              try {
+                result.get();
+                break;
+              } catch (InterruptedException e) {
+                interrupted = true;
+              } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CancelException) {
+                  break;
+                } else if (cause instanceof RuntimeException) {
+                  throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                  throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+              }
+            }
+          }
+        } finally {
+          if (interrupted) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    private void recoverValues(Oplog[] oplogs, int firstOplog,
+        Map<Long, DiskRecoveryStore> stores) {
+      long start = getStats().startValueRecovery();
+      try {
+        for (int i = 0; i < oplogs.length; i++) {
+          oplogs[(firstOplog + i) % oplogs.length].recoverValuesIfNeeded(stores);
+        }
+      } finally {
+        getStats().endValueRecovery(start);
+      }
+    }
+  }
+
+  /**
+   * Creates an executor for work that recovery splits across
+   * {@link #RECOVERY_THREADS} threads. The caller shuts it down when the
+   * recovery step is done.
+   */
+  ExecutorService createRecoveryExecutor(String threadName, int threads) {
+    final ThreadGroup recoveryThreadGroup = LoggingThreadGroup.createThreadGroup("Oplog Recovery Thread Group", logger);
+    final ThreadFactory recoveryThreadFactory = GemfireCacheHelper.CreateThreadFactory(recoveryThreadGroup, threadName);
+    return new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+        new LinkedBlockingQueue(), recoveryThreadFactory);
   }
 
   public void waitForAsyncRecovery(DiskRegion diskRegion) {
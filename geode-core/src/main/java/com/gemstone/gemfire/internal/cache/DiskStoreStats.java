@@ -49,10 +49,27 @@ public class DiskStoreStats {
   private static final int recoveredEntryDestroysId;
   private static final int recoveredValuesSkippedDueToLRUId;
   private static final int recoveryRecordsSkippedId;
+  private static final int krfPrefetchesId;
+  private static final int krfPrefetchWaitTimeId;
+  private static final int valueRecoveriesInProgressId;
+  private static final int valueRecoveryTimeId;
+  private static final int recoveredValuesId;
+  private static final int groupCommitsId;
+  private static final int groupCommitWritesId;
+  private static final int groupCommitTimeId;
+  private static final int mappedOplogsId;
+  private static final int mappedOplogBytesId;
+  private static final int mappedOplogReadsId;
+  private static final int compressedValuesId;
+  private static final int uncompressedValueBytesId;
+  private static final int compressedValueBytesId;
+  private static final int valueChecksumFailuresId;
   private static final int compactsInProgressId;
   private static final int writesInProgressId;
   private static final int flushesInProgressId;
   private static final int compactTimeId;
+  private static final int compactedBytesId;
+  private static final int compactionThrottleTimeId;
   private static final int compactsId;
   private static final int oplogRecoveriesId;
   private static final int oplogRecoveryTimeId;
@@ -146,6 +163,14 @@ public class DiskStoreStats {
          f.createLongCounter("recoveredValuesSkippedDueToLRU", "The total number of entry values that did not need to be recovered due to the LRU.", "values"),
 
          f.createLongCounter("recoveryRecordsSkipped", "The total number of oplog records skipped during recovery.", "ops"),
+         f.createLongCounter("krfPrefetches", "The total number of krf files read into memory ahead of the recovery of their oplog.", "files"),
+         f.createLongCounter("krfPrefetchWaitTime", "The total amount of time recovery spent waiting for a krf file that was being read ahead.", "nanoseconds"),
+         f.createIntGauge("valueRecoveriesInProgress", "The current number of threads recovering values from oplogs after their keys were recovered.", "threads"),
+         f.createLongCounter("valueRecoveryTime", "The total amount of time threads spent recovering values from oplogs after their keys were recovered.", "nanoseconds"),
+         f.createLongCounter("recoveredValues", "The total number of entry values recovered from oplogs after their keys were recovered.", "values"),
+         f.createLongCounter("groupCommits", "The total number of oplog syncs done on behalf of a group of synchronous writes.", "syncs"),
+         f.createLongCounter("groupCommitWrites", "The total number of synchronous writes made durable by group commit syncs.", "writes"),
+         f.createLongCounter("groupCommitTime", "The total amount of time spent doing group commit syncs.", "nanoseconds"),
 
          f.createIntCounter("oplogRecoveries", oplogRecoveriesDesc, "ops"),
          f.createLongCounter("oplogRecoveryTime", oplogRecoveryTimeDesc, "nanoseconds"),
@@ -163,12 +188,21 @@ public class DiskStoreStats {
          f.createIntGauge("writesInProgress", "current number of oplog writes that are in progress", "writes"),
          f.createIntGauge("flushesInProgress", "current number of oplog flushes that are in progress", "flushes"),
          f.createLongCounter("compactTime", "Total amount of time, in nanoseconds, spent compacting oplogs", "nanoseconds"),
+         f.createLongCounter("compactedBytes", "Total number of bytes written by oplog compacts to copy live entries forward to the current oplog", "bytes"),
+         f.createLongCounter("compactionThrottleTime", "Total amount of time, in nanoseconds, oplog compacts waited to stay within their I/O budget", "nanoseconds"),
          f.createIntCounter("compacts", "Total number of completed oplog compacts", "compacts"),
          f.createIntGauge("openOplogs", "Current number of oplogs this disk store has open", "oplogs"),
          f.createIntGauge("compactableOplogs", "Current number of oplogs ready to be compacted", "oplogs"),
          f.createIntGauge("inactiveOplogs", "Current number of oplogs that are no longer being written but are not ready ready to compact", "oplogs"),
          f.createLongCounter("oplogReads", "Total number of oplog reads", "reads"),
          f.createLongCounter("oplogSeeks", "Total number of oplog seeks", "seeks"),
+         f.createIntGauge("mappedOplogs", "Current number of oplogs that are no longer being written whose crf file is memory mapped for reading", "oplogs"),
+         f.createLongGauge("mappedOplogBytes", "Current number of bytes of crf files that are memory mapped for reading", "bytes"),
+         f.createLongCounter("mappedOplogReads", "Total number of oplog reads served from a memory mapped crf file", "reads"),
+         f.createLongCounter("compressedValues", "Total number of values compressed before they were written to a checksummed oplog", "values"),
+         f.createLongCounter("uncompressedValueBytes", "Total number of bytes of compressed values before they were compressed", "bytes"),
+         f.createLongCounter("compressedValueBytes", "Total number of bytes of compressed values after they were compressed", "bytes"),
+         f.createLongCounter("valueChecksumFailures", "Total number of values read from a checksummed oplog whose checksum did not match", "values"),
          f.createIntGauge("uncreatedRecoveredRegions", "The current number of regions that have been recovered but have not yet been created.", "regions"),
          f.createIntGauge("backupsInProgress", backupsInProgressDesc, "backups"),
          f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),
@@ -192,11 +226,28 @@ public class DiskStoreStats {
     recoveredEntryDestroysId = type.nameToId("recoveredEntryDestroys");
     recoveredValuesSkippedDueToLRUId = type.nameToId("recoveredValuesSkippedDueToLRU");
     recoveryRecordsSkippedId = type.nameToId("recoveryRecordsSkipped");
+    krfPrefetchesId = type.nameToId("krfPrefetches");
+    krfPrefetchWaitTimeId = type.nameToId("krfPrefetchWaitTime");
+    valueRecoveriesInProgressId = type.nameToId("valueRecoveriesInProgress");
+    valueRecoveryTimeId = type.nameToId("valueRecoveryTime");
+    recoveredValuesId = type.nameToId("recoveredValues");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommitWritesId = type.nameToId("groupCommitWrites");
+    groupCommitTimeId = type.nameToId("groupCommitTime");
+    mappedOplogsId = type.nameToId("mappedOplogs");
+    mappedOplogBytesId = type.nameToId("mappedOplogBytes");
+    mappedOplogReadsId = type.nameToId("mappedOplogReads");
+    compressedValuesId = type.nameToId("compressedValues");
+    uncompressedValueBytesId = type.nameToId("uncompressedValueBytes");
+    compressedValueBytesId = type.nameToId("compressedValueBytes");
+    valueChecksumFailuresId = type.nameToId("valueChecksumFailures");
 
     compactsInProgressId = type.nameToId("compactsInProgress");
     writesInProgressId = type.nameToId("writesInProgress");
     flushesInProgressId = type.nameToId("flushesInProgress");
     compactTimeId = type.nameToId("compactTime");
+    compactedBytesId = type.nameToId("compactedBytes");
+    compactionThrottleTimeId = type.nameToId("compactionThrottleTime");
     compactsId = type.nameToId("compacts");
     oplogRecoveriesId = type.nameToId("oplogRecoveries");
     oplogRecoveryTimeId = type.nameToId("oplogRecoveryTime");
@@ -455,6 +506,62 @@ public class DiskStoreStats {
   public void incRecoveredValuesSkippedDueToLRU() {
     this.stats.incLong(recoveredValuesSkippedDueToLRUId, 1);
   }
+  public void incKrfPrefetches() {
+    this.stats.incLong(krfPrefetchesId, 1);
+  }
+  public long getKrfPrefetches() {
+    return this.stats.getLong(krfPrefetchesId);
+  }
+  public long startKrfPrefetchWait() {
+    return DistributionStats.getStatTime();
+  }
+  public void endKrfPrefetchWait(long start) {
+    this.stats.incLong(krfPrefetchWaitTimeId, DistributionStats.getStatTime() - start);
+  }
+
+  /**
+   * Invoked when a thread starts recovering values asynchronously.
+   *
+   * @return The timestamp that marks the start of the operation
+   */
+  public long startValueRecovery() {
+    this.stats.incInt(valueRecoveriesInProgressId, 1);
+    return DistributionStats.getStatTime();
+  }
+  public void endValueRecovery(long start) {
+    this.stats.incInt(valueRecoveriesInProgressId, -1);
+    this.stats.incLong(valueRecoveryTimeId, DistributionStats.getStatTime() - start);
+  }
+  public void incRecoveredValues() {
+    this.stats.incLong(recoveredValuesId, 1);
+  }
+  public long getRecoveredValues() {
+    return this.stats.getLong(recoveredValuesId);
+  }
+
+  public long startGroupCommit() {
+    return DistributionStats.getStatTime();
+  }
+
+  /**
+   * Invoked after an oplog sync that made a group of synchronous writes durable.
+   *
+   * @param start
+   *        The time at which the sync started
+   * @param writes
+   *        The number of writes the sync covered
+   */
+  public void endGroupCommit(long start, long writes) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommitWritesId, writes);
+    this.stats.incLong(groupCommitTimeId, DistributionStats.getStatTime() - start);
+  }
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+  public long getGroupCommitWrites() {
+    return this.stats.getLong(groupCommitWritesId);
+  }
 
   /**
    * Invoked before data is removed from disk.
@@ -486,6 +593,42 @@ public class DiskStoreStats {
   public void incOplogSeeks() {
     this.stats.incLong(oplogSeeksId, 1);
   }
+  public void incMappedOplogs(int delta, long bytes) {
+    this.stats.incInt(mappedOplogsId, delta);
+    this.stats.incLong(mappedOplogBytesId, bytes);
+  }
+  public int getMappedOplogs() {
+    return this.stats.getInt(mappedOplogsId);
+  }
+  public long getMappedOplogBytes() {
+    return this.stats.getLong(mappedOplogBytesId);
+  }
+  public void incMappedOplogReads() {
+    this.stats.incLong(mappedOplogReadsId, 1);
+  }
+  public long getMappedOplogReads() {
+    return this.stats.getLong(mappedOplogReadsId);
+  }
+  public void incCompressedValues(int uncompressedBytes, int compressedBytes) {
+    this.stats.incLong(compressedValuesId, 1);
+    this.stats.incLong(uncompressedValueBytesId, uncompressedBytes);
+    this.stats.incLong(compressedValueBytesId, compressedBytes);
+  }
+  public long getCompressedValues() {
+    return this.stats.getLong(compressedValuesId);
+  }
+  public long getUncompressedValueBytes() {
+    return this.stats.getLong(uncompressedValueBytesId);
+  }
+  public long getCompressedValueBytes() {
+    return this.stats.getLong(compressedValueBytesId);
+  }
+  public void incValueChecksumFailures() {
+    this.stats.incLong(valueChecksumFailuresId, 1);
+  }
+  public long getValueChecksumFailures() {
+    return this.stats.getLong(valueChecksumFailuresId);
+  }
   public void incInactiveOplogs(int delta) {
     this.stats.incInt(inactiveOplogsId, delta);
   }
@@ -504,6 +647,32 @@ public class DiskStoreStats {
     this.stats.incLong(compactUpdatesId, 1);
     this.stats.incLong(compactUpdateTimeId, getStatTime()-start);
   }
+  public void incCompactedBytes(long bytes) {
+    this.stats.incLong(compactedBytesId, bytes);
+  }
+  public long getCompactedBytes() {
+    return this.stats.getLong(compactedBytesId);
+  }
+  public void incCompactionThrottleTime(long nanos) {
+    this.stats.incLong(compactionThrottleTimeId, nanos);
+  }
+  public long getCompactionThrottleTime() {
+    return this.stats.getLong(compactionThrottleTimeId);
+  }
+
+  /**
+   * Returns the number of bytes written to oplogs for every byte written on
+   * behalf of region operations, which includes the bytes later rewritten by
+   * compaction. Returns 1 if nothing has been written.
+   */
+  public double getWriteAmplification() {
+    long total = this.stats.getLong(bytesWrittenId) + this.stats.getLong(bytesFlushedId);
+    long user = total - getCompactedBytes();
+    if (user <= 0) {
+      return 1.0;
+    }
+    return (double) total / user;
+  }
   public long getStatTime() {
     return DistributionStats.getStatTime();
   }
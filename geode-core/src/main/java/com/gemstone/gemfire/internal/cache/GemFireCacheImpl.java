@@ -2911,8 +2911,13 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
   }
 
   public Region basicCreateRegion(String name, RegionAttributes attrs) throws RegionExistsException, TimeoutException {
+    return basicCreateRegion(name, attrs, new InternalRegionArguments());
+  }
+
+  public Region basicCreateRegion(String name, RegionAttributes attrs, InternalRegionArguments ira)
+      throws RegionExistsException, TimeoutException {
     try {
-      InternalRegionArguments ira = new InternalRegionArguments().setDestroyLockFlag(true).setRecreateFlag(false)
+      ira.setDestroyLockFlag(true).setRecreateFlag(false)
           .setSnapshotInputStream(null).setImageTarget(null);
 
       if (attrs instanceof UserSpecifiedRegionAttributes) {
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Makes the writes of concurrent threads durable with as few syncs as
+ * possible. Each writer hands its bytes to the file system, takes a sequence
+ * number with {@link #written} and then calls {@link #awaitDurable}. The first
+ * waiter to find no sync in progress becomes the leader: it optionally waits
+ * a little for more writers to join, syncs once for every write numbered so
+ * far and then wakes up all the writers that sync covered. Writers that arrive
+ * while a sync is in progress are covered by the next one.
+ *
+ * @since Geode 1.0
+ */
+class GroupCommitter {
+
+  /**
+   * Makes everything written to the files of a {@link GroupCommitter} durable.
+   */
+  interface Syncable {
+    /**
+     * @param writes
+     *          the number of writes this sync covers
+     */
+    void sync(long writes) throws IOException;
+  }
+
+  private final Syncable target;
+
+  private final long maxWaitNanos;
+
+  private final Object lock = new Object();
+
+  /** The sequence number of the last write handed to the file system */
+  private long written;
+
+  /** The sequence number of the last write known to be durable */
+  private long durable;
+
+  /** True while a leader is waiting for writers to join or is syncing */
+  private boolean syncing;
+
+  /** The last sync failure and the writes it should have covered */
+  private IOException failure;
+  private long failedUpTo;
+
+  /**
+   * @param maxWaitNanos
+   *          how long a leader waits for more writers before it syncs; 0
+   *          syncs right away
+   */
+  GroupCommitter(Syncable target, long maxWaitNanos) {
+    this.target = target;
+    this.maxWaitNanos = maxWaitNanos;
+  }
+
+  /**
+   * Records a write that has been handed to the file system and returns the
+   * sequence number to pass to {@link #awaitDurable}.
+   */
+  long written() {
+    synchronized (this.lock) {
+      return ++this.written;
+    }
+  }
+
+  /**
+   * Waits until the write with the given sequence number is durable, syncing
+   * on behalf of all the waiting writers if no other thread is doing so.
+   *
+   * @throws IOException
+   *           if the sync that should have covered the write failed
+   */
+  void awaitDurable(long sequence) throws IOException {
+    boolean interrupted = false;
+    try {
+      synchronized (this.lock) {
+        while (this.durable < sequence) {
+          if (this.failure != null && sequence <= this.failedUpTo) {
+            throw new IOException(this.failure.getMessage(), this.failure);
+          }
+          if (!this.syncing) {
+            this.syncing = true;
+            break;
+          }
+          try {
+            this.lock.wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+        if (this.durable >= sequence) {
+          return;
+        }
+      }
+      sync();
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void sync() throws IOException {
+    long upTo = -1;
+    long writes = 0;
+    boolean synced = false;
+    try {
+      if (this.maxWaitNanos > 0) {
+        LockSupport.parkNanos(this.maxWaitNanos);
+      }
+      synchronized (this.lock) {
+        upTo = this.written;
+        writes = upTo - this.durable;
+      }
+      this.target.sync(writes);
+      synced = true;
+    } catch (IOException e) {
+      synchronized (this.lock) {
+        this.failure = e;
+        this.failedUpTo = upTo;
+      }
+      throw e;
+    } finally {
+      synchronized (this.lock) {
+        if (synced && upTo > this.durable) {
+          this.durable = upTo;
+        }
+        this.syncing = false;
+        this.lock.notifyAll();
+      }
+    }
+  }
+
+  /** Returns the sequence number of the last write known to be durable */
+  long getDurable() {
+    synchronized (this.lock) {
+      return this.durable;
+    }
+  }
+}
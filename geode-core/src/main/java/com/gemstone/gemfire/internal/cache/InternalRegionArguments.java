@@ -65,6 +65,7 @@ public final class InternalRegionArguments
   private Object userAttribute = null;
   private List indexes;
   private boolean declarativeIndexCreation;
+  private boolean nearCache;
 
 
   /* methods that set and retrieve internal state used to configure a Region */
@@ -317,4 +318,13 @@ public final class InternalRegionArguments
   public boolean getDeclarativeIndexCreation() {
     return this.declarativeIndexCreation;
   }
+
+  public InternalRegionArguments setNearCache(boolean value) {
+    this.nearCache = value;
+    return this;
+  }
+
+  public boolean isNearCache() {
+    return this.nearCache;
+  }
 }
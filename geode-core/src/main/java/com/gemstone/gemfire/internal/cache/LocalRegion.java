@@ -562,6 +562,9 @@ public class LocalRegion extends AbstractRegion
     this.srp = (this.getPoolName() != null)
       ? new ServerRegionProxy(this)
       : null;
+    this.nearCacheInterest = (this.srp != null && internalRegionArgs.isNearCache())
+      ? new NearCacheInterest(this, this.srp)
+      : null;
     this.imageState =
       new UnsharedImageState(this.srp != null,
                              getDataPolicy().withReplication() || getDataPolicy().isPreloaded(),
@@ -718,11 +721,30 @@ public class LocalRegion extends AbstractRegion
    */
   protected final ServerRegionProxy srp;
 
+  /**
+   * Limits the interest of a near cache client region to the keys it holds;
+   * null if this region is not a near cache.
+   * @since Geode 1.0
+   */
+  private final NearCacheInterest nearCacheInterest;
+
   private final InternalDataView sharedDataView;
 
   public final ServerRegionProxy getServerProxy() {
     return this.srp;
   }
+
+  /**
+   * Returns true if this is a near cache client region.
+   * @since Geode 1.0
+   */
+  public final boolean isNearCache() {
+    return this.nearCacheInterest != null;
+  }
+
+  final NearCacheInterest getNearCacheInterest() {
+    return this.nearCacheInterest;
+  }
   
   public final boolean hasServerProxy() {
     return this.srp != null;
@@ -1347,6 +1369,176 @@ public class LocalRegion extends AbstractRegion
     }
   }
 
+  /**
+   * Returns true if ops on this region can be sent to the server without
+   * waiting for the reply: this is a client region that does not store
+   * entries, is not in a transaction and has no loader, writer or listener
+   * that would need to see the result.
+   */
+  private boolean canSendAsyncToServer() {
+    return hasServerProxy() && !hasStorage() && basicGetLoader() == null
+        && basicGetWriter() == null && !hasListener() && !isTX();
+  }
+
+  @Override
+  public CompletableFuture getAsync(Object key) {
+    try {
+      validateKey(key);
+      checkReadiness();
+      checkForNoAccess();
+      discoverJTA();
+      if (!canSendAsyncToServer()) {
+        return super.getAsync(key);
+      }
+      final CachePerfStats stats = getCachePerfStats();
+      final long start = stats.startGet();
+      return getServerProxy().getAsync(key, null).thenApply(value -> {
+        if (Token.isInvalid(value) || value == Token.TOMBSTONE) {
+          value = null;
+        }
+        stats.endGet(start, value == null);
+        return value;
+      });
+    } catch (RuntimeException e) {
+      return failedFuture(e);
+    }
+  }
+
+  @Override
+  public CompletableFuture putAsync(Object key, Object value) {
+    final long startPut = CachePerfStats.getStatTime();
+    EntryEventImpl event = null;
+    try {
+      event = newUpdateEntryEvent(key, value, null);
+      if (!canSendAsyncToServer() || event.hasDelta()) {
+        return super.putAsync(key, value);
+      }
+      if (event.getEventId() == null && generateEventID()) {
+        event.setNewEventId(cache.getDistributedSystem());
+      }
+      final EntryEventImpl sentEvent = event;
+      CompletableFuture result = getServerProxy().putAsync(key, value, event, null)
+          .thenApply(oldValue -> {
+            getCachePerfStats().endPut(startPut, false);
+            return null;
+          });
+      event = null;
+      result.whenComplete((oldValue, ex) -> sentEvent.release());
+      return result;
+    } catch (RuntimeException e) {
+      return failedFuture(e);
+    } finally {
+      if (event != null) {
+        event.release();
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture getAllAsync(Collection keys) {
+    try {
+      if (keys == null) {
+        throw new NullPointerException("The collection of keys for getAll cannot be null");
+      }
+      checkReadiness();
+      checkForLimitedOrNoAccess();
+      discoverJTA();
+      if (keys.isEmpty() || !canSendAsyncToServer()) {
+        return super.getAllAsync(keys);
+      }
+      return getServerProxy().getAllAsync(new ArrayList(keys), null).thenApply(remoteResults -> {
+        Map allResults = new HashMap();
+        for (VersionedObjectList.Iterator it = remoteResults.iterator(); it.hasNext();) {
+          VersionedObjectList.Entry entry = it.next();
+          if (entry.isKeyNotOnServer()) {
+            allResults.put(entry.getKey(), null);
+          } else {
+            Object value = entry.getObject();
+            if (!(value instanceof Throwable)) {
+              allResults.put(entry.getKey(), value);
+            }
+          }
+        }
+        return allResults;
+      });
+    } catch (RuntimeException e) {
+      return failedFuture(e);
+    }
+  }
+
+  private static CompletableFuture failedFuture(Throwable t) {
+    CompletableFuture result = new CompletableFuture();
+    result.completeExceptionally(t);
+    return result;
+  }
+
+  /**
+   * Same as {@link #get(Object)} for an Integer key. If no transaction is in
+   * progress and this member holds a valid value for the key then it is
+   * returned without creating an Integer; otherwise the key is boxed and the
+   * normal get (search, load, etc.) is done.
+   */
+  public Object getIntKey(int key) {
+    Object value = getPrimitiveKeyValueInVM(key, true);
+    if (value == null) {
+      value = get(Integer.valueOf(key));
+    }
+    return value;
+  }
+
+  /**
+   * Same as {@link #get(Object)} for a Long key. If no transaction is in
+   * progress and this member holds a valid value for the key then it is
+   * returned without creating a Long; otherwise the key is boxed and the
+   * normal get (search, load, etc.) is done.
+   */
+  public Object getLongKey(long key) {
+    Object value = getPrimitiveKeyValueInVM(key, false);
+    if (value == null) {
+      value = get(Long.valueOf(key));
+    }
+    return value;
+  }
+
+  /**
+   * Returns the deserialized value of the entry for the given Integer (if
+   * isIntKey) or Long key if it is in this VM, or null if the caller needs to
+   * do a normal get. Only a hit is recorded in the stats; a miss is left for
+   * the normal get to record.
+   */
+  private Object getPrimitiveKeyValueInVM(long key, boolean isIntKey) {
+    checkReadiness();
+    checkForNoAccess();
+    discoverJTA();
+    if (isTX()) {
+      return null;
+    }
+    final RegionEntry re = isIntKey ? this.entries.getIntKeyEntry((int)key)
+        : this.entries.getLongKeyEntry(key);
+    if (re == null) {
+      return null;
+    }
+    if (this.diskRegion != null) {
+      this.diskRegion.setClearCountReference();
+    }
+    try {
+      CachePerfStats stats = getCachePerfStats();
+      long start = stats.startGet();
+      Object value = getDeserialized(re, false, false, false, false);
+      if (value == null || value instanceof Token) {
+        return null;
+      }
+      updateStatsForGet(re, true);
+      stats.endGet(start, false);
+      return value;
+    }
+    finally {
+      if (this.diskRegion != null) {
+        this.diskRegion.removeClearCountReference();
+      }
+    }
+  }
+
   /**
    * Update region and potentially entry stats for the miss case 
    * @param re optional region entry, fetched if null
@@ -2852,6 +3044,9 @@ public class LocalRegion extends AbstractRegion
     {
       ServerRegionProxy mySRP = getServerProxy();
       if (mySRP != null) {
+        if (this.nearCacheInterest != null) {
+          this.nearCacheInterest.beforeServerAccess(key);
+        }
         holder = new VersionTagHolder();
         value = mySRP.get(key, aCallbackArgument, holder);
         fromServer = value != null;
@@ -3107,6 +3302,9 @@ public class LocalRegion extends AbstractRegion
         // serverPut is called by cacheWriteBeforePut so the new value will not yet be off-heap
         Object callbackArg = event.getRawCallbackArgument();
         boolean isCreate = event.isCreate(); 
+        if (this.nearCacheInterest != null) {
+          this.nearCacheInterest.beforeServerAccess(key);
+        }
         Object result = mySRP.put(key, value, event.getDeltaBytes(), event,
             op, requireOldValue, expectedOldValue,
             callbackArg, isCreate);
@@ -7224,6 +7422,9 @@ public class LocalRegion extends AbstractRegion
     if (this.entryUserAttributes != null) {
       this.entryUserAttributes.remove(event.getKey());
     }
+    if (this.nearCacheInterest != null) {
+      this.nearCacheInterest.afterRemoval(event.getKey());
+    }
   }
 
   /**
@@ -9761,6 +9962,10 @@ public class LocalRegion extends AbstractRegion
       }
     }
     
+    if (this.nearCacheInterest != null) {
+      this.nearCacheInterest.afterClear();
+    }
+
     if (ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
       CacheObserverHolder.getInstance().afterRegionClear(regionEvent);
     }
@@ -9833,6 +10038,9 @@ public class LocalRegion extends AbstractRegion
 
       // Send the rest of the keys to the server (if necessary)
       if (!keysList.isEmpty()) {
+        if (this.nearCacheInterest != null) {
+          this.nearCacheInterest.beforeServerAccess(keysList);
+        }
         VersionedObjectList remoteResults = getServerProxy().getAll(keysList, callback);
         if (isDebugEnabled) {
           logger.debug("remote getAll results are {}", remoteResults);
@@ -10114,6 +10322,9 @@ public class LocalRegion extends AbstractRegion
         tx.getRealDeal(null, this);
       }
       try {
+        if (this.nearCacheInterest != null) {
+          this.nearCacheInterest.beforeServerAccess(map.keySet());
+        }
         proxyResult = getServerProxy().putAll(map, eventId, !event.isGenerateCallbacks(), event.getCallbackArgument());
         if (isDebugEnabled) {
           logger.debug("PutAll received response from server: {}", proxyResult);
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.lang.SystemUtils;
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * A read-only memory mapping of the first bytes of an oplog's crf once it is
+ * no longer being written. The crf is mapped by the first read. Reads do not
+ * share any file position, so any number of threads can read from it at the
+ * same time without holding the oplog's lock.
+ * <p>
+ * The mapping is unmapped explicitly when the oplog is closed or its crf is
+ * deleted, after the reads still copying out of it have finished, so the file
+ * can be deleted right away. Where that is not possible and a mapped file can
+ * not be deleted (Windows), crfs are never mapped.
+ *
+ * @since Geode 1.0
+ */
+class MappedOplogFile {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The method returning a mapped buffer's cleaner, or null if mappings can
+   * not be unmapped explicitly in this VM.
+   */
+  private static final Method CLEANER_METHOD;
+
+  private static final Method CLEAN_METHOD;
+
+  static {
+    Method cleanerMethod = null;
+    Method cleanMethod = null;
+    try {
+      Class<?> directBuffer = Class.forName("sun.nio.ch.DirectBuffer");
+      cleanerMethod = directBuffer.getMethod("cleaner");
+      cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+    } catch (ClassNotFoundException e) {
+      cleanerMethod = null;
+    } catch (NoSuchMethodException e) {
+      cleanerMethod = null;
+    }
+    CLEANER_METHOD = cleanerMethod;
+    CLEAN_METHOD = cleanMethod;
+  }
+
+  /**
+   * Whether crfs can be mapped. A file that is still mapped can not be
+   * deleted on Windows, so mapping is only supported there if the mapping
+   * can be unmapped explicitly.
+   */
+  static final boolean SUPPORTED = CLEANER_METHOD != null || !SystemUtils.isWindows();
+
+  private final DiskStoreStats stats;
+
+  /**
+   * The mapping, or null if the crf has not been mapped or has been unmapped.
+   * It is only assigned while holding this object's monitor.
+   */
+  private volatile MappedByteBuffer buffer;
+
+  /**
+   * The number of reads copying out of the mapping.
+   * @guarded.By this
+   */
+  private int readers;
+
+  /**
+   * Set once the crf could not be mapped so that reads stop trying.
+   * @guarded.By this
+   */
+  private boolean mapFailed;
+
+  /**
+   * Set once the oplog is closed or its crf deleted.
+   * @guarded.By this
+   */
+  private boolean closed;
+
+  MappedOplogFile(DiskStoreStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Returns true if the crf is currently mapped.
+   */
+  boolean isMapped() {
+    return this.buffer != null;
+  }
+
+  /**
+   * Returns a copy of the bytes at the given offset in the crf. Maps the first
+   * <code>mappableSize</code> bytes of <code>f</code> if this is the first
+   * read.
+   *
+   * @return the bytes or null if they have to be read from the file instead
+   */
+  byte[] read(File f, long mappableSize, long offset, int length) {
+    ByteBuffer bb;
+    synchronized (this) {
+      MappedByteBuffer mapped = this.buffer;
+      if (mapped == null) {
+        mapped = map(f, mappableSize);
+        if (mapped == null) {
+          return null;
+        }
+      }
+      if (offset < 0 || length < 0 || offset + length > mapped.capacity()) {
+        return null;
+      }
+      bb = mapped.duplicate();
+      this.readers++;
+    }
+    try {
+      bb.position((int)offset);
+      byte[] bytes = new byte[length];
+      bb.get(bytes);
+      this.stats.incMappedOplogReads();
+      return bytes;
+    } finally {
+      synchronized (this) {
+        if (--this.readers == 0 && this.closed) {
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * @guarded.By this
+   */
+  private MappedByteBuffer map(File f, long size) {
+    if (!SUPPORTED || this.mapFailed || this.closed || f == null) {
+      return null;
+    }
+    if (size <= 0 || size > Integer.MAX_VALUE) {
+      this.mapFailed = true;
+      return null;
+    }
+    try {
+      RandomAccessFile raf = new RandomAccessFile(f, "r");
+      try {
+        this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } finally {
+        raf.close();
+      }
+    } catch (IOException e) {
+      this.mapFailed = true;
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not map {} for reading; reading it with seeks instead", f, e);
+      }
+      return null;
+    }
+    this.stats.incMappedOplogs(1, size);
+    return this.buffer;
+  }
+
+  /**
+   * Unmaps the crf once the reads copying out of it have finished, and stops
+   * it from being mapped again. Called when the oplog is closed or its crf is
+   * about to be deleted.
+   */
+  synchronized void close() {
+    this.closed = true;
+    MappedByteBuffer mapped = this.buffer;
+    if (mapped == null) {
+      return;
+    }
+    this.buffer = null;
+    this.stats.incMappedOplogs(-1, -mapped.capacity());
+    boolean interrupted = false;
+    while (this.readers > 0) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    unmap(mapped);
+  }
+
+  /**
+   * Releases the memory and file handle of the given mapping now rather than
+   * when it is garbage collected, if the VM allows it.
+   */
+  private static void unmap(MappedByteBuffer mapped) {
+    if (CLEANER_METHOD == null) {
+      return;
+    }
+    try {
+      Object cleaner = CLEANER_METHOD.invoke(mapped);
+      if (cleaner != null) {
+        CLEAN_METHOD.invoke(cleaner);
+      }
+    } catch (Exception e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not unmap an oplog; it will be unmapped when garbage collected", e);
+      }
+    }
+  }
+}
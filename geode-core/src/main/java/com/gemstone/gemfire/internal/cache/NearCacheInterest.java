@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.CancelException;
+import com.gemstone.gemfire.cache.InterestResultPolicy;
+import com.gemstone.gemfire.cache.client.internal.ServerRegionProxy;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.tier.InterestType;
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * Keeps the interest of a near cache client region limited to the keys it
+ * holds. Keys are registered, with updates delivered as invalidates, before
+ * they are first read from or written to the server, and are unregistered in
+ * batches after they have been removed from the region by eviction, a
+ * destroy, expiration or a clear.
+ *
+ * @since Geode 1.0
+ */
+final class NearCacheInterest {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Number of removed keys collected before their interest is unregistered.
+   */
+  static final int UNREGISTER_BATCH_SIZE = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "NearCache.UNREGISTER_BATCH_SIZE", 100).intValue();
+
+  private final LocalRegion region;
+  private final ServerRegionProxy serverProxy;
+
+  /** keys whose interest is registered on the servers and not being unregistered */
+  private final Set<Object> registeredKeys = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Keys whose interest is being registered, with a future completed with
+   * whether the registration succeeded; guarded by lock. Other threads
+   * accessing such a key wait for the future, so that none of them reads
+   * the key's value from the server before its updates are sent here.
+   */
+  private final Map<Object, CompletableFuture<Boolean>> registeringKeys = new HashMap<>();
+
+  /**
+   * Guards the keys waiting to be unregistered and those being unregistered.
+   * Never held while talking to the servers.
+   */
+  private final Object lock = new Object();
+
+  /** removed keys whose interest is still registered; guarded by lock */
+  private final List<Object> removedKeys = new ArrayList<>();
+
+  /**
+   * Keys whose interest is being unregistered; guarded by lock. A key read
+   * again waits for its unregistration to finish before registering it again,
+   * so that it is never unregistered after it has been registered.
+   */
+  private final Set<Object> unregisteringKeys = new HashSet<>();
+
+  /** guarded by lock */
+  private boolean unregisterScheduled;
+
+  NearCacheInterest(LocalRegion region, ServerRegionProxy serverProxy) {
+    this.region = region;
+    this.serverProxy = serverProxy;
+  }
+
+  /**
+   * Called before the value of the given key is fetched from or sent to the
+   * server, so that any later change on the server invalidates it. Returns
+   * once the key's interest is registered, waiting for a registration of the
+   * key already in progress in another thread.
+   */
+  void beforeServerAccess(Object key) {
+    if (this.registeredKeys.contains(key)) {
+      return;
+    }
+    CompletableFuture<Boolean> inProgress;
+    CompletableFuture<Boolean> registration = null;
+    synchronized (this.lock) {
+      waitForUnregistration(Collections.singleton(key));
+      if (this.registeredKeys.contains(key)) {
+        return;
+      }
+      inProgress = this.registeringKeys.get(key);
+      if (inProgress == null) {
+        if (this.removedKeys.remove(key)) {
+          // removed but never unregistered
+          this.registeredKeys.add(key);
+          return;
+        }
+        registration = new CompletableFuture<>();
+        this.registeringKeys.put(key, registration);
+      }
+    }
+    if (inProgress != null) {
+      if (!inProgress.join()) {
+        // the other thread failed to register it; try again
+        beforeServerAccess(key);
+      }
+      return;
+    }
+    boolean registered = false;
+    try {
+      getServerProxy().registerInterest(key, InterestType.KEY, InterestResultPolicy.NONE,
+          false, true, getDataPolicy());
+      registered = true;
+    } finally {
+      finishRegistration(Collections.singletonList(key), registration, registered);
+    }
+  }
+
+  /**
+   * Called before the values of the given keys are fetched from the server.
+   */
+  void beforeServerAccess(Collection<?> keys) {
+    List<Object> toRegister = null;
+    for (Object key : keys) {
+      if (!this.registeredKeys.contains(key)) {
+        if (toRegister == null) {
+          toRegister = new ArrayList<>();
+        }
+        toRegister.add(key);
+      }
+    }
+    if (toRegister == null) {
+      return;
+    }
+    if (toRegister.size() == 1) {
+      beforeServerAccess(toRegister.get(0));
+      return;
+    }
+    List<Object> added = new ArrayList<>(toRegister.size());
+    Map<Object, CompletableFuture<Boolean>> inProgress = null;
+    CompletableFuture<Boolean> registration = new CompletableFuture<>();
+    synchronized (this.lock) {
+      waitForUnregistration(toRegister);
+      for (Object key : toRegister) {
+        if (this.registeredKeys.contains(key)) {
+          continue;
+        }
+        CompletableFuture<Boolean> other = this.registeringKeys.get(key);
+        if (other != null) {
+          if (inProgress == null) {
+            inProgress = new HashMap<>();
+          }
+          inProgress.put(key, other);
+        } else if (this.removedKeys.remove(key)) {
+          this.registeredKeys.add(key);
+        } else {
+          this.registeringKeys.put(key, registration);
+          added.add(key);
+        }
+      }
+    }
+    if (!added.isEmpty()) {
+      boolean registered = false;
+      try {
+        getServerProxy().registerInterestList(added, InterestResultPolicy.NONE, false, true,
+            getDataPolicy());
+        registered = true;
+      } finally {
+        finishRegistration(added, registration, registered);
+      }
+    }
+    if (inProgress != null) {
+      List<Object> failed = new ArrayList<>();
+      for (Map.Entry<Object, CompletableFuture<Boolean>> e : inProgress.entrySet()) {
+        if (!e.getValue().join()) {
+          failed.add(e.getKey());
+        }
+      }
+      if (!failed.isEmpty()) {
+        // the other threads failed to register them; try again
+        beforeServerAccess(failed);
+      }
+    }
+  }
+
+  /**
+   * Marks the given keys as registered if their registration succeeded, and
+   * wakes the threads waiting for it.
+   */
+  private void finishRegistration(List<Object> keys, CompletableFuture<Boolean> registration,
+      boolean registered) {
+    synchronized (this.lock) {
+      for (Object key : keys) {
+        if (registered) {
+          this.registeredKeys.add(key);
+        }
+        this.registeringKeys.remove(key);
+      }
+    }
+    registration.complete(registered);
+  }
+
+  /**
+   * Waits until none of the given keys is being unregistered. Called while
+   * holding lock.
+   */
+  private void waitForUnregistration(Collection<?> keys) {
+    boolean interrupted = false;
+    try {
+      while (!Collections.disjoint(this.unregisteringKeys, keys)) {
+        try {
+          this.lock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Called after the entry for the given key was removed from the region,
+   * whether by eviction, a destroy or expiration.
+   */
+  void afterRemoval(Object key) {
+    if (!this.registeredKeys.remove(key)) {
+      return;
+    }
+    synchronized (this.lock) {
+      this.removedKeys.add(key);
+      if (this.removedKeys.size() < UNREGISTER_BATCH_SIZE || this.unregisterScheduled) {
+        return;
+      }
+      this.unregisterScheduled = true;
+    }
+    scheduleUnregister();
+  }
+
+  /**
+   * Called after the region was cleared. The interest of all its keys is
+   * unregistered.
+   */
+  void afterClear() {
+    synchronized (this.lock) {
+      for (Iterator<Object> it = this.registeredKeys.iterator(); it.hasNext();) {
+        this.removedKeys.add(it.next());
+        it.remove();
+      }
+      if (this.removedKeys.isEmpty() || this.unregisterScheduled) {
+        return;
+      }
+      this.unregisterScheduled = true;
+    }
+    scheduleUnregister();
+  }
+
+  private void scheduleUnregister() {
+    try {
+      getServerProxy().getPool().getBackgroundProcessor().execute(new Runnable() {
+        public void run() {
+          unregisterRemovedKeys();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the pool is shutting down
+      synchronized (this.lock) {
+        this.unregisterScheduled = false;
+      }
+    }
+  }
+
+  void unregisterRemovedKeys() {
+    List<Object> keys;
+    synchronized (this.lock) {
+      keys = new ArrayList<>(this.removedKeys);
+      this.removedKeys.clear();
+      this.unregisterScheduled = false;
+      if (keys.isEmpty() || this.region.isDestroyed()) {
+        return;
+      }
+      this.unregisteringKeys.addAll(keys);
+    }
+    try {
+      getServerProxy().unregisterInterestList(keys, false, false);
+    } catch (CancelException e) {
+      // shutting down
+    } catch (RuntimeException e) {
+      // the servers will just keep sending invalidates for these keys
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not unregister interest in {} removed keys of {}", keys.size(),
+            this.region.getFullPath(), e);
+      }
+    } finally {
+      synchronized (this.lock) {
+        this.unregisteringKeys.removeAll(keys);
+        this.lock.notifyAll();
+      }
+    }
+  }
+
+  /** Returns the number of keys whose interest is registered. */
+  int getRegisteredKeyCount() {
+    return this.registeredKeys.size();
+  }
+
+  private ServerRegionProxy getServerProxy() {
+    return this.serverProxy;
+  }
+
+  private byte getDataPolicy() {
+    return this.region.getAttributes().getDataPolicy().ordinal;
+  }
+}
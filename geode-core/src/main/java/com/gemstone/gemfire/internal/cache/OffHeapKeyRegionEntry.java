@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+/**
+ * Any RegionEntry that stores its key off heap,
+ * in addition to its value, must implement this interface.
+ * The key is kept on the heap until the entry has been added to its
+ * region map, serialized in off-heap memory while the entry is in the map,
+ * and on the heap again once the entry is released.
+ * 
+ *
+ */
+public interface OffHeapKeyRegionEntry extends OffHeapRegionEntry {
+  /**
+   * OFF_HEAP_FIELD_READER
+   * @return OFF_HEAP_ADDRESS of the serialized key, 0 while the key is on the heap
+   */
+  public long getKeyAddress();
+  /**
+   * OFF_HEAP_FIELD_WRITER
+   * @param expectedAddr OFF_HEAP_ADDRESS
+   * @param newAddr OFF_HEAP_ADDRESS
+   * @return true if the key address was changed
+   */
+  public boolean setKeyAddress(long expectedAddr, long newAddr);
+  /**
+   * @return the heap form of the key, null while the key is off-heap
+   */
+  public Object getHeapKey();
+  /**
+   * Sets the heap form of the key, before the off-heap form is released
+   * or after it has been stored.
+   */
+  public void setHeapKey(Object key);
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.gemstone.gemfire.StatisticDescriptor;
+import com.gemstone.gemfire.Statistics;
+import com.gemstone.gemfire.StatisticsFactory;
+import com.gemstone.gemfire.StatisticsType;
+import com.gemstone.gemfire.StatisticsTypeFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.StatisticsTypeFactoryImpl;
+import com.gemstone.gemfire.management.OperationLatency;
+
+/**
+ * Latency histograms for client/server operations, one statistics instance
+ * for each kind of operation. Each histogram counts operations in buckets
+ * whose bounds grow by a factor of 1.5 or 1.33 so that percentiles such as the
+ * p99 can be read from the statistics archive to within 50% without keeping
+ * every sample. Recording an operation increments three atomic counters and
+ * takes no locks.
+ *
+ * @since Geode 1.0
+ */
+public class OperationLatencyStats {
+
+  /**
+   * Set this to true to stop recording operation latencies.
+   */
+  public static final boolean DISABLED = Boolean.getBoolean(
+      DistributionConfig.GEMFIRE_PREFIX + "OperationLatencyStats.DISABLED");
+
+  /** Operations faster than 2^FIRST_SHIFT nanoseconds share the first bucket */
+  static final int FIRST_SHIFT = 10;
+  /** Operations slower than 2^LAST_SHIFT nanoseconds share the last bucket */
+  static final int LAST_SHIFT = 35;
+  /** Two buckets for each power of two plus the first and last ones */
+  static final int BUCKETS = 2 * (LAST_SHIFT - FIRST_SHIFT) + 2;
+
+  /** The exclusive upper bound, in nanoseconds, of each bucket but the last */
+  private static final long[] bucketLimits = new long[BUCKETS - 1];
+
+  private static final StatisticsType clientType;
+  private static final StatisticsType serverType;
+
+  private static final int operationsId;
+  private static final int operationTimeId;
+  private static final int firstBucketId;
+
+  static {
+    bucketLimits[0] = 1L << FIRST_SHIFT;
+    for (int shift = FIRST_SHIFT; shift < LAST_SHIFT; shift++) {
+      int bucket = 1 + 2 * (shift - FIRST_SHIFT);
+      bucketLimits[bucket] = 3L << (shift - 1);
+      bucketLimits[bucket + 1] = 1L << (shift + 1);
+    }
+    StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
+    clientType = createType(f, "ClientOperationLatency",
+        "Latency histogram of one kind of operation sent by a client pool to its servers");
+    serverType = createType(f, "ServerOperationLatency",
+        "Latency histogram of one kind of client request processed by a cache server");
+    operationsId = clientType.nameToId("operations");
+    operationTimeId = clientType.nameToId("operationTime");
+    firstBucketId = clientType.nameToId(getBucketName(0));
+  }
+
+  private static StatisticsType createType(StatisticsTypeFactory f, String name, String description) {
+    StatisticDescriptor[] descriptors = new StatisticDescriptor[BUCKETS + 2];
+    descriptors[0] = f.createLongCounter("operations",
+        "Total number of operations.", "operations");
+    descriptors[1] = f.createLongCounter("operationTime",
+        "Total time spent in operations.", "nanoseconds");
+    for (int i = 0; i < BUCKETS; i++) {
+      String bucketDescription = i < BUCKETS - 1
+          ? "Number of operations that took less than " + bucketLimits[i] + " nanoseconds"
+          : "Number of operations that took " + bucketLimits[BUCKETS - 2] + " nanoseconds or more";
+      if (i > 0 && i < BUCKETS - 1) {
+        bucketDescription += " and at least " + bucketLimits[i - 1] + " nanoseconds";
+      }
+      descriptors[i + 2] = f.createLongCounter(getBucketName(i), bucketDescription + ".", "operations");
+    }
+    return f.createType(name, description, descriptors);
+  }
+
+  private static String getBucketName(int bucket) {
+    if (bucket < BUCKETS - 1) {
+      return "lessThan" + bucketLimits[bucket] + "ns";
+    }
+    return "atLeast" + bucketLimits[BUCKETS - 2] + "ns";
+  }
+
+  /**
+   * Returns the bucket that counts operations that took the given number of
+   * nanoseconds.
+   */
+  static int getBucket(long nanos) {
+    if (nanos < (1L << FIRST_SHIFT)) {
+      return 0;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(nanos);
+    if (shift >= LAST_SHIFT) {
+      return BUCKETS - 1;
+    }
+    // the bit below the highest one picks the upper or lower half of [2^shift, 2^(shift+1))
+    return 1 + 2 * (shift - FIRST_SHIFT) + (int)((nanos >>> (shift - 1)) & 1);
+  }
+
+  private final StatisticsFactory factory;
+  private final StatisticsType type;
+  private final String ownerName;
+  private final ConcurrentMap<Class<?>, Statistics> histograms = new ConcurrentHashMap<Class<?>, Statistics>();
+
+  private OperationLatencyStats(StatisticsFactory f, StatisticsType type, String ownerName) {
+    this.factory = f;
+    this.type = type;
+    this.ownerName = ownerName;
+  }
+
+  /**
+   * Creates histograms for the operations sent by the named pool. Returns
+   * null if latency recording is disabled.
+   */
+  public static OperationLatencyStats createClientStats(StatisticsFactory f, String poolName) {
+    return DISABLED ? null : new OperationLatencyStats(f, clientType, poolName);
+  }
+
+  /**
+   * Creates histograms for the requests processed by the named cache server.
+   * Returns null if latency recording is disabled.
+   */
+  public static OperationLatencyStats createServerStats(StatisticsFactory f, String serverName) {
+    return DISABLED ? null : new OperationLatencyStats(f, serverType, serverName);
+  }
+
+  /**
+   * Records that an operation implemented by the given class took the given
+   * number of nanoseconds.
+   */
+  public void record(Class<?> operationClass, long nanos) {
+    Statistics stats = this.histograms.get(operationClass);
+    if (stats == null) {
+      stats = createHistogram(operationClass);
+    }
+    stats.incLong(operationsId, 1);
+    stats.incLong(operationTimeId, nanos);
+    stats.incLong(firstBucketId + getBucket(nanos), 1);
+  }
+
+  private synchronized Statistics createHistogram(Class<?> operationClass) {
+    Statistics stats = this.histograms.get(operationClass);
+    if (stats == null) {
+      stats = this.factory.createAtomicStatistics(this.type,
+          this.ownerName + ":" + getOperationName(operationClass));
+      this.histograms.put(operationClass, stats);
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the name an operation class is shown under, for example GetOp
+   * for GetOp.GetOpImpl and Put65 for the Put65 command.
+   */
+  static String getOperationName(Class<?> operationClass) {
+    String name = operationClass.getName();
+    name = name.substring(name.lastIndexOf('.') + 1);
+    int nested = name.lastIndexOf('$');
+    if (nested >= 0 && !Character.isDigit(name.charAt(nested + 1))) {
+      name = name.substring(nested + 1);
+    }
+    if (name.endsWith("Impl") && name.length() > 4) {
+      name = name.substring(0, name.length() - 4);
+    }
+    return name;
+  }
+
+  /**
+   * Returns an upper bound, in nanoseconds, of the latency of the given
+   * fraction of the operations recorded in the given histogram. For example
+   * 0.99 gives the p99 latency. The last bucket has no upper bound so its
+   * lower bound is returned for it.
+   */
+  static long getLatencyAtPercentile(Statistics stats, double fraction) {
+    long total = stats.getLong(operationsId);
+    if (total == 0) {
+      return 0;
+    }
+    long target = (long)Math.ceil(fraction * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS - 1; i++) {
+      seen += stats.getLong(firstBucketId + i);
+      if (seen >= target) {
+        return bucketLimits[i];
+      }
+    }
+    return bucketLimits[BUCKETS - 2];
+  }
+
+  /**
+   * Returns a snapshot of the latencies of each kind of operation recorded
+   * so far.
+   */
+  public OperationLatency[] getLatencies() {
+    List<OperationLatency> result = new ArrayList<OperationLatency>();
+    for (Statistics stats : this.histograms.values()) {
+      OperationLatency latency = new OperationLatency();
+      String textId = stats.getTextId();
+      latency.setOperation(textId.substring(this.ownerName.length() + 1));
+      latency.setCount(stats.getLong(operationsId));
+      latency.setTotalTime(stats.getLong(operationTimeId));
+      latency.setP50(getLatencyAtPercentile(stats, 0.5));
+      latency.setP90(getLatencyAtPercentile(stats, 0.9));
+      latency.setP99(getLatencyAtPercentile(stats, 0.99));
+      latency.setP999(getLatencyAtPercentile(stats, 0.999));
+      result.add(latency);
+    }
+    return result.toArray(new OperationLatency[result.size()]);
+  }
+
+  public synchronized void close() {
+    for (Statistics stats : this.histograms.values()) {
+      stats.close();
+    }
+    this.histograms.clear();
+  }
+}
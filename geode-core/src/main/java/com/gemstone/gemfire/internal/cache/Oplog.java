@@ -62,7 +62,14 @@ import java.nio.channels.ClosedChannelException;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -141,6 +148,44 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   private static final boolean SYNC_WRITES = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "syncWrites");
 
+  /**
+   * This system property makes synchronous entry operations durable by
+   * syncing the oplog once for all the operations that are waiting, instead of
+   * opening it with rwd. Writes that are not done on behalf of an entry
+   * operation sync the oplog right away.
+   */
+  static final boolean GROUP_COMMIT = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommit");
+
+  /**
+   * How long, in microseconds, the thread that syncs a group commit first
+   * waits for more operations to join it. 0 syncs right away, which still
+   * groups all the operations that arrive while the previous sync runs.
+   */
+  static final long GROUP_COMMIT_MAX_WAIT_MICROS = Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommitMaxWaitMicros", 0).longValue();
+
+  private final GroupCommitter groupCommitter = GROUP_COMMIT ? new GroupCommitter(new GroupCommitter.Syncable() {
+    public void sync(long writes) throws IOException {
+      syncForGroupCommit(writes);
+    }
+  }, TimeUnit.MICROSECONDS.toNanos(GROUP_COMMIT_MAX_WAIT_MICROS)) : null;
+
+  /**
+   * The oplog, if any, that the synchronous entry operation the current thread
+   * is doing has written to without syncing; see {@link #deferSync}.
+   */
+  private static final ThreadLocal<DeferredSync> deferredSync = new ThreadLocal<DeferredSync>() {
+    @Override
+    protected DeferredSync initialValue() {
+      return new DeferredSync();
+    }
+  };
+
+  private static final class DeferredSync {
+    boolean active;
+    Oplog oplog;
+    long sequence;
+  }
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -479,7 +524,9 @@ public final class Oplog implements CompactableOplog, Flushable {
     DRF(new byte[] { 0x47, 0x46, 0x44, 0x52, 0x46, 0x31 }), // GFDRF1
     IRF(new byte[] { 0x47, 0x46, 0x49, 0x52, 0x46, 0x31 }), // GFIRF1
     KRF(new byte[] { 0x47, 0x46, 0x4b, 0x52, 0x46, 0x31 }), // GFKRF1
-    IF(new byte[] { 0x47, 0x46, 0x49, 0x46, 0x30, 0x31 }); // GFIF01
+    IF(new byte[] { 0x47, 0x46, 0x49, 0x46, 0x30, 0x31 }), // GFIF01
+    CHECKSUMMED_CRF(new byte[] { 0x47, 0x46, 0x43, 0x52, 0x46, 0x32 }), // GFCRF2
+    CHECKSUMMED_KRF(new byte[] { 0x47, 0x46, 0x4b, 0x52, 0x46, 0x32 }); // GFKRF2
 
     private byte[] bytes;
 
@@ -494,6 +541,21 @@ public final class Oplog implements CompactableOplog, Flushable {
     public static int getLen() {
       return 6;
     }
+
+    /**
+     * Returns the type of the files of oplogs whose values are checksummed
+     * that correspond to this type, or null if there is none.
+     */
+    public OPLOG_TYPE getChecksummedType() {
+      switch (this) {
+      case CRF:
+        return CHECKSUMMED_CRF;
+      case KRF:
+        return CHECKSUMMED_KRF;
+      default:
+        return null;
+      }
+    }
   }
 
   public static final int OPLOG_MAGIC_SEQ_REC_SIZE = 1 + OPLOG_TYPE.getLen() + 1;
@@ -510,12 +572,27 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   private boolean lockedForKRFcreate = false;
 
+  /**
+   * True if the values in this oplog's crf are framed by
+   * {@link OplogValueCodec}, which checksums and possibly compresses them.
+   * Set when the crf is created or when recovery reads the magic sequence of
+   * the crf or krf.
+   */
+  private boolean checksummedValues = false;
+
   /**
    * Set to true when this oplog will no longer be written to. Never set to
    * false once it becomes true.
    */
   private boolean doneAppending = false;
 
+  /**
+   * A read-only mapping of the crf that values are faulted in from once this
+   * oplog is no longer being written to. Only used if the disk store maps
+   * sealed oplogs.
+   */
+  private final MappedOplogFile mappedCrf;
+
   /**
    * Extra bytes to be skipped before reading value bytes. Value is currently 6
    * : 1 byte for opcode, 1 byte for userbits and 4 bytes for value length.
@@ -566,6 +643,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     setMaxCrfDrfSize();
     this.stats = getParent().getStats();
+    this.mappedCrf = new MappedOplogFile(this.stats);
     this.compactOplogs = getParent().getAutoCompact();
 
     this.closed = false;
@@ -627,6 +705,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     setMaxCrfDrfSize();
     this.stats = prevOplog.stats;
+    this.mappedCrf = new MappedOplogFile(this.stats);
     this.compactOplogs = prevOplog.compactOplogs;
     // copy over the previous Oplog's data version since data is not being
     // transformed at this point
@@ -826,6 +905,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.maxOplogSize = maxOplogSizeParam;
     setMaxCrfDrfSize();
     this.stats = getParent().getStats();
+    this.mappedCrf = new MappedOplogFile(this.stats);
     this.compactOplogs = getParent().getAutoCompact();
     this.closed = true;
     this.crf.RAFClosed = true;
@@ -1059,7 +1139,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     this.crf.f = f;
     preblow(this.crf, getMaxCrfSize());
-    this.crf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.crf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES && !GROUP_COMMIT ? "rwd" : "rw");
     this.crf.RAFClosed = false;
     oplogSet.crfCreate(this.oplogId);
     this.crf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1068,7 +1148,8 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.crf.channel = this.crf.raf.getChannel();
 
     this.stats.incOpenOplogs();
-    writeDiskStoreRecord(this.crf, OPLOG_TYPE.CRF);
+    this.checksummedValues = getParent().CHECKSUM_VALUES;
+    writeDiskStoreRecord(this.crf, this.checksummedValues ? OPLOG_TYPE.CHECKSUMMED_CRF : OPLOG_TYPE.CRF);
     writeGemfireVersionRecord(this.crf);
     writeRVVRecord(this.crf, false);
 
@@ -1101,7 +1182,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       logger.debug("Creating operation log file {}", f);
     }
     preblow(this.drf, getMaxDrfSize());
-    this.drf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.drf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES && !GROUP_COMMIT ? "rwd" : "rw");
     this.drf.RAFClosed = false;
     this.oplogSet.drfCreate(this.oplogId);
     this.drf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1647,6 +1728,110 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   private OplogEntryIdMap skippedKeyBytes;
 
+  /**
+   * The start of this oplog's krf if {@link #prefetchKrf} has been asked to
+   * read it ahead of the oplog's recovery.
+   */
+  private volatile Future<byte[]> prefetchedKrf;
+
+  /**
+   * Starts reading this oplog's krf into memory on the given executor so that
+   * {@link #recoverCrf} finds it there instead of waiting on the disk. At most
+   * {@link DiskStoreImpl#MAX_PREFETCHED_KRF_BYTES} are read; recovery reads
+   * the rest of a larger krf from the file. Does nothing if the oplog has no
+   * complete krf.
+   */
+  void prefetchKrf(ExecutorService executor) {
+    if (this.crf.f == null || !getParent().getDiskInitFile().hasKrf(this.oplogId)) {
+      return;
+    }
+    final File f = new File(new File(this.drf.f.getParentFile(), oplogSet.getPrefix() + getParent().getName() + "_"
+        + this.oplogId).getPath() + KRF_FILE_EXT);
+    final int length = (int) Math.min(f.length(), getParent().MAX_PREFETCHED_KRF_BYTES);
+    if (length <= 0) {
+      return;
+    }
+    try {
+      this.prefetchedKrf = executor.submit(new Callable<byte[]>() {
+        public byte[] call() throws IOException {
+          byte[] bytes = new byte[length];
+          DataInputStream in = new DataInputStream(new FileInputStream(f));
+          try {
+            in.readFully(bytes);
+          } finally {
+            in.close();
+          }
+          Oplog.this.stats.incKrfPrefetches();
+          return bytes;
+        }
+      });
+    } catch (RejectedExecutionException ignore) {
+      // recoverCrf will read the krf itself
+    }
+  }
+
+  /**
+   * Discards the krf bytes read by {@link #prefetchKrf} if recovery did not
+   * use them.
+   */
+  void cancelKrfPrefetch() {
+    Future<byte[]> prefetched = this.prefetchedKrf;
+    if (prefetched != null) {
+      this.prefetchedKrf = null;
+      prefetched.cancel(true);
+    }
+  }
+
+  /**
+   * Returns the start of the krf read by {@link #prefetchKrf}, waiting for the
+   * read to finish, or null if it was not read ahead or could not be read, in
+   * which case the caller reads the whole file itself.
+   */
+  private byte[] takePrefetchedKrf() {
+    Future<byte[]> prefetched = this.prefetchedKrf;
+    if (prefetched == null) {
+      return null;
+    }
+    this.prefetchedKrf = null;
+    long start = this.stats.startKrfPrefetchWait();
+    try {
+      return prefetched.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Reading krf of oplog#{} ahead of recovery failed", this.oplogId, e.getCause());
+      }
+      return null;
+    } catch (CancellationException e) {
+      return null;
+    } finally {
+      this.stats.endKrfPrefetchWait(start);
+    }
+  }
+
+  /**
+   * Opens the given krf, reading the bytes that were read ahead of recovery
+   * from memory and the rest, if any, from the file.
+   */
+  private static InputStream openKrf(File f, byte[] krfBytes) throws IOException {
+    if (krfBytes == null) {
+      return new FileInputStream(f);
+    }
+    if (krfBytes.length == f.length()) {
+      return new ByteArrayInputStream(krfBytes);
+    }
+    FileInputStream rest = new FileInputStream(f);
+    try {
+      rest.getChannel().position(krfBytes.length);
+    } catch (IOException e) {
+      rest.close();
+      throw e;
+    }
+    return new SequenceInputStream(new ByteArrayInputStream(krfBytes), rest);
+  }
+
   private boolean readKrf(OplogEntryIdSet deletedIds, boolean recoverValues, boolean recoverValuesSync,
       Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog) {
     File f = new File(this.diskFile.getPath() + KRF_FILE_EXT);
@@ -1668,16 +1853,17 @@ public final class Oplog implements CompactableOplog, Flushable {
       return false;
     }
 
-    FileInputStream fis;
+    if (getParent().isOffline() && !getParent().FORCE_KRF_RECOVERY) {
+      return false;
+    }
+    byte[] krfBytes = takePrefetchedKrf();
+    InputStream fis;
     try {
-      fis = new FileInputStream(f);
-    } catch (FileNotFoundException ex) {
+      fis = openKrf(f, krfBytes);
+    } catch (IOException ex) {
       return false;
     }
     try {
-      if (getParent().isOffline() && !getParent().FORCE_KRF_RECOVERY) {
-        return false;
-      }
       logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_RECOVERING_OPLOG_0_1_2, new Object[] { toString(),
           f.getAbsolutePath(), getParent().getName() }));
       this.recoverNewEntryId = DiskStoreImpl.INVALID_ID;
@@ -1701,7 +1887,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           // beginning or this is not a valid file at all. Try reading it as a
           // file in old format
           fis.close();
-          fis = new FileInputStream(f);
+          fis = openKrf(f, krfBytes);
           dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
           readDiskStoreRecord(dis, f);
         } catch (IllegalStateException notOldFileErr) {
@@ -1709,7 +1895,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           // is in new format which has a magic seq in the beginning or this is
           // not a valid file at all
           fis.close();
-          fis = new FileInputStream(f);
+          fis = openKrf(f, krfBytes);
           dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
           readDiskStoreRecord(dis, f);
         }
@@ -2046,6 +2232,11 @@ public final class Oplog implements CompactableOplog, Flushable {
   private void readOplogMagicSeqRecord(DataInput dis, File f, OPLOG_TYPE type) throws IOException {
     byte[] seq = new byte[OPLOG_TYPE.getLen()];
     dis.readFully(seq);
+    OPLOG_TYPE checksummedType = type.getChecksummedType();
+    if (checksummedType != null && Arrays.equals(seq, checksummedType.getBytes())) {
+      this.checksummedValues = true;
+      type = checksummedType;
+    }
     for (int i = 0; i < OPLOG_TYPE.getLen(); i++) {
       if (seq[i] != type.getBytes()[i]) {
         if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
@@ -2260,6 +2451,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     } finally {
       this.kvMap = null;
       this.skippedKeyBytes = null;
+      cancelKrfPrefetch();
       unlockCompactor();
     }
   }
@@ -2283,7 +2475,11 @@ public final class Oplog implements CompactableOplog, Flushable {
     // 45777: for normal offline compaction, we only do it when
     // getRecordsSkipped() > 0
     // but for upgrade disk store, we have to do it for pure creates oplog
-    if (getRecordsSkipped() > 0 || getHasDeletes() || getParent().isUpgradeVersionOnly()) {
+    // Oplogs whose values are not in the format new oplogs are written in are
+    // also rewritten, which is how offline compaction converts a disk store
+    // to or from checksummed values.
+    if (getRecordsSkipped() > 0 || getHasDeletes() || getParent().isUpgradeVersionOnly()
+        || this.checksummedValues != getParent().CHECKSUM_VALUES) {
       this.offlineCompactPhase2 = true;
       if (getOplogSet().getChild() == null) {
         getOplogSet().initChild();
@@ -2486,10 +2682,12 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
       }
       if (recoverValue && !skipResult.skip()) {
-        byte[] valueBytes = new byte[len];
-        dis.readFully(valueBytes);
+        byte[] valueBytes = readValueBytes(dis, len, oplogOffset);
         objValue = valueBytes;
         validateValue(valueBytes, userBits, version, in);
+      } else if (this.checksummedValues && getParent().isValidating()) {
+        // validation does not recover values but still checks their checksums
+        readValueBytes(dis, len, oplogOffset);
       } else {
         forceSkipBytes(dis, len);
       }
@@ -2684,10 +2882,12 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
       }
       if (!skipResult.skip() && recoverValue) {
-        byte[] valueBytes = new byte[len];
-        dis.readFully(valueBytes);
+        byte[] valueBytes = readValueBytes(dis, len, oplogOffset);
         objValue = valueBytes;
         validateValue(valueBytes, userBits, version, in);
+      } else if (this.checksummedValues && getParent().isValidating()) {
+        // validation does not recover values but still checks their checksums
+        readValueBytes(dis, len, oplogOffset);
       } else {
         forceSkipBytes(dis, len);
       }
@@ -2908,10 +3108,12 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
       }
       if (!skipResult.skip() && recoverValue) {
-        byte[] valueBytes = new byte[len];
-        dis.readFully(valueBytes);
+        byte[] valueBytes = readValueBytes(dis, len, oplogOffset);
         objValue = valueBytes;
         validateValue(valueBytes, userBits, version, in);
+      } else if (this.checksummedValues && getParent().isValidating()) {
+        // validation does not recover values but still checks their checksums
+        readValueBytes(dis, len, oplogOffset);
       } else {
         forceSkipBytes(dis, len);
       }
@@ -3276,6 +3478,7 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   private void basicClose(boolean forceDelete) {
     flushAll();
+    this.mappedCrf.close();
     synchronized (this.lock/* crf */) {
       unpreblow(this.crf, getMaxCrfSize());
       if (!this.crf.RAFClosed) {
@@ -3422,7 +3625,8 @@ public final class Oplog implements CompactableOplog, Flushable {
    * @param entry
    *          The DiskEntry object being operated upon
    * @param value
-   *          The byte array representing the value
+   *          The byte array representing the value, already encoded by
+   *          {@link #encodeValue}
    * @param userBits
    * @throws IOException
    */
@@ -3446,6 +3650,65 @@ public final class Oplog implements CompactableOplog, Flushable {
     return this.opState.getValueOffset();
   }
 
+  private int getOpStateValueLength() {
+    return this.opState.getValueLength();
+  }
+
+  /**
+   * Frames the given value with {@link OplogValueCodec} if this oplog
+   * checksums its values. Does not need the oplog's lock, so creates and
+   * modifies encode their value before taking it.
+   */
+  private ValueWrapper encodeValue(ValueWrapper value) throws IOException {
+    int length = value.getLength();
+    if (!this.checksummedValues || length == 0) {
+      return value;
+    }
+    byte[] frame = OplogValueCodec.encode(OplogValueCodec.getBytes(value), length, getParent().COMPRESS_VALUES);
+    return new DiskEntry.Helper.ByteArrayValueWrapper(false, frame);
+  }
+
+  /**
+   * Counts the given value as compressed if encoding it compressed it. Called
+   * once the encoded value is written to this oplog.
+   */
+  private void incCompressedValues(ValueWrapper value, ValueWrapper encodedValue) {
+    if (encodedValue != value
+        && OplogValueCodec.isCompressed(((DiskEntry.Helper.ByteArrayValueWrapper) encodedValue).bytes)) {
+      this.stats.incCompressedValues(value.getLength(), encodedValue.getLength());
+    }
+  }
+
+  /**
+   * Returns the value framed in the first <code>length</code> bytes of the
+   * given array if this oplog checksums its values, otherwise the array
+   * itself.
+   * 
+   * @throws DiskAccessException
+   *           if the value's checksum does not match
+   */
+  private byte[] decodeValue(byte[] valueBytes, int length, long offsetInOplog) {
+    if (!this.checksummedValues) {
+      return valueBytes;
+    }
+    try {
+      return OplogValueCodec.decode(valueBytes, length);
+    } catch (IOException ex) {
+      this.stats.incValueChecksumFailures();
+      throw new DiskAccessException("The value at offset " + offsetInOplog + " in " + this.crf.f + " is corrupt: "
+          + ex.getMessage(), ex, getParent());
+    }
+  }
+
+  /**
+   * Reads the value of a crf record during recovery.
+   */
+  private byte[] readValueBytes(DataInput dis, int len, long offsetInOplog) throws IOException {
+    byte[] valueBytes = new byte[len];
+    dis.readFully(valueBytes);
+    return decodeValue(valueBytes, len, offsetInOplog);
+  }
+
   private byte calcUserBits(ValueWrapper vw) {
     return vw.getUserBits();
   }
@@ -3555,10 +3818,12 @@ public final class Oplog implements CompactableOplog, Flushable {
       System.out.println("basicCreate KRF_DEBUG");
       Thread.sleep(1000);
     }
+    // encode the value before taking the lock since compressing it is costly
+    ValueWrapper encodedValue = EntryBits.isNeedsValue(userBits) ? encodeValue(value) : value;
     synchronized (this.lock) { // TODO soplog perf analysis shows this as a
                                // contention point
       // synchronized (this.crf) {
-      initOpState(OPLOG_NEW_ENTRY_0ID, dr, entry, value, userBits, false);
+      initOpState(OPLOG_NEW_ENTRY_0ID, dr, entry, encodedValue, userBits, false);
       // Asif : Check if the current data in ByteBuffer will cause a
       // potential increase in the size greater than the max allowed
       long temp = (getOpStateSize() + this.crf.currSize);
@@ -3621,8 +3886,9 @@ public final class Oplog implements CompactableOplog, Flushable {
         // assert false;
         // }
         this.crf.currSize = temp;
+        incCompressedValues(value, encodedValue);
         if (EntryBits.isNeedsValue(userBits)) {
-          id.setValueLength(value.getLength());
+          id.setValueLength(getOpStateValueLength());
         } else {
           id.setValueLength(0);
         }
@@ -3990,7 +4256,8 @@ public final class Oplog implements CompactableOplog, Flushable {
 
     // write oplog magic seq
     this.krf.dos.writeByte(OPLOG_MAGIC_SEQ_ID);
-    this.krf.dos.write(Oplog.OPLOG_TYPE.KRF.getBytes(), 0, Oplog.OPLOG_TYPE.getLen());
+    OPLOG_TYPE krfType = this.checksummedValues ? OPLOG_TYPE.CHECKSUMMED_KRF : OPLOG_TYPE.KRF;
+    this.krf.dos.write(krfType.getBytes(), 0, Oplog.OPLOG_TYPE.getLen());
     this.krf.dos.writeByte(END_OF_RECORD_ID);
 
     // write the disk store id to the krf
@@ -4593,12 +4860,14 @@ public final class Oplog implements CompactableOplog, Flushable {
       System.out.println("basicModify KRF_DEBUG");
       Thread.sleep(1000);
     }
+    // encode the value before taking the lock since compressing it is costly
+    ValueWrapper encodedValue = EntryBits.isNeedsValue(userBits) ? encodeValue(value) : value;
     synchronized (this.lock) {
       // synchronized (this.crf) {
       if (getOplogSet().getChild() != this) {
         useNextOplog = true;
       } else {
-        initOpState(OPLOG_MOD_ENTRY_1ID, dr, entry, value, userBits, false);
+        initOpState(OPLOG_MOD_ENTRY_1ID, dr, entry, encodedValue, userBits, false);
         adjustment = getOpStateSize();
         assert adjustment > 0;
         long temp = (this.crf.currSize + adjustment);
@@ -4618,6 +4887,10 @@ public final class Oplog implements CompactableOplog, Flushable {
           // Write the data to the opLog for the synch mode
           startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
           this.crf.currSize = temp;
+          incCompressedValues(value, encodedValue);
+          if (calledByCompactor) {
+            getStats().incCompactedBytes(adjustment);
+          }
           startPosForSynchOp += getOpStateValueOffset();
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             VersionTag tag = null;
@@ -4630,7 +4903,7 @@ public final class Oplog implements CompactableOplog, Flushable {
               dr.getId(), tag, getOplogId());
           }
           if (EntryBits.isNeedsValue(userBits)) {
-            id.setValueLength(value.getLength());
+            id.setValueLength(getOpStateValueLength());
           } else {
             id.setValueLength(0);
           }
@@ -4785,7 +5058,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           startPosForSynchOp = writeOpLogBytes(this.crf, true, true);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
-          getOplogSet().getChild().writeOneKeyEntryForKRF(keyBytes, userBits, valueBytes.length, drId, oplogKeyId,
+          getOplogSet().getChild().writeOneKeyEntryForKRF(keyBytes, userBits, getOpStateValueLength(), drId, oplogKeyId,
               startPosForSynchOp, tag);
 
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -5170,7 +5443,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
       }
       if (doSync) {
-        if (SYNC_WRITES) {
+        if (SYNC_WRITES || GROUP_COMMIT) {
           // Synch Meta Data as well as content
           olf.channel.force(true);
         }
@@ -5209,6 +5482,109 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
   
+  /**
+   * Called with the oplog lock held after a synchronous write. If the current
+   * thread is doing an entry operation in group commit mode, hands the write
+   * to the file system and leaves syncing it to {@link #syncDeferred}.
+   * 
+   * @return false if the caller has to sync the write itself
+   */
+  private boolean deferSync() {
+    if (this.groupCommitter == null) {
+      return false;
+    }
+    DeferredSync deferred = deferredSync.get();
+    if (!deferred.active || (deferred.oplog != null && deferred.oplog != this)) {
+      return false;
+    }
+    flushAllNoSync(false);
+    deferred.oplog = this;
+    deferred.sequence = this.groupCommitter.written();
+    return true;
+  }
+
+  /**
+   * Lets the synchronous writes the current thread does until
+   * {@link #syncDeferred} be synced together with those of other threads.
+   * 
+   * @return true if the caller has to end the deferral with
+   *         {@link #syncDeferred} or {@link #stopDeferringSync}; false if group
+   *         commit is disabled or the thread is already deferring
+   */
+  static boolean startDeferringSync() {
+    if (!GROUP_COMMIT) {
+      return false;
+    }
+    DeferredSync deferred = deferredSync.get();
+    if (deferred.active) {
+      return false;
+    }
+    deferred.active = true;
+    deferred.oplog = null;
+    return true;
+  }
+
+  /**
+   * Waits until the writes deferred since {@link #startDeferringSync} are
+   * durable.
+   */
+  static void syncDeferred() {
+    DeferredSync deferred = deferredSync.get();
+    Oplog oplog = deferred.oplog;
+    deferred.active = false;
+    deferred.oplog = null;
+    if (oplog != null) {
+      oplog.awaitGroupCommit(deferred.sequence);
+    }
+  }
+
+  /**
+   * Stops deferring syncs without waiting, for a synchronous operation that
+   * failed.
+   */
+  static void stopDeferringSync() {
+    DeferredSync deferred = deferredSync.get();
+    deferred.active = false;
+    deferred.oplog = null;
+  }
+
+  private void awaitGroupCommit(long sequence) {
+    try {
+      this.groupCommitter.awaitDurable(sequence);
+    } catch (IOException ex) {
+      getParent().getCancelCriterion().checkCancelInProgress(ex);
+      throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()), ex,
+          getParent());
+    }
+  }
+
+  /**
+   * Syncs both files of this oplog on behalf of a group commit. The file
+   * descriptors are synced directly so that, unlike a channel force, the sync
+   * does not hold up the writers that will be covered by the next one.
+   */
+  private void syncForGroupCommit(long writes) throws IOException {
+    long start = this.stats.startGroupCommit();
+    syncFile(this.drf);
+    syncFile(this.crf);
+    this.stats.endGroupCommit(start, writes);
+  }
+
+  private void syncFile(OplogFile olf) throws IOException {
+    UninterruptibleRandomAccessFile raf = olf.raf;
+    if (raf == null || olf.RAFClosed) {
+      return;
+    }
+    try {
+      raf.getFD().sync();
+    } catch (SyncFailedException e) {
+      if (!olf.RAFClosed) {
+        throw e;
+      }
+      // the file was closed while we were syncing it
+    }
+  }
+
   public final void flushAll() {
     flushAll(false);
   }
@@ -5276,7 +5652,9 @@ public final class Oplog implements CompactableOplog, Flushable {
       // " was not > lastWritePos=" + lastWritePos);
       long bytesWritten = this.opState.write(olf);
       if (!async && doFlushIfSync) {
-        flushAndSync(olf);
+        if (!deferSync()) {
+          flushAndSync(olf);
+        }
       }
       getStats().incWrittenBytes(bytesWritten, async);
 
@@ -5389,7 +5767,7 @@ public final class Oplog implements CompactableOplog, Flushable {
               byte[] valueBytes = new byte[valueLength];
               myRAF.readFully(valueBytes);
               this.stats.incOplogReads();
-              bb = new BytesAndBits(valueBytes, userBits);
+              bb = new BytesAndBits(decodeValue(valueBytes, valueLength, readPosition), userBits);
               // also set the product version for an older product
               final Version version = getProductVersionIfOld();
               if (version != null) {
@@ -5431,6 +5809,38 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Reads a value from the memory mapped crf without taking the oplog's lock.
+   * The crf is mapped by the first read after this oplog stopped being
+   * written to.
+   * 
+   * @return the value or null if it has to be read from the file instead
+   */
+  private BytesAndBits mappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    if (!this.doneAppending) {
+      return null;
+    }
+    if (!this.mappedCrf.isMapped()) {
+      // map everything written so far
+      synchronized (this.lock/* crf */) {
+        if (!this.closed && this.crf.bytesFlushed < this.crf.currSize) {
+          flushAllNoSync(true);
+        }
+      }
+    }
+    byte[] valueBytes = this.mappedCrf.read(this.crf.f, this.crf.bytesFlushed, offsetInOplog, valueLength);
+    if (valueBytes == null) {
+      return null;
+    }
+    BytesAndBits bb = new BytesAndBits(decodeValue(valueBytes, valueLength, offsetInOplog), userBits);
+    // also set the product version for an older product
+    final Version version = getProductVersionIfOld();
+    if (version != null) {
+      bb.setVersion(version);
+    }
+    return bb;
+  }
+
   /**
    * Asif: Extracts the Value byte array & UserBit from the OpLog
    * 
@@ -5458,6 +5868,12 @@ public final class Oplog implements CompactableOplog, Flushable {
     } else {
       if (offsetInOplog == -1)
         return null;
+      if (getParent().MAP_SEALED_OPLOGS) {
+        bb = mappedGet(offsetInOplog, valueLength, userBits);
+        if (bb != null) {
+          return bb;
+        }
+      }
       try {
         for (;;) {
           dr.getCancelCriterion().checkCancelInProgress(null);
@@ -5567,7 +5983,12 @@ public final class Oplog implements CompactableOplog, Flushable {
               this.crf.raf.readFully(valueBytes, 0, valueLength);
             }
             this.stats.incOplogReads();
-            wrapper.setData(valueBytes, userBits, valueLength, true);
+            if (this.checksummedValues) {
+              valueBytes = decodeValue(valueBytes, valueLength, readPosition);
+              wrapper.setData(valueBytes, userBits, valueBytes.length, true);
+            } else {
+              wrapper.setData(valueBytes, userBits, valueLength, true);
+            }
           } finally {
             // if this oplog is no longer being appended to then don't waste
             // disk io
@@ -5663,6 +6084,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   }
 
   public void deleteCRFFileOnly() {
+    this.mappedCrf.close();
     deleteFile(this.crf);
     // replace .crf at the end with .krf
     if (this.crf.f != null) {
@@ -5828,6 +6250,10 @@ public final class Oplog implements CompactableOplog, Flushable {
     // }
   }
 
+  public double getCompactionBenefit() {
+    return DiskStoreImpl.compactionBenefit(getOplogSize(), this.totalLiveCount.get(), this.totalCount.get());
+  }
+
   boolean needsCompaction() {
     if (!isCompactionPossible())
       return false;
@@ -6043,6 +6469,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           if (dr == null)
             continue;
           boolean didCompact = false;
+          int copiedBytes = 0;
           while ((de = dri.getNextLiveEntry()) != null) {
             if (/*
                  * getParent().getOwner().isDestroyed ||
@@ -6082,12 +6509,14 @@ public final class Oplog implements CompactableOplog, Flushable {
                   getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
                   // the did's oplogId will now be set to the current active oplog
                   didCompact = true;
+                  copiedBytes = did.getValueLength();
                 }
               } // did
             } // de
             if (didCompact) {
               totalCount++;
               getStats().endCompactionUpdate(opStart);
+              compactor.throttle(copiedBytes);
               opStart = getStats().getStatTime();
               // Asif: Check if the value byte array happens to be any of the
               // constant
@@ -6249,7 +6678,11 @@ public final class Oplog implements CompactableOplog, Flushable {
             // remove the store.
 
             try {
+              boolean valueNull = diskEntry.isValueNull();
               DiskEntry.Helper.recoverValue(diskEntry, getOplogId(), diskRecoveryStore, in);
+              if (valueNull && !diskEntry.isValueNull()) {
+                this.stats.incRecoveredValues();
+              }
             } catch (RegionDestroyedException e) {
               // This region has been destroyed, stop recovering from it.
               diskRecoveryStores.remove(diskRegionId);
@@ -6590,6 +7023,9 @@ public final class Oplog implements CompactableOplog, Flushable {
       initVersionsBytes(tag);
 
       if (this.needsValue) {
+        ValueWrapper encodedValue = encodeValue(this.value);
+        incCompressedValues(this.value, encodedValue);
+        this.value = encodedValue;
         this.size += 4 + this.value.getLength();
       }
       this.deltaIdBytesLength = 0;
@@ -6673,6 +7109,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         saveDrId(drId);
       }
       if (this.needsValue) {
+        // the value was already encoded by encodeValue
         this.size += 4 + this.value.getLength();
       }
       this.deltaIdBytesLength = 0;
@@ -6747,6 +7184,16 @@ public final class Oplog implements CompactableOplog, Flushable {
       this.size++; // for END_OF_RECORD_ID
     }
 
+    /**
+     * Returns the number of value bytes that will be written, which for
+     * checksummed oplogs is the length of the framed value.
+     */
+    public int getValueLength() {
+      if (!this.needsValue)
+        return 0;
+      return this.value.getLength();
+    }
+
     /**
      * Returns the offset to the first byte of the value bytes.
      */
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.xerial.snappy.Snappy;
+import org.xerial.snappy.SnappyError;
+
+import com.gemstone.gemfire.internal.cache.DiskEntry.Helper.Flushable;
+import com.gemstone.gemfire.internal.cache.DiskEntry.Helper.ValueWrapper;
+
+/**
+ * Frames the values stored in the crf of a checksummed oplog. A framed value
+ * is laid out as:
+ *
+ * <pre>
+ * byte  codec     RAW or SNAPPY
+ * int   checksum  CRC32 of the codec byte and the payload
+ * ...   payload   RAW: the value's bytes
+ *                 SNAPPY: the value compressed with Snappy
+ * </pre>
+ *
+ * Values are compressed with Snappy, the same codec as
+ * {@link com.gemstone.gemfire.compression.SnappyCompressor}, because it costs
+ * much less CPU per byte than deflate. A value is stored raw if compressing it
+ * does not make it smaller or the native Snappy library is not available.
+ * Empty values are not framed.
+ *
+ * @since Geode 1.0
+ */
+class OplogValueCodec {
+
+  static final byte RAW = 0;
+  static final byte SNAPPY = 1;
+
+  /** The number of bytes a frame adds in front of its payload */
+  static final int HEADER_LENGTH = 1 + 4;
+
+  /** Values shorter than this are never worth compressing */
+  static final int MIN_COMPRESS_LENGTH = 128;
+
+  private static final Flushable NO_FLUSH = new Flushable() {
+    public void flush() {
+      // the buffer is exactly as large as the value
+    }
+
+    public void flush(ByteBuffer bb, ByteBuffer chunkbb) {
+      bb.put(chunkbb);
+    }
+  };
+
+  private OplogValueCodec() {
+  }
+
+  /**
+   * Returns the bytes of the given value, copying them out of the wrapper
+   * only if it does not hold exactly the value's bytes.
+   */
+  static byte[] getBytes(ValueWrapper value) throws IOException {
+    int length = value.getLength();
+    if (value instanceof DiskEntry.Helper.ByteArrayValueWrapper) {
+      byte[] bytes = ((DiskEntry.Helper.ByteArrayValueWrapper) value).bytes;
+      if (bytes != null && bytes.length == length) {
+        return bytes;
+      }
+    }
+    ByteBuffer bb = ByteBuffer.allocate(length);
+    value.sendTo(bb, NO_FLUSH);
+    return bb.array();
+  }
+
+  /**
+   * Frames the first <code>length</code> bytes of the given value.
+   *
+   * @param compress
+   *          true if the value should be compressed when that makes the frame
+   *          smaller
+   */
+  static byte[] encode(byte[] value, int length, boolean compress) {
+    if (length == 0) {
+      return value;
+    }
+    if (compress && length >= MIN_COMPRESS_LENGTH) {
+      byte[] frame = compress(value, length);
+      if (frame != null) {
+        frame[0] = SNAPPY;
+        putInt(frame, 1, checksum(frame, frame.length));
+        return frame;
+      }
+    }
+    byte[] frame = new byte[HEADER_LENGTH + length];
+    frame[0] = RAW;
+    System.arraycopy(value, 0, frame, HEADER_LENGTH, length);
+    putInt(frame, 1, checksum(frame, frame.length));
+    return frame;
+  }
+
+  /**
+   * Returns a frame whose payload is the compressed value, or null if
+   * compressing the value does not make it smaller or is not possible.
+   */
+  private static byte[] compress(byte[] value, int length) {
+    byte[] frame = new byte[HEADER_LENGTH + Snappy.maxCompressedLength(length)];
+    int compressedLength;
+    try {
+      compressedLength = Snappy.compress(value, 0, length, frame, HEADER_LENGTH);
+    } catch (IOException e) {
+      return null;
+    } catch (SnappyError e) {
+      return null;
+    }
+    if (compressedLength >= length) {
+      return null;
+    }
+    return Arrays.copyOf(frame, HEADER_LENGTH + compressedLength);
+  }
+
+  /**
+   * Returns the value framed in the first <code>length</code> bytes of the
+   * given frame.
+   *
+   * @throws IOException
+   *           if the frame's checksum does not match or it can not be decoded
+   */
+  static byte[] decode(byte[] frame, int length) throws IOException {
+    if (length == 0) {
+      return frame.length == 0 ? frame : new byte[0];
+    }
+    if (length < HEADER_LENGTH) {
+      throw new IOException("A checksummed value of " + length + " bytes is too short to have a checksum");
+    }
+    int expected = getInt(frame, 1);
+    int actual = checksum(frame, length);
+    if (expected != actual) {
+      throw new IOException("Value checksum mismatch; expected " + Integer.toHexString(expected) + " but was "
+          + Integer.toHexString(actual));
+    }
+    switch (frame[0]) {
+    case RAW:
+      return Arrays.copyOfRange(frame, HEADER_LENGTH, length);
+    case SNAPPY:
+      return uncompress(frame, length);
+    default:
+      throw new IOException("Unknown value codec " + frame[0]);
+    }
+  }
+
+  private static byte[] uncompress(byte[] frame, int length) throws IOException {
+    int payloadLength = length - HEADER_LENGTH;
+    try {
+      int valueLength = Snappy.uncompressedLength(frame, HEADER_LENGTH, payloadLength);
+      if (valueLength < 0) {
+        throw new IOException("Invalid compressed value length " + valueLength);
+      }
+      byte[] value = new byte[valueLength];
+      int uncompressedLength = Snappy.uncompress(frame, HEADER_LENGTH, payloadLength, value, 0);
+      if (uncompressedLength != valueLength) {
+        throw new IOException("Compressed value uncompressed to " + uncompressedLength + " bytes instead of " + valueLength);
+      }
+      return value;
+    } catch (SnappyError e) {
+      throw new IOException("Could not uncompress compressed value", e);
+    }
+  }
+
+  /**
+   * Returns true if the given frame holds a compressed value.
+   */
+  static boolean isCompressed(byte[] frame) {
+    return frame.length > 0 && frame[0] == SNAPPY;
+  }
+
+  private static int checksum(byte[] frame, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(frame[0]);
+    crc.update(frame, HEADER_LENGTH, length - HEADER_LENGTH);
+    return (int) crc.getValue();
+  }
+
+  private static void putInt(byte[] b, int offset, int v) {
+    b[offset] = (byte) (v >>> 24);
+    b[offset + 1] = (byte) (v >>> 16);
+    b[offset + 2] = (byte) (v >>> 8);
+    b[offset + 3] = (byte) v;
+  }
+
+  private static int getInt(byte[] b, int offset) {
+    return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16) | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+  }
+}
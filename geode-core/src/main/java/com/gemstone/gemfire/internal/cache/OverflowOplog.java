@@ -100,6 +100,13 @@ class OverflowOplog implements CompactableOplog, Flushable {
    */
   private boolean doneAppending = false;
 
+  /**
+   * A read-only mapping of the crf that values are faulted in from once this
+   * oplog is no longer being written to. Only used if the disk store maps
+   * sealed oplogs.
+   */
+  private final MappedOplogFile mappedCrf;
+
   private final OplogDiskEntry liveEntries = new OplogDiskEntry();
 
   private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
@@ -178,6 +185,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
       this.maxOplogSize = maxOplogSizeParam;
     }
     this.stats = this.parent.getStats();
+    this.mappedCrf = new MappedOplogFile(this.stats);
 
     this.closed = false;
     String n = this.parent.getName();
@@ -459,6 +467,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
   
   private void basicClose() {
     flushAll();
+    this.mappedCrf.close();
     synchronized (this.crf) {
       if (!this.crf.RAFClosed) {
         try {
@@ -566,7 +575,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
   {
     try {
       byte userBits = calcUserBits(value);
-      return basicModify(entry, value, userBits, async);
+      return basicModify(entry, value, userBits, async, false);
     } catch (IOException ex) {
       throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()), ex, dr.getName());
     } catch (InterruptedException ie) {
@@ -579,7 +588,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
   public final boolean copyForwardForOverflowCompact(DiskEntry entry, byte[] value, int length, byte userBits) {
     try {
       ValueWrapper vw = new DiskEntry.Helper.CompactorValueWrapper(value, length);
-      return basicModify(entry, vw, userBits, true);
+      return basicModify(entry, vw, userBits, true, true);
     } catch (IOException ex) {
       throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()), ex, getParent().getName());
     } catch (InterruptedException ie) {
@@ -605,7 +614,8 @@ class OverflowOplog implements CompactableOplog, Flushable {
    */
   private boolean basicModify(DiskEntry entry,
                               ValueWrapper value,
-                              byte userBits, boolean async)
+                              byte userBits, boolean async,
+                              boolean calledByCompactor)
     throws IOException, InterruptedException
   {
     DiskId id = entry.getDiskId();
@@ -622,6 +632,9 @@ class OverflowOplog implements CompactableOplog, Flushable {
       if (startPosForSynchOp == -1) {
         return false;
       } else {
+        if (calledByCompactor) {
+          this.stats.incCompactedBytes(adjustment);
+        }
         if (logger.isTraceEnabled()) {
           logger.trace("Oplog::basicModify:Released ByteBuffer with data for Disk ID = {}", id);
         }
@@ -943,6 +956,24 @@ class OverflowOplog implements CompactableOplog, Flushable {
     return bb;
   }
 
+  /**
+   * Reads a value from the memory mapped crf without synchronizing on it.
+   * The crf is mapped by the first read after this oplog stopped being
+   * written to.
+   *
+   * @return the value or null if it has to be read from the file instead
+   */
+  private BytesAndBits mappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    if (!this.doneAppending) {
+      return null;
+    }
+    byte[] valueBytes = this.mappedCrf.read(this.crf.f, this.crf.bytesFlushed, offsetInOplog, valueLength);
+    if (valueBytes == null) {
+      return null;
+    }
+    return new BytesAndBits(valueBytes, userBits);
+  }
+
   /**
    * Asif: Extracts the Value byte array & UserBit from the OpLog
    * 
@@ -972,6 +1003,12 @@ class OverflowOplog implements CompactableOplog, Flushable {
     }
     else {
       if (offsetInOplog == -1) return null;
+      if (this.parent.MAP_SEALED_OPLOGS) {
+        bb = mappedGet(offsetInOplog, valueLength, userBits);
+        if (bb != null) {
+          return bb;
+        }
+      }
       try {
         for (;;) {
           dr.getCancelCriterion().checkCancelInProgress(null);
@@ -1077,6 +1114,10 @@ class OverflowOplog implements CompactableOplog, Flushable {
    */
   private final AtomicLong totalLiveCount = new AtomicLong(0);
 
+  public double getCompactionBenefit() {
+    return DiskStoreImpl.compactionBenefit(getOplogSize(), this.totalLiveCount.get(), this.totalCount.get());
+  }
+
   private long allocate(long suggestedOffset, int length) {
     if (suggestedOffset+length > this.maxOplogSize) {
       flushAll();
@@ -1354,6 +1395,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
       boolean compactFailed = !compactor.keepCompactorRunning();
       int totalCount = 0;
       boolean didCompact = false;
+      int copiedBytes = 0;
       while ((de = getNextLiveEntry()) != null) {
         if (!compactor.keepCompactorRunning()) {
           compactFailed = true;
@@ -1408,12 +1450,14 @@ class OverflowOplog implements CompactableOplog, Flushable {
             getOplogSet().copyForwardForOverflowCompact(de, valueBytes, length, userBits);
             // the did's oplogId will now be set to the current active oplog
             didCompact = true;
+            copiedBytes = length;
           }
         } // did
         } // de
         if (didCompact) {
           totalCount++;
           getStats().endCompactionUpdate(opStart);
+          compactor.throttle(copiedBytes);
           opStart = getStats().getStatTime();
           //Asif: Check if the value byte array happens to be any of the constant
           //static byte arrays or references the value byte array of underlying RegionEntry.
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -451,40 +452,65 @@ public class PersistentOplogSet implements OplogSet {
     }
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
-      // first figure out all entries that have been destroyed
-      boolean latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds,
-                                      this.alreadyRecoveredOnce.get(),
-                                      latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+      // The krfs are read into memory ahead of their oplog by a few threads,
+      // while the oplogs themselves are still recovered one at a time from
+      // the newest to the oldest so that the newest version of each entry wins.
+      Oplog[] krfOrder = oplogSet.toArray(new Oplog[oplogSet.size()]);
+      int krfWindow = prefetchKrfs() ? Math.min(parent.RECOVERY_THREADS, krfOrder.length - 1) : 0;
+      ExecutorService krfReader = krfWindow > 0 ? parent.createRecoveryExecutor("Oplog Krf Reader", krfWindow) : null;
+      int krfsPrefetched = 0;
+      try {
+        while (krfsPrefetched < krfWindow) {
+          krfOrder[krfsPrefetched++].prefetchKrf(krfReader);
         }
-      }
-      parent.incDeadRecordCount(deletedIds.size());
-      // now figure out live entries
-      latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-                                          // @todo make recoverValues per region
-                                          recoverValues(),
-                                          recoverValuesSync(),
-                                          this.alreadyRecoveredOnce.get(),
-                                          oplogsNeedingValueRecovery, 
-                                          latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+        // first figure out all entries that have been destroyed
+        boolean latestOplog = true;
+        for (Oplog oplog: oplogSet) {
+          byteCount += oplog.recoverDrf(deletedIds,
+                                        this.alreadyRecoveredOnce.get(),
+                                        latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
         }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+        parent.incDeadRecordCount(deletedIds.size());
+        // now figure out live entries
+        latestOplog = true;
+        int recovered = 0;
+        for (Oplog oplog: oplogSet) {
+          recovered++;
+          // keep krfWindow krfs in flight beyond the one being recovered
+          while (krfReader != null && krfsPrefetched < krfOrder.length && krfsPrefetched < recovered + krfWindow) {
+            krfOrder[krfsPrefetched++].prefetchKrf(krfReader);
+          }
+          long startOpLogRead = parent.getStats().startOplogRead();
+          long bytesRead = oplog.recoverCrf(deletedIds,
+                                            // @todo make recoverValues per region
+                                            recoverValues(),
+                                            recoverValuesSync(),
+                                            this.alreadyRecoveredOnce.get(),
+                                            oplogsNeedingValueRecovery, 
+                                            latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          byteCount += bytesRead;
+          parent.getStats().endOplogRead(startOpLogRead, bytesRead);
         
-        //Callback to the disk regions to indicate the oplog is recovered
-        //Used for offline export
-        for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          //Callback to the disk regions to indicate the oplog is recovered
+          //Used for offline export
+          for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
+            drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          }
+        }
+      } finally {
+        if (krfReader != null) {
+          krfReader.shutdownNow();
+          for (Oplog oplog: krfOrder) {
+            oplog.cancelKrfPrefetch();
+          }
         }
       }
       long endOpLogRecovery = System.currentTimeMillis();
@@ -536,6 +562,15 @@ public class PersistentOplogSet implements OplogSet {
     return byteCount;
   }
 
+  /**
+   * Returns true if recovery will read krfs and they should be read ahead of
+   * their oplog.
+   */
+  private boolean prefetchKrfs() {
+    return parent.RECOVERY_THREADS > 1 && !recoverValuesSync()
+        && (!parent.isOffline() || parent.FORCE_KRF_RECOVERY);
+  }
+
   protected boolean recoverValuesSync() {
     return parent.RECOVER_VALUES_SYNC;
   }
@@ -184,6 +184,11 @@ public class PoolFactoryImpl implements PoolFactory {
     return this;
   }
 
+  public PoolFactory setValueCompression(boolean enabled) {
+    this.attributes.valueCompression = enabled;
+    return this;
+  }
+
   public PoolFactory setStartDisabled(boolean disable) {
     this.attributes.startDisabled = disable;
     return this;
@@ -284,6 +289,7 @@ public class PoolFactoryImpl implements PoolFactory {
     setSubscriptionAckInterval(cp.getSubscriptionAckInterval());
     setServerGroup(cp.getServerGroup());
     setMultiuserAuthentication(cp.getMultiuserAuthentication());
+    setValueCompression(cp.getValueCompression());
     this.attributes.locators.addAll(cp.getLocators());
     this.attributes.servers.addAll(cp.getServers());
   }
@@ -352,6 +358,7 @@ public class PoolFactoryImpl implements PoolFactory {
     public int queueAckInterval = DEFAULT_SUBSCRIPTION_ACK_INTERVAL;
     public String serverGroup = DEFAULT_SERVER_GROUP;
     public boolean multiuserSecureModeEnabled = DEFAULT_MULTIUSER_AUTHENTICATION;
+    public boolean valueCompression = DEFAULT_VALUE_COMPRESSION;
     public ArrayList/*<InetSocketAddress>*/ locators = new ArrayList();
     public ArrayList/*<InetSocketAddress>*/ servers = new ArrayList();
     public transient boolean startDisabled = false; // only used by junit tests
@@ -431,6 +438,9 @@ public class PoolFactoryImpl implements PoolFactory {
     public void setMultiuserSecureModeEnabled(boolean v) {
      this.multiuserSecureModeEnabled = v; 
     }    
+    public boolean getValueCompression() {
+      return this.valueCompression;
+    }
     public List/*<InetSocketAddress>*/ getLocators() {
       if (this.locators.size() == 0 && this.servers.size() == 0) {
         throw new IllegalStateException("At least one locator or server must be added before a connection pool can be created.");
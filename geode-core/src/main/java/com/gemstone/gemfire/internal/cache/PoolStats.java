@@ -72,6 +72,11 @@ public class PoolStats {
   private final static int clientOpTimedOutId;
   private final static int clientOpFailedId;
   private final static int clientOpDurationId;
+  private final static int singleHopBulkOpInProgressId;
+  private final static int singleHopBulkOpId;
+  private final static int singleHopBulkOpServersId;
+  private final static int singleHopBulkOpRetriesId;
+  private final static int singleHopBulkOpDurationId;
 
   static {
     String statName = "PoolStats";
@@ -112,6 +117,11 @@ public class PoolStats {
             f.createIntCounter("clientOpTimeouts", "Total number of clientOp attempts that have timed out", "clientOps"), 
             f.createLongCounter("clientOpSendTime", "Total amount of time, in nanoseconds spent doing clientOp sends", "nanoseconds"), 
             f.createLongCounter("clientOpTime", "Total amount of time, in nanoseconds spent doing clientOps", "nanoseconds"),
+            f.createIntGauge("singleHopBulkOpsInProgress", "Current number of getAll, putAll and removeAll operations being sent directly to the servers hosting their keys", "operations"),
+            f.createLongCounter("singleHopBulkOps", "Total number of getAll, putAll and removeAll operations sent directly to the servers hosting their keys", "operations"),
+            f.createLongCounter("singleHopBulkOpServers", "Total number of servers that single hop getAll, putAll and removeAll operations were sent to. Divide by singleHopBulkOps for the average number of servers per operation.", "servers"),
+            f.createLongCounter("singleHopBulkOpRetries", "Total number of times the keys of a server that failed a single hop getAll, putAll or removeAll were sent again", "retries"),
+            f.createLongCounter("singleHopBulkOpTime", "Total amount of time, in nanoseconds spent doing single hop getAll, putAll and removeAll operations. The time taken by each server is recorded in the ClientStats of that server.", "nanoseconds"),
        });
 
     // Initialize id fields
@@ -148,6 +158,11 @@ public class PoolStats {
     clientOpTimedOutId = _type.nameToId("clientOpTimeouts");
     clientOpFailedId = _type.nameToId("clientOpFailures");
     clientOpDurationId = _type.nameToId("clientOpTime");
+    singleHopBulkOpInProgressId = _type.nameToId("singleHopBulkOpsInProgress");
+    singleHopBulkOpId = _type.nameToId("singleHopBulkOps");
+    singleHopBulkOpServersId = _type.nameToId("singleHopBulkOpServers");
+    singleHopBulkOpRetriesId = _type.nameToId("singleHopBulkOpRetries");
+    singleHopBulkOpDurationId = _type.nameToId("singleHopBulkOpTime");
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -313,4 +328,20 @@ public class PoolStats {
     this._stats.incInt(endClientOpId, 1);
     this._stats.incLong(clientOpDurationId, duration);
   }
+  public long startSingleHopBulkOp(int servers) {
+    this._stats.incInt(singleHopBulkOpInProgressId, 1);
+    this._stats.incLong(singleHopBulkOpServersId, servers);
+    return startTime();
+  }
+  public void endSingleHopBulkOp(long start) {
+    this._stats.incInt(singleHopBulkOpInProgressId, -1);
+    this._stats.incLong(singleHopBulkOpId, 1);
+    this._stats.incLong(singleHopBulkOpDurationId, startTime() - start);
+  }
+  public void incSingleHopBulkOpRetries(int retries) {
+    this._stats.incLong(singleHopBulkOpRetriesId, retries);
+  }
+  public long getSingleHopBulkOps() {
+    return this._stats.getLong(singleHopBulkOpId);
+  }
 }
@@ -127,6 +127,14 @@ final class ProxyRegionMap implements RegionMap {
     return null;
   }
 
+  public RegionEntry getIntKeyEntry(int key) {
+    return null;
+  }
+
+  public RegionEntry getLongKeyEntry(long key) {
+    return null;
+  }
+
   public RegionEntry putEntryIfAbsent(Object key, RegionEntry re) {
     return null;
   }
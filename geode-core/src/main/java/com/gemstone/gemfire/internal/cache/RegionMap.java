@@ -118,6 +118,16 @@ public interface RegionMap extends LRUMapCallbacks {
    * @return the RegionEntry from memory or disk
    */
   public RegionEntry getEntry(Object key);
+
+  /**
+   * Same as {@link #getEntry(Object)} for an Integer key without boxing it.
+   */
+  public RegionEntry getIntKeyEntry(int key);
+
+  /**
+   * Same as {@link #getEntry(Object)} for a Long key without boxing it.
+   */
+  public RegionEntry getLongKeyEntry(long key);
   public RegionEntry putEntryIfAbsent(Object key, RegionEntry re);
 
   /**
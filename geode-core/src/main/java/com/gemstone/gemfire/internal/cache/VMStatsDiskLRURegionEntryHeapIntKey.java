@@ -15,7 +15,6 @@
  * limitations under the License.
  */
 package com.gemstone.gemfire.internal.cache;
-// DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import com.gemstone.gemfire.internal.cache.lru.EnableLRU;
@@ -24,37 +23,23 @@ import com.gemstone.gemfire.internal.InternalStatisticsDisabledException;
 import com.gemstone.gemfire.internal.cache.lru.LRUClockNode;
 import com.gemstone.gemfire.internal.cache.lru.NewLRUClockHand;
 import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
-// macros whose definition changes this class:
-// disk: DISK
-// lru: LRU
-// stats: STATS
-// versioned: VERSIONED
-// offheap: OFFHEAP
-// One of the following key macros must be defined:
-// key object: KEY_OBJECT
-// key int: KEY_INT
-// key long: KEY_LONG
-// key uuid: KEY_UUID
-// key string1: KEY_STRING1
-// key string2: KEY_STRING2
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.IntKeyHashEntry;
 /**
- * Do not modify this class. It was generated.
- * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * A region entry with a primitive int key that can be looked up without
+ * boxing the key, see {@link IntKeyHashEntry}. This class was originally generated
+ * from LeafRegionEntry.cpp, which is not part of this source tree;
+ * it is now maintained by hand.
  */
-public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEntryHeap {
+public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEntryHeap implements IntKeyHashEntry {
   public VMStatsDiskLRURegionEntryHeapIntKey (RegionEntryContext context, int key,
       Object value
       ) {
     super(context,
           (value instanceof RecoveredEntry ? null : value)
         );
-    // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
     initialize(context, value);
     this.key = key;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // common code
   protected int hash;
   private HashEntry<Object, Object> next;
@@ -98,7 +83,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
   public final void setNextEntry(final HashEntry<Object, Object> n) {
     this.next = n;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // disk code
   protected void initialize(RegionEntryContext drs, Object value) {
     boolean isBackup;
@@ -122,7 +106,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
     int delta = newSize - oldSize;
     return delta;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   private void diskInitialize(RegionEntryContext context, Object value) {
     DiskRecoveryStore drs = (DiskRecoveryStore)context;
     DiskStoreImpl ds = drs.getDiskStore();
@@ -183,7 +166,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
 //  // persistent
 //  /** unique entry identifier * */
 //  private long keyId;
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // lru code
   @Override
   public void setDelayedDiskId(LocalRegion r) {
@@ -194,7 +176,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
   public final synchronized int updateEntrySize(EnableLRU capacityController) {
     return updateEntrySize(capacityController, _getValue()); // OFHEAP: _getValue ok w/o incing refcount because we are synced and only getting the size
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   public final synchronized int updateEntrySize(EnableLRU capacityController,
                                                 Object value) {
     int oldSize = getEntrySize();
@@ -228,7 +209,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
   public final void unsetEvicted() {
     clearBits(~EVICTED);
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   private LRUClockNode nextLRU;
   private LRUClockNode prevLRU;
   private int size;
@@ -250,7 +230,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
   protected final void setEntrySize(int size) {
     this.size = size;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 //@Override
 //public StringBuilder appendFieldsToString(final StringBuilder sb) {
 //  StringBuilder result = super.appendFieldsToString(sb);
@@ -263,7 +242,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
     // inline keys always report null for sizing since the size comes from the entry size
     return null;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // stats code
   @Override
   public final void updateStatsForGet(boolean hit, long time)
@@ -315,7 +293,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
     hitCountUpdater.set(this,0);
     missCountUpdater.set(this,0);
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   @Override
   public final void txDidDestroy(long currTime) {
     setLastModified(currTime);
@@ -327,7 +304,6 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
   public boolean hasStats() {
     return true;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // key code
   private final int key;
   @Override
@@ -341,5 +317,8 @@ public class VMStatsDiskLRURegionEntryHeapIntKey extends VMStatsDiskLRURegionEnt
     }
     return false;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
+  @Override
+  public boolean isKeyEqual(int k) {
+    return k == this.key;
+  }
 }
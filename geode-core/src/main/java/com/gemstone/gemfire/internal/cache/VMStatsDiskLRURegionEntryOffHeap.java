@@ -18,6 +18,8 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.util.UUID;
 
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VMStatsDiskLRURegionEntryOffHeap extends VMStatsDiskLRURegionEntry implements OffHeapRegionEntry {
   public VMStatsDiskLRURegionEntryOffHeap(RegionEntryContext context, Object value) {
     super(context, value);
@@ -50,6 +52,10 @@ public abstract class VMStatsDiskLRURegionEntryOffHeap extends VMStatsDiskLRUReg
           return new VMStatsDiskLRURegionEntryOffHeapUUIDKey(context, (UUID)key, value);
         }
       }
+      if (OffHeapRegionEntryHelper.OFF_HEAP_REGION_KEYS && key.getClass() == String.class) {
+        // the key is moved off-heap once the entry is added to the region map
+        return new VMStatsDiskLRURegionEntryOffHeapSerializedKey(context, key, value);
+      }
       return new VMStatsDiskLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -15,7 +15,6 @@
  * limitations under the License.
  */
 package com.gemstone.gemfire.internal.cache;
-// DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import com.gemstone.gemfire.internal.cache.lru.EnableLRU;
@@ -28,26 +27,14 @@ import com.gemstone.gemfire.internal.offheap.annotations.Released;
 import com.gemstone.gemfire.internal.offheap.annotations.Retained;
 import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
 import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
-// macros whose definition changes this class:
-// disk: DISK
-// lru: LRU
-// stats: STATS
-// versioned: VERSIONED
-// offheap: OFFHEAP
-// One of the following key macros must be defined:
-// key object: KEY_OBJECT
-// key int: KEY_INT
-// key long: KEY_LONG
-// key uuid: KEY_UUID
-// key string1: KEY_STRING1
-// key string2: KEY_STRING2
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.IntKeyHashEntry;
 /**
- * Do not modify this class. It was generated.
- * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * A region entry with a primitive int key that can be looked up without
+ * boxing the key, see {@link IntKeyHashEntry}. This class was originally generated
+ * from LeafRegionEntry.cpp, which is not part of this source tree;
+ * it is now maintained by hand.
  */
-public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegionEntryOffHeap {
+public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegionEntryOffHeap implements IntKeyHashEntry {
   public VMStatsDiskLRURegionEntryOffHeapIntKey (RegionEntryContext context, int key,
       @Retained
       Object value
@@ -55,11 +42,9 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
     super(context,
           (value instanceof RecoveredEntry ? null : value)
         );
-    // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
     initialize(context, value);
     this.key = key;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // common code
   protected int hash;
   private HashEntry<Object, Object> next;
@@ -89,7 +74,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
   protected Object getValueField() {
     return OffHeapRegionEntryHelper._getValue(this);
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   @Override
   @Unretained
   protected void setValueField(@Unretained Object v) {
@@ -147,7 +131,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
   public final void setNextEntry(final HashEntry<Object, Object> n) {
     this.next = n;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // disk code
   protected void initialize(RegionEntryContext drs, Object value) {
     boolean isBackup;
@@ -171,7 +154,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
     int delta = newSize - oldSize;
     return delta;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   private void diskInitialize(RegionEntryContext context, Object value) {
     DiskRecoveryStore drs = (DiskRecoveryStore)context;
     DiskStoreImpl ds = drs.getDiskStore();
@@ -232,7 +214,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
 //  // persistent
 //  /** unique entry identifier * */
 //  private long keyId;
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // lru code
   @Override
   public void setDelayedDiskId(LocalRegion r) {
@@ -243,7 +224,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
   public final synchronized int updateEntrySize(EnableLRU capacityController) {
     return updateEntrySize(capacityController, _getValue()); // OFHEAP: _getValue ok w/o incing refcount because we are synced and only getting the size
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   public final synchronized int updateEntrySize(EnableLRU capacityController,
                                                 Object value) {
     int oldSize = getEntrySize();
@@ -277,7 +257,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
   public final void unsetEvicted() {
     clearBits(~EVICTED);
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   private LRUClockNode nextLRU;
   private LRUClockNode prevLRU;
   private int size;
@@ -299,7 +278,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
   protected final void setEntrySize(int size) {
     this.size = size;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 //@Override
 //public StringBuilder appendFieldsToString(final StringBuilder sb) {
 //  StringBuilder result = super.appendFieldsToString(sb);
@@ -312,7 +290,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
     // inline keys always report null for sizing since the size comes from the entry size
     return null;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // stats code
   @Override
   public final void updateStatsForGet(boolean hit, long time)
@@ -364,7 +341,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
     hitCountUpdater.set(this,0);
     missCountUpdater.set(this,0);
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   @Override
   public final void txDidDestroy(long currTime) {
     setLastModified(currTime);
@@ -376,7 +352,6 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
   public boolean hasStats() {
     return true;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // key code
   private final int key;
   @Override
@@ -390,5 +365,8 @@ public class VMStatsDiskLRURegionEntryOffHeapIntKey extends VMStatsDiskLRURegion
     }
     return false;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
+  @Override
+  public boolean isKeyEqual(int k) {
+    return k == this.key;
+  }
 }
@@ -18,6 +18,8 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.util.UUID;
 
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry implements OffHeapRegionEntry {
   public VMStatsRegionEntryOffHeap(RegionEntryContext context, Object value) {
     super(context, value);
@@ -50,6 +52,10 @@ public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry imple
           return new VMStatsRegionEntryOffHeapUUIDKey(context, (UUID)key, value);
         }
       }
+      if (OffHeapRegionEntryHelper.OFF_HEAP_REGION_KEYS && key.getClass() == String.class) {
+        // the key is moved off-heap once the entry is added to the region map
+        return new VMStatsRegionEntryOffHeapSerializedKey(context, key, value);
+      }
       return new VMStatsRegionEntryOffHeapObjectKey(context, key, value);
     }
 
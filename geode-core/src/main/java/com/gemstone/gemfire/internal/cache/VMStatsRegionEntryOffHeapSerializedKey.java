@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import com.gemstone.gemfire.internal.InternalStatisticsDisabledException;
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntryHelper;
+import com.gemstone.gemfire.internal.offheap.annotations.Released;
+import com.gemstone.gemfire.internal.offheap.annotations.Retained;
+import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
+/**
+ * An off-heap region entry whose String key is kept serialized in off-heap
+ * memory while the entry is in its region map, see {@link OffHeapKeyRegionEntry}.
+ * Unlike the other leaf region entry classes this class is not generated;
+ * it is maintained by hand.
+ */
+public class VMStatsRegionEntryOffHeapSerializedKey extends VMStatsRegionEntryOffHeap implements OffHeapKeyRegionEntry {
+  public VMStatsRegionEntryOffHeapSerializedKey (RegionEntryContext context, Object key,
+      @Retained
+      Object value
+      ) {
+    super(context,
+          value
+        );
+    this.heapKey = key;
+  }
+  // common code
+  protected int hash;
+  private HashEntry<Object, Object> next;
+  @SuppressWarnings("unused")
+  private volatile long lastModified;
+  private static final AtomicLongFieldUpdater<VMStatsRegionEntryOffHeapSerializedKey> lastModifiedUpdater
+    = AtomicLongFieldUpdater.newUpdater(VMStatsRegionEntryOffHeapSerializedKey.class, "lastModified");
+  /**
+   * All access done using ohAddrUpdater so it is used even though the compiler can not tell it is.
+   */
+  @SuppressWarnings("unused")
+  @Retained @Released private volatile long ohAddress;
+  /**
+   * I needed to add this because I wanted clear to call setValue which normally can only be called while the re is synced.
+   * But if I sync in that code it causes a lock ordering deadlock with the disk regions because they also get a rw lock in clear.
+   * Some hardware platforms do not support CAS on a long. If gemfire is run on one of those the AtomicLongFieldUpdater does a sync
+   * on the re and we will once again be deadlocked.
+   * I don't know if we support any of the hardware platforms that do not have a 64bit CAS. If we do then we can expect deadlocks
+   * on disk regions.
+   */
+  private final static AtomicLongFieldUpdater<VMStatsRegionEntryOffHeapSerializedKey> ohAddrUpdater = AtomicLongFieldUpdater.newUpdater(VMStatsRegionEntryOffHeapSerializedKey.class, "ohAddress");
+  @Override
+  public Token getValueAsToken() {
+    return OffHeapRegionEntryHelper.getValueAsToken(this);
+  }
+  @Override
+  protected Object getValueField() {
+    return OffHeapRegionEntryHelper._getValue(this);
+  }
+  @Override
+  @Unretained
+  protected void setValueField(@Unretained Object v) {
+    OffHeapRegionEntryHelper.setValue(this, v);
+  }
+  @Override
+  @Retained
+  public Object _getValueRetain(RegionEntryContext context, boolean decompress) {
+    return OffHeapRegionEntryHelper._getValueRetain(this, decompress, context);
+  }
+  @Override
+  public long getAddress() {
+    return ohAddrUpdater.get(this);
+  }
+  @Override
+  public boolean setAddress(long expectedAddr, long newAddr) {
+    return ohAddrUpdater.compareAndSet(this, expectedAddr, newAddr);
+  }
+  @Override
+  @Released
+  public void release() {
+    OffHeapRegionEntryHelper.releaseEntry(this);
+  }
+  @Override
+  public void returnToPool() {
+    // Deadcoded for now; never was working
+//    if (this instanceof VMThinRegionEntryLongKey) {
+//      factory.returnToPool((VMThinRegionEntryLongKey)this);
+//    }
+  }
+  protected long getlastModifiedField() {
+    return lastModifiedUpdater.get(this);
+  }
+  protected boolean compareAndSetLastModifiedField(long expectedValue, long newValue) {
+    return lastModifiedUpdater.compareAndSet(this, expectedValue, newValue);
+  }
+  /**
+   * @see HashEntry#getEntryHash()
+   */
+  public final int getEntryHash() {
+    return this.hash;
+  }
+  protected void setEntryHash(int v) {
+    this.hash = v;
+  }
+  /**
+   * @see HashEntry#getNextEntry()
+   */
+  public final HashEntry<Object, Object> getNextEntry() {
+    return this.next;
+  }
+  /**
+   * @see HashEntry#setNextEntry
+   */
+  public final void setNextEntry(final HashEntry<Object, Object> n) {
+    this.next = n;
+  }
+  // stats code
+  @Override
+  public final void updateStatsForGet(boolean hit, long time)
+  {
+    setLastAccessed(time);
+    if (hit) {
+      incrementHitCount();
+    } else {
+      incrementMissCount();
+    }
+  }
+  @Override
+  protected final void setLastModified(long lastModified) {
+    _setLastModified(lastModified);
+    if (!DISABLE_ACCESS_TIME_UPDATE_ON_PUT) {
+      setLastAccessed(lastModified);
+    }
+  }
+  private volatile long lastAccessed;
+  private volatile int hitCount;
+  private volatile int missCount;
+  private static final AtomicIntegerFieldUpdater<VMStatsRegionEntryOffHeapSerializedKey> hitCountUpdater
+    = AtomicIntegerFieldUpdater.newUpdater(VMStatsRegionEntryOffHeapSerializedKey.class, "hitCount");
+  private static final AtomicIntegerFieldUpdater<VMStatsRegionEntryOffHeapSerializedKey> missCountUpdater
+    = AtomicIntegerFieldUpdater.newUpdater(VMStatsRegionEntryOffHeapSerializedKey.class, "missCount");
+  @Override
+  public final long getLastAccessed() throws InternalStatisticsDisabledException {
+    return this.lastAccessed;
+  }
+  private void setLastAccessed(long lastAccessed) {
+    this.lastAccessed = lastAccessed;
+  }
+  @Override
+  public final long getHitCount() throws InternalStatisticsDisabledException {
+    return this.hitCount & 0xFFFFFFFFL;
+  }
+  @Override
+  public final long getMissCount() throws InternalStatisticsDisabledException {
+    return this.missCount & 0xFFFFFFFFL;
+  }
+  private void incrementHitCount() {
+    hitCountUpdater.incrementAndGet(this);
+  }
+  private void incrementMissCount() {
+    missCountUpdater.incrementAndGet(this);
+  }
+  @Override
+  public final void resetCounts() throws InternalStatisticsDisabledException {
+    hitCountUpdater.set(this,0);
+    missCountUpdater.set(this,0);
+  }
+  @Override
+  public final void txDidDestroy(long currTime) {
+    setLastModified(currTime);
+    setLastAccessed(currTime);
+    this.hitCount = 0;
+    this.missCount = 0;
+  }
+  @Override
+  public boolean hasStats() {
+    return true;
+  }
+  // key code
+  /**
+   * The key serialized in off-heap memory, 0 while the key is on the heap.
+   */
+  @Retained @Released private volatile long keyAddress;
+  private final static AtomicLongFieldUpdater<VMStatsRegionEntryOffHeapSerializedKey> keyAddrUpdater = AtomicLongFieldUpdater.newUpdater(VMStatsRegionEntryOffHeapSerializedKey.class, "keyAddress");
+  /**
+   * The key while it is not stored off-heap, before the entry was added to
+   * its region map and after it was removed.
+   */
+  private volatile Object heapKey;
+  @Override
+  public final Object getKey() {
+    return OffHeapRegionEntryHelper.getKey(this);
+  }
+  @Override
+  public boolean isKeyEqual(Object k) {
+    return OffHeapRegionEntryHelper.isKeyEqual(this, k);
+  }
+  @Override
+  public long getKeyAddress() {
+    return keyAddrUpdater.get(this);
+  }
+  @Override
+  public boolean setKeyAddress(long expectedAddr, long newAddr) {
+    return keyAddrUpdater.compareAndSet(this, expectedAddr, newAddr);
+  }
+  @Override
+  public Object getHeapKey() {
+    return this.heapKey;
+  }
+  @Override
+  public void setHeapKey(Object key) {
+    this.heapKey = key;
+  }
+}
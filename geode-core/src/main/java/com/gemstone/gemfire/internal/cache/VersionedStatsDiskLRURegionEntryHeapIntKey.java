@@ -15,7 +15,6 @@
  * limitations under the License.
  */
 package com.gemstone.gemfire.internal.cache;
-// DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import com.gemstone.gemfire.cache.EntryEvent;
@@ -29,37 +28,23 @@ import com.gemstone.gemfire.internal.cache.versions.VersionSource;
 import com.gemstone.gemfire.internal.cache.versions.VersionStamp;
 import com.gemstone.gemfire.internal.cache.versions.VersionTag;
 import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
-// macros whose definition changes this class:
-// disk: DISK
-// lru: LRU
-// stats: STATS
-// versioned: VERSIONED
-// offheap: OFFHEAP
-// One of the following key macros must be defined:
-// key object: KEY_OBJECT
-// key int: KEY_INT
-// key long: KEY_LONG
-// key uuid: KEY_UUID
-// key string1: KEY_STRING1
-// key string2: KEY_STRING2
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.IntKeyHashEntry;
 /**
- * Do not modify this class. It was generated.
- * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * A region entry with a primitive int key that can be looked up without
+ * boxing the key, see {@link IntKeyHashEntry}. This class was originally generated
+ * from LeafRegionEntry.cpp, which is not part of this source tree;
+ * it is now maintained by hand.
  */
-public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDiskLRURegionEntryHeap {
+public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDiskLRURegionEntryHeap implements IntKeyHashEntry {
   public VersionedStatsDiskLRURegionEntryHeapIntKey (RegionEntryContext context, int key,
       Object value
       ) {
     super(context,
           (value instanceof RecoveredEntry ? null : value)
         );
-    // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
     initialize(context, value);
     this.key = key;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // common code
   protected int hash;
   private HashEntry<Object, Object> next;
@@ -103,7 +88,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   public final void setNextEntry(final HashEntry<Object, Object> n) {
     this.next = n;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // disk code
   protected void initialize(RegionEntryContext drs, Object value) {
     boolean isBackup;
@@ -127,7 +111,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
     int delta = newSize - oldSize;
     return delta;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   private void diskInitialize(RegionEntryContext context, Object value) {
     DiskRecoveryStore drs = (DiskRecoveryStore)context;
     DiskStoreImpl ds = drs.getDiskStore();
@@ -188,7 +171,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
 //  // persistent
 //  /** unique entry identifier * */
 //  private long keyId;
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // lru code
   @Override
   public void setDelayedDiskId(LocalRegion r) {
@@ -199,7 +181,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   public final synchronized int updateEntrySize(EnableLRU capacityController) {
     return updateEntrySize(capacityController, _getValue()); // OFHEAP: _getValue ok w/o incing refcount because we are synced and only getting the size
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   public final synchronized int updateEntrySize(EnableLRU capacityController,
                                                 Object value) {
     int oldSize = getEntrySize();
@@ -233,7 +214,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   public final void unsetEvicted() {
     clearBits(~EVICTED);
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   private LRUClockNode nextLRU;
   private LRUClockNode prevLRU;
   private int size;
@@ -255,7 +235,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   protected final void setEntrySize(int size) {
     this.size = size;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 //@Override
 //public StringBuilder appendFieldsToString(final StringBuilder sb) {
 //  StringBuilder result = super.appendFieldsToString(sb);
@@ -268,7 +247,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
     // inline keys always report null for sizing since the size comes from the entry size
     return null;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // stats code
   @Override
   public final void updateStatsForGet(boolean hit, long time)
@@ -320,7 +298,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
     hitCountUpdater.set(this,0);
     missCountUpdater.set(this,0);
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   @Override
   public final void txDidDestroy(long currTime) {
     setLastModified(currTime);
@@ -332,7 +309,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   public boolean hasStats() {
     return true;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // versioned code
   private VersionSource memberID;
   private short entryVersionLowBytes;
@@ -358,7 +334,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   public int getDistributedSystemId() {
     return this.distributedSystemId;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   public void setVersions(VersionTag tag) {
     this.memberID = tag.getMemberID();
     int eVersion = tag.getEntryVersion();
@@ -384,7 +359,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   public VersionStamp getVersionStamp() {
     return this;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   public VersionTag asVersionTag() {
     VersionTag tag = VersionTag.create(memberID);
     tag.setEntryVersion(getEntryVersion());
@@ -412,7 +386,6 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
   public int getRegionVersionLowBytes() {
     return this.regionVersionLowBytes;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   // key code
   private final int key;
   @Override
@@ -426,5 +399,8 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey extends VersionedStatsDi
     }
     return false;
   }
-  // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
+  @Override
+  public boolean isKeyEqual(int k) {
+    return k == this.key;
+  }
 }
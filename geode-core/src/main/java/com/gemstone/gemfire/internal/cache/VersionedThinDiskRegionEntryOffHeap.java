@@ -18,6 +18,8 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.util.UUID;
 
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedThinDiskRegionEntryOffHeap extends
     VersionedThinDiskRegionEntry implements OffHeapRegionEntry {
   public VersionedThinDiskRegionEntryOffHeap(RegionEntryContext context, Object value) {
@@ -51,6 +53,10 @@ public abstract class VersionedThinDiskRegionEntryOffHeap extends
           return new VersionedThinDiskRegionEntryOffHeapUUIDKey(context, (UUID)key, value);
         }
       }
+      if (OffHeapRegionEntryHelper.OFF_HEAP_REGION_KEYS && key.getClass() == String.class) {
+        // the key is moved off-heap once the entry is added to the region map
+        return new VersionedThinDiskRegionEntryOffHeapSerializedKey(context, key, value);
+      }
       return new VersionedThinDiskRegionEntryOffHeapObjectKey(context, key, value);
     }
 
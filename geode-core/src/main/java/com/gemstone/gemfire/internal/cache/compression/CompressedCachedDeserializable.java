@@ -193,4 +193,21 @@ public abstract class CompressedCachedDeserializable implements
   public int getValueSizeInBytes() {
     return CachedDeserializableFactory.getByteSize(this.value);
   }
+
+  /**
+   * Returns the compressed serialized value without decompressing it.
+   * @since Geode 1.0
+   */
+  public byte[] getCompressedValue() {
+    return this.value;
+  }
+
+  /**
+   * Returns true if the value was compressed by a {@link Compressor} that is
+   * equal to <code>compressor</code>.
+   * @since Geode 1.0
+   */
+  public boolean isCompressedWith(Compressor compressor) {
+    return getCompressor().equals(compressor);
+  }
 }
@@ -55,6 +55,19 @@ public class SnappyCompressedCachedDeserializable extends
     super(obj);
   }
   
+  /**
+   * Creates a new {@link SnappyCompressedCachedDeserializable} with a
+   * serialized value that has already been compressed with Snappy, for
+   * example by the client that sent it.
+   * @param compressedValue the Snappy compressed form of a serialized value.
+   * @since Geode 1.0
+   */
+  public static SnappyCompressedCachedDeserializable createFromCompressedValue(final byte[] compressedValue) {
+    SnappyCompressedCachedDeserializable result = new SnappyCompressedCachedDeserializable();
+    result.value = compressedValue;
+    return result;
+  }
+
   /**
    * Shared Snappy {@link Compressor} instance.
    */
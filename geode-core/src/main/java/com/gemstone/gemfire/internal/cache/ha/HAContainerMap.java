@@ -37,7 +37,7 @@ public class HAContainerMap implements HAContainerWrapper {
    * TODO: Amogh: Using ConcurrentHashMap may be beneficial. It gives us
    * putEntryIfAbsent()!
    */
-  private Map map = null;
+  protected Map map = null;
 
   /**
    * This map helps us retrieve the proxy id at the receiver side during GII so
@@ -1479,6 +1479,121 @@ public class HARegionQueue implements RegionQueue
     return object;
   }
 
+  /**
+   * Peeks, without waiting, up to <code>maxSize</code> events that are already
+   * available behind the events this thread has peeked but not yet removed.
+   * The counters of the returned events are added to the thread-context, so a
+   * single call to remove() removes them together with the earlier ones. This
+   * lets a dispatcher that has blocked in {@link #peek()} for one event pick up
+   * whatever else has queued up behind it.
+   *
+   * @param maxSize
+   *          the maximum number of events to peek
+   * @return the events peeked, in queue order; empty if none were available
+   * @since Geode 1.0
+   */
+  public List peekAvailable(int maxSize)
+  {
+    List batch = new ArrayList();
+    if (maxSize <= 0) {
+      return batch;
+    }
+    List peekedEvents = (List)HARegionQueue.peekedEventsContext.get();
+    for (Iterator itr = getNextAvailableIDs(peekedEvents, maxSize).iterator(); itr.hasNext();) {
+      Long next = (Long)itr.next();
+      Object object = this.region.get(next);
+      if (object instanceof HAEventWrapper) {
+        object = this.haContainer.get(object);
+      }
+      if (object == null) {
+        // removed by the QRM (or expired) since we picked up its counter
+        continue;
+      }
+      if (peekedEvents == null) {
+        peekedEvents = new LinkedList();
+        HARegionQueue.peekedEventsContext.set(peekedEvents);
+      }
+      peekedEvents.add(next);
+      this.storePeekedID(next);
+      batch.add(object);
+    }
+    if (logger.isTraceEnabled()) {
+      logger.trace("HARegionQueue::peekAvailable: Returning {} further events", batch.size());
+    }
+    return batch;
+  }
+
+  /**
+   * Gives the last <code>count</code> events peeked by this thread back to the
+   * queue. Their counters are dropped from the thread-context, so remove()
+   * leaves them in the queue and a later peek() or peekAvailable() returns
+   * them again. A dispatcher that could send only part of a peeked batch uses
+   * this before removing the part it did send.
+   *
+   * @param count
+   *          the number of most recently peeked events to give back
+   * @since Geode 1.0
+   */
+  public void returnPeeked(int count)
+  {
+    List peekedIds = (List)HARegionQueue.peekedEventsContext.get();
+    if (peekedIds == null || count <= 0) {
+      return;
+    }
+    LinkedList returnedIds = new LinkedList();
+    while (count-- > 0 && !peekedIds.isEmpty()) {
+      returnedIds.addFirst(peekedIds.remove(peekedIds.size() - 1));
+    }
+    if (peekedIds.isEmpty()) {
+      HARegionQueue.peekedEventsContext.set(null);
+    }
+    returnPeekedIDs(returnedIds);
+    if (logger.isTraceEnabled()) {
+      logger.trace("HARegionQueue::returnPeeked: Returned {} events", returnedIds.size());
+    }
+  }
+
+  /**
+   * Makes the given counters, which this thread peeked but did not dispatch,
+   * available to peek again. Nothing needs to be done here as peeking leaves
+   * the counters in idsAvailable.
+   *
+   * @param ids
+   *          the counters in queue order
+   */
+  protected void returnPeekedIDs(List ids)
+  {
+  }
+
+  /**
+   * Returns up to <code>maxSize</code> position counters from idsAvailable
+   * that have not already been peeked by this thread. Never waits.
+   *
+   * @param peekedIds
+   *          the counters this thread has peeked but not yet removed; may be
+   *          null
+   */
+  protected List getNextAvailableIDs(List peekedIds, int maxSize)
+  {
+    List ids = new ArrayList(maxSize);
+    Set alreadyPeeked = (peekedIds == null || peekedIds.isEmpty()) ? Collections.EMPTY_SET
+        : new HashSet(peekedIds);
+    acquireReadLock();
+    try {
+      for (Iterator itr = this.idsAvailable.iterator(); itr.hasNext()
+          && ids.size() < maxSize;) {
+        Long id = (Long)itr.next();
+        if (!alreadyPeeked.contains(id)) {
+          ids.add(id);
+        }
+      }
+    }
+    finally {
+      releaseReadLock();
+    }
+    return ids;
+  }
+
   public List peek(int batchSize) throws InterruptedException
   {
     return peek(batchSize, -1);
@@ -2634,6 +2749,55 @@ public class HARegionQueue implements RegionQueue
       return next;
     }
 
+    /**
+     * Peeked counters have already been taken out of idsAvailable, so this
+     * simply takes the next ones from its head.
+     */
+    @Override
+    protected List getNextAvailableIDs(List peekedIds, int maxSize)
+    {
+      List ids = new ArrayList(maxSize);
+      acquireWriteLock();
+      try {
+        for (Iterator itr = this.idsAvailable.iterator(); itr.hasNext()
+            && ids.size() < maxSize;) {
+          ids.add(itr.next());
+          itr.remove();
+        }
+      }
+      finally {
+        releaseWriteLock();
+      }
+      return ids;
+    }
+
+    /**
+     * Puts the counters back at the head of idsAvailable, ahead of the events
+     * queued since they were peeked.
+     */
+    @Override
+    protected void returnPeekedIDs(List ids)
+    {
+      acquireWriteLock();
+      try {
+        LinkedHashSet available = new LinkedHashSet();
+        for (Iterator itr = ids.iterator(); itr.hasNext();) {
+          Object id = itr.next();
+          // the QRM may have removed it since it was peeked
+          if (this.durableIDsList.remove(id)) {
+            available.add(id);
+          }
+        }
+        if (!available.isEmpty()) {
+          available.addAll(this.idsAvailable);
+          this.idsAvailable = available;
+        }
+      }
+      finally {
+        releaseWriteLock();
+      }
+    }
+
     @Override
     protected void storePeekedID(Long id)
     {
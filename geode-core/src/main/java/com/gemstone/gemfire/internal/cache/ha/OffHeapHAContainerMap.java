@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.ha;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.tier.sockets.CacheClientNotifierStats;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ClientUpdateMessageImpl;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocator;
+
+/**
+ * An haContainer that keeps the values of the client update messages it holds
+ * in off-heap memory. Every subscription queue that has an event refers to
+ * the same message in this container (through its <code>HAEventWrapper</code>,
+ * which counts those references), so each value is stored off-heap once and
+ * is freed when the last queue lets go of the event and it is removed from
+ * here.
+ * <p>
+ * Values are only moved off-heap while at least
+ * {@link #MIN_FREE_PERCENT} of the off-heap memory would remain free, so that
+ * a large queue backlog can not starve off-heap regions; beyond that they
+ * simply stay on heap.
+ *
+ * @since Geode 1.0
+ */
+public class OffHeapHAContainerMap extends HAContainerMap {
+
+  /**
+   * Whether subscription queue events should be stored off-heap when the
+   * member has off-heap memory and does not overflow its queues to disk.
+   */
+  public static final boolean ENABLED = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "HAContainer.OFF_HEAP");
+
+  /**
+   * The percentage of off-heap memory that is left for everything else.
+   */
+  public static final int MIN_FREE_PERCENT = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "HAContainer.OFF_HEAP_MIN_FREE_PERCENT", 20).intValue();
+
+  private final MemoryAllocator allocator;
+
+  private final CacheClientNotifierStats stats;
+
+  private final long minFreeBytes;
+
+  public OffHeapHAContainerMap(HashMap containerMap, MemoryAllocator allocator,
+      CacheClientNotifierStats stats) {
+    super(containerMap);
+    this.allocator = allocator;
+    this.stats = stats;
+    this.minFreeBytes = allocator.getTotalMemory() * MIN_FREE_PERCENT / 100;
+  }
+
+  @Override
+  public String getName() {
+    return "OffHeapHashMap";
+  }
+
+  @Override
+  public void clear() {
+    synchronized (map) {
+      for (Iterator itr = map.values().iterator(); itr.hasNext();) {
+        releaseValue(((Entry)itr.next()).getValue());
+      }
+      map.clear();
+    }
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    storeValue(value);
+    Entry old = (Entry)super.put(key, value);
+    if (old != null && old.getValue() != value) {
+      releaseValue(old.getValue());
+    }
+    return old;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    Object value = super.remove(key);
+    releaseValue(value);
+    return value;
+  }
+
+  private void storeValue(Object value) {
+    if (!(value instanceof ClientUpdateMessageImpl)) {
+      return;
+    }
+    ClientUpdateMessageImpl cum = (ClientUpdateMessageImpl)value;
+    if (cum.isValueOffHeap()) {
+      return;
+    }
+    Object heapValue = cum.getValue();
+    if (!(heapValue instanceof byte[])) {
+      return;
+    }
+    if (this.allocator.getFreeMemory() - ((byte[])heapValue).length < this.minFreeBytes) {
+      if (this.stats != null) {
+        this.stats.incOffHeapQueueEventsKeptOnHeap();
+      }
+      return;
+    }
+    int size = cum.storeValueOffHeap(this.allocator);
+    if (size >= 0 && this.stats != null) {
+      this.stats.incOffHeapQueueEvents(1, size);
+    }
+  }
+
+  private void releaseValue(Object value) {
+    if (!(value instanceof ClientUpdateMessageImpl)) {
+      return;
+    }
+    int size = ((ClientUpdateMessageImpl)value).releaseOffHeapValue();
+    if (size >= 0 && this.stats != null) {
+      this.stats.incOffHeapQueueEvents(-1, -size);
+    }
+  }
+}
@@ -32,6 +32,7 @@ import com.gemstone.gemfire.internal.cache.BucketAdvisor;
 import com.gemstone.gemfire.internal.cache.BucketAdvisor.BucketProfile;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.cache.InternalCache;
+import com.gemstone.gemfire.internal.cache.OperationLatencyStats;
 import com.gemstone.gemfire.internal.cache.PartitionedRegion;
 import com.gemstone.gemfire.internal.cache.partitioned.AllBucketProfilesUpdateMessage;
 import com.gemstone.gemfire.internal.cache.tier.Acceptor;
@@ -81,6 +82,18 @@ public class AcceptorImpl extends Acceptor implements Runnable
    */
   private final ThreadPoolExecutor hsPool;
 
+  /**
+   * Decides whether client requests are processed, queued or shed when the
+   * server is busy.
+   */
+  private final AdmissionController admissionController;
+
+  /**
+   * Latency histograms of the client requests processed by this acceptor or
+   * null if they are not being recorded.
+   */
+  private final OperationLatencyStats latencyStats;
+
   /** The port on which this acceptor listens for client connections */
   private final int localPort;
 
@@ -117,6 +130,16 @@ public class AcceptorImpl extends Acceptor implements Runnable
    * All the objects currently registered with selector.
    */
   private final HashSet selectorRegistrations;
+  /**
+   * Connections doing non-blocking I/O whose next request waits for permits
+   * from the incoming data limiter. Only used by the selector thread.
+   */
+  private final Set<ServerConnection> awaitingPermits = new LinkedHashSet<ServerConnection>();
+  /**
+   * How long, in milliseconds, the selector waits before retrying the
+   * connections {@link #awaitingPermits awaiting permits}.
+   */
+  private static final long PERMIT_RETRY_INTERVAL = 10;
   /**
    * tcpNoDelay setting for outgoing sockets
    */
@@ -483,6 +506,10 @@ public class AcceptorImpl extends Acceptor implements Runnable
       
     }
 
+    this.admissionController = new AdmissionController(this.stats);
+    InternalDistributedSystem latencyStatsFactory = InternalDistributedSystem.getAnyInstance();
+    this.latencyStats = latencyStatsFactory == null ? null : OperationLatencyStats.createServerStats(
+        latencyStatsFactory, this.serverSock.getLocalSocketAddress().toString());
     this.cache = c;
     this.crHelper = new CachedRegionHelper(this.cache);
 
@@ -621,6 +648,14 @@ public class AcceptorImpl extends Acceptor implements Runnable
   public CacheServerStats getStats() {
     return this.stats;
   }
+
+  public AdmissionController getAdmissionController() {
+    return this.admissionController;
+  }
+
+  public OperationLatencyStats getLatencyStats() {
+    return this.latencyStats;
+  }
   
   /**
    * Returns true if this acceptor is using a selector to detect client events.
@@ -628,6 +663,24 @@ public class AcceptorImpl extends Acceptor implements Runnable
   public boolean isSelector() {
     return this.maxThreads > 0;
   }
+
+  /**
+   * If true then the selector reads requests and writes replies without
+   * blocking instead of handing a connection to a pool thread as soon as it
+   * is readable. See {@link NonBlockingConnectionIO}.
+   */
+  private static final boolean BLOCKING_SELECTOR_IO = Boolean.getBoolean(
+      DistributionConfig.GEMFIRE_PREFIX + "CacheServer.BLOCKING_SELECTOR_IO");
+
+  /**
+   * Returns true if this acceptor's selector does non-blocking I/O for client
+   * connections, so that pool threads are only used while a complete request
+   * is processed.
+   * @since Geode 1.0
+   */
+  public boolean isNonBlockingSelector() {
+    return isSelector() && !BLOCKING_SELECTOR_IO;
+  }
   /**
    * This system property is only used if max-threads == 0.
    * This is for 5.0.2 backwards compatibility.
@@ -855,6 +908,8 @@ public class AcceptorImpl extends Acceptor implements Runnable
 
   private void checkForStuckKeys() {
     if (!WORKAROUND_SELECTOR_BUG) return;
+    // the workaround hands readable connections to blocking pool threads
+    if (isNonBlockingSelector()) return;
     if (tmpSel == null) {
       try {
         tmpSel = Selector.open();
@@ -961,6 +1016,64 @@ public class AcceptorImpl extends Acceptor implements Runnable
   
   private int registeredKeys = 0;
 
+  /**
+   * Hands a connection whose request has been read without blocking to a
+   * pool thread.
+   * @return false if the acceptor is no longer running
+   */
+  private boolean processRequest(ServerConnection sc, SelectionKey key, NonBlockingConnectionIO io) {
+    io.setProcessing(true);
+    // we need to say we are processing a message so that the
+    // client health monitor will not kill us while we wait for a
+    // thread in the thread pool.
+    sc.setProcessingMessage();
+    key.interestOps(io.getInterestOps());
+    try {
+      AcceptorImpl.this.stats.incThreadQueueSize();
+      AcceptorImpl.this.pool.execute(sc);
+    } catch (RejectedExecutionException rejected) {
+      finishCon(sc);
+      AcceptorImpl.this.stats.decThreadQueueSize();
+      if (!isRunning()) {
+        return false;
+      }
+      logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
+    }
+    return true;
+  }
+
+  /**
+   * Continues reading the requests that were waiting for permits from the
+   * incoming data limiter.
+   */
+  private void retryAwaitingPermits() {
+    Iterator<ServerConnection> it = this.awaitingPermits.iterator();
+    while (it.hasNext()) {
+      ServerConnection sc = it.next();
+      NonBlockingConnectionIO io = sc.getNonBlockingIO();
+      SelectionKey key = sc.getSelectableChannel().keyFor(this.selector);
+      if (io == null || key == null || !key.isValid()) {
+        // the connection has been closed
+        it.remove();
+        continue;
+      }
+      try {
+        if (io.readRequest()) {
+          it.remove();
+          if (!processRequest(sc, key, io)) {
+            return;
+          }
+        } else if (!io.isAwaitingPermits()) {
+          it.remove();
+          key.interestOps(io.getInterestOps());
+        }
+      } catch (CancelledKeyException ex) {
+        it.remove();
+        finishCon(sc);
+      }
+    }
+  }
+
   public void runSelectorLoop() {
     //int zeroEventsCount = 0;
     try {
@@ -987,9 +1100,16 @@ public class AcceptorImpl extends Acceptor implements Runnable
           }
           while (sc != null) {
             try {
-              sc.registerWithSelector2(this.selector);
-              registeredKeys++;
-              this.selectorRegistrations.add(sc);
+              NonBlockingConnectionIO io = sc.getNonBlockingIO();
+              SelectionKey key = io == null ? null : sc.getSelectableChannel().keyFor(this.selector);
+              if (key != null && key.isValid()) {
+                // still registered; it finished a request or has replies to write
+                key.interestOps(io.getInterestOps());
+              } else {
+                sc.registerWithSelector2(this.selector);
+                registeredKeys++;
+                this.selectorRegistrations.add(sc);
+              }
             } catch (ClosedChannelException cce) {
 //            for bug bug 38474 
               finishCon(sc); 
@@ -1007,11 +1127,13 @@ public class AcceptorImpl extends Acceptor implements Runnable
         if (registeredKeys == 0) {
           continue;
         }
-        int events = this.selector.select();
+        int events = this.awaitingPermits.isEmpty() ? this.selector.select()
+            : this.selector.select(PERMIT_RETRY_INTERVAL);
         // select() could have returned due to wakeup() during close of cache
         if (this.cache.getCancelCriterion().cancelInProgress() != null) {
           break;
         }
+        retryAwaitingPermits();
         if (events == 0) {
 //           zeroEventsCount++;
 //           if (zeroEventsCount > 0) {
@@ -1065,8 +1187,29 @@ public class AcceptorImpl extends Acceptor implements Runnable
             keysIterator.remove();
             final ServerConnection sc = (ServerConnection)key.attachment();
             try {
-            if (key.isValid() && key.isReadable()) {
-              // this is the only event we currently register for
+            final NonBlockingConnectionIO io = sc.getNonBlockingIO();
+            if (io != null && key.isValid()) {
+              try {
+                if (key.isWritable()) {
+                  io.writeQueuedReplies();
+                }
+              } catch (IOException ex) {
+                finishCon(sc);
+                continue;
+              }
+              if (key.isReadable() && !io.isProcessing() && io.readRequest()) {
+                if (!processRequest(sc, key, io)) {
+                  break;
+                }
+              } else {
+                if (io.isAwaitingPermits()) {
+                  this.awaitingPermits.add(sc);
+                }
+                key.interestOps(io.getInterestOps());
+              }
+            } else if (key.isValid() && key.isReadable()) {
+              // this is the only event we register for unless the
+              // connection does non-blocking I/O
               try {
                 key.cancel();
                 this.selectorRegistrations.remove(sc);
@@ -1179,6 +1322,9 @@ public class AcceptorImpl extends Acceptor implements Runnable
       if (this.stats != null) {
         this.stats.close();
       }
+      if (this.latencyStats != null) {
+        this.latencyStats.close();
+      }
     }
   }
 
@@ -1378,7 +1524,15 @@ public class AcceptorImpl extends Acceptor implements Runnable
   public ByteBuffer takeCommBuffer() {
     ByteBuffer result = (ByteBuffer)this.commBufferQueue.poll();
     if (result == null) {
-      result = ByteBuffer.allocateDirect(this.socketBufferSize);
+      if (isNonBlockingSelector()) {
+        // messages are read from and written to streams which need heap buffers
+        result = ByteBuffer.allocate(this.socketBufferSize);
+      } else {
+        result = ByteBuffer.allocateDirect(this.socketBufferSize);
+      }
+      this.stats.incCommBuffersAllocated(result.capacity());
+    } else {
+      this.stats.incCommBuffersReused();
     }
     return result;
   }
@@ -1388,6 +1542,8 @@ public class AcceptorImpl extends Acceptor implements Runnable
     }
     if (isRunning()) {
       this.commBufferQueue.offer(bb);
+    } else {
+      this.stats.decCommBufferBytes(bb.capacity());
     }
   }
 
@@ -1596,7 +1752,10 @@ public class AcceptorImpl extends Acceptor implements Runnable
           if (this.selectorThread != null) {
             this.selectorThread.interrupt();
           }
-          this.commBufferQueue.clear();
+          ByteBuffer bb;
+          while ((bb = (ByteBuffer)this.commBufferQueue.poll()) != null) {
+            this.stats.decCommBufferBytes(bb.capacity());
+          }
         }
         ClientHealthMonitor.shutdownInstance();        
         shutdownSCs();
@@ -1608,6 +1767,9 @@ public class AcceptorImpl extends Acceptor implements Runnable
         }
         this.hsPool.shutdownNow();
         this.stats.close();
+        if (this.latencyStats != null) {
+          this.latencyStats.close();
+        }
         GemFireCacheImpl myCache = (GemFireCacheImpl)cache;
         if (!myCache.forcedDisconnect()) {
           Set<PartitionedRegion> prs = myCache.getPartitionedRegions();
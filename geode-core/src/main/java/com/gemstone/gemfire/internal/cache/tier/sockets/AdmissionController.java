@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.distributed.internal.DistributionStats;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+
+/**
+ * Limits how many client requests of each {@link RequestClass} a cache server
+ * processes at the same time. A request that finds its class at the limit
+ * waits in that class's queue; if the queue is full, or the request does not
+ * get a permit within {@link #MAX_WAIT_MS}, it is shed and the client is sent
+ * a {@link com.gemstone.gemfire.cache.client.ServerBusyException} which it
+ * retries on another server.
+ * <p>
+ * The limits are set with the CacheServer.MAX_CONCURRENT_READS,
+ * MAX_CONCURRENT_WRITES, MAX_CONCURRENT_QUERIES and MAX_CONCURRENT_FUNCTIONS
+ * system properties. They default to 0, which admits every request of the
+ * class without waiting.
+ *
+ * @since Geode 1.0
+ */
+public class AdmissionController {
+
+  /**
+   * The classes of client requests that are admitted separately, so that for
+   * example a burst of queries does not hold up gets and puts.
+   */
+  public enum RequestClass {
+    READ("MAX_CONCURRENT_READS"),
+    WRITE("MAX_CONCURRENT_WRITES"),
+    QUERY("MAX_CONCURRENT_QUERIES"),
+    FUNCTION("MAX_CONCURRENT_FUNCTIONS");
+
+    final String limitPropertyName;
+
+    private RequestClass(String limitProperty) {
+      this.limitPropertyName = DistributionConfig.GEMFIRE_PREFIX + "CacheServer." + limitProperty;
+    }
+  }
+
+  /**
+   * The maximum number of requests of each class that wait for admission.
+   * Requests that arrive while the queue is full are shed immediately.
+   */
+  static final int MAX_QUEUED = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "CacheServer.MAX_QUEUED_REQUESTS", 256).intValue();
+
+  /**
+   * The number of milliseconds a request waits for admission before it is
+   * shed. This should be well below the client read timeout so that the
+   * client hears back before it gives up on the server.
+   */
+  static final long MAX_WAIT_MS = Long.getLong(
+      DistributionConfig.GEMFIRE_PREFIX + "CacheServer.ADMISSION_WAIT_TIMEOUT", 5000).longValue();
+
+  private final Limiter[] limiters = new Limiter[RequestClass.values().length];
+
+  private final CacheServerStats stats;
+
+  public AdmissionController(CacheServerStats stats) {
+    this.stats = stats;
+    for (RequestClass rc : RequestClass.values()) {
+      int limit = Integer.getInteger(rc.limitPropertyName, 0).intValue();
+      if (limit > 0) {
+        setLimit(rc, limit, MAX_QUEUED, MAX_WAIT_MS);
+      }
+    }
+  }
+
+  /**
+   * Limits requests of the given class to maxConcurrent at a time with at
+   * most maxQueued waiting for up to maxWaitMs each.
+   */
+  void setLimit(RequestClass requestClass, int maxConcurrent, int maxQueued, long maxWaitMs) {
+    this.limiters[requestClass.ordinal()] = new Limiter(maxConcurrent, maxQueued, maxWaitMs);
+  }
+
+  /**
+   * Returns the class of requests with the given message type or null if
+   * requests of that type are always admitted.
+   */
+  public static RequestClass getRequestClass(int messageType) {
+    switch (messageType) {
+    case MessageType.REQUEST:
+    case MessageType.CONTAINS_KEY:
+    case MessageType.GET_ALL_70:
+    case MessageType.GET_ALL_WITH_CALLBACK:
+      return RequestClass.READ;
+    case MessageType.PUT:
+    case MessageType.DESTROY:
+    case MessageType.INVALIDATE:
+    case MessageType.PUTALL:
+    case MessageType.REMOVE_ALL:
+      return RequestClass.WRITE;
+    case MessageType.QUERY:
+    case MessageType.QUERY_WITH_PARAMETERS:
+      return RequestClass.QUERY;
+    case MessageType.EXECUTE_FUNCTION:
+    case MessageType.EXECUTE_REGION_FUNCTION:
+    case MessageType.EXECUTE_REGION_FUNCTION_SINGLE_HOP:
+      return RequestClass.FUNCTION;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Returns true if requests of the given class are limited.
+   */
+  public boolean isLimited(RequestClass requestClass) {
+    return this.limiters[requestClass.ordinal()] != null;
+  }
+
+  /**
+   * Waits until a request of the given class may be processed. If this
+   * returns true the caller must call {@link #release} once it has processed
+   * the request. If it returns false the request was shed.
+   */
+  public boolean admit(RequestClass requestClass) {
+    Limiter limiter = this.limiters[requestClass.ordinal()];
+    if (limiter == null || limiter.permits.tryAcquire()) {
+      return true;
+    }
+    if (limiter.queued.incrementAndGet() > limiter.maxQueued) {
+      limiter.queued.decrementAndGet();
+      this.stats.incRequestsShed();
+      return false;
+    }
+    long start = DistributionStats.getStatTime();
+    this.stats.startAdmissionWait();
+    boolean admitted = false;
+    try {
+      admitted = limiter.permits.tryAcquire(limiter.maxWaitMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      limiter.queued.decrementAndGet();
+      this.stats.endAdmissionWait(DistributionStats.getStatTime() - start);
+    }
+    if (!admitted) {
+      this.stats.incRequestsShed();
+    }
+    return admitted;
+  }
+
+  /**
+   * Lets the next waiting request of the given class be processed.
+   */
+  public void release(RequestClass requestClass) {
+    Limiter limiter = this.limiters[requestClass.ordinal()];
+    if (limiter != null) {
+      limiter.permits.release();
+    }
+  }
+
+  private static class Limiter {
+    final Semaphore permits;
+    final int maxQueued;
+    final long maxWaitMs;
+    final AtomicInteger queued = new AtomicInteger();
+
+    Limiter(int maxConcurrent, int maxQueued, long maxWaitMs) {
+      // fair so that queued requests are admitted in arrival order
+      this.permits = new Semaphore(maxConcurrent, true);
+      this.maxQueued = maxQueued;
+      this.maxWaitMs = maxWaitMs;
+    }
+  }
+}
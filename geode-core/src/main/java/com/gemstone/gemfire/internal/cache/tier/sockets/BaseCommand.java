@@ -31,6 +31,7 @@ import com.gemstone.gemfire.internal.Assert;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.*;
 import com.gemstone.gemfire.internal.cache.LocalRegion.NonTXEntry;
+import com.gemstone.gemfire.internal.cache.OperationLatencyStats;
 import com.gemstone.gemfire.internal.cache.tier.CachedRegionHelper;
 import com.gemstone.gemfire.internal.cache.tier.Command;
 import com.gemstone.gemfire.internal.cache.tier.InterestType;
@@ -118,9 +119,18 @@ public abstract class BaseCommand implements Command {
 
   }
 
+  static int getMaxIncomingData() {
+    return MAX_INCOMING_DATA;
+  }
+
+  static Semaphore getIncomingDataLimiter() {
+    return incomingDataLimiter;
+  }
+
   final public void execute(Message msg, ServerConnection servConn) {
     // Read the request and update the statistics
     long start = DistributionStats.getStatTime();
+    long latencyStart = System.nanoTime();
     //servConn.resetTransientData();
     if(EntryLogger.isEnabled() && servConn  != null) {
       EntryLogger.setSource(servConn.getMembershipID(), "c2s");
@@ -177,6 +187,15 @@ public abstract class BaseCommand implements Command {
       BaseCommand.handleThrowable(msg, servConn, e);
     } finally {
       EntryLogger.clearSource();
+      recordLatency(servConn, latencyStart);
+    }
+  }
+
+  private void recordLatency(ServerConnection servConn, long latencyStart) {
+    AcceptorImpl acceptor = servConn == null ? null : servConn.getAcceptor();
+    OperationLatencyStats latencyStats = acceptor == null ? null : acceptor.getLatencyStats();
+    if (latencyStats != null) {
+      latencyStats.record(getClass(), System.nanoTime() - latencyStart);
     }
   }
 
@@ -883,7 +902,10 @@ public abstract class BaseCommand implements Command {
     Message requestMsg = null;
     try {
       requestMsg = servConn.getRequestMessage();
-      requestMsg.recv(servConn, MAX_INCOMING_DATA, incomingDataLimiter,
+      // a connection doing non-blocking I/O took the data limiter's permits
+      // before reading the request
+      Semaphore dataLimiter = servConn.getNonBlockingIO() == null ? incomingDataLimiter : null;
+      requestMsg.recv(servConn, MAX_INCOMING_DATA, dataLimiter,
           incomingMsgLimiter);
       return requestMsg;
     }
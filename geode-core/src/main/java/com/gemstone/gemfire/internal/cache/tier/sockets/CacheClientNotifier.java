@@ -2641,6 +2641,11 @@ public class CacheClientNotifier {
               (String)overflowAttributesList.get(3),
               (Boolean)overflowAttributesList.get(4))));
     }
+    else if (OffHeapHAContainerMap.ENABLED
+        && ((GemFireCacheImpl)_cache).getOffHeapStore() != null) {
+      haContainer = new OffHeapHAContainerMap(new HashMap(),
+          ((GemFireCacheImpl)_cache).getOffHeapStore(), this._statistics);
+    }
     else {
       haContainer = new HAContainerMap(new HashMap());
     }
@@ -48,6 +48,9 @@ public class CacheClientNotifierStats {
   private static final String CQ_PROCESSING_TIME = "cqProcessingTime";
   private static final String COMPILED_QUERY_COUNT = "compiledQueryCount";
   private static final String COMPILED_QUERY_USED_COUNT = "compiledQueryUsedCount";
+  private static final String OFF_HEAP_EVENTS = "offHeapQueueEvents";
+  private static final String OFF_HEAP_BYTES = "offHeapQueueBytes";
+  private static final String OFF_HEAP_SKIPPED = "offHeapQueueEventsKeptOnHeap";
   
   private static final int _eventsId;
   private static final int _eventProcessingTimeId;
@@ -69,6 +72,11 @@ public class CacheClientNotifierStats {
 
   private static final int _compiledQueryUsedCount;
 
+  // Subscription events stored off-heap
+  private static final int _offHeapEventsId;
+  private static final int _offHeapBytesId;
+  private static final int _offHeapSkippedId;
+
   static {
     String statName = "CacheClientNotifierStatistics";
 
@@ -136,6 +144,21 @@ public class CacheClientNotifierStats {
              "Number of times compiled queries are used.",
              "used"),
 
+            f.createLongGauge
+            (OFF_HEAP_EVENTS,
+             "Number of subscription queue events whose value is stored off-heap.",
+             "events"),
+
+            f.createLongGauge
+            (OFF_HEAP_BYTES,
+             "Off-heap memory used by the values of subscription queue events.",
+             "bytes"),
+
+            f.createLongCounter
+            (OFF_HEAP_SKIPPED,
+             "Number of subscription queue events kept on heap because too little off-heap memory was free.",
+             "events"),
+
        });
 
     // Initialize id fields
@@ -155,6 +178,9 @@ public class CacheClientNotifierStats {
     _cqProcessingTimeId = _type.nameToId(CQ_PROCESSING_TIME);
     _compiledQueryCount = _type.nameToId(COMPILED_QUERY_COUNT);
     _compiledQueryUsedCount = _type.nameToId(COMPILED_QUERY_USED_COUNT);
+    _offHeapEventsId = _type.nameToId(OFF_HEAP_EVENTS);
+    _offHeapBytesId = _type.nameToId(OFF_HEAP_BYTES);
+    _offHeapSkippedId = _type.nameToId(OFF_HEAP_SKIPPED);
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -291,4 +317,25 @@ public class CacheClientNotifierStats {
     return this._stats.getInt(_clientHealthMonitorUnRegisterId);
   }
 
+  public final void incOffHeapQueueEvents(long count, long bytes) {
+    this._stats.incLong(_offHeapEventsId, count);
+    this._stats.incLong(_offHeapBytesId, bytes);
+  }
+
+  public final void incOffHeapQueueEventsKeptOnHeap() {
+    this._stats.incLong(_offHeapSkippedId, 1);
+  }
+
+  public final long getOffHeapQueueEvents() {
+    return this._stats.getLong(_offHeapEventsId);
+  }
+
+  public final long getOffHeapQueueBytes() {
+    return this._stats.getLong(_offHeapBytesId);
+  }
+
+  public final long getOffHeapQueueEventsKeptOnHeap() {
+    return this._stats.getLong(_offHeapSkippedId);
+  }
+
 }
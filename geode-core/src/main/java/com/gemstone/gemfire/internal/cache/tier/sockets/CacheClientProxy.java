@@ -55,8 +55,10 @@ import com.gemstone.gemfire.security.AccessControl;
 import org.apache.logging.log4j.Logger;
 
 import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
@@ -164,6 +166,14 @@ public class CacheClientProxy implements ClientSession {
    */
   protected static final int MAXIMUM_SHUTDOWN_PEEKS = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "MAXIMUM_SHUTDOWN_PEEKS", 50).intValue();
 
+  /**
+   * The maximum number of queued events the dispatcher writes to the client
+   * before flushing the socket. Events that are already waiting in the queue
+   * behind the one being dispatched are sent together; a value of 1 sends and
+   * flushes every event on its own.
+   */
+  protected static final int MAXIMUM_DISPATCH_BATCH_SIZE = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "CacheClientProxy.MAXIMUM_DISPATCH_BATCH_SIZE", 100).intValue();
+
   /**
    * The number of milliseconds to wait for an offering to the message queue
    */
@@ -2303,6 +2313,20 @@ public class CacheClientProxy implements ClientSession {
     private final ReadWriteLock socketLock = new ReentrantReadWriteLock();
 
     private final Lock socketWriteLock = socketLock.writeLock();
+
+    /**
+     * The stream messages are written to while a batch is being dispatched;
+     * null otherwise.
+     * @guarded.By socketWriteLock
+     */
+    private BatchOutputStream batchOutput;
+
+    private BatchOutputStream batchOutputStream;
+
+    private Socket batchOutputSocket;
+
+    private ByteBuffer batchCommBuffer;
+
 //    /**
 //     * A boolean verifying whether a warning has already been issued if the
 //     * message queue has reached its capacity.
@@ -2572,14 +2596,39 @@ public class CacheClientProxy implements ClientSession {
           if (isStopped()) {
             break;
           }
+          // Pick up whatever else is already queued so it can go out in the
+          // same socket write
+          List batch = MAXIMUM_DISPATCH_BATCH_SIZE > 1
+              ? this._messageQueue.peekAvailable(MAXIMUM_DISPATCH_BATCH_SIZE - 1)
+              : Collections.EMPTY_LIST;
           // Process the message
-          long start = getStatistics().startTime();
           //// BUGFIX for BUG#38206 and BUG#37791
-          boolean isDispatched = dispatchMessage(clientMessage);
-          getStatistics().endMessage(start);
+          boolean isDispatched;
+          if (batch.isEmpty()) {
+            long start = getStatistics().startTime();
+            isDispatched = dispatchMessage(clientMessage);
+            getStatistics().endMessage(start);
+          }
+          else {
+            int dispatched = dispatchBatch(clientMessage, batch);
+            isDispatched = dispatched == batch.size() + 1;
+            if (!isDispatched) {
+              // Give back the events that were not sent so they are peeked
+              // again, and remove the ones that were
+              this._messageQueue.returnPeeked(batch.size() + 1 - dispatched);
+              if (dispatched > 0) {
+                this._messageQueue.remove();
+                if (clientMessage instanceof ClientMarkerMessageImpl
+                    || containsMarker(batch.subList(0, dispatched - 1))) {
+                  getProxy().markerEnqueued = false;
+                }
+              }
+            }
+          }
           if(isDispatched){
             this._messageQueue.remove();
-            if (clientMessage instanceof ClientMarkerMessageImpl) {
+            if (clientMessage instanceof ClientMarkerMessageImpl
+                || containsMarker(batch)) {
               getProxy().markerEnqueued = false;
             }
           }
@@ -2777,26 +2826,20 @@ public class CacheClientProxy implements ClientSession {
       // byte[] latestValue =
       // this._eventConflator.getLatestValue(clientMessage);
 
-     if (clientMessage instanceof ClientUpdateMessage) {
-        byte[] latestValue = (byte[])((ClientUpdateMessage)clientMessage).getValue();
-        if (logger.isTraceEnabled()) {
-          StringBuilder msg = new StringBuilder(100);
-          msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
-          if (((ClientUpdateMessage)clientMessage).valueIsObject()) {
-            if (latestValue != null) {
-              msg.append(" (").append(deserialize(latestValue)).append(")");
-            }
-            msg.append(" for ").append(clientMessage);
+     if (clientMessage instanceof ClientUpdateMessageImpl) {
+        ClientUpdateMessageImpl cum = (ClientUpdateMessageImpl)clientMessage;
+        // Keep an off-heap value from being freed should the event be
+        // conflated or removed from the queue while it is being sent
+        if (!cum.retainValueForDispatch()) {
+          if (logger.isTraceEnabled()) {
+            logger.trace("{}: Not dispatching {} as it is no longer queued", this, clientMessage);
           }
-          logger.trace(msg.toString());
+          return true;
         }
-        
-        message = ((ClientUpdateMessageImpl)clientMessage).getMessage(getProxy(),
-            latestValue);
-        
-        if (AFTER_MESSAGE_CREATION_FLAG) {
-          ClientServerObserver bo = ClientServerObserverHolder.getInstance();
-          bo.afterMessageCreation(message);
+        try {
+          message = createMessage(cum);
+        } finally {
+          cum.releaseValueForDispatch();
         }
      }
      else {
@@ -2848,13 +2891,130 @@ public class CacheClientProxy implements ClientSession {
      return isDispatched;
     }
     
+    /**
+     * Creates the message that sends the given update to the client.
+     */
+    private Message createMessage(ClientUpdateMessageImpl clientMessage)
+        throws IOException
+    {
+      byte[] latestValue = (byte[])clientMessage.getValue();
+      if (logger.isTraceEnabled()) {
+        StringBuilder msg = new StringBuilder(100);
+        msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
+        if (clientMessage.valueIsObject()) {
+          if (latestValue != null) {
+            msg.append(" (").append(deserialize(latestValue)).append(")");
+          }
+          msg.append(" for ").append(clientMessage);
+        }
+        logger.trace(msg.toString());
+      }
+
+      Message message = clientMessage.getMessage(getProxy(), latestValue);
+
+      if (AFTER_MESSAGE_CREATION_FLAG) {
+        ClientServerObserver bo = ClientServerObserverHolder.getInstance();
+        bo.afterMessageCreation(message);
+      }
+      return message;
+    }
+
+    /**
+     * Sends the given message followed by the messages peeked along with it,
+     * flushing the socket once at the end rather than once per message.
+     * Stops at the first message that could not be dispatched. A message too
+     * large to send is skipped and counted as dispatched, so it is removed
+     * from the queue with the rest of the batch, as a single message would be.
+     *
+     * @return the number of messages dispatched, which is less than the size
+     *         of the batch only if one could not be dispatched
+     * @throws IOException
+     */
+    private int dispatchBatch(ClientMessage first, List rest)
+        throws IOException
+    {
+      int dispatched = 0;
+      this.socketWriteLock.lock();
+      try {
+        this.batchOutput = getBatchOutput();
+        try {
+          if (dispatchAndRecord(first)) {
+            dispatched++;
+            for (Iterator itr = rest.iterator(); itr.hasNext()
+                && dispatchAndRecord((ClientMessage)itr.next());) {
+              dispatched++;
+            }
+          }
+        } finally {
+          BatchOutputStream out = this.batchOutput;
+          this.batchOutput = null;
+          out.flushBatch();
+        }
+      } finally {
+        this.socketWriteLock.unlock();
+      }
+      if (logger.isTraceEnabled()) {
+        logger.trace("{}: Dispatched {} of a batch of {} messages", this, dispatched, rest.size() + 1);
+      }
+      return dispatched;
+    }
+
+    private boolean dispatchAndRecord(ClientMessage clientMessage)
+        throws IOException
+    {
+      long start = getStatistics().startTime();
+      boolean isDispatched;
+      try {
+        isDispatched = dispatchMessage(clientMessage);
+      } catch (MessageTooLargeException e) {
+        // nothing of it has been written, the rest of the batch can follow
+        logger.warn("Message too large to send to client: {}, {}", clientMessage, e.getMessage());
+        isDispatched = true;
+      }
+      getStatistics().endMessage(start);
+      return isDispatched;
+    }
+
+    private boolean containsMarker(List batch) {
+      for (Iterator itr = batch.iterator(); itr.hasNext();) {
+        if (itr.next() instanceof ClientMarkerMessageImpl) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns the stream batches are written through, creating it if this is
+     * the first batch or the proxy has been given a new socket.
+     * @guarded.By socketWriteLock
+     */
+    private BatchOutputStream getBatchOutput() throws IOException {
+      Socket socket = getSocket();
+      if (this.batchOutputStream == null || this.batchOutputSocket != socket) {
+        int size = getCommBuffer().capacity();
+        this.batchOutputStream = new BatchOutputStream(socket.getOutputStream(), size);
+        this.batchOutputSocket = socket;
+        // the proxy's comm buffer may be direct, which the stream based
+        // write path can not use
+        this.batchCommBuffer = ByteBuffer.allocate(size);
+      }
+      return this.batchOutputStream;
+    }
+
     private void sendMessage(Message message) throws IOException {
       if (message == null) {
         return;
       }
       this.socketWriteLock.lock();
       try {
-        message.setComms(getSocket(), getCommBuffer(), getStatistics());
+        if (this.batchOutput != null) {
+          message.setComms(null, getSocket(), null, this.batchOutput,
+              this.batchCommBuffer, getStatistics());
+        }
+        else {
+          message.setComms(getSocket(), getCommBuffer(), getStatistics());
+        }
         message.send();
         getProxy().resetPingCounter();
       } finally {
@@ -2994,6 +3154,28 @@ public class CacheClientProxy implements ClientSession {
         }
       this._messageQueue.initializeTransients();
     }
+
+    /**
+     * Buffers the messages of a batch. {@link Message#send} flushes its stream
+     * after every message; that flush is ignored here so that the whole batch
+     * goes out in as few socket writes as its size allows, with
+     * {@link #flushBatch} called once at the end.
+     */
+    private static class BatchOutputStream extends BufferedOutputStream {
+
+      BatchOutputStream(OutputStream out, int size) {
+        super(out, size);
+      }
+
+      @Override
+      public void flush() {
+        // deferred until flushBatch
+      }
+
+      void flushBatch() throws IOException {
+        super.flush();
+      }
+    }
   }
 
   /**
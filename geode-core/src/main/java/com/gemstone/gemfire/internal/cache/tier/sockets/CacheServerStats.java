@@ -223,6 +223,13 @@ public class CacheServerStats implements MessageStats {
   int acceptThreadStartsId;
   int connectionThreadStartsId;
   int connectionThreadsId;
+  int commBuffersAllocatedId;
+  int commBuffersReusedId;
+  int commBufferBytesId;
+  int admissionQueueSizeId;
+  int admissionWaitsId;
+  int admissionWaitTimeId;
+  int requestsShedId;
   
   //Load callback stats
   int connectionLoadId;
@@ -548,6 +555,27 @@ public class CacheServerStats implements MessageStats {
         f.createIntGauge("connectionThreads",
                          "Current number of threads dealing with a client connection.",
                          "threads"),
+        f.createIntCounter("commBuffersAllocated",
+                         "Total number of buffers allocated for reading and writing client messages because none were free in the pool.",
+                         "buffers"),
+        f.createLongCounter("commBuffersReused",
+                         "Total number of times a buffer for reading and writing client messages was taken from the pool.",
+                         "buffers"),
+        f.createLongGauge("commBufferBytes",
+                         "Current number of bytes held by buffers allocated for reading and writing client messages.",
+                         "bytes"),
+        f.createIntGauge("admissionQueueSize",
+                         "Current number of client requests waiting to be processed because the server is processing as many requests of their class as it allows.",
+                         "requests"),
+        f.createLongCounter("admissionWaits",
+                         "Total number of client requests that had to wait before being processed because the server was processing as many requests of their class as it allows.",
+                         "requests"),
+        f.createLongCounter("admissionWaitTime",
+                         "Total time client requests spent waiting before being processed because the server was processing as many requests of their class as it allows.",
+                         "nanoseconds"),
+        f.createLongCounter("requestsShed",
+                         "Total number of client requests rejected without being processed because too many requests of their class were already waiting or the wait timed out.",
+                         "requests"),
         f.createDoubleGauge(
                          "connectionLoad",
                          "The load from client to server connections as reported by the load probe installed in this server",
@@ -709,6 +737,13 @@ public class CacheServerStats implements MessageStats {
     acceptThreadStartsId = this.stats.nameToId("acceptThreadStarts");
     connectionThreadStartsId = this.stats.nameToId("connectionThreadStarts");
     connectionThreadsId = this.stats.nameToId("connectionThreads");
+    commBuffersAllocatedId = this.stats.nameToId("commBuffersAllocated");
+    commBuffersReusedId = this.stats.nameToId("commBuffersReused");
+    commBufferBytesId = this.stats.nameToId("commBufferBytes");
+    admissionQueueSizeId = this.stats.nameToId("admissionQueueSize");
+    admissionWaitsId = this.stats.nameToId("admissionWaits");
+    admissionWaitTimeId = this.stats.nameToId("admissionWaitTime");
+    requestsShedId = this.stats.nameToId("requestsShed");
     
     connectionLoadId = this.stats.nameToId("connectionLoad");
     queueLoadId = this.stats.nameToId("queueLoad");
@@ -791,6 +826,17 @@ public class CacheServerStats implements MessageStats {
     this.stats.incInt(currentClientsId, -1);
   }
 
+  public final void incCommBuffersAllocated(int bytes) {
+    this.stats.incInt(commBuffersAllocatedId, 1);
+    this.stats.incLong(commBufferBytesId, bytes);
+  }
+  public final void incCommBuffersReused() {
+    this.stats.incLong(commBuffersReusedId, 1);
+  }
+  public final void decCommBufferBytes(int bytes) {
+    this.stats.incLong(commBufferBytesId, -bytes);
+  }
+
   public final void incThreadQueueSize() {
     this.stats.incInt(threadQueueSizeId, 1);
   }
@@ -798,6 +844,21 @@ public class CacheServerStats implements MessageStats {
     this.stats.incInt(threadQueueSizeId, -1);
   }
 
+  public final void startAdmissionWait() {
+    this.stats.incInt(admissionQueueSizeId, 1);
+    this.stats.incLong(admissionWaitsId, 1);
+  }
+  public final void endAdmissionWait(long delta) {
+    this.stats.incInt(admissionQueueSizeId, -1);
+    this.stats.incLong(admissionWaitTimeId, delta);
+  }
+  public final void incRequestsShed() {
+    this.stats.incLong(requestsShedId, 1);
+  }
+  public final long getRequestsShed() {
+    return this.stats.getLong(requestsShedId);
+  }
+
   public final void incReadGetRequestTime(long delta)
   {
     this.stats.incLong(readGetRequestTimeId, delta);
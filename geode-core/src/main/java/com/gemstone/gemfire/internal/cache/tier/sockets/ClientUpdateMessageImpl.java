@@ -37,6 +37,7 @@ import com.gemstone.gemfire.InternalGemFireError;
 import com.gemstone.gemfire.cache.query.CqQuery;
 import com.gemstone.gemfire.cache.query.internal.cq.InternalCqQuery;
 import com.gemstone.gemfire.cache.util.ObjectSizer;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.internal.DSCODE;
 import com.gemstone.gemfire.internal.InternalDataSerializer;
 import com.gemstone.gemfire.internal.Sendable;
@@ -56,7 +57,9 @@ import com.gemstone.gemfire.internal.cache.lru.Sizeable;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.cache.versions.VersionTag;
 import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocator;
 import com.gemstone.gemfire.internal.offheap.MemoryAllocatorImpl;
+import com.gemstone.gemfire.internal.offheap.StoredObject;
 
 /**
  * Class <code>ClientUpdateMessageImpl</code> is a message representing a cache
@@ -70,6 +73,14 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
   private static final long serialVersionUID = 7037106666445312400L;
   private static final Logger logger = LogService.getLogger();
 
+  /**
+   * Whether updates are conflated in subscription queues for every region, not
+   * just those with subscription conflation enabled. A client that asked for
+   * conflation to be off still gets every update.
+   * @since Geode 1.0
+   */
+  static final boolean CONFLATE_ALL_UPDATES = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "ClientUpdateMessage.CONFLATE_ALL_UPDATES");
+
   /**
    * The operation performed (e.g. AFTER_CREATE, AFTER_UPDATE, AFTER_DESTROY,
    * AFTER_INVALIDATE, AFTER_REGION_DESTROY)
@@ -91,6 +102,29 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
    */
   private Object _value;
 
+  /**
+   * The serialized new value once the haContainer has moved it off-heap, in
+   * which case <code>_value</code> is null until a later value replaces it.
+   * It is only freed, and set back to null, while holding this message's
+   * monitor.
+   */
+  private volatile StoredObject _offHeapValue;
+
+  /**
+   * The number of dispatchers currently sending this message. While there are
+   * any, releasing the off-heap value only marks it released, and the last
+   * of them frees it.
+   * @guarded.By this
+   */
+  private int _offHeapValueUsers;
+
+  /**
+   * Whether the haContainer has released the off-heap value, which means the
+   * message is no longer in any queue.
+   * @guarded.By this
+   */
+  private boolean _offHeapValueReleased;
+
   /**
    * Whether the value is a serialized object or just a byte[]
    */
@@ -198,7 +232,8 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     this._callbackArgument = callbackArgument;
     this._membershipId = memberId;
     this._eventIdentifier = eventIdentifier;
-    this._shouldConflate = (isUpdate() && region.getEnableConflation());
+    this._shouldConflate = (isUpdate()
+        && (CONFLATE_ALL_UPDATES || region.getEnableConflation()));
     this.deltaBytes = delta;
     this.versionTag = versionTag;
   }
@@ -244,7 +279,123 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
   }
 
   public Object getValue() {
-    return this._value;
+    Object value = this._value;
+    if (value == null && this._offHeapValue != null) {
+      value = readOffHeapValue();
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value in its serialized form, serializing it now if needed.
+   */
+  private byte[] getSerializedValue() throws IOException {
+    Object value = getValue();
+    if (!(value instanceof byte[])) {
+      value = this._value = CacheServerHelper.serialize(value);
+    }
+    return (byte[])value;
+  }
+
+  /**
+   * Moves the serialized value of this message into off-heap memory allocated
+   * from <code>allocator</code>. The message keeps the only reference to that
+   * memory until {@link #releaseOffHeapValue} is called.
+   *
+   * @return the number of off-heap bytes now used by the value, or -1 if it
+   *         was left on heap
+   * @since Geode 1.0
+   */
+  public synchronized int storeValueOffHeap(MemoryAllocator allocator) {
+    Object value = this._value;
+    if (!(value instanceof byte[]) || this._offHeapValue != null
+        || this._offHeapValueReleased) {
+      return -1;
+    }
+    StoredObject so = allocator.allocateAndInitialize((byte[])value,
+        this._valueIsObject == 0x01, false);
+    this._offHeapValue = so;
+    this._value = null;
+    return so.hasRefCount() ? so.getSize() : 0;
+  }
+
+  /**
+   * Releases the off-heap memory holding the value, if any. This is only
+   * called when the message is removed from the haContainer. The memory is
+   * freed now, or once the last dispatcher still sending the message calls
+   * {@link #releaseValueForDispatch}.
+   *
+   * @return the number of off-heap bytes released, or -1 if the value was not
+   *         off-heap
+   * @since Geode 1.0
+   */
+  public synchronized int releaseOffHeapValue() {
+    StoredObject so = this._offHeapValue;
+    if (so == null || this._offHeapValueReleased) {
+      return -1;
+    }
+    this._offHeapValueReleased = true;
+    int size = so.hasRefCount() ? so.getSize() : 0;
+    if (this._offHeapValueUsers == 0) {
+      freeOffHeapValue();
+    }
+    return size;
+  }
+
+  /**
+   * Keeps the off-heap value, if any, from being freed while a dispatcher
+   * sends this message. A queue may conflate or remove the event after the
+   * dispatcher peeked it, which releases the value. Every successful call
+   * must be followed by a call to {@link #releaseValueForDispatch}.
+   *
+   * @return false if the value has already been released, in which case the
+   *         message is no longer in any queue and must not be sent
+   * @since Geode 1.0
+   */
+  public synchronized boolean retainValueForDispatch() {
+    if (this._offHeapValueReleased) {
+      return false;
+    }
+    this._offHeapValueUsers++;
+    return true;
+  }
+
+  /**
+   * Lets go of the value retained by {@link #retainValueForDispatch}, freeing
+   * it if it has been released since.
+   *
+   * @since Geode 1.0
+   */
+  public synchronized void releaseValueForDispatch() {
+    if (--this._offHeapValueUsers == 0 && this._offHeapValueReleased) {
+      freeOffHeapValue();
+    }
+  }
+
+  /**
+   * @guarded.By this
+   */
+  private void freeOffHeapValue() {
+    StoredObject so = this._offHeapValue;
+    if (so != null) {
+      this._offHeapValue = null;
+      so.release();
+    }
+  }
+
+  public boolean isValueOffHeap() {
+    return this._offHeapValue != null;
+  }
+
+  /**
+   * Copies the value out of off-heap memory. Holding the monitor keeps it
+   * from being freed meanwhile.
+   *
+   * @return the value, or null if it has already been freed
+   */
+  private synchronized byte[] readOffHeapValue() {
+    StoredObject so = this._offHeapValue;
+    return so == null ? null : so.getValueAsHeapByteArray();
   }
 
   public boolean valueIsObject() {
@@ -263,7 +414,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
   /**
    * Determines whether or not to conflate this message. This method will answer
    * true IFF the message's operation is AFTER_UPDATE and its region has enabled
-   * are conflation. Otherwise, this method will answer false. Messages whose
+   * are conflation (or {@link #CONFLATE_ALL_UPDATES} is set). Otherwise, this method will answer false. Messages whose
    * operation is AFTER_CREATE, AFTER_DESTROY, AFTER_INVALIDATE or
    * AFTER_REGION_DESTROY are not conflated.
    *
@@ -290,7 +441,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
   public Object getValueToConflate()
   {
-    return this._value;
+    return getValue();
   }
 
   public void setLatestValue(Object value)
@@ -622,10 +773,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
             message.addObjPart(Boolean.FALSE);
             byte[] l = latestValue;
             if (l == null) {
-              if (!(this._value instanceof byte[])) {
-                this._value = CacheServerHelper.serialize(this._value);
-              }
-              l = (byte[])this._value;
+              l = getSerializedValue();
             }
             // Add the value (which has already been serialized)
             message.addRawPart(l, (this._valueIsObject == 0x01));
@@ -791,10 +939,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
           else {
             message.addObjPart(Boolean.FALSE);
             if (latestValue == null) {
-              if (!(this._value instanceof byte[])) {
-                this._value = CacheServerHelper.serialize(this._value);
-              }
-              latestValue = (byte[])this._value;
+              latestValue = getSerializedValue();
             }
             // Add the value (which has already been serialized)
             message.addRawPart(latestValue, (this._valueIsObject == 0x01));
@@ -943,10 +1088,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
             else {
               message.addObjPart(Boolean.FALSE);
               if (latestValue == null) {
-                if (!(this._value instanceof byte[])) {
-                  this._value = CacheServerHelper.serialize(this._value);
-                }
-                latestValue = (byte[])this._value;
+                latestValue = getSerializedValue();
               }
               // Add the value (which has already been serialized)
               message.addRawPart(latestValue, (this._valueIsObject == 0x01));
@@ -1317,9 +1459,9 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         .append(";region=").append(this._regionName)
         .append(";key=").append(this._keyOfInterest);
     if (logger.isTraceEnabled()) {
+      Object value = getValue();
       buffer.append(";value=").append(
-          (this._value instanceof byte[]) ? deserialize((byte[])this._value)
-              : this._value);
+          (value instanceof byte[]) ? deserialize((byte[])value) : value);
     }
     buffer
         .append(";isObject=").append(_valueIsObject)
@@ -1343,11 +1485,12 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     out.writeByte(_operation.getEventCode());
     DataSerializer.writeString(_regionName,out);
     DataSerializer.writeObject(_keyOfInterest,out);
-    if (_value instanceof byte[]) {
-      DataSerializer.writeByteArray((byte[])_value, out);
+    Object value = getValue();
+    if (value instanceof byte[]) {
+      DataSerializer.writeByteArray((byte[])value, out);
     }
     else {
-      DataSerializer.writeByteArray(CacheServerHelper.serialize(_value), out);
+      DataSerializer.writeByteArray(CacheServerHelper.serialize(value), out);
     }
     out.writeByte(_valueIsObject);
     DataSerializer.writeObject(_membershipId,out);
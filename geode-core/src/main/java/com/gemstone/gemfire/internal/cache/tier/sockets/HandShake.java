@@ -24,6 +24,7 @@ import com.gemstone.gemfire.cache.GatewayConfigurationException;
 import com.gemstone.gemfire.cache.client.PoolFactory;
 import com.gemstone.gemfire.cache.client.ServerRefusedConnectionException;
 import com.gemstone.gemfire.cache.client.internal.Connection;
+import com.gemstone.gemfire.compression.SnappyCompressor;
 import com.gemstone.gemfire.distributed.DistributedMember;
 import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.distributed.internal.*;
@@ -186,6 +187,27 @@ public class HandShake implements ClientHandShake
    *  List of per client property override bits.
    */
   private byte[] overrides = null;
+
+  /**
+   * Override bit set by clients whose pool has value compression enabled.
+   * Older servers only look at the conflation bits and ignore it.
+   * @since Geode 1.0
+   */
+  private static final byte OVERRIDE_COMPRESSION = (byte)0x08;
+
+  /**
+   * Bit set in the delta-propagation byte of the handshake reply by servers
+   * that accept compressed object parts. Only sent to clients that set
+   * {@link #OVERRIDE_COMPRESSION}.
+   * @since Geode 1.0
+   */
+  private static final byte REPLY_COMPRESSION = (byte)0x04;
+
+  /** used by the server side; true if the client sends and accepts compressed values */
+  private boolean clientAcceptsCompression;
+
+  /** null until {@link #isCompressionAvailable()} has tried to load Snappy */
+  private static volatile Boolean compressionAvailable;
   
   /**
    * Test hooks for per client conflation
@@ -307,6 +329,7 @@ public class HandShake implements ClientHandShake
      this.isRead = handShake.isRead;
      this.multiuserSecureMode = handShake.multiuserSecureMode;
      this.overrides = handShake.overrides;
+     this.clientAcceptsCompression = handShake.clientAcceptsCompression;
      this.system = handShake.system;
      this.id = handShake.id;
      //create new one
@@ -397,6 +420,8 @@ public class HandShake implements ClientHandShake
   private void setOverrides(byte[] values) {
     byte override = values[0];
     setClientConflation(((byte)(override & 0x03)));
+    this.clientAcceptsCompression = (override & OVERRIDE_COMPRESSION) != 0
+        && isCompressionAvailable();
     /*
     override = (byte)(override >>> 2);
     setRemoveUnresponsiveClientOverride(((byte)(override & 0x03)));
@@ -405,6 +430,48 @@ public class HandShake implements ClientHandShake
     */
   }
 
+  /**
+   * Used by the client side to ask servers to compress values on the
+   * connections made with this handshake. Has no effect if Snappy can not be
+   * loaded in this VM.
+   * @since Geode 1.0
+   */
+  public void setValueCompression(boolean valueCompression) {
+    if (valueCompression && this.overrides != null
+        && HandShake.currentClientVersion.compareTo(Version.GFE_90) >= 0
+        && isCompressionAvailable()) {
+      this.overrides[0] |= OVERRIDE_COMPRESSION;
+    }
+  }
+
+  /**
+   * Used by the server side.
+   * @return true if the client sends, and accepts, compressed object parts
+   * @since Geode 1.0
+   */
+  public boolean clientAcceptsCompression() {
+    return this.clientAcceptsCompression;
+  }
+
+  /**
+   * Returns true if the Snappy native library used to compress object parts
+   * can be loaded in this VM.
+   */
+  static boolean isCompressionAvailable() {
+    Boolean available = compressionAvailable;
+    if (available == null) {
+      try {
+        SnappyCompressor.getDefaultInstance();
+        available = Boolean.TRUE;
+      } catch (IllegalStateException e) {
+        logger.warn("Value compression is disabled because the Snappy native library could not be loaded: {}", e.getMessage());
+        available = Boolean.FALSE;
+      }
+      compressionAvailable = available;
+    }
+    return available.booleanValue();
+  }
+
   // used by CacheClientNotifier's handshake reading code
   public static byte[] extractOverrides(byte[] values) {
     byte override = values[0];
@@ -1182,8 +1249,13 @@ public class HandShake implements ClientHandShake
     // Write delta-propagation property value if this is not WAN.
     if (communicationMode != Acceptor.GATEWAY_TO_GATEWAY
         && this.clientVersion.compareTo(Version.GFE_61) >= 0) {
-      dos.writeBoolean(((InternalDistributedSystem)this.system).getConfig()
-          .getDeltaPropagation());
+      boolean deltaPropagation = ((InternalDistributedSystem)this.system)
+          .getConfig().getDeltaPropagation();
+      if (this.clientAcceptsCompression) {
+        dos.writeByte((deltaPropagation ? 0x01 : 0x00) | REPLY_COMPRESSION);
+      } else {
+        dos.writeBoolean(deltaPropagation);
+      }
     }
 
     // Neeraj: Now if the communication mode is GATEWAY_TO_GATEWAY
@@ -1297,7 +1369,10 @@ public class HandShake implements ClientHandShake
       // DSes with different values of this. It shoule be a member variable.
       if (communicationMode != Acceptor.GATEWAY_TO_GATEWAY
           && currentClientVersion.compareTo(Version.GFE_61) >= 0) {
-        deltaEnabledOnServer = dis.readBoolean();
+        byte deltaPropagation = dis.readByte();
+        deltaEnabledOnServer = (deltaPropagation & 0x01) != 0;
+        serverQStatus.setAcceptsCompression(
+            (deltaPropagation & REPLY_COMPRESSION) != 0);
       }
 
       //validate that the remote side has a different distributed system id.
@@ -38,7 +38,11 @@ import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -95,6 +99,16 @@ public class Message  {
 
   private static final ThreadLocal<ByteBuffer> tlCommBuffer = new ThreadLocal<>();
 
+  /**
+   * Parts whose data is already in a direct buffer and that are at least this
+   * long are handed to the {@link #gatheringCh gathering channel} in a
+   * gathering write instead of being copied into the comm buffer.
+   */
+  private static final int MIN_GATHER_LENGTH = 4096;
+
+  /** maximum number of buffers passed to one gathering write */
+  private static final int MAX_GATHER_BUFFERS = 32;
+
   protected int msgType;
   protected int payloadLength=0;
   protected int numberOfParts =0;
@@ -122,6 +136,21 @@ public class Message  {
   protected Part securePart = null;
   private boolean isMetaRegion = false;
 
+  /**
+   * The channel large direct parts are written to without being copied: the
+   * socket's channel, or the reply channel of a server connection whose
+   * socket is written without blocking. Null for sockets without a channel,
+   * such as client sockets, which always copy parts into the comm buffer.
+   */
+  private GatheringByteChannel gatheringCh;
+  /**
+   * Buffers waiting to be written by the next gathering write; slices of the
+   * comm buffer interleaved with the direct buffers of large parts.
+   */
+  private ByteBuffer[] gatherBuffers;
+  private int gatherCount;
+  /** position in the comm buffer up to which bytes are in gatherBuffers */
+  private int gatheredPosition;
 
   // These two statics are fields shoved into the flags byte for transmission.
   // The MESSAGE_IS_RETRY bit is stripped out during deserialization but the other
@@ -567,7 +596,13 @@ public class Message  {
           int partLen = part.getLength();
           cb.putInt(partLen);
           cb.put(part.getTypeCode());
-          if (partLen <= cb.remaining()) {
+          ByteBuffer directBuffer = null;
+          if (this.gatheringCh != null && (partLen >= MIN_GATHER_LENGTH || partLen > cb.remaining())) {
+            directBuffer = part.getDirectByteBuffer();
+          }
+          if (directBuffer != null) {
+            gather(cb, directBuffer);
+          } else if (partLen <= cb.remaining()) {
             part.writeTo(cb);
           } else {
             flushBuffer();
@@ -581,7 +616,7 @@ public class Message  {
             }
           }
         }
-        if (cb.position() != 0) {
+        if (cb.position() != 0 || this.gatherCount > 0) {
           flushBuffer();
         }
         this.messageModified = false;
@@ -598,10 +633,16 @@ public class Message  {
 
   protected void flushBuffer() throws IOException {
     final ByteBuffer cb = getCommBuffer();
+    if (this.gatherCount > 0) {
+      writeGatheredBuffers(cb);
+      return;
+    }
     if (this.sockCh != null) {
       cb.flip();
       do {
-        this.sockCh.write(cb);
+        if (this.sockCh.write(cb) == 0) {
+          waitForWritable();
+        }
       } while (cb.remaining() > 0);
     } else {
       this.os.write(cb.array(), 0, cb.position());
@@ -612,6 +653,77 @@ public class Message  {
     cb.clear();
   }
 
+  /**
+   * Queues the given direct buffer to be written, after whatever is currently
+   * in the comm buffer, by the next gathering write.
+   */
+  private void gather(ByteBuffer cb, ByteBuffer bb) throws IOException {
+    if (this.gatherBuffers == null) {
+      this.gatherBuffers = new ByteBuffer[MAX_GATHER_BUFFERS];
+    } else if (this.gatherCount + 2 > MAX_GATHER_BUFFERS) {
+      writeGatheredBuffers(cb);
+    }
+    gatherCommBuffer(cb);
+    this.gatherBuffers[this.gatherCount++] = bb;
+  }
+
+  private void gatherCommBuffer(ByteBuffer cb) {
+    if (cb.position() > this.gatheredPosition) {
+      ByteBuffer slice = cb.duplicate();
+      slice.limit(cb.position());
+      slice.position(this.gatheredPosition);
+      this.gatherBuffers[this.gatherCount++] = slice;
+      this.gatheredPosition = cb.position();
+    }
+  }
+
+  private void writeGatheredBuffers(ByteBuffer cb) throws IOException {
+    final ByteBuffer[] bufs = this.gatherBuffers;
+    try {
+      gatherCommBuffer(cb);
+      final int count = this.gatherCount;
+      long bytesToWrite = 0;
+      for (int i = 0; i < count; i++) {
+        bytesToWrite += bufs[i].remaining();
+      }
+      long bytesWritten = 0;
+      int first = 0;
+      while (bytesWritten < bytesToWrite) {
+        long written = this.gatheringCh.write(bufs, first, count - first);
+        if (written == 0) {
+          waitForWritable();
+        }
+        bytesWritten += written;
+        while (!bufs[first].hasRemaining() && first < count - 1) {
+          first++;
+        }
+      }
+      if (this.msgStats != null) {
+        this.msgStats.incSentBytes(bytesToWrite);
+      }
+    } finally {
+      // don't hold on to buffers that may refer to off-heap memory
+      Arrays.fill(bufs, 0, this.gatherCount, null);
+      this.gatherCount = 0;
+      this.gatheredPosition = 0;
+      cb.clear();
+    }
+  }
+
+  /**
+   * Waits for the socket's channel to be writable after it accepted no bytes,
+   * which only happens if it is in non-blocking mode.
+   */
+  private void waitForWritable() throws IOException {
+    if (this.sockCh.isBlocking()) {
+      return;
+    }
+    try (Selector selector = Selector.open()) {
+      this.sockCh.register(selector, SelectionKey.OP_WRITE);
+      selector.select();
+    }
+  }
+
   private void read()
   throws IOException {
     clearParts();
@@ -1017,6 +1129,31 @@ public class Message  {
     setComms(socket, bb, msgStats);
   }
 
+  /**
+   * Makes this message read from and write to the given streams instead of
+   * the socket's channel, even if it has one.
+   * @since Geode 1.0
+   */
+  public void setComms(ServerConnection sc, Socket socket, InputStream is, OutputStream os,
+      ByteBuffer bb, MessageStats msgStats) throws IOException {
+    this.sc = sc;
+    setComms(socket, is, os, bb, msgStats);
+    this.sockCh = null;
+    this.gatheringCh = null;
+  }
+
+  /**
+   * Makes this message read and write through the given non-blocking I/O of
+   * a server connection. Large direct parts are written to its
+   * {@link NonBlockingConnectionIO#getReplyChannel() reply channel}.
+   * @since Geode 1.0
+   */
+  void setComms(ServerConnection sc, Socket socket, NonBlockingConnectionIO io, ByteBuffer bb,
+      MessageStats msgStats) throws IOException {
+    setComms(sc, socket, io.getInputStream(), io.getOutputStream(), bb, msgStats);
+    this.gatheringCh = io.getReplyChannel();
+  }
+
   public void setComms(Socket socket, ByteBuffer bb, MessageStats msgStats) throws IOException {
     this.sockCh = socket.getChannel();
     if (this.sockCh == null) {
@@ -1032,6 +1169,7 @@ public class Message  {
     Assert.assertTrue(socket != null);
     this.socket = socket;
     this.sockCh = socket.getChannel();
+    this.gatheringCh = this.sockCh;
     this.is = is;
     this.os = os;
     this.cachedCommBuffer = bb;
@@ -1044,6 +1182,7 @@ public class Message  {
   public void unsetComms() {
     this.socket = null;
     this.sockCh = null;
+    this.gatheringCh = null;
     this.is = null;
     this.os = null;
     this.cachedCommBuffer = null;
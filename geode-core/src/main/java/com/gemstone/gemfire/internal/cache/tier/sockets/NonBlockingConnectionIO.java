@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Semaphore;
+
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+
+/**
+ * The socket I/O of a {@link ServerConnection} whose acceptor uses a selector,
+ * done without blocking.
+ * <p>
+ * The selector thread reads the bytes of a request as they arrive, using the
+ * request's header to know how many to expect, and only hands the connection
+ * to a pool thread once the whole request has been read. The pool thread then
+ * reads the request from memory through {@link #getInputStream()}. No buffer
+ * is kept for a connection while no request is arriving on it.
+ * <p>
+ * Replies written to {@link #getOutputStream()} go straight to the socket as
+ * long as it accepts them. What it does not accept is queued and written by
+ * the selector thread once the socket is writable again. A pool thread only
+ * waits when more than {@link #MAX_QUEUED_REPLY_BYTES} are queued for a client
+ * that does not read its replies. {@link #getReplyChannel()} takes replies in
+ * several buffers, such as the direct buffers of off-heap values, and hands
+ * them to the socket in one gathering write.
+ * <p>
+ * A request's payload is only allocated once its length has been checked
+ * against the largest allowed message and the permits for its bytes have been
+ * taken from the server's incoming data limiter. If the limiter has no permits
+ * to spare the selector stops reading from the connection and retries later.
+ * The permits are released once the request has been processed.
+ *
+ * @since Geode 1.0
+ */
+final class NonBlockingConnectionIO {
+
+  /**
+   * The number of reply bytes that can be queued for a connection before the
+   * thread writing more waits for the selector to write them.
+   */
+  static final int MAX_QUEUED_REPLY_BYTES = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "CacheServer.MAX_QUEUED_REPLY_BYTES", 1024 * 1024);
+
+  /** length of the fixed part of a request header */
+  private static final int HEADER_LENGTH = 17;
+  private static final int PAYLOAD_LENGTH_OFFSET = 4;
+
+  /**
+   * The most bytes read or written by one call on the channel. The channel
+   * copies heap buffers through a temporary direct buffer as large as the
+   * bytes asked for, so large requests and replies are done in slices.
+   */
+  private static final int MAX_SLICE = 64 * 1024;
+
+  private final ServerConnection connection;
+  private final SocketChannel channel;
+
+  /** the largest payload a request may have */
+  private final int maxPayloadLength;
+  /** limits the bytes of all requests being read or processed, or null */
+  private final Semaphore dataLimiter;
+
+  // The request being read. Only used by the selector thread until the request
+  // is complete or has failed, then only by the pool thread processing it.
+  private ByteBuffer request;
+  private boolean headerRead;
+  private boolean requestRead;
+  private IOException readFailure;
+  /** the payload length of a request waiting for permits, or -1 */
+  private int awaitedPermits = -1;
+  /** permits taken from the data limiter; guarded by this */
+  private int heldPermits;
+  /** guarded by this */
+  private boolean closed;
+  private final InputStream in = new RequestInputStream();
+
+  /** true from the time a request is handed to a pool thread until it is processed */
+  private volatile boolean processing;
+
+  /** replies the socket did not accept yet; guarded by this */
+  private final ArrayDeque<ByteBuffer> queuedReplies = new ArrayDeque<ByteBuffer>();
+  /** guarded by this */
+  private int queuedReplyBytes;
+  private final OutputStream out = new ReplyOutputStream();
+  private final GatheringByteChannel replyChannel = new ReplyChannel();
+
+  NonBlockingConnectionIO(ServerConnection connection, SocketChannel channel) {
+    this(connection, channel, BaseCommand.getMaxIncomingData(), BaseCommand.getIncomingDataLimiter());
+  }
+
+  /**
+   * @param maxIncomingData
+   *          the largest payload a request may have if greater than zero
+   * @param dataLimiter
+   *          the limiter the payloads of requests take permits from, or null
+   */
+  NonBlockingConnectionIO(ServerConnection connection, SocketChannel channel, int maxIncomingData,
+      Semaphore dataLimiter) {
+    this.connection = connection;
+    this.channel = channel;
+    this.maxPayloadLength = maxIncomingData > 0 ? Math.min(maxIncomingData, Message.MAX_MESSAGE_SIZE)
+        : Message.MAX_MESSAGE_SIZE;
+    this.dataLimiter = dataLimiter;
+  }
+
+  /**
+   * Returns the stream a pool thread reads the request read by
+   * {@link #readRequest()} from.
+   */
+  InputStream getInputStream() {
+    return this.in;
+  }
+
+  /**
+   * Returns the stream replies are written to.
+   */
+  OutputStream getOutputStream() {
+    return this.out;
+  }
+
+  /**
+   * Returns a channel replies can be written to instead of
+   * {@link #getOutputStream()}. Its writes take all the bytes they are given;
+   * what the socket does not accept is copied and queued, so the buffers can
+   * be released once the write returns.
+   */
+  GatheringByteChannel getReplyChannel() {
+    return this.replyChannel;
+  }
+
+  boolean isProcessing() {
+    return this.processing;
+  }
+
+  void setProcessing(boolean processing) {
+    if (!processing) {
+      releasePermits();
+    }
+    this.processing = processing;
+  }
+
+  /**
+   * Returns true if the request being read waits for permits from the data
+   * limiter. {@link #readRequest()} should then be retried once permits may
+   * have been released.
+   */
+  boolean isAwaitingPermits() {
+    return this.awaitedPermits >= 0;
+  }
+
+  /**
+   * Releases the permits this connection holds and keeps it from taking more.
+   * Called when the connection is closed.
+   */
+  synchronized void close() {
+    this.closed = true;
+    releasePermits();
+  }
+
+  private synchronized boolean tryAcquirePermits(int permits) throws IOException {
+    if (this.closed) {
+      throw new ClosedChannelException();
+    }
+    if (!this.dataLimiter.tryAcquire(permits)) {
+      return false;
+    }
+    this.heldPermits = permits;
+    return true;
+  }
+
+  private synchronized void releasePermits() {
+    if (this.heldPermits > 0) {
+      this.dataLimiter.release(this.heldPermits);
+      this.heldPermits = 0;
+    }
+  }
+
+  /**
+   * Returns the operations the selector should wait for on this connection.
+   */
+  int getInterestOps() {
+    int ops = this.processing || isAwaitingPermits() ? 0 : SelectionKey.OP_READ;
+    if (hasQueuedReplies()) {
+      ops |= SelectionKey.OP_WRITE;
+    }
+    return ops;
+  }
+
+  /**
+   * Reads what has arrived of the next request without blocking. Called by the
+   * selector thread when the socket is readable, or when the request is
+   * {@link #isAwaitingPermits() awaiting permits}.
+   * @return true if the whole request has been read, or reading it failed,
+   *  and a pool thread should now read it from {@link #getInputStream()}
+   */
+  boolean readRequest() {
+    if (this.requestRead || this.readFailure != null) {
+      // the previous request has been processed
+      this.request = null;
+      this.headerRead = false;
+      this.requestRead = false;
+      this.readFailure = null;
+    }
+    try {
+      if (this.request == null) {
+        this.request = ByteBuffer.allocate(HEADER_LENGTH);
+      }
+      if (isAwaitingPermits() && !allocatePayload(this.awaitedPermits)) {
+        return false;
+      }
+      for (;;) {
+        int bytesRead;
+        do {
+          bytesRead = transfer(this.request, false);
+          if (bytesRead == -1) {
+            throw new EOFException("The connection has been reset while reading a request");
+          }
+        } while (bytesRead > 0 && this.request.hasRemaining());
+        if (this.request.hasRemaining()) {
+          return false;
+        }
+        if (this.headerRead) {
+          break;
+        }
+        this.headerRead = true;
+        int payloadLength = this.request.getInt(PAYLOAD_LENGTH_OFFSET);
+        if (payloadLength < 0) {
+          throw new IOException("Invalid payload length " + payloadLength + " in request header");
+        }
+        if (payloadLength > this.maxPayloadLength) {
+          throw new IOException(LocalizedStrings.Message_MESSAGE_SIZE_0_EXCEEDED_MAX_LIMIT_OF_1.toLocalizedString(
+              new Object[] { Integer.valueOf(payloadLength), Integer.valueOf(this.maxPayloadLength) }));
+        }
+        if (payloadLength > 0 && !allocatePayload(payloadLength)) {
+          return false;
+        }
+      }
+      this.request.flip();
+      this.requestRead = true;
+    } catch (IOException e) {
+      this.awaitedPermits = -1;
+      this.readFailure = e;
+    }
+    return true;
+  }
+
+  /**
+   * Takes the permits for the given payload from the data limiter and grows
+   * the request buffer to hold it.
+   * @return false if the limiter has no permits to spare
+   */
+  private boolean allocatePayload(int payloadLength) throws IOException {
+    if (this.dataLimiter != null && !tryAcquirePermits(payloadLength)) {
+      this.awaitedPermits = payloadLength;
+      return false;
+    }
+    this.awaitedPermits = -1;
+    ByteBuffer whole = ByteBuffer.allocate(HEADER_LENGTH + payloadLength);
+    this.request.flip();
+    whole.put(this.request);
+    this.request = whole;
+    return true;
+  }
+
+  /**
+   * Writes as many queued replies as the socket accepts. Called by the selector
+   * thread when the socket is writable.
+   */
+  synchronized void writeQueuedReplies() throws IOException {
+    try {
+      while (!this.queuedReplies.isEmpty()) {
+        ByteBuffer reply = this.queuedReplies.peek();
+        int bytesWritten;
+        do {
+          bytesWritten = transfer(reply, true);
+          this.queuedReplyBytes -= bytesWritten;
+        } while (bytesWritten > 0 && reply.hasRemaining());
+        if (reply.hasRemaining()) {
+          break;
+        }
+        this.queuedReplies.poll();
+      }
+    } catch (IOException e) {
+      this.queuedReplies.clear();
+      this.queuedReplyBytes = 0;
+      throw e;
+    } finally {
+      notifyAll();
+    }
+  }
+
+  synchronized boolean hasQueuedReplies() {
+    return !this.queuedReplies.isEmpty();
+  }
+
+  /**
+   * Reads into, or writes from, at most {@link #MAX_SLICE} bytes of the given
+   * buffer.
+   */
+  private int transfer(ByteBuffer bb, boolean write) throws IOException {
+    int limit = bb.limit();
+    if (limit - bb.position() > MAX_SLICE) {
+      bb.limit(bb.position() + MAX_SLICE);
+    }
+    try {
+      return write ? this.channel.write(bb) : this.channel.read(bb);
+    } finally {
+      bb.limit(limit);
+    }
+  }
+
+  /**
+   * Writes the given buffers, queuing what the socket does not accept.
+   * @return the number of bytes taken from the buffers
+   */
+  private long writeReply(ByteBuffer[] srcs, int offset, int length) throws IOException {
+    long len = remaining(srcs, offset, length);
+    boolean firstQueued = false;
+    synchronized (this) {
+      if (this.queuedReplies.isEmpty()) {
+        if (length == 1) {
+          ByteBuffer src = srcs[offset];
+          while (src.hasRemaining() && transfer(src, true) > 0) {
+          }
+        } else {
+          while (remaining(srcs, offset, length) > 0 && this.channel.write(srcs, offset, length) > 0) {
+          }
+        }
+        if (remaining(srcs, offset, length) == 0) {
+          return len;
+        }
+        firstQueued = true;
+      }
+      int queued = (int)remaining(srcs, offset, length);
+      ByteBuffer reply = ByteBuffer.allocate(queued);
+      for (int i = offset; i < offset + length; i++) {
+        reply.put(srcs[i]);
+      }
+      reply.flip();
+      this.queuedReplies.add(reply);
+      this.queuedReplyBytes += queued;
+    }
+    if (firstQueued) {
+      // have the selector wait for the socket to be writable
+      this.connection.getAcceptor().registerSC(this.connection);
+    }
+    waitForQueuedReplies();
+    return len;
+  }
+
+  private static long remaining(ByteBuffer[] srcs, int offset, int length) {
+    long remaining = 0;
+    for (int i = offset; i < offset + length; i++) {
+      remaining += srcs[i].remaining();
+    }
+    return remaining;
+  }
+
+  private synchronized void waitForQueuedReplies() throws IOException {
+    while (this.queuedReplyBytes > MAX_QUEUED_REPLY_BYTES) {
+      if (!this.channel.isOpen()) {
+        throw new ClosedChannelException();
+      }
+      try {
+        wait(1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+  }
+
+  private final class RequestInputStream extends InputStream {
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (readFailure != null) {
+        throw readFailure;
+      }
+      if (request == null || !request.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, request.remaining());
+      request.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public int available() {
+      return request == null ? 0 : request.remaining();
+    }
+  }
+
+  private final class ReplyOutputStream extends OutputStream {
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      writeReply(new ByteBuffer[] { ByteBuffer.wrap(b, off, len) }, 0, 1);
+    }
+  }
+
+  private final class ReplyChannel implements GatheringByteChannel {
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return (int)writeReply(new ByteBuffer[] { src }, 0, 1);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      return writeReply(srcs, offset, length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+      return writeReply(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() {
+      // the socket is closed with its connection
+    }
+  }
+}
@@ -16,6 +16,8 @@
  */
 package com.gemstone.gemfire.internal.cache.tier.sockets;
 
+import com.gemstone.gemfire.compression.SnappyCompressor;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.internal.*;
 import com.gemstone.gemfire.internal.offheap.AddressableMemoryManager;
 import com.gemstone.gemfire.internal.offheap.StoredObject;
@@ -45,6 +47,19 @@ public class Part {
    */
   private static final byte EMPTY_BYTEARRAY_CODE = 2;
   private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+  /**
+   * A serialized object compressed with {@link SnappyCompressor}. Only sent
+   * on connections that negotiated compression in the {@link HandShake}.
+   * @since Geode 1.0
+   */
+  private static final byte COMPRESSED_OBJECT_CODE = 3;
+
+  /**
+   * Object parts smaller than this are never sent compressed.
+   * @since Geode 1.0
+   */
+  static final int MIN_COMPRESSED_LENGTH = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "Part.MIN_COMPRESSED_LENGTH", 1024);
 
   /** The payload of this part.
    * Could be null, a byte[] or a HeapDataOutputStream on the send side.
@@ -55,10 +70,31 @@ public class Part {
   /** Is the payload (<code>part</code>) a serialized object? */
   private byte typeCode;
 
+  /**
+   * On the receive side, the compressed bytes of an object part that came
+   * over the wire compressed; <code>part</code> holds them decompressed.
+   * @since Geode 1.0
+   */
+  private byte[] compressedForm;
+
+  /**
+   * On the send side, the payload an object part had before it was
+   * compressed, so that it can be sent uncompressed again if the op is
+   * retried on a server that does not accept compressed parts.
+   * @since Geode 1.0
+   */
+  private Object uncompressedPart;
+
   public void init(byte[] v, byte tc) {
+    this.compressedForm = null;
     if (tc == EMPTY_BYTEARRAY_CODE) {
       this.part = EMPTY_BYTE_ARRAY;
     }
+    else if (tc == COMPRESSED_OBJECT_CODE) {
+      this.compressedForm = v;
+      this.part = SnappyCompressor.getDefaultInstance().decompress(v);
+      tc = OBJECT_CODE;
+    }
     else {
       this.part = v;
     }
@@ -67,12 +103,17 @@ public class Part {
 
 
   public void clear() {
+    if (this.uncompressedPart != null) {
+      this.part = this.uncompressedPart;
+      this.uncompressedPart = null;
+    }
     if (this.part != null) {
       if (this.part instanceof HeapDataOutputStream) {
         ((HeapDataOutputStream)this.part).close();
       }
       this.part = null;
     }
+    this.compressedForm = null;
     this.typeCode = BYTE_CODE;
   }
 
@@ -89,13 +130,15 @@ public class Part {
     return false;
   }
   public boolean isObject() {
-    return this.typeCode == OBJECT_CODE;
+    return this.typeCode == OBJECT_CODE || this.typeCode == COMPRESSED_OBJECT_CODE;
   }
   public boolean isBytes() {
     return this.typeCode == BYTE_CODE || this.typeCode == EMPTY_BYTEARRAY_CODE;
   }
 
   public void setPartState(byte[] b, boolean isObject) {
+    this.compressedForm = null;
+    this.uncompressedPart = null;
     if (isObject) {
       this.typeCode = OBJECT_CODE;
     } else if (b != null && b.length == 0) {
@@ -108,6 +151,8 @@ public class Part {
   }
   
   public void setPartState(HeapDataOutputStream os, boolean isObject) {
+    this.compressedForm = null;
+    this.uncompressedPart = null;
     if (isObject) {
       this.typeCode = OBJECT_CODE;
       this.part = os;
@@ -120,6 +165,8 @@ public class Part {
     }
   }
   public void setPartState(StoredObject so, boolean isObject) {
+    this.compressedForm = null;
+    this.uncompressedPart = null;
     if (isObject) {
       this.typeCode = OBJECT_CODE;
     } else if (so.getDataSize() == 0) {
@@ -243,6 +290,50 @@ public class Part {
   }
 
 
+  /**
+   * Returns the compressed bytes this object part was received as, or null
+   * if it was not sent compressed.
+   * @since Geode 1.0
+   */
+  public byte[] getCompressedForm() {
+    return this.compressedForm;
+  }
+
+  /**
+   * Sets whether this part is sent compressed with {@link SnappyCompressor}.
+   * Only serialized objects held on the heap that are at least
+   * {@link #MIN_COMPRESSED_LENGTH} bytes, and that compression makes smaller,
+   * are compressed; other parts are always sent as they are.
+   * @since Geode 1.0
+   */
+  public void setSendCompressed(boolean compress) {
+    if (!compress) {
+      if (this.uncompressedPart != null) {
+        this.part = this.uncompressedPart;
+        this.uncompressedPart = null;
+        this.typeCode = OBJECT_CODE;
+      }
+      return;
+    }
+    if (this.typeCode != OBJECT_CODE || getLength() < MIN_COMPRESSED_LENGTH) {
+      return;
+    }
+    byte[] bytes;
+    if (this.part instanceof byte[]) {
+      bytes = (byte[])this.part;
+    } else if (this.part instanceof HeapDataOutputStream) {
+      bytes = ((HeapDataOutputStream)this.part).toByteArray();
+    } else {
+      return;
+    }
+    byte[] compressed = SnappyCompressor.getDefaultInstance().compress(bytes);
+    if (compressed.length < bytes.length) {
+      this.uncompressedPart = this.part;
+      this.part = compressed;
+      this.typeCode = COMPRESSED_OBJECT_CODE;
+    }
+  }
+
   public byte[] getSerializedForm() {
     if (this.part == null) {
       return null;
@@ -252,6 +343,18 @@ public class Part {
       return null; // should not be called on sender side?
     }
   }
+  /**
+   * Returns a direct buffer that holds this part's data, so that it can be
+   * written to a channel without being copied, or null if it has none.
+   * @since Geode 1.0
+   */
+  ByteBuffer getDirectByteBuffer() {
+    if (this.part instanceof StoredObject) {
+      return ((StoredObject) this.part).createDirectByteBuffer();
+    }
+    return null;
+  }
+
   public Object getObject(boolean unzip) throws IOException, ClassNotFoundException {
     if (isBytes()) {
       return this.part;
@@ -420,6 +523,8 @@ public class Part {
       return "OBJECT_CODE";
     case EMPTY_BYTEARRAY_CODE:
       return "EMPTY_BYTEARRAY_CODE";
+    case COMPRESSED_OBJECT_CODE:
+      return "COMPRESSED_OBJECT_CODE";
     default:
       return "unknown code " + c;
     }
@@ -21,6 +21,7 @@ import com.gemstone.gemfire.CancelException;
 import com.gemstone.gemfire.DataSerializer;
 import com.gemstone.gemfire.SystemFailure;
 import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.client.ServerBusyException;
 import com.gemstone.gemfire.cache.client.internal.AbstractOp;
 import com.gemstone.gemfire.cache.client.internal.Connection;
 import com.gemstone.gemfire.distributed.DistributedSystem;
@@ -30,6 +31,7 @@ import com.gemstone.gemfire.internal.HeapDataOutputStream;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.EventID;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.TXManagerImpl;
 import com.gemstone.gemfire.internal.cache.tier.*;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.Default;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
@@ -794,7 +796,18 @@ public class ServerConnection implements Runnable {
         if (command == null) {
           command = Default.getCommand();
         }
-        command.execute(msg, this);
+        AdmissionController.RequestClass requestClass = getAdmissionClass(msg);
+        if (requestClass != null && !this.acceptor.getAdmissionController().admit(requestClass)) {
+          shedRequest(msg, requestClass);
+          return;
+        }
+        try {
+          command.execute(msg, this);
+        } finally {
+          if (requestClass != null) {
+            this.acceptor.getAdmissionController().release(requestClass);
+          }
+        }
       }
     }
     finally {
@@ -806,6 +819,72 @@ public class ServerConnection implements Runnable {
 
   }
 
+  /**
+   * Returns the class the given request is admitted under or null if it is
+   * processed without admission control. Requests in a transaction are
+   * always processed because the transaction cannot move to another server,
+   * and clients older than Geode 1.0 would not understand being told that
+   * the server is busy.
+   */
+  private AdmissionController.RequestClass getAdmissionClass(Message msg) {
+    AdmissionController.RequestClass requestClass = AdmissionController.getRequestClass(msg.getMessageType());
+    if (requestClass == null
+        || !this.acceptor.getAdmissionController().isLimited(requestClass)
+        || msg.getTransactionId() != TXManagerImpl.NOTX
+        || getClientVersion().compareTo(Version.GFE_90) < 0) {
+      return null;
+    }
+    return requestClass;
+  }
+
+  /**
+   * Tells the client that sent the given request that it was not processed
+   * because the server is too busy. The reply has the form the client expects
+   * for the request's message type.
+   */
+  private void shedRequest(Message msg, AdmissionController.RequestClass requestClass) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: shedding {} request from {}", getName(), MessageType.getString(msg.getMessageType()), this.proxyId);
+    }
+    ServerBusyException e = new ServerBusyException("The server is too busy to process "
+        + requestClass.name().toLowerCase() + " requests");
+    try {
+      switch (msg.getMessageType()) {
+      case MessageType.GET_ALL_70:
+      case MessageType.GET_ALL_WITH_CALLBACK:
+      case MessageType.PUTALL:
+      case MessageType.REMOVE_ALL:
+        BaseCommand.writeChunkedException(msg, e, false, this);
+        break;
+      case MessageType.QUERY:
+      case MessageType.QUERY_WITH_PARAMETERS:
+        BaseCommand.writeQueryResponseException(msg, e, false, this);
+        break;
+      case MessageType.EXECUTE_FUNCTION:
+      case MessageType.EXECUTE_REGION_FUNCTION:
+      case MessageType.EXECUTE_REGION_FUNCTION_SINGLE_HOP:
+        // functions that have a result get a chunked reply, see ExecuteFunction66
+        byte functionState = msg.getPart(0).getSerializedForm()[0];
+        if (functionState == 1 || (functionState & 2) != 0) {
+          BaseCommand.writeFunctionResponseException(msg, MessageType.EXCEPTION, e.getMessage(), this, e);
+        } else {
+          BaseCommand.writeException(msg, e, false, this);
+        }
+        break;
+      default:
+        BaseCommand.writeException(msg, e, false, this);
+      }
+    } catch (IOException ioe) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("{}: unable to tell client {} that its request was shed", getName(), this.proxyId, ioe);
+      }
+      setFlagProcessMessagesAsFalse();
+    }
+  }
+
+  /** null unless the acceptor's selector does non-blocking I/O for this connection */
+  private NonBlockingConnectionIO nonBlockingIO;
+
   private final Object terminationLock = new Object();
   private boolean terminated = false;
 
@@ -1205,13 +1284,29 @@ public class ServerConnection implements Runnable {
   public void registerWithSelector() throws IOException {
     //logger.info("DEBUG: registerWithSelector " + this);
     getSelectableChannel().configureBlocking(false);
+    if (this.nonBlockingIO != null) {
+      this.nonBlockingIO.setProcessing(false);
+    }
     getAcceptor().registerSC(this);
   }
   public SelectableChannel getSelectableChannel() {
     return this.theSocket.getChannel();
   }
   public void registerWithSelector2(Selector s) throws IOException {
-    /*this.sKey = */getSelectableChannel().register(s, SelectionKey.OP_READ, this);
+    NonBlockingConnectionIO io = getNonBlockingIO();
+    int ops = io != null ? io.getInterestOps() : SelectionKey.OP_READ;
+    /*this.sKey = */getSelectableChannel().register(s, ops, this);
+  }
+
+  /**
+   * Returns the non-blocking I/O the selector does for this connection, or null
+   * if the selector only waits for this connection to be readable and then
+   * hands it to a pool thread that reads and writes with blocking I/O. The
+   * handshake is always done with blocking I/O.
+   * @since Geode 1.0
+   */
+  NonBlockingConnectionIO getNonBlockingIO() {
+    return this.doHandshake ? null : this.nonBlockingIO;
   }
   /**
    * Switch this guy to blocking mode so we can use oldIO to read and write msgs.
@@ -1587,16 +1682,33 @@ public class ServerConnection implements Runnable {
         } else {
           commBuffer = allocateCommBuffer(socketBufferSize, s);
         }
-        requestMsg.setComms(this, theSocket, commBuffer, msgStats);
-        replyMsg.setComms(this, theSocket, commBuffer, msgStats);
-        responseMsg.setComms(this, theSocket, commBuffer, msgStats);
-        errorMsg.setComms(this, theSocket, commBuffer, msgStats);
-
-        chunkedResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-        queryResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-        executeFunctionResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-        registerInterestResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-        keySetResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
+        if (getAcceptor().isNonBlockingSelector()) {
+          // messages are read from memory once the selector has read all of
+          // their bytes, and replies are written without blocking
+          this.nonBlockingIO = new NonBlockingConnectionIO(this, theSocket.getChannel());
+          NonBlockingConnectionIO io = this.nonBlockingIO;
+          requestMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+          replyMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+          responseMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+          errorMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+
+          chunkedResponseMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+          queryResponseMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+          executeFunctionResponseMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+          registerInterestResponseMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+          keySetResponseMsg.setComms(this, theSocket, io, commBuffer, msgStats);
+        } else {
+          requestMsg.setComms(this, theSocket, commBuffer, msgStats);
+          replyMsg.setComms(this, theSocket, commBuffer, msgStats);
+          responseMsg.setComms(this, theSocket, commBuffer, msgStats);
+          errorMsg.setComms(this, theSocket, commBuffer, msgStats);
+
+          chunkedResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
+          queryResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
+          executeFunctionResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
+          registerInterestResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
+          keySetResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
+        }
       }
       catch(RuntimeException re) {
         throw re;
@@ -1645,6 +1757,9 @@ public class ServerConnection implements Runnable {
       theSocket.close();
     } catch (Exception e) {
     }
+    if (this.nonBlockingIO != null) {
+      this.nonBlockingIO.close();
+    }
     try {
       if (this.authzRequest != null) {
         this.authzRequest.close();
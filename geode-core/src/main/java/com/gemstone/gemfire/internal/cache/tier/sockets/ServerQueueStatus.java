@@ -36,6 +36,7 @@ public class ServerQueueStatus
   private DistributedMember memberId = null;
   /** size of the PDX  registry on the server. Currently only set for gateways */
   private int pdxSize = 0;
+  private boolean acceptsCompression = false;
   
   /**
    * Default constructor 
@@ -120,6 +121,20 @@ public class ServerQueueStatus
   public void setPdxSize(int pdxSize) {
     this.pdxSize = pdxSize;
   }
+
+  /**
+   * Returns true if the server accepts compressed object parts and sends
+   * compressed values in its replies.
+   * @since Geode 1.0
+   */
+  public boolean acceptsCompression() {
+    return this.acceptsCompression;
+  }
+
+  public void setAcceptsCompression(boolean acceptsCompression) {
+    this.acceptsCompression = acceptsCompression;
+  }
+
   /**
    * The member id of the server we connected to.
    * 
@@ -32,10 +32,12 @@ import com.gemstone.gemfire.internal.cache.Token;
 import com.gemstone.gemfire.internal.cache.VersionTagHolder;
 import com.gemstone.gemfire.internal.cache.tier.CachedRegionHelper;
 import com.gemstone.gemfire.internal.cache.tier.Command;
+import com.gemstone.gemfire.internal.cache.tier.ClientHandShake;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.cache.tier.sockets.BaseCommand;
 import com.gemstone.gemfire.internal.cache.tier.sockets.CacheServerStats;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ClientProxyMembershipID;
+import com.gemstone.gemfire.internal.cache.tier.sockets.HandShake;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Part;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ServerConnection;
@@ -421,6 +423,19 @@ public class Get70 extends BaseCommand {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Sends the value part of the response compressed if the client negotiated
+   * compression in its handshake.
+   */
+  private static void compressValueIfAccepted(Message responseMsg,
+      ServerConnection servConn) {
+    ClientHandShake handshake = servConn.getHandshake();
+    if (handshake instanceof HandShake
+        && ((HandShake)handshake).clientAcceptsCompression()) {
+      responseMsg.getPart(0).setSendCompressed(true);
+    }
+  }
+
   private void writeResponse(@Unretained Object data, Object callbackArg,
       Message origMsg, boolean isObject, VersionTag versionTag, boolean keyNotPresent, ServerConnection servConn)
       throws IOException {
@@ -449,6 +464,7 @@ public class Get70 extends BaseCommand {
     responseMsg.setNumberOfParts(numParts);
     
     responseMsg.addPartInAnyForm(data, isObject);
+    compressValueIfAccepted(responseMsg, servConn);
 
     responseMsg.addIntPart(flags);
 
@@ -500,6 +516,7 @@ public class Get70 extends BaseCommand {
     responseMsg.setNumberOfParts(numParts);
 
     responseMsg.addPartInAnyForm(data, isObject);
+    compressValueIfAccepted(responseMsg, servConn);
     
     responseMsg.addIntPart(flags);
     
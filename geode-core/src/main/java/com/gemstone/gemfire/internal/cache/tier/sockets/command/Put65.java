@@ -30,6 +30,7 @@ import com.gemstone.gemfire.cache.Operation;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.ResourceException;
 import com.gemstone.gemfire.cache.operations.PutOperationContext;
+import com.gemstone.gemfire.compression.SnappyCompressor;
 import com.gemstone.gemfire.distributed.internal.DistributionStats;
 import com.gemstone.gemfire.internal.HeapDataOutputStream;
 import com.gemstone.gemfire.internal.InternalDataSerializer;
@@ -42,6 +43,7 @@ import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.PartitionedRegion;
 import com.gemstone.gemfire.internal.cache.TXManagerImpl;
 import com.gemstone.gemfire.internal.cache.Token;
+import com.gemstone.gemfire.internal.cache.compression.SnappyCompressedCachedDeserializable;
 import com.gemstone.gemfire.internal.cache.tier.CachedRegionHelper;
 import com.gemstone.gemfire.internal.cache.tier.Command;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
@@ -404,8 +406,9 @@ public class Put65 extends BaseCommand {
               result = region.basicBridgeCreate(key, (byte[])value, isObject, callbackArg,
                   servConn.getProxyID(), true, clientEvent, true);
             } else {
-              result = region.basicBridgePut(key, value, delta, isObject,
-                callbackArg, servConn.getProxyID(), true, clientEvent);
+              result = region.basicBridgePut(key,
+                  getValueToStore(region, valuePart, value, isObject), delta, isObject,
+                  callbackArg, servConn.getProxyID(), true, clientEvent);
             }
             if (msg.isRetry() && clientEvent.isConcurrencyConflict()
                 && clientEvent.getVersionTag() != null) {
@@ -495,6 +498,23 @@ public class Put65 extends BaseCommand {
     }
 
   }
+  /**
+   * Returns the Snappy compressed form the client sent <code>value</code> in
+   * if the region stores its values off-heap compressed the same way, so that
+   * it is stored without being compressed again. Otherwise returns
+   * <code>value</code>.
+   */
+  private static Object getValueToStore(LocalRegion region, Part valuePart,
+      Object value, boolean isObject) {
+    byte[] compressedValue = valuePart.getCompressedForm();
+    if (compressedValue != null && isObject && region.getOffHeap()
+        && value == valuePart.getSerializedForm()
+        && region.getCompressor() instanceof SnappyCompressor) {
+      return SnappyCompressedCachedDeserializable.createFromCompressedValue(compressedValue);
+    }
+    return value;
+  }
+
   protected void writeReply(Message origMsg, ServerConnection servConn,
       boolean sendOldValue, boolean oldValueIsObject, Object oldValue,
       VersionTag tag)
@@ -1290,6 +1290,12 @@ public class CacheXmlGenerator extends CacheXml implements XMLReader {
         atts.addAttribute("", "", MULTIUSER_SECURE_MODE_ENABLED, "", String.valueOf(cp
             .getMultiuserAuthentication()));
       }
+
+      if (this.version.compareTo(CacheXmlVersion.GEODE_1_0) >= 0) {
+        if (generateDefaults() || cp.getValueCompression() != PoolFactory.DEFAULT_VALUE_COMPRESSION)
+        atts.addAttribute("", "", VALUE_COMPRESSION, "", String.valueOf(cp
+            .getValueCompression()));
+      }
     } finally {
       handler.startElement("", CONNECTION_POOL, CONNECTION_POOL, atts);
       {
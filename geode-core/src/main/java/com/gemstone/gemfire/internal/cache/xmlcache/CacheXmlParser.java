@@ -486,6 +486,10 @@ public class CacheXmlParser extends CacheXml implements ContentHandler {
     if(v != null) {
       f.setMultiuserAuthentication(parseBoolean(v));
     }
+    v = atts.getValue(VALUE_COMPRESSION);
+    if (v != null) {
+      f.setValueCompression(parseBoolean(v));
+    }
   }
   /**
    * @since GemFire 5.7
@@ -16,61 +16,80 @@
  */
 package com.gemstone.gemfire.internal.memcached;
 
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.DecoderException;
+
 import java.io.IOException;
-import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.List;
 
 import com.gemstone.gemfire.LogWriter;
 import com.gemstone.gemfire.cache.Cache;
 import com.gemstone.gemfire.cache.CacheClosedException;
 import com.gemstone.gemfire.internal.memcached.commands.ClientError;
+import com.gemstone.gemfire.internal.memcached.commands.GetCommand;
 import com.gemstone.gemfire.memcached.GemFireMemcachedServer;
 import com.gemstone.gemfire.memcached.GemFireMemcachedServer.Protocol;
 
 /**
- * One instance of ConnectionHandle is created for each
+ * One instance of ConnectionHandler is created for each
  * client that connects to {@link GemFireMemcachedServer}
- * and is responsible for reading requests and sending
+ * and is responsible for processing requests and sending
  * responses to this client.
+ * <p>
+ * All requests that arrive with one read are processed in order
+ * and their replies are flushed together once the read is complete,
+ * so quiet commands pipelined by a binary client cost no round trips.
+ * Consecutive binary get requests, as sent by clients for a multiget,
+ * are served by a single {@link com.gemstone.gemfire.cache.Region#getAll}.
  * 
  * 
  *
  */
-public class ConnectionHandler implements Runnable {
+public class ConnectionHandler extends ChannelInboundHandlerAdapter {
+
+  private static final EnumSet<Command> BINARY_GETS = EnumSet.of(Command.GET, Command.GETQ, Command.GETK, Command.GETKQ);
 
-  private final Socket socket;
-  
   private final Cache cache;
   
   private final Protocol protocol;
 
+  private RequestReader request;
+
   private static LogWriter logger;
   
-  public ConnectionHandler(Socket socket, Cache cache, Protocol protocol) {
-    this.socket = socket;
+  public ConnectionHandler(Cache cache, Protocol protocol) {
     this.cache = cache;
     this.protocol = protocol;
     if (logger == null) {
       logger = this.cache.getLogger();
     }
   }
-  
-  public void run() {
-    RequestReader request = new RequestReader(this.socket, this.protocol);
-    while(!Thread.currentThread().isInterrupted()) {
-      try {
-        Command command = request.readCommand();
-        if (logger.fineEnabled()) {
-          logger.fine("processing command:"+command);
-        }
-        ByteBuffer reply = command.getCommandProcessor().processCommand(
-            request, this.protocol, cache);
-        if (reply != null) {
-          request.sendReply(reply);
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) {
+    this.request = new RequestReader(ctx, this.protocol);
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+    @SuppressWarnings("unchecked")
+    List<ByteBuffer> batch = (List<ByteBuffer>) msg;
+    int i = 0;
+    while (i < batch.size()) {
+      int end = i + 1;
+      if (this.protocol == Protocol.BINARY) {
+        while (end < batch.size() && isBinaryGet(batch.get(end - 1)) && isBinaryGet(batch.get(end))) {
+          end++;
         }
-        if (command == Command.QUIT || command == Command.QUITQ) {
-          socket.close();
-          break;
+      }
+      try {
+        if (end - i > 1) {
+          GetCommand.processBinaryCommands(batch.subList(i, end), request, cache);
+        } else if (!processCommand(ctx, batch.get(i))) {
+          return;
         }
       } catch (ClientError e) {
         request.sendException(e);
@@ -78,12 +97,64 @@ public class ConnectionHandler implements Runnable {
         // thrown by Command.valueOf() when there is no matching command
         request.sendException(e);
       } catch (CacheClosedException cc) {
-        Thread.currentThread().interrupt();
+        ctx.close();
+        return;
       } catch (IOException e) {
-        Thread.currentThread().interrupt();
+        ctx.close();
+        return;
       }
+      i = end;
+    }
+  }
+
+  /**
+   * @return false if the connection has been closed
+   */
+  private boolean processCommand(ChannelHandlerContext ctx, ByteBuffer buffer) throws IOException {
+    request.setRequest(buffer);
+    Command command = request.readCommand();
+    if (logger.fineEnabled()) {
+      logger.fine("processing command:"+command);
+    }
+    ByteBuffer reply = command.getCommandProcessor().processCommand(
+        request, this.protocol, cache);
+    if (reply != null) {
+      request.sendReply(reply);
+    }
+    if (command == Command.QUIT || command == Command.QUITQ) {
+      ctx.flush();
+      ctx.close();
+      return false;
+    }
+    return true;
+  }
+
+  private boolean isBinaryGet(ByteBuffer buffer) {
+    return BINARY_GETS.contains(Command.getCommandFromOpCode(buffer.get(1)));
+  }
+
+  @Override
+  public void channelReadComplete(ChannelHandlerContext ctx) {
+    ctx.flush();
+  }
+
+  /**
+   * Closes the connection. A request rejected by the {@link RequestDecoder}
+   * is answered with a client error giving the reason first; the connection
+   * can not be kept because the rest of the request can not be told from the
+   * next one.
+   */
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+    if (logger.fineEnabled()) {
+      logger.fine("Connection handler closing connection with "+ctx.channel().remoteAddress(), cause);
+    }
+    if (cause instanceof DecoderException && cause.getCause() instanceof ClientError
+        && this.protocol == Protocol.ASCII) {
+      request.sendClientError(cause.getCause().getMessage());
+      ctx.flush();
     }
-    logger.fine("Connection handler "+Thread.currentThread().getName()+" terminating");
+    ctx.close();
   }
 
   protected static LogWriter getLogger() {
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.memcached;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gemstone.gemfire.internal.memcached.commands.AbstractCommand;
+import com.gemstone.gemfire.internal.memcached.commands.ClientError;
+import com.gemstone.gemfire.memcached.GemFireMemcachedServer.Protocol;
+
+/**
+ * First part of the channel pipeline of a memcached client connection.
+ * Frames incoming bytes into complete requests, each copied into a
+ * {@link ByteBuffer} of its own, and sends all requests that arrived
+ * with one read down the pipeline together as one {@link List}.
+ * <p>
+ * A binary request is a header followed by the number of bytes given
+ * by its total body length. An ASCII request is one line, followed
+ * by a data block for the storage commands. A request whose length is
+ * negative or larger than {@link #MAX_VALUE_LENGTH}, or an ASCII line
+ * longer than {@link #MAX_LINE_LENGTH}, is rejected with a
+ * {@link ClientError} before any more of it is buffered.
+ * 
+ *
+ */
+public class RequestDecoder extends ByteToMessageDecoder {
+
+  private static final Charset charsetASCII = Charset.forName("US-ASCII");
+
+  private static final byte REQUEST_MAGIC = (byte) 0x80;
+
+  private static final byte N = '\n';
+
+  /**
+   * length of "\r\n" that terminates a data block
+   */
+  private static final int DATA_BLOCK_TERMINATOR_LENGTH = 2;
+
+  /**
+   * System property name that can be used to set the largest data block
+   * of a storage command, and the largest body of a binary request, in bytes
+   */
+  public static final String MAX_VALUE_LENGTH_SYS_PROP_NAME = "gemcached.maxvaluelength";
+
+  static final int MAX_VALUE_LENGTH = Integer.getInteger(MAX_VALUE_LENGTH_SYS_PROP_NAME, 100 * 1024 * 1024);
+
+  /**
+   * The longest line of an ASCII request, including its "\r\n", that is
+   * buffered. This is the same limit memcached uses.
+   */
+  static final int MAX_LINE_LENGTH = 2048;
+
+  private final Protocol protocol;
+
+  public RequestDecoder(Protocol protocol) {
+    this.protocol = protocol;
+  }
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+    List<ByteBuffer> batch = null;
+    try {
+      for (;;) {
+        int length = this.protocol == Protocol.BINARY ? getBinaryRequestLength(in) : getAsciiRequestLength(in);
+        if (length == -1 || in.readableBytes() < length) {
+          return;
+        }
+        ByteBuffer request = ByteBuffer.allocate(length);
+        in.readBytes(request);
+        request.flip();
+        if (batch == null) {
+          batch = new ArrayList<ByteBuffer>();
+        }
+        batch.add(request);
+      }
+    } finally {
+      // requests read ahead of a malformed one are still processed
+      if (batch != null) {
+        out.add(batch);
+      }
+    }
+  }
+
+  /**
+   * @return length of the binary request at the reader index,
+   *         -1 if the header has not been received yet
+   */
+  private int getBinaryRequestLength(ByteBuf in) {
+    if (in.readableBytes() < AbstractCommand.HEADER_LENGTH) {
+      return -1;
+    }
+    int start = in.readerIndex();
+    if (in.getByte(start) != REQUEST_MAGIC) {
+      throw new IllegalStateException("Not a valid request, magic byte incorrect");
+    }
+    int bodyLength = in.getInt(start + AbstractCommand.TOTAL_BODY_LENGTH_INDEX);
+    checkValueLength(bodyLength);
+    return AbstractCommand.HEADER_LENGTH + bodyLength;
+  }
+
+  /**
+   * @return length of the ASCII request at the reader index, including
+   *         the data block of storage commands, -1 if the first line
+   *         has not been received yet
+   * @throws ClientError if the first line is longer than
+   *         {@link #MAX_LINE_LENGTH}
+   */
+  private int getAsciiRequestLength(ByteBuf in) {
+    int lineLength = in.bytesBefore(in.readerIndex(), Math.min(in.readableBytes(), MAX_LINE_LENGTH), N);
+    if (lineLength == -1) {
+      if (in.readableBytes() >= MAX_LINE_LENGTH) {
+        throw new ClientError("line too long");
+      }
+      return -1;
+    }
+    lineLength++;
+    String[] elements = in.toString(in.readerIndex(), lineLength, charsetASCII).trim().split(" ");
+    if (!isStorageCommand(elements[0]) || elements.length < 5) {
+      return lineLength;
+    }
+    int dataLength;
+    try {
+      dataLength = Integer.parseInt(elements[4]);
+    } catch (NumberFormatException e) {
+      // let the command report the malformed line
+      return lineLength;
+    }
+    checkValueLength(dataLength);
+    return lineLength + dataLength + DATA_BLOCK_TERMINATOR_LENGTH;
+  }
+
+  /**
+   * @throws ClientError if the given length of a value is negative or
+   *         larger than {@link #MAX_VALUE_LENGTH}
+   */
+  private void checkValueLength(int length) {
+    if (length < 0) {
+      throw new ClientError("negative value length " + length);
+    }
+    if (length > MAX_VALUE_LENGTH) {
+      throw new ClientError("value length " + length + " exceeds the maximum of " + MAX_VALUE_LENGTH);
+    }
+  }
+
+  private boolean isStorageCommand(String command) {
+    return command.equalsIgnoreCase("set") || command.equalsIgnoreCase("add")
+        || command.equalsIgnoreCase("replace") || command.equalsIgnoreCase("append")
+        || command.equalsIgnoreCase("prepend") || command.equalsIgnoreCase("cas");
+  }
+}
@@ -16,23 +16,25 @@
  */
 package com.gemstone.gemfire.internal.memcached;
 
-import java.io.IOException;
-import java.net.Socket;
-import java.net.SocketException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.nio.channels.SocketChannel;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 
-import com.gemstone.gemfire.internal.memcached.commands.AbstractCommand;
 import com.gemstone.gemfire.internal.memcached.commands.ClientError;
 import com.gemstone.gemfire.memcached.GemFireMemcachedServer.Protocol;
 
 /**
- * Reads the first line from the request and interprets the {@link Command}
- * from the memcached client
+ * Holds the request currently being processed for a memcached client,
+ * interprets the {@link Command} from it and writes the replies
+ * to the client. Requests are framed by {@link RequestDecoder}, replies
+ * are written without flushing; {@link ConnectionHandler} flushes once all
+ * requests of a read have been processed.
  * 
  *
  */
@@ -55,98 +57,37 @@ public class RequestReader {
 
   private static final byte RESPONSE_MAGIC = (byte) 0x81;
 
-  private static final int HEADER_LENGTH = 24;
-
-  private static final byte REQUEST_MAGIC = (byte) 0x80;
-
   private static final int POSITION_OPCODE = 1;
 
   private static final int POSITION_OPAQUE = 12;
 
-  private Socket socket;
+  private final ChannelHandlerContext ctx;
   
   private final Protocol protocol;
 
   private CharBuffer commandBuffer = CharBuffer.allocate(11);   // no command exceeds 9 chars
   
-  public RequestReader(Socket socket, Protocol protocol) {
-    buffer = ByteBuffer.allocate(getBufferSize(socket.getChannel()));
-    // set position to limit so that first read attempt
-    // returns hasRemaining() false 
-    buffer.position(buffer.limit());
-    this.socket = socket;
+  public RequestReader(ChannelHandlerContext ctx, Protocol protocol) {
+    this.ctx = ctx;
     this.protocol = protocol;
   }
 
-  public Command readCommand() throws IOException {
-    if (protocol == Protocol.ASCII) {
-      return readAsciiCommand();
-    }
-    return readBinaryCommand();
+  /**
+   * Sets the request to be processed next
+   * @param request one complete request as framed by {@link RequestDecoder}
+   */
+  public void setRequest(ByteBuffer request) {
+    this.buffer = request;
   }
-  
-  private Command readBinaryCommand() throws IOException {
-    SocketChannel channel = this.socket.getChannel();
-    if (channel == null || !channel.isOpen()) {
-      throw new IllegalStateException("cannot read from channel");
+
+  public Command readCommand() throws CharacterCodingException {
+    this.buffer.rewind();
+    if (protocol == Protocol.ASCII) {
+      return Command.valueOf(readCommand(this.buffer));
     }
-    Command cmd = null;
-    boolean done = false;
-    boolean read = false;
-    while (!done) {
-      if (!buffer.hasRemaining()) {
-        buffer.clear();
-        read = true;
-      } else if (!read) {
-        // compact is meant for partial writes, but we want to use
-        // it partial reads, so the new limit should be the position
-        // after the compact operation and we want to start reading
-        // from the beginning
-        buffer.compact();
-        buffer.limit(buffer.position());
-        buffer.position(0);
-      }
-      if (read) {
-        int bytesRead = channel.read(buffer);
-        if (bytesRead == -1) {
-          throw new IOException("EOF");
-        }
-        buffer.flip();
-      }
-      // read again if we did not read enough bytes
-      if (buffer.limit() < HEADER_LENGTH) {
-        buffer.compact();
-        read = true;
-        continue;
-      }
-      int requestLength = buffer.remaining();
-      byte magic = buffer.get();
-      if (magic != REQUEST_MAGIC) {
-        throw new IllegalStateException("Not a valid request, magic byte incorrect");
-      }
-      byte opCode = buffer.get();
-      if (ConnectionHandler.getLogger().finerEnabled()) {
-        String str = Command.buffertoString(buffer);
-        ConnectionHandler.getLogger().finer("Request:"+buffer+str.toString());
-      }
-      int bodyLength = buffer.getInt(AbstractCommand.TOTAL_BODY_LENGTH_INDEX);
-      if ((HEADER_LENGTH + bodyLength) > requestLength) {
-        // set the position back to the start of the request
-        buffer.position(buffer.position() - 2 /*since we read two bytes*/);
-        buffer.compact();
-        // ensure that the buffer is big enough
-        if (buffer.capacity() < (HEADER_LENGTH + bodyLength)) {
-          // allocate bigger buffer and copy the bytes to the bigger buffer
-          ByteBuffer oldBuffer = buffer;
-          oldBuffer.position(0);
-          buffer = ByteBuffer.allocate(HEADER_LENGTH + bodyLength);
-          buffer.put(oldBuffer);
-        }
-        read = true;
-        continue;
-      }
-      cmd = Command.getCommandFromOpCode(opCode);
-      done = true;
+    Command cmd = Command.getCommandFromOpCode(this.buffer.get(POSITION_OPCODE));
+    if (ConnectionHandler.getLogger().finerEnabled()) {
+      ConnectionHandler.getLogger().finer("Request:"+buffer+Command.buffertoString(buffer));
     }
     if (ConnectionHandler.getLogger().fineEnabled()) {
       ConnectionHandler.getLogger().fine("read command "+cmd);
@@ -154,22 +95,9 @@ public class RequestReader {
     return cmd;
   }
 
-  private Command readAsciiCommand() throws IOException {
-    SocketChannel channel = this.socket.getChannel();
-    if (channel == null || !channel.isOpen()) {
-      throw new IllegalStateException("cannot read from channel");
-    }
-    buffer.clear();
-    int bytesRead = channel.read(buffer);
-    if (bytesRead == -1) {
-      throw new IOException("EOF");
-    }
-    buffer.flip();
-    return Command.valueOf(readCommand(buffer));
-  }
-
   private String readCommand(ByteBuffer buffer) throws CharacterCodingException {
     commandBuffer.clear();
+    asciiDecoder.get().reset();
     asciiDecoder.get().decode(buffer, commandBuffer, false);
     commandBuffer.flip();
     return trimCommand(commandBuffer.toString()).toUpperCase();
@@ -195,16 +123,6 @@ public class RequestReader {
     return retVal;
   }
   
-  private int getBufferSize(SocketChannel channel) {
-    int size = 1024;
-    try {
-      size = channel.socket().getReceiveBufferSize();
-    } catch (SocketException e) {
-      // use default size
-    }
-    return size;
-  }
-  
   public ByteBuffer getRequest() {
     this.buffer.rewind();
     return this.buffer;
@@ -256,7 +174,12 @@ public class RequestReader {
     return cleanByteArray;
   }
 
-  public void sendReply(ByteBuffer reply) throws IOException {
+  /**
+   * Writes the reply to the client. The reply is copied, so
+   * buffers obtained from {@link #getResponse()} may be reused
+   * right away.
+   */
+  public void sendReply(ByteBuffer reply) {
     // for binary set the response opCode
     if (this.protocol == Protocol.BINARY) {
       reply.rewind();
@@ -266,25 +189,36 @@ public class RequestReader {
         ConnectionHandler.getLogger().finer("sending reply:"+reply+" "+Command.buffertoString(reply));
       }
     }
-    SocketChannel channel = this.socket.getChannel();
-    if (channel == null || !channel.isOpen()) {
-      throw new IllegalStateException("cannot write to channel");
+    ByteBuf out = this.ctx.alloc().buffer(reply.remaining());
+    out.writeBytes(reply);
+    this.ctx.write(out, this.ctx.voidPromise());
+  }
+
+  /**
+   * Writes a value to the client following the reply last sent
+   * by {@link #sendReply(ByteBuffer)}. The value is not copied, it
+   * must not be modified after this call.
+   */
+  public void sendValue(byte[] value) {
+    if (value.length > 0) {
+      this.ctx.write(Unpooled.wrappedBuffer(value), this.ctx.voidPromise());
     }
-    channel.write(reply);
   }
 
   public void sendException(Exception e) {
-    SocketChannel channel = this.socket.getChannel();
-    if (channel == null || !channel.isOpen()) {
-      throw new IllegalStateException("cannot write to channel");
-    }
-    try {
-      if (e instanceof ClientError) {
-        channel.write(charsetASCII.encode(Reply.CLIENT_ERROR.toString()));
-      } else {
-        channel.write(charsetASCII.encode(Reply.ERROR.toString()));
-      }
-    } catch (IOException ex) {
+    String reply;
+    if (e instanceof ClientError) {
+      reply = Reply.CLIENT_ERROR.toString();
+    } else {
+      reply = Reply.ERROR.toString();
     }
+    this.ctx.write(Unpooled.copiedBuffer(reply, charsetASCII), this.ctx.voidPromise());
+  }
+
+  /**
+   * Writes "CLIENT_ERROR &lt;message&gt;\r\n" to the client
+   */
+  public void sendClientError(String message) {
+    this.ctx.write(Unpooled.copiedBuffer("CLIENT_ERROR " + message + "\r\n", charsetASCII), this.ctx.voidPromise());
   }
 }
@@ -18,14 +18,18 @@ package com.gemstone.gemfire.internal.memcached.commands;
 
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.util.HashSet;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import com.gemstone.gemfire.cache.Cache;
 import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.memcached.Command;
 import com.gemstone.gemfire.internal.memcached.KeyWrapper;
 import com.gemstone.gemfire.internal.memcached.Reply;
 import com.gemstone.gemfire.internal.memcached.RequestReader;
@@ -46,6 +50,9 @@ import com.gemstone.gemfire.memcached.GemFireMemcachedServer.Protocol;
  * VALUE &lt;key&gt; &lt;flags&gt; &lt;bytes&gt; [&lt;cas unique&gt;]\r\n<br/>
  * &lt;data block&gt;\r\n
  * </code>
+ * <p>
+ * Values are handed to the client straight from the byte array
+ * of the {@link ValueWrapper}, without copying them into a reply buffer.
  * 
  *
  */
@@ -61,16 +68,6 @@ public class GetCommand extends AbstractCommand {
    * buffer used to compose one line of reply
    */
   private static ThreadLocal<CharBuffer> lineBuffer = new ThreadLocal<CharBuffer>();
-  
-  /**
-   * defaults to the default send buffer size on socket
-   */
-  private static final int REPLY_BUFFER_CAPACITY = Integer.getInteger("replyBufferCapacity", 146988);
-  
-  /**
-   * buffer for sending get replies, one per thread
-   */
-  private static ThreadLocal<ByteBuffer> replyBuffer = new ThreadLocal<ByteBuffer>();
 
   private static final int EXTRAS_LENGTH = 4;
 
@@ -92,6 +89,50 @@ public class GetCommand extends AbstractCommand {
     } catch (Exception e) {
       return handleBinaryException(key, request, response, "get", e);
     }
+    return composeBinaryReply(key, val, request, response);
+  }
+
+  /**
+   * Processes consecutive binary get requests, typically a multiget sent as
+   * a run of GetQ/GetKQ requests, with a single {@link Region#getAll(java.util.Collection)}.
+   * Replies are sent in the order of the requests.
+   * @param requests requests for any of get, getq, getk or getkq
+   */
+  public static void processBinaryCommands(List<ByteBuffer> requests, RequestReader request, Cache cache) throws CharacterCodingException {
+    Region<Object, ValueWrapper> r = getMemcachedRegion(cache);
+    List<GetCommand> processors = new ArrayList<GetCommand>(requests.size());
+    List<KeyWrapper> keys = new ArrayList<KeyWrapper>(requests.size());
+    for (ByteBuffer buffer : requests) {
+      request.setRequest(buffer);
+      GetCommand processor = (GetCommand) request.readCommand().getCommandProcessor();
+      processors.add(processor);
+      keys.add(processor.getKey(request.getRequest(), HEADER_LENGTH));
+    }
+    Map<Object, ValueWrapper> values = null;
+    try {
+      values = r.getAll(keys);
+    } catch (Exception e) {
+      // fall through to get each key on its own, reporting the failure for the keys it affects
+    }
+    for (int i=0; i<requests.size(); i++) {
+      request.setRequest(requests.get(i));
+      ByteBuffer reply;
+      if (values == null) {
+        reply = processors.get(i).processCommand(request, Protocol.BINARY, cache);
+      } else {
+        reply = processors.get(i).composeBinaryReply(keys.get(i), values.get(keys.get(i)), request, request.getResponse());
+      }
+      if (reply != null) {
+        request.sendReply(reply);
+      }
+    }
+  }
+
+  /**
+   * Sends the header of a hit followed by the value, or returns the reply for a miss.
+   * @return the reply to be sent, null if it has already been sent
+   */
+  private ByteBuffer composeBinaryReply(KeyWrapper key, ValueWrapper val, RequestReader request, ByteBuffer response) {
     if (getLogger().fineEnabled()) {
       getLogger().fine("get:key:"+key+" val:"+val);
     }
@@ -100,30 +141,30 @@ public class GetCommand extends AbstractCommand {
         return null;
       }
       response.putShort(POSITION_RESPONSE_STATUS, ResponseStatus.KEY_NOT_FOUND.asShort());
-    } else {
-      byte[] realValue = val.getValue();
-      int responseLength = HEADER_LENGTH + realValue.length + EXTRAS_LENGTH + (sendKeysInResponse() ? key.getKey().length : 0);
-      if (response.capacity() < responseLength) {
-        response = request.getResponse(responseLength);
-      }
-      response.limit(responseLength);
-      response.putShort(POSITION_RESPONSE_STATUS, ResponseStatus.NO_ERROR.asShort());
-      if (sendKeysInResponse()) {
-        response.putShort(KEY_LENGTH_INDEX, (short) key.getKey().length);
-      }
-      response.put(EXTRAS_LENGTH_INDEX, (byte) EXTRAS_LENGTH);
-      response.putInt(TOTAL_BODY_LENGTH_INDEX, EXTRAS_LENGTH + realValue.length + (sendKeysInResponse() ? key.getKey().length : 0));
-      response.putLong(POSITION_CAS, val.getVersion());
-      response.position(HEADER_LENGTH);
-      response.putInt(val.getFlags());
-      if (sendKeysInResponse()) {
-        response.put(key.getKey());
-      }
-      response.put(realValue);
-      
-      response.flip();
+      return response;
+    }
+    byte[] realValue = val.getValue();
+    int keyLength = sendKeysInResponse() ? key.getKey().length : 0;
+    int headerLength = HEADER_LENGTH + EXTRAS_LENGTH + keyLength;
+    if (response.capacity() < headerLength) {
+      response = request.getResponse(headerLength);
+    }
+    response.limit(headerLength);
+    response.putShort(POSITION_RESPONSE_STATUS, ResponseStatus.NO_ERROR.asShort());
+    if (sendKeysInResponse()) {
+      response.putShort(KEY_LENGTH_INDEX, (short) keyLength);
+    }
+    response.put(EXTRAS_LENGTH_INDEX, (byte) EXTRAS_LENGTH);
+    response.putInt(TOTAL_BODY_LENGTH_INDEX, EXTRAS_LENGTH + realValue.length + keyLength);
+    response.putLong(POSITION_CAS, val.getVersion());
+    response.position(HEADER_LENGTH);
+    response.putInt(val.getFlags());
+    if (sendKeysInResponse()) {
+      response.put(key.getKey());
     }
-    return response;
+    request.sendReply(response);
+    request.sendValue(realValue);
+    return null;
   }
 
   /**
@@ -150,7 +191,7 @@ public class GetCommand extends AbstractCommand {
     String[] firstLineElements = firstLine.split(" ");
     
     boolean isGets = firstLineElements[0].equals("gets");
-    Set<String> keys = new HashSet<String>();
+    Set<String> keys = new LinkedHashSet<String>();
     for (int i=1; i<firstLineElements.length; i++) {
       keys.add(stripNewline(firstLineElements[i]));
     }
@@ -158,14 +199,15 @@ public class GetCommand extends AbstractCommand {
     Region<Object, ValueWrapper> r = getMemcachedRegion(cache);
     Map<Object, ValueWrapper> results = r.getAll(keys);
     
-    return composeReply(results, isGets);
+    return composeReply(results, isGets, request);
   }
 
-  @edu.umd.cs.findbugs.annotations.SuppressWarnings(value = "NP_NULL_PARAM_DEREF",
-      justification = "findbugs complains that v is null while putting into buffer, but it is not")
-  private ByteBuffer composeReply(Map<Object, ValueWrapper> results, boolean isGets) {
+  /**
+   * Sends one line and the value for every hit
+   * @return the terminating END line
+   */
+  private ByteBuffer composeReply(Map<Object, ValueWrapper> results, boolean isGets, RequestReader request) {
     Iterator<Entry<Object, ValueWrapper>> it = results.entrySet().iterator();
-    ByteBuffer buffer = getReplyBuffer();
     while (it.hasNext()) {
       Entry<Object, ValueWrapper> e = it.next();
       if (getLogger().fineEnabled()) {
@@ -188,27 +230,15 @@ public class GetCommand extends AbstractCommand {
         }
         reply.put(RN);
         reply.flip();
-        getAsciiEncoder().encode(reply, buffer, false);
+        request.sendReply(asciiCharset.encode(reply));
         // put the actual value
-        buffer.put(v);
-        RN_BUF.rewind();
-        buffer.put(RN_BUF);
+        if (v != null) {
+          request.sendValue(v);
+        }
+        request.sendReply(RN_BUF.duplicate());
       }
     }
-    END_BUF.rewind();
-    buffer.put(END_BUF);
-    buffer.flip();
-    return buffer;
-  }
-  
-  private ByteBuffer getReplyBuffer() {
-    ByteBuffer retVal = replyBuffer.get();
-    if (retVal == null) {
-      retVal = ByteBuffer.allocate(REPLY_BUFFER_CAPACITY);
-      replyBuffer.set(retVal);
-    }
-    retVal.clear();
-    return retVal;
+    return END_BUF.duplicate();
   }
   
   private CharBuffer getLineBuffer() {
@@ -44,6 +44,14 @@ public class FreeListManager {
   // hugeChunkSet is sorted by chunk size in ascending order. It will only contain chunks larger than MAX_TINY.
   private final ConcurrentSkipListSet<OffHeapStoredObject> hugeChunkSet = new ConcurrentSkipListSet<OffHeapStoredObject>();
   private final AtomicLong allocatedSize = new AtomicLong(0L);
+  /**
+   * Number of tiny size classes that are cached per thread.
+   * Zero if thread caches are disabled.
+   */
+  private final int threadCacheSizeClassCount;
+  private final ThreadLocal<TinyFreeListCache> threadCache = new ThreadLocal<TinyFreeListCache>();
+  // every thread cache ever created so that defragmentation can drain them
+  private final CopyOnWriteArrayList<TinyFreeListCache> threadCaches = new CopyOnWriteArrayList<TinyFreeListCache>();
 
   private int getNearestTinyMultiple(int size) {
     return (size-1)/TINY_MULTIPLE;
@@ -100,6 +108,9 @@ public class FreeListManager {
   }
   long getFreeTinyMemory() {
     long tinyFree = 0;
+    for (TinyFreeListCache cache: this.threadCaches) {
+      tinyFree += cache.getCachedMemory();
+    }
     for (int i=0; i < this.tinyFreeLists.length(); i++) {
       OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
       if (cl != null) {
@@ -134,6 +145,11 @@ public class FreeListManager {
     }
     this.fragmentList = new CopyOnWriteArrayList<Fragment>(tmp);
     this.totalSlabSize = total;
+    if (getThreadCacheSize() > 0) {
+      this.threadCacheSizeClassCount = Math.min(TINY_FREE_LIST_COUNT, THREAD_CACHE_MAX_CHUNK_SIZE / TINY_MULTIPLE);
+    } else {
+      this.threadCacheSizeClassCount = 0;
+    }
 
     fillFragments();
   }
@@ -187,6 +203,37 @@ public class FreeListManager {
     return result;
   }
 
+  /**
+   * Allocates a chunk with room for size bytes of data only if a free one
+   * at an address lower than maxAddress can be taken from the free lists.
+   * Never carves a fragment or defragments, so it does not block.
+   * Used to relocate live objects toward the start of the slabs.
+   * @return the allocated chunk or null
+   */
+  OffHeapStoredObject allocateBelow(int size, long maxAddress) {
+    assert size > 0;
+    int chunkSize = size + OffHeapStoredObject.HEADER_SIZE;
+    OffHeapStoredObject result;
+    if (chunkSize <= MAX_TINY) {
+      result = allocateTiny(chunkSize, false);
+    } else {
+      result = allocateHuge(chunkSize, false);
+    }
+    if (result == null) {
+      return null;
+    }
+    if (result.getAddress() >= maxAddress) {
+      // put it back; it was never initialized so its fill is still intact
+      result.readyForFree();
+      free(result.getAddress(), false);
+      return null;
+    }
+    result.setDataSize(size);
+    this.allocatedSize.addAndGet(result.getSize());
+    result.initializeUseCount();
+    return result;
+  }
+
   private OffHeapStoredObject basicAllocate(int size, boolean useSlabs) {
     if (useSlabs) {
       // Every object stored off heap has a header so we need
@@ -246,6 +293,7 @@ public class FreeListManager {
     }
   }
   private void logTinyState(Logger lw) {
+    drainThreadCaches();
     for (int i=0; i < this.tinyFreeLists.length(); i++) {
       OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
       if (cl != null) {
@@ -295,6 +343,28 @@ public class FreeListManager {
     verifyHugeMultiple(HUGE_MULTIPLE);
   }
   public final static int MAX_TINY = TINY_MULTIPLE*TINY_FREE_LIST_COUNT;
+  /**
+   * Number of freed tiny chunks of each size that a thread keeps for its own
+   * allocations before returning them to the shared tiny free lists.
+   * Zero, the default, disables the thread caches.
+   * Read each time a FreeListManager is created.
+   */
+  public final static String THREAD_CACHE_SIZE_PROPERTY = DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_SIZE";
+  /**
+   * The maximum number of bytes of free memory a single thread cache will hold.
+   */
+  public final static int THREAD_CACHE_MAX_MEMORY = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_MAX_MEMORY", 256*1024);
+  /**
+   * Only chunks up to this size are cached by threads.
+   */
+  public final static int THREAD_CACHE_MAX_CHUNK_SIZE = 1024;
+
+  /**
+   * Tests override this method to control the thread cache size.
+   */
+  protected int getThreadCacheSize() {
+    return Integer.getInteger(THREAD_CACHE_SIZE_PROPERTY, 0);
+  }
   
   /**
    * Return true if the two chunks have been combined into one.
@@ -396,7 +466,7 @@ public class FreeListManager {
     }
     public void add(long l) {
       if (size >= data.length) {
-        long[] newData = new long[data.length+SORT_ARRAY_BLOCK_SIZE];
+        long[] newData = new long[data.length*2];
         System.arraycopy(data, 0, newData, 0, data.length);
         data = newData;
       }
@@ -416,6 +486,9 @@ public class FreeListManager {
       }
       size++;
     }
+    public void sort() {
+      Arrays.sort(data, 0, size);
+    }
   }
   /**
    * Defragments memory and returns true if enough memory to allocate chunkSize
@@ -431,37 +504,24 @@ public class FreeListManager {
     for (LongStack l: freeChunks) {
       long addr = l.poll();
       while (addr != 0) {
-        int idx = sorted.binarySearch(addr);
-        idx = -idx;
-        idx--;
-        int sortedSize = sorted.size();
-        if (idx == sortedSize) {
-          // addr is > everything in the array
-          if (sortedSize == 0) {
-            // nothing was in the array
-            sorted.add(addr);
-          } else {
-            if (!combineIfAdjacentAndSmallEnough(sorted.get(idx-1), addr)) {
-              sorted.add(addr);
-            }
-          }
-        } else {
-          if (combineIfAdjacentAndSmallEnough(addr, sorted.get(idx))) {
-            sorted.set(idx, addr);
-          } else {
-            if (idx == 0 || !combineIfAdjacentAndSmallEnough(sorted.get(idx-1), addr)) {
-              sorted.insert(idx, addr);
-            }
-          }
-        }
+        sorted.add(addr);
         addr = l.poll();
       }
     }
-    for (int i=sorted.size()-1; i > 0; i--) {
-      if (combineIfAdjacentAndSmallEnough(sorted.get(i-1), sorted.get(i))) {
-        sorted.set(i, 0L);
+    // Sorting once and then combining in a single pass keeps the time
+    // this method holds the defragmentation lock at n*log(n).
+    sorted.sort();
+    int combinedSize = 0;
+    for (int i=0; i < sorted.size(); i++) {
+      long addr = sorted.get(i);
+      if (combinedSize == 0 || !combineIfAdjacentAndSmallEnough(sorted.get(combinedSize-1), addr)) {
+        sorted.set(combinedSize, addr);
+        combinedSize++;
       }
     }
+    for (int i=combinedSize; i < sorted.size(); i++) {
+      sorted.set(i, 0L);
+    }
     
     int largestFragment = 0;
     this.lastFragmentAllocation.set(0);
@@ -585,6 +645,7 @@ public class FreeListManager {
     }
   }
   private void collectFreeTinyChunks(List<LongStack> l) {
+    drainThreadCaches();
     for (int i=0; i < this.tinyFreeLists.length(); i++) {
       OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
       if (cl != null) {
@@ -657,7 +718,19 @@ public class FreeListManager {
     return (int) ((((long)value + (multiple-1)) / multiple) * multiple);
   }
   private OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
-    return basicAllocate(getNearestTinyMultiple(size), TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
+    int idx = getNearestTinyMultiple(size);
+    if (useFragments && idx < this.threadCacheSizeClassCount) {
+      long memAddr = getThreadCache().allocate(idx);
+      if (memAddr != 0) {
+        OffHeapStoredObject result = new OffHeapStoredObject(memAddr);
+        checkDataIntegrity(result);
+        result.readyForAllocation();
+        return result;
+      }
+      // the shared free list was empty too
+      return allocateFromFragments((idx+1)*TINY_MULTIPLE);
+    }
+    return basicAllocate(idx, TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
   }
   private OffHeapStoredObject basicAllocate(int idx, int multiple, int offset, AtomicReferenceArray<OffHeapStoredObjectAddressStack> freeLists, boolean useFragments) {
     OffHeapStoredObjectAddressStack clq = freeLists.get(idx);
@@ -748,7 +821,64 @@ public class FreeListManager {
     }
   }
   private void freeTiny(long addr, int cSize) {
-    basicFree(addr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
+    int idx = getNearestTinyMultiple(cSize);
+    if (idx < this.threadCacheSizeClassCount && getThreadCache().free(idx, addr, cSize)) {
+      return;
+    }
+    basicFree(addr, idx, this.tinyFreeLists);
+  }
+  private TinyFreeListCache getThreadCache() {
+    TinyFreeListCache result = this.threadCache.get();
+    if (result == null) {
+      result = new TinyFreeListCache(this, Thread.currentThread(), this.threadCacheSizeClassCount, getThreadCacheSize(), THREAD_CACHE_MAX_MEMORY);
+      removeDeadThreadCaches();
+      this.threadCaches.add(result);
+      this.threadCache.set(result);
+    }
+    return result;
+  }
+  /**
+   * Returns the chunks held by every thread cache to the shared tiny free lists.
+   */
+  void drainThreadCaches() {
+    for (TinyFreeListCache cache: this.threadCaches) {
+      cache.drain();
+    }
+    removeDeadThreadCaches();
+  }
+  private void removeDeadThreadCaches() {
+    for (TinyFreeListCache cache: this.threadCaches) {
+      if (!cache.isOwnerAlive()) {
+        cache.drain();
+        this.threadCaches.remove(cache);
+      }
+    }
+  }
+  /**
+   * Called by a TinyFreeListCache to refill itself from the shared free list of size class idx.
+   */
+  int pollTinyFreeList(int idx, long[] dest, int max) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      return 0;
+    }
+    return clq.poll(dest, max);
+  }
+  /**
+   * Called by a TinyFreeListCache to return chunks to the shared free list of size class idx.
+   */
+  void offerTinyFreeList(int idx, long[] addrs, int offset, int count) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      clq = createFreeListForEmptySlot(this.tinyFreeLists, idx);
+      if (!this.tinyFreeLists.compareAndSet(idx, null, clq)) {
+        clq = this.tinyFreeLists.get(idx);
+      }
+    }
+    clq.offer(addrs, offset, count);
+  }
+  OffHeapMemoryStats getStats() {
+    return this.ma.getStats();
   }
   private void basicFree(long addr, int idx, AtomicReferenceArray<OffHeapStoredObjectAddressStack> freeLists) {
     OffHeapStoredObjectAddressStack clq = freeLists.get(idx);
@@ -775,6 +905,7 @@ public class FreeListManager {
   }
 
   List<MemoryBlock> getOrderedBlocks() {
+    drainThreadCaches();
     final List<MemoryBlock> value = new ArrayList<MemoryBlock>();
     addBlocksFromFragments(this.fragmentList, value); // unused fragments
     addBlocksFromChunks(getLiveChunks(), value); // used chunks
@@ -58,6 +58,8 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
   private MemoryInspector memoryInspector;
 
+  private final OffHeapDefragmenter defragmenter;
+
   private volatile MemoryUsageListener[] memoryUsageListeners = new MemoryUsageListener[0];
   
   private static MemoryAllocatorImpl singleton = null;
@@ -197,6 +199,13 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
     this.stats.incMaxMemory(this.freeList.getTotalMemory());
     this.stats.incFreeMemory(this.freeList.getTotalMemory());
+
+    if (OffHeapDefragmenter.INTERVAL > 0) {
+      this.defragmenter = new OffHeapDefragmenter(this, OffHeapDefragmenter.INTERVAL);
+      this.defragmenter.start();
+    } else {
+      this.defragmenter = null;
+    }
   }
   
   public List<OffHeapStoredObject> getLostChunks() {
@@ -213,22 +222,34 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
    */
   private List<OffHeapStoredObject> getRegionLiveChunks() {
     ArrayList<OffHeapStoredObject> result = new ArrayList<OffHeapStoredObject>();
+    for (LocalRegion r : getOffHeapRegions()) {
+      basicGetRegionLiveChunks(r, result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a possibly empty list of the regions, including local buckets,
+   * that store their values off-heap.
+   */
+  List<LocalRegion> getOffHeapRegions() {
+    ArrayList<LocalRegion> result = new ArrayList<LocalRegion>();
     RegionService gfc = GemFireCacheImpl.getInstance();
     if (gfc != null) {
       Iterator<Region<?,?>> rootIt = gfc.rootRegions().iterator();
       while (rootIt.hasNext()) {
         Region<?,?> rr = rootIt.next();
-        getRegionLiveChunks(rr, result);
+        getOffHeapRegions(rr, result);
         Iterator<Region<?,?>> srIt = rr.subregions(true).iterator();
         while (srIt.hasNext()) {
-          getRegionLiveChunks(srIt.next(), result);
+          getOffHeapRegions(srIt.next(), result);
         }
       }
     }
     return result;
   }
 
-  private void getRegionLiveChunks(Region<?,?> r, List<OffHeapStoredObject> result) {
+  private void getOffHeapRegions(Region<?,?> r, List<LocalRegion> result) {
     if (r.getAttributes().getOffHeap()) {
 
       if (r instanceof PartitionedRegion) {
@@ -238,14 +259,14 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
           if (brs != null) {
             for (BucketRegion br : brs) {
               if (br != null && !br.isDestroyed()) {
-                this.basicGetRegionLiveChunks(br, result);
+                result.add(br);
               }
 
             }
           }
         }
       } else {
-        this.basicGetRegionLiveChunks((LocalRegion) r, result);
+        result.add((LocalRegion) r);
       }
 
     }
@@ -281,6 +302,34 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     return result;
   }
   
+  /**
+   * Returns a copy of the object at addr in a chunk at a lower address,
+   * or null if no such chunk is free. The caller must have retained addr.
+   */
+  OffHeapStoredObject allocateRelocationCopy(long addr) {
+    OffHeapStoredObject original = new OffHeapStoredObject(addr);
+    int dataSize = original.getDataSize();
+    if (dataSize == 0) {
+      return null;
+    }
+    OffHeapStoredObject result = this.freeList.allocateBelow(dataSize, addr);
+    if (result == null) {
+      return null;
+    }
+    int resultSize = result.getSize();
+    stats.incObjects(1);
+    stats.incUsedMemory(resultSize);
+    stats.incFreeMemory(-resultSize);
+    notifyListeners();
+    if (ReferenceCountHelper.trackReferenceCounts()) {
+      ReferenceCountHelper.refCountChanged(result.getAddress(), false, 1);
+    }
+    result.setSerialized(original.isSerialized());
+    result.setCompressed(original.isCompressed());
+    AddressableMemoryManager.copyMemory(original.getBaseDataAddress(), result.getBaseDataAddress(), dataSize);
+    return result;
+  }
+
   @Override
   public StoredObject allocate(int size) {
     //System.out.println("allocating " + size);
@@ -356,6 +405,9 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   private void realClose() {
     // Removing this memory immediately can lead to a SEGV. See 47885.
     if (setClosed()) {
+      if (this.defragmenter != null) {
+        this.defragmenter.stop();
+      }
       this.freeList.freeSlabs();
       this.stats.close();
       singleton = null;
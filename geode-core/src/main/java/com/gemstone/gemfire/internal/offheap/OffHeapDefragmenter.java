@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.CancelException;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.OffHeapRegionEntry;
+import com.gemstone.gemfire.internal.cache.RegionEntry;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Defragments off-heap memory in the background so that allocations seldom
+ * find the free lists empty and have to wait for
+ * {@link FreeListManager#defragment(int)}.
+ * <p>
+ * Every interval it checks how much of the free memory is held in free lists
+ * instead of fragments. If that exceeds the threshold it
+ * <ol>
+ * <li>moves the values of off-heap region entries into free chunks at lower
+ * addresses, which leaves the free memory at the end of the slabs where
+ * it can be combined, and then</li>
+ * <li>defragments, combining the free lists into fragments.</li>
+ * </ol>
+ * Values are relocated one entry at a time while synchronized on the entry,
+ * see {@link OffHeapRegionEntryHelper#relocateValue}. Each pass examines at
+ * most {@link #MAX_ENTRIES} entries and the next pass resumes with the entry
+ * after the last one examined, so every entry is eventually examined no
+ * matter how many entries there are.
+ * <p>
+ * Disabled unless gemfire.OFF_HEAP_DEFRAGMENT_INTERVAL is set.
+ */
+class OffHeapDefragmenter implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Milliseconds between checks. Zero, the default, disables the defragmenter.
+   */
+  static final long INTERVAL = Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENT_INTERVAL", 0);
+  /**
+   * Percentage of free memory held in free lists that triggers a defragmentation.
+   */
+  static final int THRESHOLD = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENT_THRESHOLD", 50);
+  /**
+   * Maximum number of region entries examined for relocation by each pass.
+   */
+  static final int MAX_ENTRIES = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENT_MAX_ENTRIES", 100000);
+
+  private final MemoryAllocatorImpl ma;
+  private final long interval;
+  private final int maxEntries;
+  private final Thread thread;
+  private volatile boolean stopped;
+  /**
+   * The region the last pass stopped in and the entries of it that were not
+   * examined yet. Only used by the thread running the passes.
+   */
+  private LocalRegion resumeRegion;
+  private Iterator<RegionEntry> resumeEntries;
+
+  OffHeapDefragmenter(MemoryAllocatorImpl ma, long interval) {
+    this(ma, interval, MAX_ENTRIES);
+  }
+
+  OffHeapDefragmenter(MemoryAllocatorImpl ma, long interval, int maxEntries) {
+    this.ma = ma;
+    this.interval = interval;
+    this.maxEntries = maxEntries;
+    this.thread = new Thread(LoggingThreadGroup.createThreadGroup("OffHeap Defragmenter Thread Group", logger), this, "OffHeapDefragmenter");
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    this.thread.start();
+  }
+
+  /**
+   * Stops the defragmenter and waits for it to finish
+   * so that the caller can free the slabs.
+   */
+  void stop() {
+    this.stopped = true;
+    this.thread.interrupt();
+    boolean interrupted = false;
+    try {
+      while (this.thread.isAlive()) {
+        try {
+          this.thread.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!this.stopped) {
+      try {
+        Thread.sleep(this.interval);
+      } catch (InterruptedException e) {
+        // stop was called
+        return;
+      }
+      try {
+        defragmentIfNeeded();
+      } catch (CancelException e) {
+        // the cache is closing; the next pass will find it gone
+      } catch (RuntimeException e) {
+        if (this.stopped) {
+          return;
+        }
+        logger.warn("Off-heap defragmentation failed", e);
+      }
+    }
+  }
+
+  /**
+   * Returns true if a defragmentation was done.
+   */
+  boolean defragmentIfNeeded() {
+    FreeListManager freeList = this.ma.getFreeListManager();
+    long freeMemory = freeList.getFreeMemory();
+    if (freeMemory <= 0) {
+      return false;
+    }
+    long freeListMemory = freeMemory - freeList.getFreeFragmentMemory();
+    if (freeListMemory * 100 < freeMemory * THRESHOLD) {
+      return false;
+    }
+    int relocated = relocateValues();
+    if (relocated > 0) {
+      this.ma.getStats().incRelocations(relocated);
+    }
+    freeList.defragment(0);
+    if (logger.isDebugEnabled()) {
+      logger.debug("Background off-heap defragmentation relocated {} values. freeMemory={} freeListMemory={} fragments={}",
+          relocated, freeMemory, freeListMemory, freeList.getFragmentCount());
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of values relocated. Resumes where the previous
+   * call stopped and visits each region at most once.
+   */
+  int relocateValues() {
+    List<LocalRegion> regions = this.ma.getOffHeapRegions();
+    int regionIdx = this.resumeRegion == null ? -1 : regions.indexOf(this.resumeRegion);
+    Iterator<RegionEntry> entries = this.resumeEntries;
+    this.resumeRegion = null;
+    this.resumeEntries = null;
+    if (regionIdx == -1) {
+      // first pass, the region was destroyed or every region was visited
+      regionIdx = 0;
+      entries = null;
+    }
+    int examined = 0;
+    int relocated = 0;
+    for (int visited = 0; visited < regions.size(); visited++) {
+      LocalRegion r = regions.get(regionIdx);
+      if (entries == null) {
+        entries = r.getRegionMap().regionEntries().iterator();
+      }
+      while (entries.hasNext()) {
+        if (this.stopped) {
+          return relocated;
+        }
+        if (examined >= this.maxEntries) {
+          this.resumeRegion = r;
+          this.resumeEntries = entries;
+          return relocated;
+        }
+        RegionEntry re = entries.next();
+        examined++;
+        if (re instanceof OffHeapRegionEntry && relocateValue((OffHeapRegionEntry) re)) {
+          relocated++;
+        }
+      }
+      entries = null;
+      regionIdx = (regionIdx + 1) % regions.size();
+    }
+    return relocated;
+  }
+
+  /**
+   * Returns true if the value of the given entry was relocated.
+   */
+  boolean relocateValue(OffHeapRegionEntry re) {
+    return OffHeapRegionEntryHelper.relocateValue(re, this.ma);
+  }
+}
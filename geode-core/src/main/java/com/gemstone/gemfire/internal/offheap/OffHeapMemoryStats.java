@@ -35,6 +35,10 @@ public interface OffHeapMemoryStats {
   public long startDefragmentation();
   public void endDefragmentation(long start);
   public void setFragmentation(int value);
+  public void incThreadCacheHits(int value);
+  public void incThreadCacheMisses(int value);
+  public void incThreadCacheMemory(long value);
+  public void incRelocations(int value);
   
   public long getFreeMemory();
   public long getMaxMemory();
@@ -46,6 +50,10 @@ public interface OffHeapMemoryStats {
   public int getLargestFragment();
   public int getFragmentation();
   public long getDefragmentationTime();
+  public long getThreadCacheHits();
+  public long getThreadCacheMisses();
+  public long getThreadCacheMemory();
+  public long getRelocations();
   
   public Statistics getStats();
   public void close();
@@ -16,11 +16,15 @@
  */
 package com.gemstone.gemfire.internal.offheap;
 
+import com.gemstone.gemfire.OutOfOffHeapMemoryException;
+import com.gemstone.gemfire.SerializationException;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.internal.DSCODE;
 import com.gemstone.gemfire.internal.cache.CachedDeserializableFactory;
 import com.gemstone.gemfire.internal.cache.DiskEntry;
 import com.gemstone.gemfire.internal.cache.DiskId;
 import com.gemstone.gemfire.internal.cache.EntryEventImpl;
+import com.gemstone.gemfire.internal.cache.OffHeapKeyRegionEntry;
 import com.gemstone.gemfire.internal.cache.OffHeapRegionEntry;
 import com.gemstone.gemfire.internal.cache.RegionEntryContext;
 import com.gemstone.gemfire.internal.cache.Token;
@@ -48,6 +52,12 @@ public class OffHeapRegionEntryHelper {
   protected static final long NOT_AVAILABLE_ADDRESS = 7L<<1;
   protected static final long TOMBSTONE_ADDRESS = 8L<<1;
   public static final int MAX_LENGTH_FOR_DATA_AS_ADDRESS = 8;
+
+  /**
+   * If true, off-heap region entries store String keys that can not be
+   * inlined serialized in off-heap memory, see {@link OffHeapKeyRegionEntry}.
+   */
+  public static final boolean OFF_HEAP_REGION_KEYS = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_REGION_KEYS");
   
   private static final Token[] addrToObj = new Token[]{
     null,
@@ -187,6 +197,7 @@ public class OffHeapRegionEntryHelper {
     final long newAddress = objectToAddress(Token.REMOVED_PHASE2);
     if (re.setAddress(oldAddress, newAddress) || re.getAddress() != newAddress) {
       releaseAddress(oldAddress);
+      releaseKey(re);
     } /*else {
       if (!calledSetValue || re.getAddress() != newAddress) {
         expectedValue.release();
@@ -336,6 +347,273 @@ public class OffHeapRegionEntryHelper {
     ReferenceCountHelper.setReferenceCountOwner(re);
     releaseAddress(oldAddress);
     ReferenceCountHelper.setReferenceCountOwner(null);
+    if (newAddress == REMOVED_PHASE2_ADDRESS) {
+      releaseKey(re);
+    }
+  }
+
+  /**
+   * Moves the off-heap value of 're' to a free chunk at a lower address,
+   * if the allocator has one, so that the memory it occupied can be combined
+   * with its free neighbors. Readers that retained the old value keep
+   * using it until they release it.
+   * 
+   * @return true if the value was moved
+   */
+  static boolean relocateValue(@Unretained OffHeapRegionEntry re, MemoryAllocatorImpl ma) {
+    // sync like all other modifications of the entry's value
+    synchronized (re) {
+      final long oldAddress = re.getAddress();
+      if (!isOffHeap(oldAddress) || !OffHeapStoredObject.retain(oldAddress)) {
+        return false;
+      }
+      try {
+        if (re.getAddress() != oldAddress) {
+          // released by a concurrent clear
+          return false;
+        }
+        OffHeapStoredObject newValue = ma.allocateRelocationCopy(oldAddress);
+        if (newValue == null) {
+          return false;
+        }
+        if (re.setAddress(oldAddress, newValue.getAddress())) {
+          // the reference the entry held on its old value
+          releaseAddress(oldAddress);
+          return true;
+        }
+        newValue.release();
+        return false;
+      } finally {
+        OffHeapStoredObject.release(oldAddress);
+      }
+    }
+  }
+
+  /**
+   * Serializes the given key into off-heap memory.
+   * 
+   * @return OFF_HEAP_ADDRESS of the serialized key or 0 if the key can not be serialized
+   */
+  @Retained
+  public static long keyToAddress(Object key) {
+    byte[] bytes;
+    try {
+      bytes = EntryEventImpl.serialize(key);
+    } catch (SerializationException e) {
+      return NULL_ADDRESS;
+    }
+    return MemoryAllocatorImpl.getAllocator().allocateAndInitialize(bytes, true, false).getAddress();
+  }
+
+  /**
+   * Called once 're' has been added to its region map. Moves its key from
+   * the heap into off-heap memory. Keys are only moved once their entry is
+   * in the map so that an entry that loses a race to be added holds no
+   * off-heap memory. If the key can not be serialized or there is no
+   * off-heap memory left for it, it stays on the heap so that the entry
+   * already in the map keeps a valid key.
+   */
+  public static void storeKeyOffHeap(@Unretained OffHeapKeyRegionEntry re) {
+    synchronized (re) {
+      Object key = re.getHeapKey();
+      if (key == null || re.getKeyAddress() != NULL_ADDRESS || re.getAddress() == REMOVED_PHASE2_ADDRESS) {
+        return;
+      }
+      long addr;
+      try {
+        addr = keyToAddress(key);
+      } catch (OutOfOffHeapMemoryException e) {
+        // the out of memory listener has been told; the value of this
+        // entry will fail to be stored the same way
+        return;
+      }
+      if (addr == NULL_ADDRESS) {
+        return;
+      }
+      // readers that find no address and no heap key read the address again
+      re.setKeyAddress(NULL_ADDRESS, addr);
+      re.setHeapKey(null);
+    }
+  }
+
+  /**
+   * Returns a heap copy of the key of 're'. The off-heap form of the key
+   * may be stored or released concurrently, in which case the heap form
+   * kept by 're' is returned.
+   * <p>
+   * A key stored off-heap is deserialized into a new String on every call;
+   * it is not cached since that would keep the key on the heap again. Key
+   * comparisons should use {@link #isKeyEqual} instead.
+   */
+  public static Object getKey(@Unretained OffHeapKeyRegionEntry re) {
+    int retryCount = 0;
+    for (;;) {
+      long addr = re.getKeyAddress();
+      if (addr == NULL_ADDRESS) {
+        Object key = re.getHeapKey();
+        if (key != null) {
+          return key;
+        }
+        // the key was just stored off-heap
+      } else if (!isOffHeap(addr)) {
+        return decodeAddressToObject(addr);
+      } else if (OffHeapStoredObject.retain(addr)) {
+        try {
+          if (addr == re.getKeyAddress()) {
+            return new OffHeapStoredObject(addr).getValueAsDeserializedHeapObject();
+          }
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+      // the key was moved, spin around and try again
+      retryCount++;
+      if (retryCount > 100) {
+        throw new IllegalStateException("retain of key failed addr=" + addr + " 100 times" + " history=" + ReferenceCountHelper.getFreeRefCountInfo(addr));
+      }
+    }
+  }
+
+  /**
+   * Returns true if the key of 're' equals 'k'. An off-heap key is compared
+   * with 'k' in its serialized form so that lookups do not create a heap copy of it.
+   */
+  public static boolean isKeyEqual(@Unretained OffHeapKeyRegionEntry re, Object k) {
+    if (!(k instanceof String)) {
+      // only String keys are stored off-heap
+      return k.equals(getKey(re));
+    }
+    int retryCount = 0;
+    for (;;) {
+      long addr = re.getKeyAddress();
+      if (addr == NULL_ADDRESS) {
+        Object key = re.getHeapKey();
+        if (key != null) {
+          return k.equals(key);
+        }
+        // the key was just stored off-heap
+      } else if (!isOffHeap(addr)) {
+        return k.equals(decodeAddressToObject(addr));
+      } else if (OffHeapStoredObject.retain(addr)) {
+        try {
+          if (addr == re.getKeyAddress()) {
+            return isSerializedStringEqual(new OffHeapStoredObject(addr), (String) k);
+          }
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+      // the key was moved, spin around and try again
+      retryCount++;
+      if (retryCount > 100) {
+        throw new IllegalStateException("retain of key failed addr=" + addr + " 100 times" + " history=" + ReferenceCountHelper.getFreeRefCountInfo(addr));
+      }
+    }
+  }
+
+  /**
+   * Compares a String serialized by {@link com.gemstone.gemfire.DataSerializer#writeString}
+   * with 's' without deserializing it.
+   */
+  static boolean isSerializedStringEqual(@Unretained OffHeapStoredObject so, String s) {
+    final int size = so.getDataSize();
+    final int len = s.length();
+    if (size < 3) {
+      return false;
+    }
+    switch (so.readDataByte(0)) {
+    case DSCODE.STRING_BYTES:
+      if (size != 3 + len || readUnsignedShort(so, 1) != len) {
+        return false;
+      }
+      for (int i = 0; i < len; i++) {
+        if ((so.readDataByte(3 + i) & 0xFF) != s.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    case DSCODE.HUGE_STRING_BYTES:
+      if (size != 5 + len || readInt(so, 1) != len) {
+        return false;
+      }
+      for (int i = 0; i < len; i++) {
+        if ((so.readDataByte(5 + i) & 0xFF) != s.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    case DSCODE.HUGE_STRING:
+      if (size != 5 + 2 * len || readInt(so, 1) != len) {
+        return false;
+      }
+      for (int i = 0; i < len; i++) {
+        if (readUnsignedShort(so, 5 + 2 * i) != s.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    case DSCODE.STRING: {
+      // modified UTF-8 as written by DataOutput.writeUTF
+      final int end = 3 + readUnsignedShort(so, 1);
+      if (size != end) {
+        return false;
+      }
+      int pos = 3;
+      int i = 0;
+      while (pos < end) {
+        int c = so.readDataByte(pos) & 0xFF;
+        char ch;
+        if (c < 0x80) {
+          ch = (char) c;
+          pos++;
+        } else if ((c & 0xE0) == 0xC0 && pos + 1 < end) {
+          ch = (char) (((c & 0x1F) << 6) | (so.readDataByte(pos + 1) & 0x3F));
+          pos += 2;
+        } else if ((c & 0xF0) == 0xE0 && pos + 2 < end) {
+          ch = (char) (((c & 0x0F) << 12) | ((so.readDataByte(pos + 1) & 0x3F) << 6) | (so.readDataByte(pos + 2) & 0x3F));
+          pos += 3;
+        } else {
+          return false;
+        }
+        if (i >= len || s.charAt(i++) != ch) {
+          return false;
+        }
+      }
+      return i == len;
+    }
+    default:
+      return false;
+    }
+  }
+
+  private static int readUnsignedShort(OffHeapStoredObject so, int offset) {
+    return ((so.readDataByte(offset) & 0xFF) << 8) | (so.readDataByte(offset + 1) & 0xFF);
+  }
+
+  private static int readInt(OffHeapStoredObject so, int offset) {
+    return (readUnsignedShort(so, offset) << 16) | readUnsignedShort(so, offset + 2);
+  }
+
+  /**
+   * Called once 're' has been removed. Moves its key back to the heap, where
+   * it stays available to anyone still holding 're', and releases the off-heap form.
+   */
+  private static void releaseKey(@Unretained OffHeapRegionEntry re) {
+    if (!(re instanceof OffHeapKeyRegionEntry)) {
+      return;
+    }
+    OffHeapKeyRegionEntry kre = (OffHeapKeyRegionEntry) re;
+    synchronized (kre) {
+      long addr = kre.getKeyAddress();
+      if (addr == NULL_ADDRESS) {
+        return;
+      }
+      // readers that find no address must find the heap key
+      kre.setHeapKey(getKey(kre));
+      if (kre.setKeyAddress(addr, NULL_ADDRESS)) {
+        releaseAddress(addr);
+      }
+    }
   }
  
   public static Token getValueAsToken(@Unretained OffHeapRegionEntry re) {
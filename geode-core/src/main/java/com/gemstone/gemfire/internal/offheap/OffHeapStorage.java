@@ -56,6 +56,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private static final int largestFragmentId;
   private static final int defragmentationTimeId;
   private static final int fragmentationId;
+  private static final int threadCacheHitsId;
+  private static final int threadCacheMissesId;
+  private static final int threadCacheMemoryId;
+  private static final int relocationsId;
   // NOTE!!!! When adding new stats make sure and update the initialize method on this class
   
   // creates and registers the statistics type
@@ -72,6 +76,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objectsDesc = "The number of objects stored in off-heap memory.";
     final String readsDesc = "The total number of reads of off-heap memory. Only reads of a full object increment this statistic. If only a part of the object is read this statistic is not incremented.";
     final String maxMemoryDesc = "The maximum amount of off-heap memory, in bytes. This is the amount of memory allocated at startup and does not change.";
+    final String threadCacheHitsDesc = "The total number of off-heap allocations satisfied by a thread's own free list cache without touching the shared free lists.";
+    final String threadCacheMissesDesc = "The total number of off-heap allocations that found a thread's own free list cache empty and had to go to the shared free lists.";
+    final String threadCacheMemoryDesc = "The amount of free off-heap memory, in bytes, held in per thread free list caches.";
+    final String relocationsDesc = "The total number of off-heap values moved to lower addresses by the background defragmenter.";
 
     final String usedMemory = "usedMemory";
     final String defragmentations = "defragmentations";
@@ -83,6 +91,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objects = "objects";
     final String reads = "reads";
     final String maxMemory = "maxMemory";
+    final String threadCacheHits = "threadCacheHits";
+    final String threadCacheMisses = "threadCacheMisses";
+    final String threadCacheMemory = "threadCacheMemory";
+    final String relocations = "relocations";
     
     statsType = f.createType(
         statsTypeName,
@@ -98,6 +110,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
             f.createIntGauge(objects, objectsDesc, "objects"),
             f.createLongCounter(reads, readsDesc, "operations"),
             f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),
+            f.createLongCounter(threadCacheHits, threadCacheHitsDesc, "operations"),
+            f.createLongCounter(threadCacheMisses, threadCacheMissesDesc, "operations"),
+            f.createLongGauge(threadCacheMemory, threadCacheMemoryDesc, "bytes"),
+            f.createLongCounter(relocations, relocationsDesc, "operations"),
         }
     );
     
@@ -111,6 +127,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     objectsId = statsType.nameToId(objects);
     readsId = statsType.nameToId(reads);
     maxMemoryId = statsType.nameToId(maxMemory);
+    threadCacheHitsId = statsType.nameToId(threadCacheHits);
+    threadCacheMissesId = statsType.nameToId(threadCacheMisses);
+    threadCacheMemoryId = statsType.nameToId(threadCacheMemory);
+    relocationsId = statsType.nameToId(relocations);
   }
 
   public static long parseOffHeapMemorySize(String value) {
@@ -332,6 +352,46 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   public int getFragmentation() {
     return this.stats.getInt(fragmentationId);
   }
+
+  @Override
+  public void incThreadCacheHits(int value) {
+    this.stats.incLong(threadCacheHitsId, value);
+  }
+
+  @Override
+  public long getThreadCacheHits() {
+    return this.stats.getLong(threadCacheHitsId);
+  }
+
+  @Override
+  public void incThreadCacheMisses(int value) {
+    this.stats.incLong(threadCacheMissesId, value);
+  }
+
+  @Override
+  public long getThreadCacheMisses() {
+    return this.stats.getLong(threadCacheMissesId);
+  }
+
+  @Override
+  public void incThreadCacheMemory(long value) {
+    this.stats.incLong(threadCacheMemoryId, value);
+  }
+
+  @Override
+  public long getThreadCacheMemory() {
+    return this.stats.getLong(threadCacheMemoryId);
+  }
+
+  @Override
+  public void incRelocations(int value) {
+    this.stats.incLong(relocationsId, value);
+  }
+
+  @Override
+  public long getRelocations() {
+    return this.stats.getLong(relocationsId);
+  }
   
   public Statistics getStats() {
     return this.stats;
@@ -354,6 +414,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     setLargestFragment(oldStats.getLargestFragment());
     setDefragmentationTime(oldStats.getDefragmentationTime());
     setFragmentation(oldStats.getFragmentation());
+    this.stats.setLong(threadCacheHitsId, oldStats.getThreadCacheHits());
+    this.stats.setLong(threadCacheMissesId, oldStats.getThreadCacheMisses());
+    this.stats.setLong(threadCacheMemoryId, oldStats.getThreadCacheMemory());
+    this.stats.setLong(relocationsId, oldStats.getRelocations());
     
     oldStats.close();
   }
@@ -48,6 +48,40 @@ public class OffHeapStoredObjectAddressStack implements LongStack {
       this.topAddr = e;
     }
   }
+  /**
+   * Pushes count addresses, starting at offset in the given array,
+   * while holding the lock only once.
+   */
+  public void offer(long[] addrs, int offset, int count) {
+    for (int i=offset; i < offset+count; i++) {
+      assert addrs[i] != 0;
+      MemoryAllocatorImpl.validateAddress(addrs[i]);
+    }
+    synchronized (this) {
+      long top = this.topAddr;
+      for (int i=offset; i < offset+count; i++) {
+        OffHeapStoredObject.setNext(addrs[i], top);
+        top = addrs[i];
+      }
+      this.topAddr = top;
+    }
+  }
+  /**
+   * Pops up to max addresses into dest while holding the lock only once.
+   * @return the number of addresses stored in dest
+   */
+  public int poll(long[] dest, int max) {
+    int result = 0;
+    synchronized (this) {
+      long addr = this.topAddr;
+      while (addr != 0L && result < max) {
+        dest[result++] = addr;
+        addr = OffHeapStoredObject.getNext(addr);
+      }
+      this.topAddr = addr;
+    }
+    return result;
+  }
   @Override
   public long poll() {
     long result;
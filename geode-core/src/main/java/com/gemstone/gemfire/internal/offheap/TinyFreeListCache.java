@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+/**
+ * A cache of freed tiny chunks owned by a single thread. The FreeListManager
+ * gives each allocating thread one of these so that most allocations and frees
+ * of small objects do not touch the shared tiny free lists.
+ * <p>
+ * Each size class holds at most <code>capacity</code> addresses and the whole
+ * cache at most <code>maxMemory</code> bytes. When a size class is empty it is
+ * refilled with half its capacity from the shared free list, and when it is
+ * full half of it is returned to the shared free list, each time with a single
+ * lock acquisition on the shared list.
+ * <p>
+ * Only the owning thread allocates from and frees to its cache, but
+ * defragmentation and memory inspection drain the caches of all threads,
+ * so the methods are synchronized. The lock is uncontended unless a drain
+ * is in progress.
+ */
+class TinyFreeListCache {
+  private final FreeListManager freeListManager;
+  private final Thread owner;
+  private final int capacity;
+  private final int maxMemory;
+  /**
+   * The cached addresses of each size class, used as a stack.
+   * Arrays are created on first use.
+   */
+  private final long[][] addresses;
+  private final int[] counts;
+  private int cachedMemory;
+
+  // Stat changes not yet published to OffHeapMemoryStats.
+  // They are published in batches to keep the shared stats off the fast path.
+  private static final int MAX_UNPUBLISHED_HITS = 1024;
+  private int unpublishedHits;
+  private int unpublishedMisses;
+  private int publishedMemory;
+
+  TinyFreeListCache(FreeListManager freeListManager, Thread owner, int sizeClassCount, int capacity, int maxMemory) {
+    this.freeListManager = freeListManager;
+    this.owner = owner;
+    this.capacity = capacity;
+    this.maxMemory = maxMemory;
+    this.addresses = new long[sizeClassCount][];
+    this.counts = new int[sizeClassCount];
+  }
+
+  /**
+   * Returns the address of a free chunk of size class idx
+   * or 0 if neither this cache nor the shared free list has one.
+   */
+  synchronized long allocate(int idx) {
+    int count = this.counts[idx];
+    if (count > 0) {
+      if (++this.unpublishedHits == MAX_UNPUBLISHED_HITS) {
+        publishStats();
+      }
+    } else {
+      this.unpublishedMisses++;
+      count = refill(idx);
+      publishStats();
+      if (count == 0) {
+        return 0L;
+      }
+    }
+    count--;
+    long addr = this.addresses[idx][count];
+    this.counts[idx] = count;
+    this.cachedMemory -= OffHeapStoredObject.getSize(addr);
+    return addr;
+  }
+
+  /**
+   * Caches the free chunk at addr.
+   * @return false if this cache has no room for it, in which case the caller
+   * must add it to the shared free list.
+   */
+  synchronized boolean free(int idx, long addr, int size) {
+    if (this.cachedMemory + size > this.maxMemory) {
+      return false;
+    }
+    long[] cached = this.addresses[idx];
+    if (cached == null) {
+      cached = new long[this.capacity];
+      this.addresses[idx] = cached;
+    }
+    int count = this.counts[idx];
+    if (count == this.capacity) {
+      int flushCount = this.capacity - this.capacity / 2;
+      count = flush(idx, flushCount);
+      publishStats();
+    }
+    cached[count] = addr;
+    this.counts[idx] = count+1;
+    this.cachedMemory += size;
+    return true;
+  }
+
+  /**
+   * Returns everything in this cache to the shared free lists.
+   */
+  synchronized void drain() {
+    for (int idx=0; idx < this.counts.length; idx++) {
+      if (this.counts[idx] > 0) {
+        flush(idx, this.counts[idx]);
+      }
+    }
+    publishStats();
+  }
+
+  /**
+   * Returns false once the thread that owns this cache has terminated.
+   * Its cache can then be drained and discarded.
+   */
+  boolean isOwnerAlive() {
+    return this.owner.isAlive();
+  }
+
+  /**
+   * Returns the number of bytes of free memory held by this cache.
+   */
+  synchronized int getCachedMemory() {
+    return this.cachedMemory;
+  }
+
+  private int refill(int idx) {
+    long[] cached = this.addresses[idx];
+    if (cached == null) {
+      cached = new long[this.capacity];
+      this.addresses[idx] = cached;
+    }
+    int count = this.freeListManager.pollTinyFreeList(idx, cached, Math.max(1, this.capacity / 2));
+    for (int i=0; i < count; i++) {
+      this.cachedMemory += OffHeapStoredObject.getSize(cached[i]);
+    }
+    this.counts[idx] = count;
+    return count;
+  }
+
+  /**
+   * Moves the flushCount oldest addresses of size class idx to the shared free list.
+   * @return the number of addresses left in the size class
+   */
+  private int flush(int idx, int flushCount) {
+    long[] cached = this.addresses[idx];
+    int count = this.counts[idx];
+    for (int i=0; i < flushCount; i++) {
+      this.cachedMemory -= OffHeapStoredObject.getSize(cached[i]);
+    }
+    this.freeListManager.offerTinyFreeList(idx, cached, 0, flushCount);
+    count -= flushCount;
+    System.arraycopy(cached, flushCount, cached, 0, count);
+    this.counts[idx] = count;
+    return count;
+  }
+
+  private void publishStats() {
+    OffHeapMemoryStats stats = this.freeListManager.getStats();
+    if (this.unpublishedHits != 0) {
+      stats.incThreadCacheHits(this.unpublishedHits);
+      this.unpublishedHits = 0;
+    }
+    if (this.unpublishedMisses != 0) {
+      stats.incThreadCacheMisses(this.unpublishedMisses);
+      this.unpublishedMisses = 0;
+    }
+    if (this.cachedMemory != this.publishedMemory) {
+      stats.incThreadCacheMemory(this.cachedMemory - this.publishedMemory);
+      this.publishedMemory = this.cachedMemory;
+    }
+  }
+}
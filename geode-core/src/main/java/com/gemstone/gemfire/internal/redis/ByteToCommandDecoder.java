@@ -25,7 +25,9 @@ import java.util.List;
 
 /**
  * This is the first part of the channel pipeline for Netty. Here incoming
- * bytes are read and a created {@link Command} is sent down the pipeline.
+ * bytes are read and every {@link Command} that could be fully parsed from a
+ * single read is sent down the pipeline together as one {@link List}, so that
+ * pipelining clients have their commands executed and answered as a batch.
  * It is unfortunate that this class is not {@link io.netty.channel.ChannelHandler.Sharable} because no state
  * is kept in this class. State is kept by {@link ByteToMessageDecoder}, it may
  * be worthwhile to look at a different decoder setup as to avoid allocating a decoder
@@ -61,16 +63,25 @@ public class ByteToCommandDecoder extends ByteToMessageDecoder {
 
   @Override
   protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+    List<Command> batch = null;
     Command c = null;
-    do {
-      in.markReaderIndex();
-      c = parse(in);
-      if (c == null) {
-        in.resetReaderIndex();
-        return;
-      }
-      out.add(c);
-    } while (in.isReadable()); // Try to take advantage of pipelining if it is being used
+    try {
+      do {
+        in.markReaderIndex();
+        c = parse(in);
+        if (c == null) {
+          in.resetReaderIndex();
+          return;
+        }
+        if (batch == null)
+          batch = new ArrayList<Command>();
+        batch.add(c);
+      } while (in.isReadable()); // Try to take advantage of pipelining if it is being used
+    } finally {
+      // Commands parsed ahead of a malformed one are still executed
+      if (batch != null)
+        out.add(batch);
+    }
   }
 
   private Command parse(ByteBuf buffer) throws RedisCommandParserException {
@@ -25,8 +25,17 @@ import io.netty.handler.codec.DecoderException;
 import io.netty.util.concurrent.EventExecutor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.gemstone.gemfire.LogWriter;
@@ -44,9 +53,16 @@ import com.gemstone.gemfire.redis.GemFireRedisServer;
 
 /**
  * This class extends {@link ChannelInboundHandlerAdapter} from Netty and it is
- * the last part of the channel pipeline. The {@link ByteToCommandDecoder} forwards a
- * {@link Command} to this class which executes it and sends the result back to the
- * client. Additionally, all exception handling is done by this class. 
+ * the last part of the channel pipeline. The {@link ByteToCommandDecoder} forwards
+ * every {@link Command} decoded from one read as a batch to this class which executes
+ * them and writes the results back to the client. Responses are only flushed once the
+ * read is complete, so a pipelining client gets all of its replies in as few writes as
+ * possible. Additionally, all exception handling is done by this class. 
+ * <p>
+ * When the server has a pipeline executor (see {@link GemFireRedisServer#PIPELINE_THREADS_SYS_PROP_NAME})
+ * a batch made up only of single key commands is split by key and the keys are executed
+ * in parallel. Commands on the same key still run in the order they were sent and the
+ * responses are always written in the order of the batch.
  * <p>
  * Besides being part of Netty's pipeline, this class also serves as a context to the
  * execution of a command. It abstracts transactions, provides access to the {@link RegionProvider}
@@ -59,6 +75,32 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
   private static final int WAIT_REGION_DSTRYD_MILLIS = 100;
   private static final int MAXIMUM_NUM_RETRIES = (1000*60)/WAIT_REGION_DSTRYD_MILLIS; // 60 seconds total
 
+  /**
+   * Commands that only ever touch the key at the second position of the command,
+   * the only commands that may be executed in parallel with each other
+   */
+  private static final EnumSet<RedisCommandType> SINGLE_KEY_COMMANDS = EnumSet.of(
+      RedisCommandType.APPEND, RedisCommandType.BITCOUNT, RedisCommandType.BITPOS, RedisCommandType.DECR,
+      RedisCommandType.DECRBY, RedisCommandType.GET, RedisCommandType.GETBIT, RedisCommandType.GETRANGE,
+      RedisCommandType.GETSET, RedisCommandType.INCR, RedisCommandType.INCRBY, RedisCommandType.INCRBYFLOAT,
+      RedisCommandType.PSETEX, RedisCommandType.SETEX, RedisCommandType.SET, RedisCommandType.SETBIT,
+      RedisCommandType.SETNX, RedisCommandType.SETRANGE, RedisCommandType.STRLEN,
+      RedisCommandType.HDEL, RedisCommandType.HEXISTS, RedisCommandType.HGET, RedisCommandType.HGETALL,
+      RedisCommandType.HINCRBY, RedisCommandType.HINCRBYFLOAT, RedisCommandType.HKEYS, RedisCommandType.HLEN,
+      RedisCommandType.HMGET, RedisCommandType.HMSET, RedisCommandType.HSET, RedisCommandType.HSETNX,
+      RedisCommandType.HVALS, RedisCommandType.PFADD,
+      RedisCommandType.LINDEX, RedisCommandType.LINSERT, RedisCommandType.LLEN, RedisCommandType.LPOP,
+      RedisCommandType.LPUSH, RedisCommandType.LPUSHX, RedisCommandType.LRANGE, RedisCommandType.LREM,
+      RedisCommandType.LSET, RedisCommandType.LTRIM, RedisCommandType.RPOP, RedisCommandType.RPUSH,
+      RedisCommandType.RPUSHX,
+      RedisCommandType.SADD, RedisCommandType.SCARD, RedisCommandType.SISMEMBER, RedisCommandType.SMEMBERS,
+      RedisCommandType.SPOP, RedisCommandType.SRANDMEMBER, RedisCommandType.SREM,
+      RedisCommandType.ZADD, RedisCommandType.ZCARD, RedisCommandType.ZCOUNT, RedisCommandType.ZINCRBY,
+      RedisCommandType.ZLEXCOUNT, RedisCommandType.ZRANGE, RedisCommandType.ZRANGEBYLEX,
+      RedisCommandType.ZRANGEBYSCORE, RedisCommandType.ZREVRANGE, RedisCommandType.ZRANK, RedisCommandType.ZREM,
+      RedisCommandType.ZREMRANGEBYLEX, RedisCommandType.ZREMRANGEBYRANK, RedisCommandType.ZREMRANGEBYSCORE,
+      RedisCommandType.ZREVRANGEBYSCORE, RedisCommandType.ZREVRANK, RedisCommandType.ZSCORE);
+
   private final Cache cache;
   private final GemFireRedisServer server;
   private final LogWriter logger;
@@ -67,6 +109,12 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
   private final Runnable flusher;
   private final EventExecutor lastExecutor;
   private final ByteBufAllocator byteBufAllocator;
+  private final ExecutorService pipelineExecutor;
+  /**
+   * True while a read is being processed, writes made in the mean time are
+   * flushed together by {@link #channelReadComplete(ChannelHandlerContext)}
+   */
+  private boolean reading;
   /**
    * TransactionId for any transactions started by this client
    */
@@ -108,6 +156,8 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
     };
     this.lastExecutor = channel.pipeline().lastContext().executor();
     this.byteBufAllocator = channel.alloc();
+    this.pipelineExecutor = server.getPipelineExecutor();
+    this.reading = false;
     this.transactionID = null;
     this.transactionQueue = null; // Lazy
     this.regionProvider = regionProvider;
@@ -123,18 +173,129 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
 
   private void writeToChannel(ByteBuf message) {
     channel.write(message, channel.voidPromise());
-    if (!needChannelFlush.getAndSet(true)) {
+    if (!needChannelFlush.getAndSet(true) && !this.reading) {
       this.lastExecutor.execute(flusher);
     }
   }
 
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    this.reading = true;
+    if (msg instanceof Command) {
+      executeCommand(ctx, (Command) msg);
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    List<Command> batch = (List<Command>) msg;
+    executeBatch(ctx, batch);
+  }
+
   /**
-   * This will handle the execution of received commands
+   * All responses to the commands of this read have been written,
+   * send them in one flush
    */
   @Override
-  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-    Command command = (Command) msg;
-    executeCommand(ctx, command);
+  public void channelReadComplete(ChannelHandlerContext ctx) {
+    this.reading = false;
+    flushChannel();
+    ctx.fireChannelReadComplete();
+  }
+
+  /**
+   * This will handle the execution of a batch of received commands. A failed command does not
+   * stop the commands after it, its error is sent back in its place in the batch instead.
+   * 
+   * @param ctx Context of the channel
+   * @param batch All commands decoded from one read, in the order they were sent
+   */
+  private void executeBatch(ChannelHandlerContext ctx, List<Command> batch) {
+    if (batch.size() > 1 && canExecuteInParallel(batch)) {
+      executeInParallel(ctx, batch);
+      return;
+    }
+    for (Command command : batch) {
+      if (!this.channel.isActive())
+        return;
+      try {
+        executeCommand(ctx, command);
+      } catch (Exception e) {
+        exceptionCaught(ctx, e);
+      }
+    }
+  }
+
+  /**
+   * A batch may be spread over the pipeline executor if there is one, no transaction is
+   * in play and every command of the batch only operates on its own key.
+   */
+  private boolean canExecuteInParallel(List<Command> batch) {
+    if (this.pipelineExecutor == null || !this.isAuthenticated || hasTransaction())
+      return false;
+    for (Command command : batch) {
+      if (!SINGLE_KEY_COMMANDS.contains(command.getCommandType()) || command.getProcessedCommand().size() < 2)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Executes a batch by grouping the commands by key, each group is run in order on the
+   * pipeline executor. Once all groups are done, responses are written in batch order.
+   */
+  private void executeInParallel(ChannelHandlerContext ctx, List<Command> batch) {
+    Map<ByteArrayWrapper, List<Command>> byKey = new HashMap<ByteArrayWrapper, List<Command>>();
+    for (Command command : batch) {
+      List<Command> group = byKey.get(command.getKey());
+      if (group == null) {
+        group = new ArrayList<Command>();
+        byKey.put(command.getKey(), group);
+      }
+      group.add(command);
+    }
+    if (byKey.size() == 1) {
+      for (Command command : batch) {
+        try {
+          executeCommand(ctx, command);
+        } catch (Exception e) {
+          exceptionCaught(ctx, e);
+        }
+      }
+      return;
+    }
+
+    List<Future<?>> futures = new ArrayList<Future<?>>(byKey.size());
+    for (final List<Command> group : byKey.values()) {
+      futures.add(this.pipelineExecutor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (Command command : group) {
+            try {
+              executeWithoutTransaction(command.getCommandType().getExecutor(), command);
+            } catch (Exception e) {
+              command.setResponse(getExceptionResponse(e));
+            }
+          }
+          return null;
+        }
+      }));
+    }
+    Throwable failure = null;
+    for (Future<?> f : futures) {
+      try {
+        f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      } catch (ExecutionException e) {
+        failure = e.getCause();
+      }
+    }
+    for (Command command : batch) {
+      ByteBuf response = command.getResponse();
+      if (response == null)
+        response = getExceptionResponse(failure);
+      writeToChannel(response);
+    }
   }
 
   /**
@@ -146,11 +307,11 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
       channelInactive(ctx);
       return;
     }
-    ByteBuf response = getExceptionResponse(ctx, cause);
+    ByteBuf response = getExceptionResponse(cause);
     writeToChannel(response);
   }
 
-  private ByteBuf getExceptionResponse(ChannelHandlerContext ctx, Throwable cause) {
+  private ByteBuf getExceptionResponse(Throwable cause) {
     ByteBuf response; 
     if (cause instanceof RedisDataTypeMismatchException)
       response = Coder.getWrongTypeResponse(this.byteBufAllocator, cause.getMessage());
@@ -165,7 +326,7 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
       response = Coder.getErrorResponse(this.byteBufAllocator, cause.getMessage());
     } else {
       if (this.logger.errorEnabled())
-        this.logger.error("GemFireRedisServer-Unexpected error handler for " + ctx.channel(), cause);
+        this.logger.error("GemFireRedisServer-Unexpected error handler for " + this.channel, cause);
       response = Coder.getErrorResponse(this.byteBufAllocator, RedisConstants.SERVER_ERROR_MESSAGE);
     }
     return response;
@@ -202,6 +363,7 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
       exec.executeCommand(command, this);
       ByteBuf response = command.getResponse();
       writeToChannel(response);
+      flushChannel();
       channelInactive(ctx);
     } else if (type == RedisCommandType.AUTH) {
       exec.executeCommand(command, this);
@@ -247,7 +409,7 @@ public class ExecutionHandlerContext extends ChannelInboundHandlerAdapter {
     } catch (TransactionException e) {
       command.setResponse(Coder.getErrorResponse(this.byteBufAllocator, RedisConstants.ERROR_TRANSACTION_EXCEPTION));
     } catch (Exception e) {
-      ByteBuf response = getExceptionResponse(ctx, e);
+      ByteBuf response = getExceptionResponse(e);
       command.setResponse(response);
     }
     getTransactionQueue().add(command);
@@ -0,0 +1,528 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.gemstone.gemfire.DataSerializable;
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.Delta;
+import com.gemstone.gemfire.InvalidDeltaException;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+
+/**
+ * The value of a {@link RedisDataType#REDIS_LIST} key. All elements of one
+ * list are kept in a single entry of the lists {@link com.gemstone.gemfire.cache.Region}
+ * instead of a Region per key with an entry per element.
+ * <p>
+ * Elements are stored as byte arrays in fixed size chunks that are referenced
+ * from a chunk directory, so pushes and pops at either end are O(1), lookups
+ * by index are O(1) and a range is a slice. Growing the list only copies chunk
+ * references, never the elements.
+ * <p>
+ * Changes are propagated with {@link Delta}. Every operation is recorded in
+ * order and replayed by the receiver, so a push or pop of an existing list only
+ * sends the pushed element or the direction of the pop. If more operations are
+ * pending than the list has elements the log is dropped and the whole list is
+ * sent instead.
+ * <p>
+ * All methods are synchronized so a list can be read by one thread while a
+ * delta is applied to it by another.
+ *
+ */
+public class RedisList implements DataSerializable, Delta {
+
+  private static final long serialVersionUID = 4907155467231632961L;
+
+  private static final int CHUNK_SHIFT = 6;
+
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final int MIN_CHUNKS = 4;
+
+  /**
+   * Number of pending operations on top of the list size after which the
+   * whole list is sent as the delta
+   */
+  private static final int MAX_EXTRA_DELTA_OPS = 64;
+
+  private static final byte OP_PUSH_LEFT = 0;
+  private static final byte OP_PUSH_RIGHT = 1;
+  private static final byte OP_POP_LEFT = 2;
+  private static final byte OP_POP_RIGHT = 3;
+  private static final byte OP_SET = 4;
+  private static final byte OP_TRIM = 5;
+  private static final byte OP_REMOVE = 6;
+  private static final byte OP_REPLACE = 7;
+
+  private byte[][][] chunks;
+
+  /**
+   * Position of the first element, chunk index in the high bits and the
+   * index within the chunk in the low {@link #CHUNK_SHIFT} bits
+   */
+  private int first;
+
+  private int size;
+
+  /**
+   * Operations since the last call to {@link #toDelta(DataOutput)}
+   */
+  private transient HeapDataOutputStream pendingOps;
+
+  private transient int numPendingOps;
+
+  /**
+   * True if the pending operations were dropped and the whole list has to be
+   * sent as the next delta
+   */
+  private transient boolean pendingReplace;
+
+  /**
+   * True once this list was removed from its region because it became empty
+   */
+  private transient boolean removed;
+
+  public RedisList() {
+    this.chunks = new byte[MIN_CHUNKS][][];
+    this.first = (MIN_CHUNKS / 2) << CHUNK_SHIFT;
+    this.size = 0;
+    this.pendingOps = new HeapDataOutputStream(Version.CURRENT);
+  }
+
+  /**
+   * Copy constructor, the new list has no pending delta
+   * 
+   * @param other List to copy
+   */
+  public RedisList(RedisList other) {
+    this();
+    synchronized (other) {
+      for (int i = 0; i < other.size; i++)
+        append(other.elementAt(i));
+    }
+  }
+
+  public synchronized int size() {
+    return this.size;
+  }
+
+  public synchronized boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Marks this list as removed from its region. Callers must be synchronized
+   * on this list.
+   */
+  public synchronized void markRemoved() {
+    this.removed = true;
+  }
+
+  /**
+   * @return True if this list was removed from its region, in which case it
+   * must neither be changed nor stored again
+   */
+  public synchronized boolean isRemoved() {
+    return this.removed;
+  }
+
+  /**
+   * @param index 0 based index from the head
+   * @return The element at index or null if index is out of range
+   */
+  public synchronized ByteArrayWrapper get(int index) {
+    if (index < 0 || index >= this.size)
+      return null;
+    return new ByteArrayWrapper(elementAt(index));
+  }
+
+  /**
+   * Returns the elements within the given indexes. The indexes must already
+   * be bounded to the size of this list.
+   * 
+   * @param start First index, inclusive
+   * @param stop Last index, inclusive
+   * @return Elements in order
+   */
+  public synchronized List<ByteArrayWrapper> range(int start, int stop) {
+    List<ByteArrayWrapper> range = new ArrayList<ByteArrayWrapper>(Math.max(stop - start + 1, 0));
+    for (int i = Math.max(start, 0); i <= stop && i < this.size; i++)
+      range.add(new ByteArrayWrapper(elementAt(i)));
+    return range;
+  }
+
+  /**
+   * @return All elements in order
+   */
+  public synchronized List<ByteArrayWrapper> elements() {
+    return range(0, this.size - 1);
+  }
+
+  public synchronized void pushLeft(ByteArrayWrapper element) {
+    prepend(element.toBytes());
+    recordOp(OP_PUSH_LEFT, element.toBytes());
+  }
+
+  public synchronized void pushRight(ByteArrayWrapper element) {
+    append(element.toBytes());
+    recordOp(OP_PUSH_RIGHT, element.toBytes());
+  }
+
+  /**
+   * @return The removed head of this list or null if this list is empty
+   */
+  public synchronized ByteArrayWrapper popLeft() {
+    if (this.size == 0)
+      return null;
+    byte[] element = removeFirst();
+    recordOp(OP_POP_LEFT, null);
+    return new ByteArrayWrapper(element);
+  }
+
+  /**
+   * @return The removed tail of this list or null if this list is empty
+   */
+  public synchronized ByteArrayWrapper popRight() {
+    if (this.size == 0)
+      return null;
+    byte[] element = removeLast();
+    recordOp(OP_POP_RIGHT, null);
+    return new ByteArrayWrapper(element);
+  }
+
+  /**
+   * @param index 0 based index from the head
+   * @param element New element
+   * @return False if index is out of range
+   */
+  public synchronized boolean set(int index, ByteArrayWrapper element) {
+    if (!replace(index, element.toBytes()))
+      return false;
+    if (recordOp(OP_SET, element.toBytes()))
+      writeInt(index);
+    return true;
+  }
+
+  /**
+   * Removes all elements outside of the given indexes. The indexes must
+   * already be bounded to the size of this list, if start is greater than stop
+   * all elements are removed.
+   * 
+   * @param start First index to keep
+   * @param stop Last index to keep
+   */
+  public synchronized void trim(int start, int stop) {
+    start = Math.max(start, 0);
+    stop = Math.min(stop, this.size - 1);
+    if (start > stop) {
+      start = this.size;
+      stop = this.size - 1;
+    }
+    int removeLast = this.size - 1 - stop;
+    removeEnds(start, removeLast);
+    if (recordOp(OP_TRIM, null)) {
+      writeInt(start);
+      writeInt(removeLast);
+    }
+  }
+
+  /**
+   * Removes elements equal to the given element, as LREM does
+   * 
+   * @param element Element to remove
+   * @param count Maximum number of elements to remove starting from the head
+   * if positive, starting from the tail if negative or all if 0
+   * @return Number of elements removed
+   */
+  public synchronized int remove(ByteArrayWrapper element, int count) {
+    byte[] bytes = element.toBytes();
+    int numRemoved = removeEqual(bytes, count);
+    if (numRemoved > 0 && recordOp(OP_REMOVE, bytes))
+      writeInt(count);
+    return numRemoved;
+  }
+
+  /*
+   * The following methods change the list without recording the change for
+   * the next delta.
+   */
+
+  /**
+   * @return False if index is out of range
+   */
+  private boolean replace(int index, byte[] element) {
+    if (index < 0 || index >= this.size)
+      return false;
+    setElementAt(index, element);
+    return true;
+  }
+
+  /**
+   * Removes up to the given numbers of elements from the head and the tail
+   */
+  private void removeEnds(int removeFirst, int removeLast) {
+    for (int i = 0; i < removeFirst && this.size > 0; i++)
+      removeFirst();
+    for (int i = 0; i < removeLast && this.size > 0; i++)
+      removeLast();
+  }
+
+  /**
+   * @see #remove(ByteArrayWrapper, int)
+   */
+  private int removeEqual(byte[] bytes, int count) {
+    int max = count == 0 ? this.size : Math.abs(count);
+    boolean[] removed = new boolean[this.size];
+    int numRemoved = 0;
+    for (int n = 0; n < this.size && numRemoved < max; n++) {
+      int i = count < 0 ? this.size - 1 - n : n;
+      if (Arrays.equals(bytes, elementAt(i))) {
+        removed[i] = true;
+        numRemoved++;
+      }
+    }
+    if (numRemoved == 0)
+      return 0;
+    int oldSize = this.size;
+    int kept = 0;
+    for (int i = 0; i < oldSize; i++) {
+      if (!removed[i]) {
+        if (kept != i)
+          setElementAt(kept, elementAt(i));
+        kept++;
+      }
+    }
+    while (this.size > kept)
+      removeLast();
+    return numRemoved;
+  }
+
+  private byte[] elementAt(int index) {
+    int p = this.first + index;
+    return this.chunks[p >>> CHUNK_SHIFT][p & CHUNK_MASK];
+  }
+
+  private void setElementAt(int index, byte[] element) {
+    int p = this.first + index;
+    this.chunks[p >>> CHUNK_SHIFT][p & CHUNK_MASK] = element;
+  }
+
+  private void store(int p, byte[] element) {
+    byte[][] chunk = this.chunks[p >>> CHUNK_SHIFT];
+    if (chunk == null) {
+      chunk = new byte[CHUNK_SIZE][];
+      this.chunks[p >>> CHUNK_SHIFT] = chunk;
+    }
+    chunk[p & CHUNK_MASK] = element;
+  }
+
+  private void prepend(byte[] element) {
+    if (this.first == 0)
+      recenter();
+    this.first--;
+    this.size++;
+    store(this.first, element);
+  }
+
+  private void append(byte[] element) {
+    if (this.first + this.size == this.chunks.length << CHUNK_SHIFT)
+      recenter();
+    store(this.first + this.size, element);
+    this.size++;
+  }
+
+  private byte[] removeFirst() {
+    int p = this.first;
+    byte[][] chunk = this.chunks[p >>> CHUNK_SHIFT];
+    byte[] element = chunk[p & CHUNK_MASK];
+    chunk[p & CHUNK_MASK] = null;
+    this.first++;
+    this.size--;
+    if ((this.first & CHUNK_MASK) == 0 || this.size == 0)
+      this.chunks[p >>> CHUNK_SHIFT] = null;
+    return element;
+  }
+
+  private byte[] removeLast() {
+    int p = this.first + this.size - 1;
+    byte[][] chunk = this.chunks[p >>> CHUNK_SHIFT];
+    byte[] element = chunk[p & CHUNK_MASK];
+    chunk[p & CHUNK_MASK] = null;
+    this.size--;
+    if ((p & CHUNK_MASK) == 0 || this.size == 0)
+      this.chunks[p >>> CHUNK_SHIFT] = null;
+    return element;
+  }
+
+  /**
+   * Moves the chunks in use to the middle of a chunk directory that has as
+   * much free room as chunks in use on each side
+   */
+  private void recenter() {
+    int firstChunk = this.first >>> CHUNK_SHIFT;
+    int usedChunks = this.size == 0 ? 0 : ((this.first + this.size - 1) >>> CHUNK_SHIFT) - firstChunk + 1;
+    int length = Math.max(MIN_CHUNKS, usedChunks * 3 + 2);
+    int newFirstChunk = (length - usedChunks) / 2;
+    byte[][][] newChunks = new byte[length][][];
+    System.arraycopy(this.chunks, firstChunk, newChunks, newFirstChunk, usedChunks);
+    this.chunks = newChunks;
+    this.first = (newFirstChunk << CHUNK_SHIFT) | (this.first & CHUNK_MASK);
+  }
+
+  private void clear() {
+    this.chunks = new byte[MIN_CHUNKS][][];
+    this.first = (MIN_CHUNKS / 2) << CHUNK_SHIFT;
+    this.size = 0;
+  }
+
+  /**
+   * Records an operation for the next delta
+   * 
+   * @return True if the operands of the operation need to be written as well
+   */
+  private boolean recordOp(byte op, byte[] element) {
+    if (this.pendingReplace)
+      return false;
+    if (this.numPendingOps >= this.size + MAX_EXTRA_DELTA_OPS) {
+      this.pendingReplace = true;
+      this.numPendingOps = 0;
+      this.pendingOps.reset();
+      return false;
+    }
+    try {
+      this.pendingOps.writeByte(op);
+      if (element != null)
+        DataSerializer.writeByteArray(element, this.pendingOps);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    this.numPendingOps++;
+    return true;
+  }
+
+  private void writeInt(int i) {
+    this.pendingOps.writeInt(i);
+  }
+
+  private void clearDelta() {
+    this.pendingOps.reset();
+    this.numPendingOps = 0;
+    this.pendingReplace = false;
+  }
+
+  @Override
+  public synchronized void toData(DataOutput out) throws IOException {
+    DataSerializer.writePrimitiveInt(this.size, out);
+    for (int i = 0; i < this.size; i++)
+      DataSerializer.writeByteArray(elementAt(i), out);
+  }
+
+  @Override
+  public synchronized void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    clear();
+    int size = DataSerializer.readPrimitiveInt(in);
+    for (int i = 0; i < size; i++)
+      append(DataSerializer.readByteArray(in));
+    clearDelta();
+  }
+
+  @Override
+  public synchronized boolean hasDelta() {
+    return this.pendingReplace || this.numPendingOps > 0;
+  }
+
+  @Override
+  public synchronized void toDelta(DataOutput out) throws IOException {
+    if (this.pendingReplace) {
+      DataSerializer.writePrimitiveInt(1, out);
+      out.writeByte(OP_REPLACE);
+      toData(out);
+    } else {
+      DataSerializer.writePrimitiveInt(this.numPendingOps, out);
+      out.write(this.pendingOps.toByteArray());
+    }
+    clearDelta();
+  }
+
+  /**
+   * Applies the operations of another member in order. The operations are not
+   * recorded, the delta bytes are forwarded to further copies as they were
+   * received, so this list has no pending delta afterwards.
+   */
+  @Override
+  public synchronized void fromDelta(DataInput in) throws IOException, InvalidDeltaException {
+    clearDelta();
+    int numOps = DataSerializer.readPrimitiveInt(in);
+    for (int i = 0; i < numOps; i++) {
+      byte op = in.readByte();
+      switch (op) {
+      case OP_PUSH_LEFT:
+        prepend(DataSerializer.readByteArray(in));
+        break;
+      case OP_PUSH_RIGHT:
+        append(DataSerializer.readByteArray(in));
+        break;
+      case OP_POP_LEFT:
+        removeEnds(1, 0);
+        break;
+      case OP_POP_RIGHT:
+        removeEnds(0, 1);
+        break;
+      case OP_SET: {
+        byte[] element = DataSerializer.readByteArray(in);
+        replace(in.readInt(), element);
+        break;
+      }
+      case OP_TRIM: {
+        int start = in.readInt();
+        int removeLast = in.readInt();
+        removeEnds(start, removeLast);
+        break;
+      }
+      case OP_REMOVE: {
+        byte[] element = DataSerializer.readByteArray(in);
+        removeEqual(element, in.readInt());
+        break;
+      }
+      case OP_REPLACE:
+        try {
+          fromData(in);
+        } catch (ClassNotFoundException e) {
+          throw new InvalidDeltaException(e);
+        }
+        break;
+      default:
+        throw new InvalidDeltaException("Unknown list operation " + op);
+      }
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder("RedisList");
+    return builder.append(elements()).toString();
+  }
+}
@@ -0,0 +1,725 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.gemstone.gemfire.DataSerializable;
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.Delta;
+import com.gemstone.gemfire.InvalidDeltaException;
+
+/**
+ * The value of a {@link RedisDataType#REDIS_SORTEDSET} key. All members of one
+ * sorted set are kept in a single entry of the sorted sets {@link com.gemstone.gemfire.cache.Region}
+ * instead of a Region per key.
+ * <p>
+ * Members are indexed twice, by a hash map from member to score and by a skip
+ * list ordered by score and then member, where every link also records how
+ * many elements it jumps over. This is the same layout Redis uses and gives
+ * O(log n) inserts, removes, rank lookups and range lookups by score, rank or
+ * member.
+ * <p>
+ * Changes are propagated with {@link Delta}. Every add or remove is recorded
+ * as the new score of the member, or null if it was removed, so only touched
+ * members are sent to other members on a put of an existing sorted set. If
+ * more members are pending than the sorted set has members the log is dropped
+ * and the whole sorted set is sent instead, so the log stays bounded even if
+ * the sorted set is never distributed.
+ * <p>
+ * All methods are synchronized so a sorted set can be read by one thread while
+ * a delta is applied to it by another.
+ *
+ */
+public class RedisSortedSet implements DataSerializable, Delta {
+
+  private static final long serialVersionUID = -2860562591580339347L;
+
+  private static final int MAX_LEVEL = 32;
+
+  private static final float LEVEL_PROBABILITY = 0.25f;
+
+  /**
+   * Number of pending changes on top of the sorted set size after which the
+   * whole sorted set is sent as the delta
+   */
+  private static final int MAX_EXTRA_DELTA_OPS = 64;
+
+  /**
+   * Delta size that announces the whole sorted set instead of its changes
+   */
+  private static final int DELTA_REPLACE = -1;
+
+  private Map<ByteArrayWrapper, Double> scores;
+
+  private Node header;
+
+  private Node tail;
+
+  private int level;
+
+  /**
+   * Members changed since the last call to {@link #toDelta(DataOutput)}, mapped to
+   * their new score or to null if they were removed
+   */
+  private transient Map<ByteArrayWrapper, Double> pendingDelta;
+
+  /**
+   * True if the pending changes were dropped and the whole sorted set has to
+   * be sent as the next delta
+   */
+  private transient boolean pendingReplace;
+
+  /**
+   * True once this sorted set was removed from its region because it became
+   * empty
+   */
+  private transient boolean removed;
+
+  public RedisSortedSet() {
+    this.scores = new HashMap<ByteArrayWrapper, Double>();
+    this.header = new Node(null, 0, MAX_LEVEL);
+    this.level = 1;
+    this.pendingDelta = new LinkedHashMap<ByteArrayWrapper, Double>();
+  }
+
+  /**
+   * Copy constructor, the new sorted set has no pending delta
+   * 
+   * @param other Sorted set to copy
+   */
+  public RedisSortedSet(RedisSortedSet other) {
+    this();
+    synchronized (other) {
+      for (Node x = other.header.forward[0]; x != null; x = x.forward[0])
+        put(x.member, x.score);
+    }
+  }
+
+  public synchronized int size() {
+    return this.scores.size();
+  }
+
+  public synchronized boolean isEmpty() {
+    return this.scores.isEmpty();
+  }
+
+  /**
+   * Marks this sorted set as removed from its region. Callers must be
+   * synchronized on this sorted set.
+   */
+  public synchronized void markRemoved() {
+    this.removed = true;
+  }
+
+  /**
+   * @return True if this sorted set was removed from its region, in which case
+   * it must neither be changed nor stored again
+   */
+  public synchronized boolean isRemoved() {
+    return this.removed;
+  }
+
+  /**
+   * @param member Member to look up
+   * @return The score of member or null if it is not in this sorted set
+   */
+  public synchronized Double getScore(ByteArrayWrapper member) {
+    return this.scores.get(member);
+  }
+
+  /**
+   * Adds a member or updates its score
+   * 
+   * @param member Member to add
+   * @param score Score of member
+   * @return True if member was not already in this sorted set
+   */
+  public synchronized boolean add(ByteArrayWrapper member, double score) {
+    Double oldScore = this.scores.get(member);
+    if (oldScore != null && oldScore.doubleValue() == score)
+      return false;
+    put(member, score);
+    recordChange(member, score);
+    return oldScore == null;
+  }
+
+  /**
+   * @param member Member to remove
+   * @return True if member was in this sorted set
+   */
+  public synchronized boolean remove(ByteArrayWrapper member) {
+    if (!unlink(member))
+      return false;
+    recordChange(member, null);
+    return true;
+  }
+
+  /**
+   * @param member Member to rank
+   * @param reverse True to rank from the highest score
+   * @return The 0 based rank of member or -1 if it is not in this sorted set
+   */
+  public synchronized int rank(ByteArrayWrapper member, boolean reverse) {
+    Double score = this.scores.get(member);
+    if (score == null)
+      return -1;
+    int rank = getRank(score, member) - 1;
+    return reverse ? size() - 1 - rank : rank;
+  }
+
+  /**
+   * Returns the members within the given ranks. The ranks must already be
+   * bounded to the size of this sorted set.
+   * 
+   * @param start First rank, inclusive
+   * @param stop Last rank, inclusive
+   * @param reverse True if ranks are counted from the highest score
+   * @return Members with their scores, in rank order
+   */
+  public synchronized List<Entry<ByteArrayWrapper, DoubleWrapper>> rangeByRank(int start, int stop, boolean reverse) {
+    List<Entry<ByteArrayWrapper, DoubleWrapper>> range = new ArrayList<Entry<ByteArrayWrapper, DoubleWrapper>>(Math.max(stop - start + 1, 0));
+    if (start > stop || start >= size())
+      return range;
+    int length = size();
+    if (reverse) {
+      for (Node x = getByRank(length - start); x != null && range.size() <= stop - start; x = x.backward)
+        range.add(x.toEntry());
+    } else {
+      for (Node x = getByRank(start + 1); x != null && range.size() <= stop - start; x = x.forward[0])
+        range.add(x.toEntry());
+    }
+    return range;
+  }
+
+  /**
+   * Returns the members with a score within the given bounds
+   * 
+   * @param min Lowest score
+   * @param minInclusive True if min itself is in the range
+   * @param max Highest score
+   * @param maxInclusive True if max itself is in the range
+   * @param offset Number of matching members to skip
+   * @param limit Maximum number of members returned, negative for no limit
+   * @param reverse True to return the highest score first
+   * @return Members with their scores, in score order
+   */
+  public synchronized List<Entry<ByteArrayWrapper, DoubleWrapper>> rangeByScore(double min, boolean minInclusive, double max, boolean maxInclusive, int offset, int limit, boolean reverse) {
+    List<Entry<ByteArrayWrapper, DoubleWrapper>> range = new ArrayList<Entry<ByteArrayWrapper, DoubleWrapper>>();
+    ScoreRange r = new ScoreRange(min, minInclusive, max, maxInclusive);
+    Node x = reverse ? lastInRange(r) : firstInRange(r);
+    for (int skipped = 0; x != null && skipped < offset; skipped++)
+      x = reverse ? x.backward : x.forward[0];
+    while (x != null && r.contains(x) && (limit < 0 || range.size() < limit)) {
+      range.add(x.toEntry());
+      x = reverse ? x.backward : x.forward[0];
+    }
+    return range;
+  }
+
+  /**
+   * @return Number of members with a score within the given bounds
+   */
+  public synchronized int countByScore(double min, boolean minInclusive, double max, boolean maxInclusive) {
+    return count(new ScoreRange(min, minInclusive, max, maxInclusive));
+  }
+
+  /**
+   * Returns the members within the given lexicographical bounds. As in Redis,
+   * this is only meaningful if all members have the same score.
+   * 
+   * @param min Lowest member, null for no lower bound
+   * @param minInclusive True if min itself is in the range
+   * @param max Highest member, null for no upper bound
+   * @param maxInclusive True if max itself is in the range
+   * @param offset Number of matching members to skip
+   * @param limit Maximum number of members returned, negative for no limit
+   * @return Members in order
+   */
+  public synchronized List<ByteArrayWrapper> rangeByLex(ByteArrayWrapper min, boolean minInclusive, ByteArrayWrapper max, boolean maxInclusive, int offset, int limit) {
+    List<ByteArrayWrapper> range = new ArrayList<ByteArrayWrapper>();
+    LexRange r = new LexRange(min, minInclusive, max, maxInclusive);
+    Node x = firstInRange(r);
+    for (int skipped = 0; x != null && skipped < offset; skipped++)
+      x = x.forward[0];
+    while (x != null && r.contains(x) && (limit < 0 || range.size() < limit)) {
+      range.add(x.member);
+      x = x.forward[0];
+    }
+    return range;
+  }
+
+  /**
+   * @return Number of members within the given lexicographical bounds
+   */
+  public synchronized int countByLex(ByteArrayWrapper min, boolean minInclusive, ByteArrayWrapper max, boolean maxInclusive) {
+    return count(new LexRange(min, minInclusive, max, maxInclusive));
+  }
+
+  /**
+   * Removes the members within the given ranks. The ranks must already be
+   * bounded to the size of this sorted set.
+   * 
+   * @return Number of members removed
+   */
+  public synchronized int removeRangeByRank(int start, int stop) {
+    int removed = 0;
+    Node x = getByRank(start + 1);
+    while (x != null && removed <= stop - start) {
+      Node next = x.forward[0];
+      remove(x.member);
+      removed++;
+      x = next;
+    }
+    return removed;
+  }
+
+  /**
+   * @return Number of members removed
+   */
+  public synchronized int removeRangeByScore(double min, boolean minInclusive, double max, boolean maxInclusive) {
+    return removeRange(new ScoreRange(min, minInclusive, max, maxInclusive));
+  }
+
+  /**
+   * @return Number of members removed
+   */
+  public synchronized int removeRangeByLex(ByteArrayWrapper min, boolean minInclusive, ByteArrayWrapper max, boolean maxInclusive) {
+    return removeRange(new LexRange(min, minInclusive, max, maxInclusive));
+  }
+
+  /**
+   * @return All members with their scores in ascending order
+   */
+  public synchronized List<Entry<ByteArrayWrapper, DoubleWrapper>> entries() {
+    return rangeByRank(0, size() - 1, false);
+  }
+
+  /**
+   * Adds a member or updates its score without recording the change
+   */
+  private void put(ByteArrayWrapper member, double score) {
+    Double oldScore = this.scores.put(member, score);
+    if (oldScore != null) {
+      if (oldScore.doubleValue() == score)
+        return;
+      delete(oldScore, member);
+    }
+    insert(score, member);
+  }
+
+  /**
+   * Removes a member without recording the change
+   * 
+   * @return True if member was in this sorted set
+   */
+  private boolean unlink(ByteArrayWrapper member) {
+    Double oldScore = this.scores.remove(member);
+    if (oldScore == null)
+      return false;
+    delete(oldScore, member);
+    return true;
+  }
+
+  private int count(Range r) {
+    Node first = firstInRange(r);
+    if (first == null)
+      return 0;
+    Node last = lastInRange(r);
+    return getRank(last.score, last.member) - getRank(first.score, first.member) + 1;
+  }
+
+  private int removeRange(Range r) {
+    int removed = 0;
+    Node x = firstInRange(r);
+    while (x != null && r.contains(x)) {
+      Node next = x.forward[0];
+      remove(x.member);
+      removed++;
+      x = next;
+    }
+    return removed;
+  }
+
+  /*
+   * Skip list operations. The header node holds no member and its spans count
+   * from the start of the list, so the rank of a node is the sum of the spans
+   * followed to reach it.
+   */
+
+  private static boolean precedes(Node x, double score, ByteArrayWrapper member) {
+    return x.score < score || (x.score == score && x.member.compareTo(member) < 0);
+  }
+
+  private static int randomLevel() {
+    int level = 1;
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    while (level < MAX_LEVEL && random.nextFloat() < LEVEL_PROBABILITY)
+      level++;
+    return level;
+  }
+
+  private void insert(double score, ByteArrayWrapper member) {
+    Node[] update = new Node[MAX_LEVEL];
+    int[] rank = new int[MAX_LEVEL];
+    Node x = this.header;
+    for (int i = this.level - 1; i >= 0; i--) {
+      rank[i] = i == this.level - 1 ? 0 : rank[i + 1];
+      while (x.forward[i] != null && precedes(x.forward[i], score, member)) {
+        rank[i] += x.span[i];
+        x = x.forward[i];
+      }
+      update[i] = x;
+    }
+    // the member is already in the hash map so its size is the new length
+    int length = this.scores.size() - 1;
+    int newLevel = randomLevel();
+    if (newLevel > this.level) {
+      for (int i = this.level; i < newLevel; i++) {
+        rank[i] = 0;
+        update[i] = this.header;
+        update[i].span[i] = length;
+      }
+      this.level = newLevel;
+    }
+    x = new Node(member, score, newLevel);
+    for (int i = 0; i < newLevel; i++) {
+      x.forward[i] = update[i].forward[i];
+      update[i].forward[i] = x;
+      x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+      update[i].span[i] = (rank[0] - rank[i]) + 1;
+    }
+    for (int i = newLevel; i < this.level; i++)
+      update[i].span[i]++;
+    x.backward = update[0] == this.header ? null : update[0];
+    if (x.forward[0] != null)
+      x.forward[0].backward = x;
+    else
+      this.tail = x;
+  }
+
+  private void delete(double score, ByteArrayWrapper member) {
+    Node[] update = new Node[MAX_LEVEL];
+    Node x = this.header;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.forward[i] != null && precedes(x.forward[i], score, member))
+        x = x.forward[i];
+      update[i] = x;
+    }
+    x = x.forward[0];
+    if (x == null || x.score != score || !x.member.equals(member))
+      return;
+    for (int i = 0; i < this.level; i++) {
+      if (update[i].forward[i] == x) {
+        update[i].span[i] += x.span[i] - 1;
+        update[i].forward[i] = x.forward[i];
+      } else {
+        update[i].span[i]--;
+      }
+    }
+    if (x.forward[0] != null)
+      x.forward[0].backward = x.backward;
+    else
+      this.tail = x.backward;
+    while (this.level > 1 && this.header.forward[this.level - 1] == null)
+      this.level--;
+  }
+
+  /**
+   * @return The 1 based rank of the node, or 0 if there is no such node
+   */
+  private int getRank(double score, ByteArrayWrapper member) {
+    int rank = 0;
+    Node x = this.header;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.forward[i] != null && (precedes(x.forward[i], score, member) || (x.forward[i].score == score && x.forward[i].member.equals(member)))) {
+        rank += x.span[i];
+        x = x.forward[i];
+      }
+      if (x != this.header && x.member.equals(member))
+        return rank;
+    }
+    return 0;
+  }
+
+  /**
+   * @param rank 1 based rank
+   * @return The node at rank or null
+   */
+  private Node getByRank(int rank) {
+    int traversed = 0;
+    Node x = this.header;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.forward[i] != null && traversed + x.span[i] <= rank) {
+        traversed += x.span[i];
+        x = x.forward[i];
+      }
+      if (traversed == rank)
+        return x == this.header ? null : x;
+    }
+    return null;
+  }
+
+  private Node firstInRange(Range r) {
+    if (r.isEmpty() || this.tail == null || r.isAfter(this.tail) || r.isBefore(this.header.forward[0]))
+      return null;
+    Node x = this.header;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.forward[i] != null && r.isAfter(x.forward[i]))
+        x = x.forward[i];
+    }
+    x = x.forward[0];
+    return x != null && r.contains(x) ? x : null;
+  }
+
+  private Node lastInRange(Range r) {
+    if (r.isEmpty() || this.tail == null || r.isAfter(this.tail) || r.isBefore(this.header.forward[0]))
+      return null;
+    Node x = this.header;
+    for (int i = this.level - 1; i >= 0; i--) {
+      while (x.forward[i] != null && !r.isBefore(x.forward[i]))
+        x = x.forward[i];
+    }
+    return x != this.header && r.contains(x) ? x : null;
+  }
+
+  private static final class Node {
+    private final ByteArrayWrapper member;
+    private final double score;
+    private final Node[] forward;
+    private final int[] span;
+    private Node backward;
+
+    private Node(ByteArrayWrapper member, double score, int level) {
+      this.member = member;
+      this.score = score;
+      this.forward = new Node[level];
+      this.span = new int[level];
+    }
+
+    private Entry<ByteArrayWrapper, DoubleWrapper> toEntry() {
+      return new AbstractMap.SimpleImmutableEntry<ByteArrayWrapper, DoubleWrapper>(this.member, new DoubleWrapper(this.score));
+    }
+  }
+
+  /**
+   * A contiguous range of the skip list
+   */
+  private static abstract class Range {
+
+    abstract boolean isEmpty();
+
+    /**
+     * @return True if the range starts after x
+     */
+    abstract boolean isAfter(Node x);
+
+    /**
+     * @return True if the range ends before x
+     */
+    abstract boolean isBefore(Node x);
+
+    boolean contains(Node x) {
+      return !isAfter(x) && !isBefore(x);
+    }
+  }
+
+  private static final class ScoreRange extends Range {
+    private final double min;
+    private final boolean minInclusive;
+    private final double max;
+    private final boolean maxInclusive;
+
+    private ScoreRange(double min, boolean minInclusive, double max, boolean maxInclusive) {
+      this.min = min;
+      this.minInclusive = minInclusive;
+      this.max = max;
+      this.maxInclusive = maxInclusive;
+    }
+
+    @Override
+    boolean isEmpty() {
+      return this.min > this.max || (this.min == this.max && (!this.minInclusive || !this.maxInclusive));
+    }
+
+    @Override
+    boolean isAfter(Node x) {
+      return this.minInclusive ? x.score < this.min : x.score <= this.min;
+    }
+
+    @Override
+    boolean isBefore(Node x) {
+      return this.maxInclusive ? x.score > this.max : x.score >= this.max;
+    }
+  }
+
+  private static final class LexRange extends Range {
+    private final ByteArrayWrapper min;
+    private final boolean minInclusive;
+    private final ByteArrayWrapper max;
+    private final boolean maxInclusive;
+
+    private LexRange(ByteArrayWrapper min, boolean minInclusive, ByteArrayWrapper max, boolean maxInclusive) {
+      this.min = min;
+      this.minInclusive = minInclusive;
+      this.max = max;
+      this.maxInclusive = maxInclusive;
+    }
+
+    @Override
+    boolean isEmpty() {
+      if (this.min == null || this.max == null)
+        return false;
+      int cmp = this.min.compareTo(this.max);
+      return cmp > 0 || (cmp == 0 && (!this.minInclusive || !this.maxInclusive));
+    }
+
+    @Override
+    boolean isAfter(Node x) {
+      if (this.min == null)
+        return false;
+      int cmp = x.member.compareTo(this.min);
+      return this.minInclusive ? cmp < 0 : cmp <= 0;
+    }
+
+    @Override
+    boolean isBefore(Node x) {
+      if (this.max == null)
+        return false;
+      int cmp = x.member.compareTo(this.max);
+      return this.maxInclusive ? cmp > 0 : cmp >= 0;
+    }
+  }
+
+  /**
+   * Records the new score of a member, or null if it was removed, for the
+   * next delta
+   */
+  private void recordChange(ByteArrayWrapper member, Double score) {
+    if (this.pendingReplace)
+      return;
+    if (this.pendingDelta.size() >= this.scores.size() + MAX_EXTRA_DELTA_OPS && !this.pendingDelta.containsKey(member)) {
+      this.pendingReplace = true;
+      this.pendingDelta.clear();
+      return;
+    }
+    this.pendingDelta.put(member, score);
+  }
+
+  private void clearDelta() {
+    this.pendingDelta.clear();
+    this.pendingReplace = false;
+  }
+
+  private void clear() {
+    this.scores = new HashMap<ByteArrayWrapper, Double>();
+    this.header = new Node(null, 0, MAX_LEVEL);
+    this.tail = null;
+    this.level = 1;
+  }
+
+  @Override
+  public synchronized void toData(DataOutput out) throws IOException {
+    DataSerializer.writePrimitiveInt(size(), out);
+    for (Node x = this.header.forward[0]; x != null; x = x.forward[0]) {
+      DataSerializer.writeByteArray(x.member.toBytes(), out);
+      DataSerializer.writePrimitiveDouble(x.score, out);
+    }
+  }
+
+  @Override
+  public synchronized void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    clear();
+    int size = DataSerializer.readPrimitiveInt(in);
+    for (int i = 0; i < size; i++) {
+      ByteArrayWrapper member = new ByteArrayWrapper(DataSerializer.readByteArray(in));
+      put(member, DataSerializer.readPrimitiveDouble(in));
+    }
+    clearDelta();
+  }
+
+  @Override
+  public synchronized boolean hasDelta() {
+    return this.pendingReplace || !this.pendingDelta.isEmpty();
+  }
+
+  @Override
+  public synchronized void toDelta(DataOutput out) throws IOException {
+    if (this.pendingReplace) {
+      DataSerializer.writePrimitiveInt(DELTA_REPLACE, out);
+      toData(out);
+      clearDelta();
+      return;
+    }
+    DataSerializer.writePrimitiveInt(this.pendingDelta.size(), out);
+    for (Entry<ByteArrayWrapper, Double> e : this.pendingDelta.entrySet()) {
+      Double score = e.getValue();
+      DataSerializer.writeByteArray(e.getKey().toBytes(), out);
+      DataSerializer.writePrimitiveBoolean(score != null, out);
+      if (score != null)
+        DataSerializer.writePrimitiveDouble(score, out);
+    }
+    clearDelta();
+  }
+
+  /**
+   * Applies the changes of another member. The changes are not recorded, the
+   * delta bytes are forwarded to further copies as they were received, so
+   * this sorted set has no pending delta afterwards.
+   */
+  @Override
+  public synchronized void fromDelta(DataInput in) throws IOException, InvalidDeltaException {
+    clearDelta();
+    int size = DataSerializer.readPrimitiveInt(in);
+    if (size == DELTA_REPLACE) {
+      try {
+        fromData(in);
+      } catch (ClassNotFoundException e) {
+        throw new InvalidDeltaException(e);
+      }
+      return;
+    }
+    for (int i = 0; i < size; i++) {
+      ByteArrayWrapper member = new ByteArrayWrapper(DataSerializer.readByteArray(in));
+      if (DataSerializer.readPrimitiveBoolean(in))
+        put(member, DataSerializer.readPrimitiveDouble(in));
+      else
+        unlink(member);
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder("RedisSortedSet{");
+    for (Node x = this.header.forward[0]; x != null; x = x.forward[0]) {
+      if (x != this.header.forward[0])
+        builder.append(", ");
+      builder.append(x.member).append('=').append(Coder.doubleToString(x.score));
+    }
+    return builder.append('}').toString();
+  }
+}
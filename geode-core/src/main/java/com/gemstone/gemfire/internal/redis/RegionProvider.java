@@ -17,10 +17,10 @@
 package com.gemstone.gemfire.internal.redis;
 
 import java.io.Closeable;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -34,17 +34,8 @@ import com.gemstone.gemfire.cache.CacheTransactionManager;
 import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.cache.RegionShortcut;
 import com.gemstone.gemfire.cache.TransactionId;
-import com.gemstone.gemfire.cache.query.IndexExistsException;
-import com.gemstone.gemfire.cache.query.IndexInvalidException;
-import com.gemstone.gemfire.cache.query.IndexNameConflictException;
-import com.gemstone.gemfire.cache.query.Query;
-import com.gemstone.gemfire.cache.query.QueryInvalidException;
-import com.gemstone.gemfire.cache.query.QueryService;
-import com.gemstone.gemfire.cache.query.RegionNotFoundException;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.redis.executor.ExpirationExecutor;
-import com.gemstone.gemfire.internal.redis.executor.ListQuery;
-import com.gemstone.gemfire.internal.redis.executor.SortedSetQuery;
 import com.gemstone.gemfire.internal.hll.HyperLogLogPlus;
 import com.gemstone.gemfire.management.cli.Result;
 import com.gemstone.gemfire.management.cli.Result.Status;
@@ -83,24 +74,35 @@ public class RegionProvider implements Closeable {
    */
   private final Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion;
 
+  /**
+   * This is the {@link RedisDataType#REDIS_SORTEDSET} {@link Region}. This is the Region
+   * that stores all sorted sets, one {@link RedisSortedSet} per key
+   */
+  private final Region<ByteArrayWrapper, RedisSortedSet> sortedSetsRegion;
+
+  /**
+   * This is the {@link RedisDataType#REDIS_LIST} {@link Region}. This is the Region
+   * that stores all lists, one {@link RedisList} per key
+   */
+  private final Region<ByteArrayWrapper, RedisList> listsRegion;
+
   private final Cache cache;
-  private final QueryService queryService;
-  private final ConcurrentMap<ByteArrayWrapper, Map<Enum<?>, Query>> preparedQueries = new ConcurrentHashMap<ByteArrayWrapper, Map<Enum<?>, Query>>();
   private final ConcurrentMap<ByteArrayWrapper, ScheduledFuture<?>> expirationsMap;
   private final ScheduledExecutorService expirationExecutor;
   private final RegionShortcut defaultRegionType;
   private static final CreateAlterDestroyRegionCommands cliCmds = new CreateAlterDestroyRegionCommands();
   private final ConcurrentHashMap<String, Lock> locks;
 
-  public RegionProvider(Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion, Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion, Region<String, RedisDataType> redisMetaRegion, ConcurrentMap<ByteArrayWrapper, ScheduledFuture<?>> expirationsMap, ScheduledExecutorService expirationExecutor, RegionShortcut defaultShortcut) {
-    if (stringsRegion == null || hLLRegion == null || redisMetaRegion == null)
+  public RegionProvider(Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion, Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion, Region<ByteArrayWrapper, RedisSortedSet> sortedSetsRegion, Region<ByteArrayWrapper, RedisList> listsRegion, Region<String, RedisDataType> redisMetaRegion, ConcurrentMap<ByteArrayWrapper, ScheduledFuture<?>> expirationsMap, ScheduledExecutorService expirationExecutor, RegionShortcut defaultShortcut) {
+    if (stringsRegion == null || hLLRegion == null || sortedSetsRegion == null || listsRegion == null || redisMetaRegion == null)
       throw new NullPointerException();
     this.regions = new ConcurrentHashMap<ByteArrayWrapper, Region<?, ?>>();
     this.stringsRegion = stringsRegion;
     this.hLLRegion = hLLRegion;
+    this.sortedSetsRegion = sortedSetsRegion;
+    this.listsRegion = listsRegion;
     this.redisMetaRegion = redisMetaRegion;
     this.cache = GemFireCacheImpl.getInstance();
-    this.queryService = cache.getQueryService();
     this.expirationsMap = expirationsMap;
     this.expirationExecutor = expirationExecutor;
     this.defaultRegionType = defaultShortcut;
@@ -175,7 +177,7 @@ public class RegionProvider implements Closeable {
       return false;
     Lock lock = this.locks.get(key.toString());
     try {
-      if (lock != null)  {// Strings/hlls will not have locks
+      if (lock != null)  {// Strings/hlls/sorted sets/lists will not have locks
         lock.lock();
       }
       metaRemoveEntry(key);
@@ -184,6 +186,10 @@ public class RegionProvider implements Closeable {
           return this.stringsRegion.remove(key) != null;
         } else if (type == RedisDataType.REDIS_HLL) {
           return this.hLLRegion.remove(key) != null;
+        } else if (type == RedisDataType.REDIS_SORTEDSET) {
+          return this.sortedSetsRegion.remove(key) != null;
+        } else if (type == RedisDataType.REDIS_LIST) {
+          return this.listsRegion.remove(key) != null;
         } else {
           return destroyRegion(key, type);
         }
@@ -209,7 +215,7 @@ public class RegionProvider implements Closeable {
   }
 
   public void createRemoteRegionReferenceLocally(ByteArrayWrapper key, RedisDataType type) {
-    if (type == null || type == RedisDataType.REDIS_STRING || type == RedisDataType.REDIS_HLL)
+    if (type == null || type == RedisDataType.REDIS_STRING || type == RedisDataType.REDIS_HLL || type == RedisDataType.REDIS_SORTEDSET || type == RedisDataType.REDIS_LIST)
       return;
     Region<?, ?> r = this.regions.get(key);
     if (r != null)
@@ -234,15 +240,6 @@ public class RegionProvider implements Closeable {
           if (r == null)
             return;
 
-          if (type == RedisDataType.REDIS_LIST) {
-            doInitializeList(key, r);
-          } else if (type == RedisDataType.REDIS_SORTEDSET) {
-            try {
-              doInitializeSortedSet(key, r);
-            } catch (RegionNotFoundException | IndexInvalidException e) {
-              //ignore
-            }
-          }
           this.regions.put(key, r);
         }
       } finally {
@@ -280,26 +277,7 @@ public class RegionProvider implements Closeable {
               txm = cache.getCacheTransactionManager();
               transactionId = txm.suspend();
             }
-            Exception concurrentCreateDestroyException = null;
-            do {
-              concurrentCreateDestroyException = null;
-              r = createRegionGlobally(stringKey);
-              try {
-                if (type == RedisDataType.REDIS_LIST) {
-                  doInitializeList(key, r);
-                } else if (type == RedisDataType.REDIS_SORTEDSET) {
-                  try {
-                    doInitializeSortedSet(key, r);
-                  } catch (RegionNotFoundException | IndexInvalidException e) {
-                    concurrentCreateDestroyException = e;
-                  }
-                }
-              } catch (QueryInvalidException e) {
-                if (e.getCause() instanceof RegionNotFoundException) {
-                  concurrentCreateDestroyException = e;
-                }
-              }
-            } while(concurrentCreateDestroyException != null);
+            r = createRegionGlobally(stringKey);
             this.regions.put(key, r);            
             if (addToMeta) {
               RedisDataType existingType = metaPutIfAbsent(key, type);
@@ -346,38 +324,81 @@ public class RegionProvider implements Closeable {
    * @param type Type of key to remove all state
    */
   private void removeRegionState(ByteArrayWrapper key, RedisDataType type) {
-    this.preparedQueries.remove(key);
     this.regions.remove(key);
   }
 
-  private void doInitializeSortedSet(ByteArrayWrapper key, Region<?, ?> r) throws RegionNotFoundException, IndexInvalidException {
-    String fullpath = r.getFullPath();
+  /**
+   * Sorted sets used to be stored in a {@link Region} per key, mapping each member
+   * to its {@link DoubleWrapper} score. This copies such a Region into a single
+   * {@link RedisSortedSet} in the sorted sets Region and destroys it.
+   * 
+   * @param key Key of the sorted set
+   * @param r The Region the sorted set used to be stored in
+   */
+  public void migrateSortedSetRegion(ByteArrayWrapper key, Region<?, ?> r) {
+    String stringKey = key.toString();
+    Lock lock = this.locks.get(stringKey);
+    if (lock == null) {
+      this.locks.putIfAbsent(stringKey, new ReentrantLock());
+      lock = this.locks.get(stringKey);
+    }
     try {
-      queryService.createIndex("scoreIndex", "entry.value.score", r.getFullPath() + ".entrySet entry");
-      queryService.createIndex("scoreIndex2", "value.score", r.getFullPath() + ".values value");
-    } catch (IndexNameConflictException | IndexExistsException | UnsupportedOperationException e) {
-      // ignore, these indexes already exist or unsupported but make sure prepared queries are made
+      lock.lock();
+      if (!this.sortedSetsRegion.containsKey(key)) {
+        RedisSortedSet sortedSet = new RedisSortedSet();
+        for (Entry<?, ?> e : r.entrySet()) {
+          if (e.getKey() instanceof ByteArrayWrapper && e.getValue() instanceof DoubleWrapper)
+            sortedSet.add((ByteArrayWrapper) e.getKey(), ((DoubleWrapper) e.getValue()).score);
+        }
+        if (sortedSet.isEmpty())
+          metaRemoveEntry(key);
+        else
+          this.sortedSetsRegion.putIfAbsent(key, sortedSet);
+      }
+      r.destroyRegion();
+    } finally {
+      this.locks.remove(stringKey);
+      lock.unlock();
     }
-    HashMap<Enum<?>, Query> queryList = new HashMap<Enum<?>, Query>();
-    for (SortedSetQuery lq: SortedSetQuery.values()) {
-      String queryString = lq.getQueryString(fullpath);
-      Query query = this.queryService.newQuery(queryString);
-      queryList.put(lq, query);
+  }
+
+  /**
+   * Lists used to be stored in a {@link Region} per key, mapping each element's
+   * position to the element along with "head" and "tail" entries holding the
+   * positions of the ends. This copies such a Region into a single {@link RedisList}
+   * in the lists Region and destroys it.
+   * 
+   * @param key Key of the list
+   * @param r The Region the list used to be stored in
+   */
+  public void migrateListRegion(ByteArrayWrapper key, Region<?, ?> r) {
+    String stringKey = key.toString();
+    Lock lock = this.locks.get(stringKey);
+    if (lock == null) {
+      this.locks.putIfAbsent(stringKey, new ReentrantLock());
+      lock = this.locks.get(stringKey);
     }
-    this.preparedQueries.put(key, queryList);
-  }
-
-  private void doInitializeList(ByteArrayWrapper key, Region r) {
-    r.put("head", Integer.valueOf(0));
-    r.put("tail", Integer.valueOf(0));
-    String fullpath = r.getFullPath();
-    HashMap<Enum<?>, Query> queryList = new HashMap<Enum<?>, Query>();
-    for (ListQuery lq: ListQuery.values()) {
-      String queryString = lq.getQueryString(fullpath);
-      Query query = this.queryService.newQuery(queryString);
-      queryList.put(lq, query);
+    try {
+      lock.lock();
+      if (!this.listsRegion.containsKey(key)) {
+        TreeMap<Integer, ByteArrayWrapper> elements = new TreeMap<Integer, ByteArrayWrapper>();
+        for (Entry<?, ?> e : r.entrySet()) {
+          if (e.getKey() instanceof Integer && e.getValue() instanceof ByteArrayWrapper)
+            elements.put((Integer) e.getKey(), (ByteArrayWrapper) e.getValue());
+        }
+        RedisList list = new RedisList();
+        for (ByteArrayWrapper element : elements.values())
+          list.pushRight(element);
+        if (list.isEmpty())
+          metaRemoveEntry(key);
+        else
+          this.listsRegion.putIfAbsent(key, list);
+      }
+      r.destroyRegion();
+    } finally {
+      this.locks.remove(stringKey);
+      lock.unlock();
     }
-    this.preparedQueries.put(key, queryList);
   }
 
   /**
@@ -406,17 +427,6 @@ public class RegionProvider implements Closeable {
     return r;
   }
 
-  public Query getQuery(ByteArrayWrapper key, Enum<?> query) {
-    return this.preparedQueries.get(key).get(query);
-    /*
-    if (query instanceof ListQuery) {
-      return this.queryService.newQuery(((ListQuery)query).getQueryString(this.regions.get(key).getFullPath()));
-    } else {
-      return this.queryService.newQuery(((SortedSetQuery)query).getQueryString(this.regions.get(key).getFullPath()));
-    }
-     */
-  }
-
   /**
    * Checks if the given key is associated with the passed data type.
    * If there is a mismatch, a {@link RuntimeException} is thrown
@@ -446,6 +456,14 @@ public class RegionProvider implements Closeable {
     return this.hLLRegion;
   }
 
+  public Region<ByteArrayWrapper, RedisSortedSet> getSortedSetsRegion() {
+    return this.sortedSetsRegion;
+  }
+
+  public Region<ByteArrayWrapper, RedisList> getListsRegion() {
+    return this.listsRegion;
+  }
+
   private RedisDataType getRedisDataType(String key) {
     return this.redisMetaRegion.get(key);
   }
@@ -538,7 +556,6 @@ public class RegionProvider implements Closeable {
 
   @Override
   public void close() {
-    this.preparedQueries.clear();
   }
 
   public String dumpRegionsCache() {
@@ -17,7 +17,6 @@
 package com.gemstone.gemfire.internal.redis.executor;
 
 import com.gemstone.gemfire.cache.Region;
-import com.gemstone.gemfire.cache.query.Query;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.Executor;
@@ -37,7 +36,7 @@ public abstract class AbstractExecutor implements Executor {
   /**
    * Number of Regions used by GemFireRedisServer internally
    */
-  public static final int NUM_DEFAULT_REGIONS = 3;
+  public static final int NUM_DEFAULT_REGIONS = 5;
 
   /**
    * Max length of a list
@@ -89,10 +88,6 @@ public abstract class AbstractExecutor implements Executor {
       throw new RedisDataTypeMismatchException("The key name \"" + key + "\" is already used by a " + currentType.toString());
   }
 
-  protected Query getQuery(ByteArrayWrapper key, Enum<?> type, ExecutionHandlerContext context) {
-    return context.getRegionProvider().getQuery(key, type);
-  }
-
   protected boolean removeEntry(ByteArrayWrapper key, RedisDataType type, ExecutionHandlerContext context) {
     if (type == null || type == RedisDataType.REDIS_PROTECTED)
       return false;
@@ -55,7 +55,9 @@ public class KeysExecutor extends AbstractExecutor {
     for (String key: allKeys) {
       if (!(key.equals(GemFireRedisServer.REDIS_META_DATA_REGION) ||
               key.equals(GemFireRedisServer.STRING_REGION) ||
-              key.equals(GemFireRedisServer.HLL_REGION))
+              key.equals(GemFireRedisServer.HLL_REGION) ||
+              key.equals(GemFireRedisServer.SORTEDSET_REGION) ||
+              key.equals(GemFireRedisServer.LIST_REGION))
               && pattern.matcher(key).matches())
         matchingKeys.add(key);
     }
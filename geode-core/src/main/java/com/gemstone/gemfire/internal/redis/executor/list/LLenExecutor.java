@@ -18,11 +18,10 @@ package com.gemstone.gemfire.internal.redis.executor.list;
 
 import java.util.List;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Command;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisList;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
 
@@ -41,18 +40,13 @@ public class LLenExecutor extends ListExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    int listSize = 0;
+    RedisList list = getList(context, key);
     
-    checkDataType(key, RedisDataType.REDIS_LIST, context);
-    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
-    
-    if (keyRegion == null) {
+    if (list == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
       return;
     }
-    
-    listSize = keyRegion.size() - LIST_EMPTY_SIZE;
 
-    command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), listSize));
+    command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), list.size()));
   }
 }
@@ -18,16 +18,12 @@ package com.gemstone.gemfire.internal.redis.executor.list;
 
 import java.util.List;
 
-import com.gemstone.gemfire.cache.Region;
-import com.gemstone.gemfire.cache.query.Query;
-import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisList;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
-import com.gemstone.gemfire.internal.redis.executor.ListQuery;
 
 public class LSetExecutor extends ListExecutor {
 
@@ -53,10 +49,9 @@ public class LSetExecutor extends ListExecutor {
     int index;
 
 
-    checkDataType(key, RedisDataType.REDIS_LIST, context);
-    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
+    RedisList list = getList(context, key);
 
-    if (keyRegion == null) {
+    if (list == null) {
       command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_INDEX));
       return;
     }
@@ -68,41 +63,15 @@ public class LSetExecutor extends ListExecutor {
       return;
     }
 
-    int listSize = keyRegion.size() - LIST_EMPTY_SIZE;
-    if (index < 0)
-      index += listSize;
-    if (index < 0 || index > listSize) {
-      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_INDEX));
-      return;
+    synchronized (list) {
+      if (index < 0)
+        index += list.size();
+      if (!list.set(index, new ByteArrayWrapper(value))) {
+        command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_INDEX));
+        return;
+      }
+      storeList(context, key, list);
     }
-
-    Integer indexKey;
-    try {
-      indexKey = getIndexKey(context, key, index);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
-    if (indexKey == null) {
-      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), ERROR_INDEX));
-      return;
-    }
-    if (index == listSize)
-      indexKey++;
-    keyRegion.put(indexKey, new ByteArrayWrapper(value));
     command.setResponse(Coder.getSimpleStringResponse(context.getByteBufAllocator(), SUCCESS));
   }
-
-  private Integer getIndexKey(ExecutionHandlerContext context, ByteArrayWrapper key, int index) throws Exception {
-    Query query = getQuery(key, ListQuery.LSET, context);
-
-    Object[] params = {Integer.valueOf(index + 1)};
-    
-    SelectResults<Integer> results = (SelectResults<Integer>) query.execute(params);
-    int size = results.size();
-    if (results == null || size == 0) {
-      return null;
-    }
-
-    return results.asList().get(size - 1);
-  }
 }
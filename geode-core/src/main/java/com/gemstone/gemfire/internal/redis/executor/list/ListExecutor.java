@@ -19,132 +19,113 @@ package com.gemstone.gemfire.internal.redis.executor.list;
 import java.util.List;
 
 import com.gemstone.gemfire.cache.Region;
-import com.gemstone.gemfire.cache.RegionDestroyedException;
-import com.gemstone.gemfire.cache.query.QueryService;
-import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisDataTypeMismatchException;
+import com.gemstone.gemfire.internal.redis.RedisList;
 import com.gemstone.gemfire.internal.redis.executor.AbstractExecutor;
 
-
+/**
+ * Base of the list executors. Every list is a single {@link RedisList} value
+ * in the lists {@link Region}. Executors that modify a list do so while
+ * synchronized on it and then put it back so the change is distributed as a
+ * delta.
+ */
 public abstract class ListExecutor extends AbstractExecutor {
 
-  protected static final int LIST_EMPTY_SIZE = 2;
-  
   protected static enum ListDirection {LEFT, RIGHT};
 
-  protected final static QueryService getQueryService() {
-    return GemFireCacheImpl.getInstance().getQueryService();
+  protected Region<ByteArrayWrapper, RedisList> getListsRegion(ExecutionHandlerContext context) {
+    return context.getRegionProvider().getListsRegion();
   }
 
-  @SuppressWarnings("unchecked")
-  @Override
-  protected Region<Integer, ByteArrayWrapper> getOrCreateRegion(ExecutionHandlerContext context, ByteArrayWrapper key, RedisDataType type) {
-    return (Region<Integer, ByteArrayWrapper>) context.getRegionProvider().getOrCreateRegion(key, type, context);
+  /**
+   * Gets the list of a key. Inside a transaction a copy is returned so that
+   * changes are not visible before the transaction commits.
+   * 
+   * @param context Client context
+   * @param key Key of the list
+   * @return The list or null if the key does not exist
+   */
+  protected RedisList getList(ExecutionHandlerContext context, ByteArrayWrapper key) {
+    checkDataType(key, RedisDataType.REDIS_LIST, context);
+    RedisList list = getListsRegion(context).get(key);
+    if (list != null && context.hasTransaction())
+      list = new RedisList(list);
+    return list;
   }
-  
-  @SuppressWarnings("unchecked")
-  protected Region<Integer, ByteArrayWrapper> getRegion(ExecutionHandlerContext context, ByteArrayWrapper key) {
-    return (Region<Integer, ByteArrayWrapper>) context.getRegionProvider().getRegion(key);
+
+  /**
+   * Gets the list of a key, creating an empty one if the key does not exist
+   * yet. The list may be removed by a concurrent writer that emptied it, so
+   * callers must synchronize on it and get it again if it
+   * {@link RedisList#isRemoved() was removed}.
+   * 
+   * @param context Client context
+   * @param key Key of the list
+   * @return The list
+   */
+  protected RedisList getOrCreateList(ExecutionHandlerContext context, ByteArrayWrapper key) {
+    checkAndSetDataType(key, context);
+    RedisList list = getList(context, key);
+    if (list == null) {
+      RedisList newList = new RedisList();
+      list = getListsRegion(context).putIfAbsent(key, newList);
+      if (list == null) {
+        list = newList;
+        // the key may have been removed after it was first checked
+        checkAndSetDataType(key, context);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Stores a modified list, or removes the key if the list is empty. Callers
+   * must be synchronized on the list. An empty list is marked removed before
+   * the key is removed, so a writer that got it before the removal does not
+   * store it again once it synchronized on it.
+   * 
+   * @param context Client context
+   * @param key Key of the list
+   * @param list The modified list
+   */
+  protected void storeList(ExecutionHandlerContext context, ByteArrayWrapper key, RedisList list) {
+    if (list.isEmpty()) {
+      list.markRemoved();
+      context.getRegionProvider().removeKey(key, RedisDataType.REDIS_LIST);
+    } else
+      getListsRegion(context).put(key, list);
   }
 
   /**
    * Helper method to be used by the push commands to push elements onto a list.
-   * Because our current setup requires non trivial code to push elements in
-   * to a Region, I wanted all the push code to reside in one place. 
+   * Callers must be synchronized on the list.
    * 
-   * @param key Name of the list
    * @param commandElems Pieces of the command, this is where the elements that need to be
    * pushed live
    * @param startIndex The index to start with in the commandElems list, inclusive
    * @param endIndex The index to end with in the commandElems list, exclusive
-   * @param keyRegion Region of list
+   * @param list The list to push onto
    * @param pushType ListDirection.LEFT || ListDirection.RIGHT
-   * @param context Context of this push
    */
-  protected void pushElements(ByteArrayWrapper key, List<byte[]> commandElems, int startIndex, int endIndex,
-      Region keyRegion, ListDirection pushType, ExecutionHandlerContext context) {
-
-    String indexKey = pushType == ListDirection.LEFT ? "head" : "tail";
-    String oppositeKey = pushType == ListDirection.RIGHT ? "head" : "tail";
-    Integer index = (Integer) keyRegion.get(indexKey);
-    Integer opp = (Integer) keyRegion.get(oppositeKey);
-    if (index != opp)
-      index += pushType == ListDirection.LEFT ? -1 : 1; // Subtract index if left push, add if right push
-
-    /**
-     * Multi push command
-     * 
-     * For every element that needs to be added
-     */
-
+  protected void pushElements(List<byte[]> commandElems, int startIndex, int endIndex, RedisList list, ListDirection pushType) {
     for (int i = startIndex; i < endIndex; i++) {
-      byte[] value = commandElems.get(i);
-      ByteArrayWrapper wrapper = new ByteArrayWrapper(value);
-
-      /**
-       * 
-       * First, use the start index to attempt to insert the
-       * value into the Region
-       * 
-       */
-
-      Object oldValue;
-      do {
-        oldValue = keyRegion.putIfAbsent(index, wrapper);
-        if (oldValue != null) {
-          index += pushType == ListDirection.LEFT ? -1 : 1; // Subtract index if left push, add if right push
-        }
-      } while (oldValue != null);
-
-      /**
-       * 
-       * Next, update the index in the meta data region. Keep trying
-       * to replace the existing index unless the index is further out
-       * than previously inserted, that's ok. Example below:
-       * 
-       * ********************** LPUSH/LPUSH ***************************
-       *   Push occurring at the same time, further index update first
-       *   |    This push
-       *   |      |
-       *   |      |
-       *   V      V
-       * [-4]   [-3]    [-2]    [-1]    [0]     [1]     [2]
-       * 
-       * In this case, -4 would already exist in the meta data region, therefore
-       * we do not try to put -3 in the meta data region because a further
-       * index is already there.
-       * ***************************************************************
-       * 
-       * Another example
-       * 
-       * ********************** LPUSH/LPOP *****************************
-       *   This push
-       *   |    Simultaneous LPOP, meta data head index already updated to -2
-       *   |     |
-       *   |     |
-       *   V     V
-       * [-4]   [X]    [-2]    [-1]    [0]     [1]     [2]
-       * 
-       * In this case, -2 would already exist in the meta data region, but
-       * we need to make sure the element at -4 is visible to all other threads
-       * so we will attempt to change the index to -4 as long as it is greater
-       * than -4
-       * ***************************************************************
-       * 
-       */
-
-      boolean indexSet = false;
-      do {
-        Integer existingIndex = (Integer) keyRegion.get(indexKey);
-        if ((pushType == ListDirection.RIGHT && existingIndex < index) || (pushType == ListDirection.LEFT && existingIndex > index))
-          indexSet = keyRegion.replace(indexKey, existingIndex, index);
-        else
-          break;
-      } while (!indexSet);
-
+      ByteArrayWrapper wrapper = new ByteArrayWrapper(commandElems.get(i));
+      if (pushType == ListDirection.LEFT)
+        list.pushLeft(wrapper);
+      else
+        list.pushRight(wrapper);
     }
   }
 
+  protected final void checkAndSetDataType(ByteArrayWrapper key, ExecutionHandlerContext context) {
+    Object oldVal = context.getRegionProvider().metaPutIfAbsent(key, RedisDataType.REDIS_LIST);
+    if (oldVal == RedisDataType.REDIS_PROTECTED)
+      throw new RedisDataTypeMismatchException("The key name \"" + key + "\" is protected");
+    if (oldVal != null && oldVal != RedisDataType.REDIS_LIST)
+      throw new RedisDataTypeMismatchException("The key name \"" + key + "\" is already used by a " + oldVal.toString());
+  }
+
 }
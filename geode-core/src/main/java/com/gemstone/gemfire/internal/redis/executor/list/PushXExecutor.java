@@ -18,13 +18,12 @@ package com.gemstone.gemfire.internal.redis.executor.list;
 
 import java.util.List;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.Extendable;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisList;
 
 public abstract class PushXExecutor extends ListExecutor implements Extendable {
 
@@ -41,15 +40,22 @@ public abstract class PushXExecutor extends ListExecutor implements Extendable {
 
     ByteArrayWrapper key = command.getKey();
 
-    Region<Integer, ByteArrayWrapper> keyRegion = getRegion(context, key);
-    if (keyRegion == null) {
+    RedisList list = getList(context, key);
+    if (list == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
       return;
     }
-    checkDataType(key, RedisDataType.REDIS_LIST, context);    
-    pushElements(key, commandElems, 2, 3, keyRegion, pushType(), context);
-    
-    int listSize = keyRegion.size() - LIST_EMPTY_SIZE;
+
+    int listSize;
+    synchronized (list) {
+      if (list.isRemoved()) {
+        command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
+        return;
+      }
+      pushElements(commandElems, 2, 3, list, pushType());
+      storeList(context, key, list);
+      listSize = list.size();
+    }
 
     command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), listSize));
   }
@@ -18,24 +18,89 @@ package com.gemstone.gemfire.internal.redis.executor.sortedset;
 
 import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
-import com.gemstone.gemfire.internal.redis.DoubleWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisDataTypeMismatchException;
+import com.gemstone.gemfire.internal.redis.RedisSortedSet;
 import com.gemstone.gemfire.internal.redis.executor.AbstractExecutor;
 
+/**
+ * Base of the sorted set executors. Every sorted set is a single {@link RedisSortedSet}
+ * value in the sorted sets {@link Region}. Executors that modify a sorted set
+ * do so while synchronized on it and then put it back so the change is
+ * distributed as a delta.
+ */
 public abstract class SortedSetExecutor extends AbstractExecutor {
 
-  @Override
-  protected Region<ByteArrayWrapper, DoubleWrapper> getOrCreateRegion(ExecutionHandlerContext context, ByteArrayWrapper key, RedisDataType type) {
-    @SuppressWarnings("unchecked")
-    Region<ByteArrayWrapper, DoubleWrapper> r = (Region<ByteArrayWrapper, DoubleWrapper>) context.getRegionProvider().getOrCreateRegion(key, type, context);
-    return r;
+  protected Region<ByteArrayWrapper, RedisSortedSet> getSortedSetsRegion(ExecutionHandlerContext context) {
+    return context.getRegionProvider().getSortedSetsRegion();
   }
-  
-  protected Region<ByteArrayWrapper, DoubleWrapper> getRegion(ExecutionHandlerContext context, ByteArrayWrapper key) {
-    @SuppressWarnings("unchecked")
-    Region<ByteArrayWrapper, DoubleWrapper> r = (Region<ByteArrayWrapper, DoubleWrapper>) context.getRegionProvider().getRegion(key);
-    return r;
+
+  /**
+   * Gets the sorted set of a key. Inside a transaction a copy is returned so
+   * that changes are not visible before the transaction commits.
+   * 
+   * @param context Client context
+   * @param key Key of the sorted set
+   * @return The sorted set or null if the key does not exist
+   */
+  protected RedisSortedSet getSortedSet(ExecutionHandlerContext context, ByteArrayWrapper key) {
+    checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
+    RedisSortedSet sortedSet = getSortedSetsRegion(context).get(key);
+    if (sortedSet != null && context.hasTransaction())
+      sortedSet = new RedisSortedSet(sortedSet);
+    return sortedSet;
   }
-  
+
+  /**
+   * Gets the sorted set of a key, creating an empty one if the key does not
+   * exist yet. The sorted set may be removed by a concurrent writer that
+   * emptied it, so callers must synchronize on it and get it again if it
+   * {@link RedisSortedSet#isRemoved() was removed}.
+   * 
+   * @param context Client context
+   * @param key Key of the sorted set
+   * @return The sorted set
+   */
+  protected RedisSortedSet getOrCreateSortedSet(ExecutionHandlerContext context, ByteArrayWrapper key) {
+    checkAndSetDataType(key, context);
+    RedisSortedSet sortedSet = getSortedSet(context, key);
+    if (sortedSet == null) {
+      RedisSortedSet newSortedSet = new RedisSortedSet();
+      sortedSet = getSortedSetsRegion(context).putIfAbsent(key, newSortedSet);
+      if (sortedSet == null) {
+        sortedSet = newSortedSet;
+        // the key may have been removed after it was first checked
+        checkAndSetDataType(key, context);
+      }
+    }
+    return sortedSet;
+  }
+
+  /**
+   * Stores a modified sorted set, or removes the key if the sorted set is empty.
+   * Callers must be synchronized on the sorted set. An empty sorted set is
+   * marked removed before the key is removed, so a writer that got it before
+   * the removal does not store it again once it synchronized on it.
+   * 
+   * @param context Client context
+   * @param key Key of the sorted set
+   * @param sortedSet The modified sorted set
+   */
+  protected void storeSortedSet(ExecutionHandlerContext context, ByteArrayWrapper key, RedisSortedSet sortedSet) {
+    if (sortedSet.isEmpty()) {
+      sortedSet.markRemoved();
+      context.getRegionProvider().removeKey(key, RedisDataType.REDIS_SORTEDSET);
+    } else
+      getSortedSetsRegion(context).put(key, sortedSet);
+  }
+
+  protected final void checkAndSetDataType(ByteArrayWrapper key, ExecutionHandlerContext context) {
+    Object oldVal = context.getRegionProvider().metaPutIfAbsent(key, RedisDataType.REDIS_SORTEDSET);
+    if (oldVal == RedisDataType.REDIS_PROTECTED)
+      throw new RedisDataTypeMismatchException("The key name \"" + key + "\" is protected");
+    if (oldVal != null && oldVal != RedisDataType.REDIS_SORTEDSET)
+      throw new RedisDataTypeMismatchException("The key name \"" + key + "\" is already used by a " + oldVal.toString());
+  }
+
 }
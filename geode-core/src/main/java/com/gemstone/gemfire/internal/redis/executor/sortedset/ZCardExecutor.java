@@ -18,14 +18,12 @@ package com.gemstone.gemfire.internal.redis.executor.sortedset;
 
 import java.util.List;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
-import com.gemstone.gemfire.internal.redis.DoubleWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
+import com.gemstone.gemfire.internal.redis.RedisSortedSet;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
 
 public class ZCardExecutor extends SortedSetExecutor {
 
@@ -42,13 +40,12 @@ public class ZCardExecutor extends SortedSetExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    Region<ByteArrayWrapper, DoubleWrapper> keyRegion = getRegion(context, key);
-    checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
+    RedisSortedSet sortedSet = getSortedSet(context, key);
 
-    if (keyRegion == null)
+    if (sortedSet == null)
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
     else
-      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), keyRegion.size()));
+      command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), sortedSet.size()));
 
   }
 }
@@ -18,17 +18,12 @@ package com.gemstone.gemfire.internal.redis.executor.sortedset;
 
 import java.util.List;
 
-import com.gemstone.gemfire.cache.Region;
-import com.gemstone.gemfire.cache.query.Query;
-import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
-import com.gemstone.gemfire.internal.redis.DoubleWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisSortedSet;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
-import com.gemstone.gemfire.internal.redis.executor.SortedSetQuery;
 
 public class ZLexCountExecutor extends SortedSetExecutor {
 
@@ -47,10 +42,9 @@ public class ZLexCountExecutor extends SortedSetExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    Region<ByteArrayWrapper, DoubleWrapper> keyRegion = getRegion(context, key);
-    checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
+    RedisSortedSet sortedSet = getSortedSet(context, key);
 
-    if (keyRegion == null) {
+    if (sortedSet == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
       return;
     }
@@ -85,59 +79,11 @@ public class ZLexCountExecutor extends SortedSetExecutor {
       return;
     }
 
+    ByteArrayWrapper min = minArray[0] == Coder.HYPHEN_ID ? null : Coder.stringToByteArrayWrapper(startString);
+    ByteArrayWrapper max = maxArray[0] == Coder.PLUS_ID ? null : Coder.stringToByteArrayWrapper(stopString);
 
-    int count;
-    try {
-      count = getCount(key, keyRegion, context, Coder.stringToByteArrayWrapper(startString), Coder.stringToByteArrayWrapper(stopString), minInclusive, maxInclusive);
-    } catch (Exception e) {
-      command.setResponse(Coder.getErrorResponse(context.getByteBufAllocator(), e.toString()));
-      return;
-    }
+    int count = sortedSet.countByLex(min, minInclusive, max, maxInclusive);
 
     command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), count));
   }
-
-  private int getCount(ByteArrayWrapper key, Region<ByteArrayWrapper, DoubleWrapper> keyRegion, ExecutionHandlerContext context, ByteArrayWrapper start, ByteArrayWrapper stop, boolean startInclusive, boolean stopInclusive) throws Exception {
-    if (start.equals("-") && stop.equals("+"))
-      return keyRegion.size();
-    else if (start.equals("+") || stop.equals("-"))
-      return 0;
-
-    Query query;
-    Object[] params;
-    if (start.equals("-")) {
-      if (stopInclusive) {
-        query = getQuery(key, SortedSetQuery.ZLEXCOUNTNINFI, context);
-      } else {
-        query = getQuery(key, SortedSetQuery.ZLEXCOUNTNINF, context);
-      }
-      params = new Object[]{stop};
-    } else if (stop.equals("+")) {
-      if (startInclusive) {
-        query = getQuery(key, SortedSetQuery.ZLEXCOUNTPINFI, context);
-      } else {
-        query = getQuery(key, SortedSetQuery.ZLEXCOUNTPINF, context);
-      }
-      params = new Object[]{start};
-    } else {
-      if (startInclusive) {
-        if(stopInclusive) {
-          query = getQuery(key, SortedSetQuery.ZLEXCOUNTSTISI, context);
-        } else {
-          query = getQuery(key, SortedSetQuery.ZLEXCOUNTSTI, context);
-        }
-      } else {
-        if (stopInclusive) {
-          query = getQuery(key, SortedSetQuery.ZLEXCOUNTSI, context);
-        } else {
-          query = getQuery(key, SortedSetQuery.ZLEXCOUNT, context);
-        }
-      }
-      params = new Object[]{start, stop};
-    }
-
-    SelectResults<?> results = (SelectResults<?>) query.execute(params);
-
-    return (Integer) results.asList().get(0);
-  }
 }
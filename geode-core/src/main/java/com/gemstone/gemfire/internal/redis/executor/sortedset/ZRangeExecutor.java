@@ -17,10 +17,8 @@
 package com.gemstone.gemfire.internal.redis.executor.sortedset;
 
 import java.util.List;
+import java.util.Map.Entry;
 
-import com.gemstone.gemfire.cache.Region;
-import com.gemstone.gemfire.cache.query.Query;
-import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
@@ -28,8 +26,7 @@ import com.gemstone.gemfire.internal.redis.DoubleWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.Extendable;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
-import com.gemstone.gemfire.internal.redis.executor.SortedSetQuery;
+import com.gemstone.gemfire.internal.redis.RedisSortedSet;
 
 public class ZRangeExecutor extends SortedSetExecutor implements Extendable {
 
@@ -54,10 +51,9 @@ public class ZRangeExecutor extends SortedSetExecutor implements Extendable {
 
     ByteArrayWrapper key = command.getKey();
 
-    checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
-    Region<ByteArrayWrapper, DoubleWrapper> keyRegion = getRegion(context, key);
+    RedisSortedSet sortedSet = getSortedSet(context, key);
 
-    if (keyRegion == null) {
+    if (sortedSet == null) {
       command.setResponse(Coder.getEmptyArrayResponse(context.getByteBufAllocator()));
       return;
     }
@@ -65,7 +61,7 @@ public class ZRangeExecutor extends SortedSetExecutor implements Extendable {
 
     int start;
     int stop;
-    int sSetSize = keyRegion.size();
+    int sSetSize = sortedSet.size();
 
     try {
       byte[] startArray = commandElems.get(2);
@@ -86,34 +82,11 @@ public class ZRangeExecutor extends SortedSetExecutor implements Extendable {
     }
     if (stop == sSetSize)
       stop--;
-    List<?> list;
-    try {
-      list = getRange(context, key, start, stop);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
+    List<Entry<ByteArrayWrapper, DoubleWrapper>> list = sortedSet.rangeByRank(start, stop, isReverse());
 
     command.setResponse(Coder.zRangeResponse(context.getByteBufAllocator(), list, withScores));
   }
 
-  private List<?> getRange(ExecutionHandlerContext context, ByteArrayWrapper key, int start, int stop) throws Exception {
-    Query query;
-
-    if (isReverse())
-      query = getQuery(key, SortedSetQuery.ZRANGE, context);
-    else
-      query = getQuery(key, SortedSetQuery.ZREVRANGE, context);
-
-    Object[] params = {stop + 1};
-
-    SelectResults<?> results = (SelectResults<?>) query.execute(params);
-
-    List<?> list = results.asList();
-
-    return list.subList(start, stop + 1);
-
-  }
-
   protected boolean isReverse() {
     return false;
   }
@@ -18,13 +18,11 @@ package com.gemstone.gemfire.internal.redis.executor.sortedset;
 
 import java.util.List;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
-import com.gemstone.gemfire.internal.redis.DoubleWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisSortedSet;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
 
 public class ZRemExecutor extends SortedSetExecutor {
@@ -40,25 +38,25 @@ public class ZRemExecutor extends SortedSetExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
-    Region<ByteArrayWrapper, DoubleWrapper> keyRegion = getRegion(context, key);
+    RedisSortedSet sortedSet = getSortedSet(context, key);
 
-    if (keyRegion == null) {
+    if (sortedSet == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), 0));
       return;
     }
 
     int numDeletedMembers = 0;
-    
-    for (int i = 2; i < commandElems.size(); i++) {
-      byte[] memberArray = commandElems.get(i);
-      ByteArrayWrapper member = new ByteArrayWrapper(memberArray);
-      Object oldVal = keyRegion.remove(member);
-      if (oldVal != null)
-        numDeletedMembers++;
+
+    synchronized (sortedSet) {
+      for (int i = 2; i < commandElems.size(); i++) {
+        byte[] memberArray = commandElems.get(i);
+        ByteArrayWrapper member = new ByteArrayWrapper(memberArray);
+        if (sortedSet.remove(member))
+          numDeletedMembers++;
+      }
+      if (numDeletedMembers > 0)
+        storeSortedSet(context, key, sortedSet);
     }
-    if (keyRegion.isEmpty())
-      context.getRegionProvider().removeKey(key);
     command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), numDeletedMembers));
   }
 }
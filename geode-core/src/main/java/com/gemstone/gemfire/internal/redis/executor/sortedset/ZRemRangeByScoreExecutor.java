@@ -16,22 +16,14 @@
  */
 package com.gemstone.gemfire.internal.redis.executor.sortedset;
 
-import java.util.Collection;
 import java.util.List;
-import java.util.Map.Entry;
 
-import com.gemstone.gemfire.cache.Region;
-import com.gemstone.gemfire.cache.query.Query;
-import com.gemstone.gemfire.cache.query.SelectResults;
-import com.gemstone.gemfire.cache.query.Struct;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
-import com.gemstone.gemfire.internal.redis.DoubleWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
-import com.gemstone.gemfire.internal.redis.executor.SortedSetQuery;
+import com.gemstone.gemfire.internal.redis.RedisSortedSet;
 
 public class ZRemRangeByScoreExecutor extends SortedSetExecutor {
 
@@ -50,10 +42,9 @@ public class ZRemRangeByScoreExecutor extends SortedSetExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
-    Region<ByteArrayWrapper, DoubleWrapper> keyRegion = getRegion(context, key);
+    RedisSortedSet sortedSet = getSortedSet(context, key);
 
-    if (keyRegion == null) {
+    if (sortedSet == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
       return;
     }
@@ -84,60 +75,12 @@ public class ZRemRangeByScoreExecutor extends SortedSetExecutor {
       return;
     }
 
-    int numRemoved = 0;
-
-    Collection<?> removeList = null;
-    try {
-      if (start == Double.NEGATIVE_INFINITY && stop == Double.POSITIVE_INFINITY && startInclusive && stopInclusive) {
-        numRemoved = keyRegion.size();
-        context.getRegionProvider().removeKey(key);
-      } else {
-        removeList = getKeys(context, key, keyRegion, start, stop, startInclusive, stopInclusive);
-      }
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
-
-    if (removeList != null) {
-      for (Object entry: removeList) {
-        ByteArrayWrapper remove = null;
-        if (entry instanceof Entry)
-          remove = (ByteArrayWrapper) ((Entry<?, ?>) entry).getKey();
-        else if (entry instanceof Struct)
-          remove = (ByteArrayWrapper) ((Struct) entry).getFieldValues()[0];
-        Object oldVal = keyRegion.remove(remove);
-        if (oldVal != null)
-          numRemoved++;
-        if (keyRegion.isEmpty())
-          context.getRegionProvider().removeKey(key);
-      }
+    int numRemoved;
+    synchronized (sortedSet) {
+      numRemoved = sortedSet.removeRangeByScore(start, startInclusive, stop, stopInclusive);
+      if (numRemoved > 0)
+        storeSortedSet(context, key, sortedSet);
     }
     command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), numRemoved));
   }
-
-  private Collection<?> getKeys(ExecutionHandlerContext context, ByteArrayWrapper key, Region<ByteArrayWrapper, DoubleWrapper> keyRegion, double start, double stop, boolean startInclusive, boolean stopInclusive) throws Exception {
-    if (start == Double.POSITIVE_INFINITY || stop == Double.NEGATIVE_INFINITY || (start > stop))
-      return null;
-
-    Query query;
-    Object[] params;
-    if (startInclusive) {
-      if(stopInclusive) {
-        query = getQuery(key, SortedSetQuery.ZRBSSTISI, context);
-      } else {
-        query = getQuery(key, SortedSetQuery.ZRBSSTI, context);
-      }
-    } else {
-      if (stopInclusive) {
-        query = getQuery(key, SortedSetQuery.ZRBSSI, context);
-      } else {
-        query = getQuery(key, SortedSetQuery.ZRBS, context);
-      }
-    }
-    params = new Object[]{start, stop, INFINITY_LIMIT};
-
-    SelectResults<?> results = (SelectResults<?>) query.execute(params);
-
-    return (Collection<?>) results.asList();
-  }
 }
@@ -18,14 +18,12 @@ package com.gemstone.gemfire.internal.redis.executor.sortedset;
 
 import java.util.List;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
-import com.gemstone.gemfire.internal.redis.DoubleWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
-import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.internal.redis.RedisSortedSet;
 
 public class ZScoreExecutor extends SortedSetExecutor {
 
@@ -41,19 +39,18 @@ public class ZScoreExecutor extends SortedSetExecutor {
     ByteArrayWrapper key = command.getKey();
     ByteArrayWrapper member = new ByteArrayWrapper(commandElems.get(2));
 
-    checkDataType(key, RedisDataType.REDIS_SORTEDSET, context);
-    Region<ByteArrayWrapper, DoubleWrapper> keyRegion = getRegion(context, key);
+    RedisSortedSet sortedSet = getSortedSet(context, key);
 
-    if (keyRegion == null) {
+    if (sortedSet == null) {
       command.setResponse(Coder.getNilResponse(context.getByteBufAllocator()));
       return;
     }
-    DoubleWrapper score = keyRegion.get(member);
+    Double score = sortedSet.getScore(member);
     if (score == null) {
       command.setResponse(Coder.getNilResponse(context.getByteBufAllocator()));
       return;
     }    
-    command.setResponse(Coder.getBulkStringResponse(context.getByteBufAllocator(), score.toString()));
+    command.setResponse(Coder.getBulkStringResponse(context.getByteBufAllocator(), Coder.doubleToString(score)));
   }
 
 }
@@ -224,6 +224,12 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
    */
   final boolean compareValues;
 
+  /**
+   * If true then {@link #getIntKey} and {@link #getLongKey} can hash and
+   * compare primitive keys without boxing them.
+   */
+  final boolean primitiveKeys;
+
   transient Set<K> keySet;
   transient Set<Map.Entry<K, V>> entrySet;
   transient Set<Map.Entry<K, V>> reusableEntrySet; // GemStone addition
@@ -239,7 +245,24 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
    * bits.
    */
   public static final int keyHash(final Object o, final boolean compareValues) {
-    int h = compareValues ? o.hashCode() : System.identityHashCode(o);
+    return spreadHash(compareValues ? o.hashCode() : System.identityHashCode(o));
+  }
+
+  /**
+   * Same as {@link #keyHash} for an Integer key without boxing it.
+   */
+  public static final int intKeyHash(final int key) {
+    return spreadHash(key);
+  }
+
+  /**
+   * Same as {@link #keyHash} for a Long key without boxing it.
+   */
+  public static final int longKeyHash(final long key) {
+    return spreadHash((int)(key ^ (key >>> 32)));
+  }
+
+  private static int spreadHash(int h) {
     // Spread bits to regularize both segment and index locations,
     // using variant of single-word Wang/Jenkins hash.
     h += (h << 15) ^ 0xffffcd7d;
@@ -416,6 +439,33 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
     public int keyHashCode(Object key, boolean compareValues);
   }
 
+  /**
+   * Marker for a {@link HashEntryCreator} whose
+   * {@link HashEntryCreator#keyHashCode} is {@link #keyHash}. Only maps using
+   * such a creator can look up int and long keys without boxing them.
+   */
+  public static interface DefaultKeyHashEntryCreator<K, V> extends
+      HashEntryCreator<K, V> {
+  }
+
+  /**
+   * Implemented by {@link HashEntry}s that store an int key inline so that
+   * {@link CustomEntryConcurrentHashMap#getIntKey} can compare it without
+   * creating an Integer.
+   */
+  public static interface IntKeyHashEntry {
+    boolean isKeyEqual(int k);
+  }
+
+  /**
+   * Implemented by {@link HashEntry}s that store a long key inline so that
+   * {@link CustomEntryConcurrentHashMap#getLongKey} can compare it without
+   * creating a Long.
+   */
+  public static interface LongKeyHashEntry {
+    boolean isKeyEqual(long k);
+  }
+
 // End GemStone addition
 
   /**
@@ -617,6 +667,63 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
       return null;
     }
 
+    /**
+     * Same as {@link #get(Object, int)} for an Integer key (if isIntKey) or a
+     * Long key given as a primitive.
+     */
+    final V getPrimitiveKey(final long key, final boolean isIntKey,
+        final int hash) {
+      if (this.count != 0) { // read-volatile
+        final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock
+            .readLock();
+        listLock.lock();
+        boolean lockAcquired = true;
+        HashEntry<K, V> e = getFirst(hash);
+        try {
+          while (e != null) {
+            if (e.getEntryHash() == hash
+                && primitiveKeyCompare(key, isIntKey, e)) {
+              final V v = e.getMapValue();
+              if (v != null) {
+                return v;
+              }
+              listLock.unlock();
+              lockAcquired = false;
+              return readValueUnderLock(e); // recheck
+            }
+            e = e.getNextEntry();
+          }
+        } finally {
+          if (lockAcquired) {
+            listLock.unlock();
+          }
+        }
+      }
+      return null;
+    }
+
+    private boolean primitiveKeyCompare(final long key,
+        final boolean isIntKey, final HashEntry<K, V> mapEntry) {
+      if (isIntKey) {
+        if (mapEntry instanceof IntKeyHashEntry) {
+          return ((IntKeyHashEntry)mapEntry).isKeyEqual((int)key);
+        }
+        if (mapEntry instanceof LongKeyHashEntry) {
+          return false;
+        }
+        return equalityKeyCompare(Integer.valueOf((int)key), mapEntry);
+      }
+      else {
+        if (mapEntry instanceof LongKeyHashEntry) {
+          return ((LongKeyHashEntry)mapEntry).isKeyEqual(key);
+        }
+        if (mapEntry instanceof IntKeyHashEntry) {
+          return false;
+        }
+        return equalityKeyCompare(Long.valueOf(key), mapEntry);
+      }
+    }
+
     final V getNoLock(final Object key, final int hash,
         final boolean lockListForRead) {
       if (this.count != 0) { // read-volatile
@@ -1289,6 +1396,7 @@ RETRYLOOP:
     }
     if (!isIdentityMap) {
       this.compareValues = true;
+      this.primitiveKeys = entryCreator instanceof DefaultKeyHashEntryCreator;
       this.segments = Segment.newArray(ssize);
       this.entryCreator = entryCreator;
       for (int i = 0; i < ssize; ++i) {
@@ -1297,6 +1405,7 @@ RETRYLOOP:
     }
     else {
       this.compareValues = false;
+      this.primitiveKeys = false;
       this.segments = IdentitySegment.newArray(ssize);
       this.entryCreator = entryCreator;
       for (int i = 0; i < ssize; ++i) {
@@ -1307,7 +1416,7 @@ RETRYLOOP:
   }
 
   static final class DefaultHashEntryCreator<K, V> implements
-      HashEntryCreator<K, V>, Serializable {
+      DefaultKeyHashEntryCreator<K, V>, Serializable {
 
     private static final long serialVersionUID = 3765680607280951726L;
 
@@ -1501,6 +1610,34 @@ RETRYLOOP:
     return segmentFor(hash).get(key, hash);
   }
 
+  /**
+   * Same as {@link #get(Object)} for an Integer key but without boxing it when
+   * this map hashes keys with {@link #keyHash} and compares them by equality.
+   * Entries implementing {@link IntKeyHashEntry} are compared without creating
+   * an Integer.
+   */
+  public final V getIntKey(final int key) {
+    if (!this.primitiveKeys) {
+      return get(Integer.valueOf(key));
+    }
+    final int hash = intKeyHash(key);
+    return segmentFor(hash).getPrimitiveKey(key, true, hash);
+  }
+
+  /**
+   * Same as {@link #get(Object)} for a Long key but without boxing it when
+   * this map hashes keys with {@link #keyHash} and compares them by equality.
+   * Entries implementing {@link LongKeyHashEntry} are compared without
+   * creating a Long.
+   */
+  public final V getLongKey(final long key) {
+    if (!this.primitiveKeys) {
+      return get(Long.valueOf(key));
+    }
+    final int hash = longKeyHash(key);
+    return segmentFor(hash).getPrimitiveKey(key, false, hash);
+  }
+
   /**
    * Tests if the specified object is a key in this table.
    * 
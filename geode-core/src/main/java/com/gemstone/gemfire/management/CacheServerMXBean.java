@@ -403,4 +403,13 @@ public interface CacheServerMXBean {
    */
   public ClientQueueDetail showClientQueueDetails(String clientId) throws Exception;
 
+  /**
+   * Returns the latency percentiles of each kind of client request this
+   * server has processed, taken from the ServerOperationLatency statistics.
+   * Returns an empty array if latencies are not being recorded.
+   *
+   * @since Geode 1.0
+   */
+  public OperationLatency[] showOperationLatencies();
+
 }
@@ -401,6 +401,16 @@ public interface MemberMXBean {
    */
   public String[] fetchJvmThreads();
 
+  /**
+   * Returns the latency percentiles of each kind of operation the client
+   * pools in this member have sent to servers, taken from the
+   * ClientOperationLatency statistics. Operation names are prefixed with the
+   * name of the pool.
+   *
+   * @since Geode 1.0
+   */
+  public OperationLatency[] showClientOperationLatencies();
+
   /**
    * Returns the maximum number of open file descriptors allowed for the member's
    * host operating system.
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.management;
+
+/**
+ * Latency of one kind of client/server operation, taken from the latency
+ * histogram kept for it. Percentiles are upper bounds of the histogram
+ * bucket the percentile falls in, so they may be up to 50% higher than the
+ * actual latency.
+ *
+ * @since Geode 1.0
+ */
+public class OperationLatency {
+
+  /**
+   * Name of the operation, for example GetOp on a client or Get70 on a server
+   */
+  private String operation;
+
+  /**
+   * Number of operations recorded.
+   */
+  private long count;
+
+  /**
+   * Total time, in nanoseconds, spent in the operations recorded.
+   */
+  private long totalTime;
+
+  /**
+   * Latency, in nanoseconds, that half of the operations did not exceed.
+   */
+  private long p50;
+
+  /**
+   * Latency, in nanoseconds, that 90% of the operations did not exceed.
+   */
+  private long p90;
+
+  /**
+   * Latency, in nanoseconds, that 99% of the operations did not exceed.
+   */
+  private long p99;
+
+  /**
+   * Latency, in nanoseconds, that 99.9% of the operations did not exceed.
+   */
+  private long p999;
+
+  public String getOperation() {
+    return operation;
+  }
+
+  public void setOperation(String operation) {
+    this.operation = operation;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  public long getTotalTime() {
+    return totalTime;
+  }
+
+  public void setTotalTime(long totalTime) {
+    this.totalTime = totalTime;
+  }
+
+  public long getP50() {
+    return p50;
+  }
+
+  public void setP50(long p50) {
+    this.p50 = p50;
+  }
+
+  public long getP90() {
+    return p90;
+  }
+
+  public void setP90(long p90) {
+    this.p90 = p90;
+  }
+
+  public long getP99() {
+    return p99;
+  }
+
+  public void setP99(long p99) {
+    this.p99 = p99;
+  }
+
+  public long getP999() {
+    return p999;
+  }
+
+  public void setP999(long p999) {
+    this.p999 = p999;
+  }
+
+  @Override
+  public String toString() {
+    return "OperationLatency [operation=" + operation + ", count=" + count + ", totalTime=" + totalTime + ", p50=" + p50
+        + ", p90=" + p90 + ", p99=" + p99 + ", p999=" + p999 + "]";
+  }
+
+}
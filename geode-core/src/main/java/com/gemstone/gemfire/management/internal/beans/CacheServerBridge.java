@@ -48,6 +48,7 @@ import com.gemstone.gemfire.internal.admin.ClientHealthMonitoringRegion;
 import com.gemstone.gemfire.internal.admin.remote.ClientHealthStats;
 import com.gemstone.gemfire.internal.cache.CacheServerImpl;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.OperationLatencyStats;
 import com.gemstone.gemfire.internal.cache.ha.HARegionQueue;
 import com.gemstone.gemfire.internal.cache.tier.InternalClientMembership;
 import com.gemstone.gemfire.internal.cache.tier.sockets.AcceptorImpl;
@@ -60,6 +61,7 @@ import com.gemstone.gemfire.internal.process.PidUnavailableException;
 import com.gemstone.gemfire.internal.process.ProcessUtils;
 import com.gemstone.gemfire.management.ClientHealthStatus;
 import com.gemstone.gemfire.management.ClientQueueDetail;
+import com.gemstone.gemfire.management.OperationLatency;
 import com.gemstone.gemfire.management.ServerLoadData;
 import com.gemstone.gemfire.management.internal.ManagementConstants;
 import com.gemstone.gemfire.management.internal.beans.stats.StatType;
@@ -686,6 +688,14 @@ public class CacheServerBridge extends ServerBridge{
   /**
    * @return Client Queue Details for all clients
    */
+  public OperationLatency[] getOperationLatencies() {
+    OperationLatencyStats latencyStats = acceptor == null ? null : acceptor.getLatencyStats();
+    if (latencyStats == null) {
+      return new OperationLatency[0];
+    }
+    return latencyStats.getLatencies();
+  }
+
   public ClientQueueDetail[] getClientQueueDetails() throws Exception {
     List<ClientQueueDetail> clientQueueDetailList = null;
     try {
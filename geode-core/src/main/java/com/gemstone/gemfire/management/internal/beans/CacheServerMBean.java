@@ -21,6 +21,7 @@ import javax.management.NotificationBroadcasterSupport;
 import com.gemstone.gemfire.management.CacheServerMXBean;
 import com.gemstone.gemfire.management.ClientHealthStatus;
 import com.gemstone.gemfire.management.ClientQueueDetail;
+import com.gemstone.gemfire.management.OperationLatency;
 import com.gemstone.gemfire.management.ServerLoadData;
 
 /**
@@ -313,4 +314,9 @@ public class CacheServerMBean extends NotificationBroadcasterSupport implements
   public ClientQueueDetail showClientQueueDetails(String clientId) throws Exception{
     return bridge.getClientQueueDetail(clientId);
   }
+
+  @Override
+  public OperationLatency[] showOperationLatencies() {
+    return bridge.getOperationLatencies();
+  }
 }
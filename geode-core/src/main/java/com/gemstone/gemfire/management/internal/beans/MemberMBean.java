@@ -26,6 +26,7 @@ import com.gemstone.gemfire.management.GemFireProperties;
 import com.gemstone.gemfire.management.JVMMetrics;
 import com.gemstone.gemfire.management.MemberMXBean;
 import com.gemstone.gemfire.management.OSMetrics;
+import com.gemstone.gemfire.management.OperationLatency;
 import com.gemstone.gemfire.management.internal.cli.remote.CommandExecutionContext;
 
 /**
@@ -160,6 +161,11 @@ public class MemberMBean extends NotificationBroadcasterSupport implements
     return bridge.fetchJvmThreads();
   }
 
+  @Override
+  public OperationLatency[] showClientOperationLatencies() {
+    return bridge.getClientOperationLatencies();
+  }
+
   @Override
   public String[] listRegions() {
     return bridge.getListOfRegions();
@@ -21,6 +21,9 @@ import com.gemstone.gemfire.StatisticsType;
 import com.gemstone.gemfire.cache.CacheClosedException;
 import com.gemstone.gemfire.cache.DiskStore;
 import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.client.Pool;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
 import com.gemstone.gemfire.cache.execute.FunctionService;
 import com.gemstone.gemfire.cache.persistence.PersistentID;
 import com.gemstone.gemfire.cache.wan.GatewayReceiver;
@@ -1248,6 +1251,24 @@ public class MemberMBeanBridge {
     return runtime.availableProcessors();
   }
 
+  /**
+   * 
+   * @return latencies of the operations sent by the client pools in this member
+   */
+  public OperationLatency[] getClientOperationLatencies() {
+    List<OperationLatency> latencies = new ArrayList<OperationLatency>();
+    for (Pool pool : PoolManager.getAll().values()) {
+      OperationLatencyStats latencyStats = pool instanceof PoolImpl ? ((PoolImpl)pool).getLatencyStats() : null;
+      if (latencyStats != null) {
+        for (OperationLatency latency : latencyStats.getLatencies()) {
+          latency.setOperation(pool.getName() + ":" + latency.getOperation());
+          latencies.add(latency);
+        }
+      }
+    }
+    return latencies.toArray(new OperationLatency[latencies.size()]);
+  }
+
   /**
    * 
    * @return JVM thread list
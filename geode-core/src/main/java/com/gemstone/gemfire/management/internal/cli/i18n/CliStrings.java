@@ -341,7 +341,7 @@ public class CliStrings {
 
   /* 'compact offline-disk-store' command */
   public static final String COMPACT_OFFLINE_DISK_STORE = "compact offline-disk-store";
-  public static final String COMPACT_OFFLINE_DISK_STORE__HELP = "Compact an offline disk store. If the disk store is large, additional memory may need to be allocated to the process using the --J=-Xmx??? parameter.";
+  public static final String COMPACT_OFFLINE_DISK_STORE__HELP = "Compact an offline disk store. If the disk store is large, additional memory may need to be allocated to the process using the --J=-Xmx??? parameter. Oplogs are also rewritten when they are not in the value format selected with --J=-Dgemfire.disk.checksumValues=true, so this converts a disk store to or from checksummed values.";
   public static final String COMPACT_OFFLINE_DISK_STORE__NAME = "name";
   public static final String COMPACT_OFFLINE_DISK_STORE__NAME__HELP = "Name of the offline disk store to be compacted.";
   public static final String COMPACT_OFFLINE_DISK_STORE__DISKDIRS = "disk-dirs";
@@ -1961,7 +1961,7 @@ public class CliStrings {
 
   /* 'validate disk-store' command */
   public static final String VALIDATE_DISK_STORE = "validate offline-disk-store";
-  public static final String VALIDATE_DISK_STORE__HELP = "Scan the contents of a disk store to verify that it has no errors.";
+  public static final String VALIDATE_DISK_STORE__HELP = "Scan the contents of a disk store to verify that it has no errors. The checksums of values in checksummed oplogs are verified as well.";
   public static final String VALIDATE_DISK_STORE__NAME = "name";
   public static final String VALIDATE_DISK_STORE__NAME__HELP = "Name of the disk store to be validated.";
   public static final String VALIDATE_DISK_STORE__DISKDIRS = "disk-dirs";
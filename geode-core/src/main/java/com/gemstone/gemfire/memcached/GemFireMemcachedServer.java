@@ -16,17 +16,21 @@
  */
 package com.gemstone.gemfire.memcached;
 
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.net.UnknownHostException;
-import java.nio.channels.ClosedByInterruptException;
-import java.nio.channels.ServerSocketChannel;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -39,6 +43,7 @@ import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.internal.SocketCreator;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.memcached.ConnectionHandler;
+import com.gemstone.gemfire.internal.memcached.RequestDecoder;
 
 /**
  * This is the Server that listens for incoming memcached client connections.
@@ -51,6 +56,10 @@ import com.gemstone.gemfire.internal.memcached.ConnectionHandler;
  * <p>
  * "gemcached" region is {@link RegionShortcut#PARTITION} by default,
  * though a cache.xml can be provided to override region attributes.
+ * <p>
+ * Client connections are served by a fixed pool of non-blocking
+ * worker threads, the size of which can be set with the system property
+ * {@value #NUM_THREADS_SYS_PROP_NAME}.
  * 
  * This class has a Main method that can be used to
  * start the server.
@@ -92,30 +101,35 @@ public class GemFireMemcachedServer {
   private final int DEFAULT_PORT = 11212;
 
   /**
-   * the thread executor pool to handle requests from clients.
-   * We create one thread for each client.
+   * System property name that can be used to set the number of threads
+   * handling requests from clients, 4 * the number of cores by default
    */
-  private ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
-    private final AtomicInteger counter = new AtomicInteger();
-    @Override
-    public Thread newThread(Runnable r) {
-      Thread t = new Thread(r);
-      t.setName("Gemcached-"+counter.incrementAndGet());
-      t.setDaemon(true);
-      return t;
-    }
-  });
+  public static final String NUM_THREADS_SYS_PROP_NAME = "gemcached.numthreads";
+
+  private static final int NUM_WORKER_THREADS = Integer.getInteger(NUM_THREADS_SYS_PROP_NAME,
+      4 * Runtime.getRuntime().availableProcessors());
 
   /**
-   * GemFire cache where data will be stored
+   * the thread that accepts client connections
    */
-  private Cache cache;
-  
+  private EventLoopGroup bossGroup;
+
+  /**
+   * the threads that handle requests from clients, each
+   * serving many clients
+   */
+  private EventLoopGroup workerGroup;
+
   /**
-   * thread that listens for client connections
+   * the channel listening for client connections
    */
-  private Thread acceptor;
+  private Channel serverChannel;
 
+  /**
+   * GemFire cache where data will be stored
+   */
+  private Cache cache;
+  
   /**
    * The protocol that this server understands, ASCII by default
    */
@@ -184,41 +198,44 @@ public class GemFireMemcachedServer {
   }
   
   private void startMemcachedServer() throws IOException, InterruptedException {
-    ServerSocketChannel channel = ServerSocketChannel.open();
-    final ServerSocket serverSocket = channel.socket();
-    serverSocket.setReceiveBufferSize(getSocketBufferSize());
-    serverSocket.setReuseAddress(true);
-    serverSocket.bind(new InetSocketAddress(getBindAddress(), serverPort));
+    bossGroup = new NioEventLoopGroup(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "AcceptorThread");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    workerGroup = new NioEventLoopGroup(NUM_WORKER_THREADS, new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r);
+        t.setName("Gemcached-"+counter.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    ServerBootstrap b = new ServerBootstrap();
+    b.group(bossGroup, workerGroup)
+    .channel(NioServerSocketChannel.class)
+    .childHandler(new ChannelInitializer<SocketChannel>() {
+      @Override
+      public void initChannel(SocketChannel ch) throws Exception {
+        ChannelPipeline p = ch.pipeline();
+        p.addLast(RequestDecoder.class.getSimpleName(), new RequestDecoder(protocol));
+        p.addLast(ConnectionHandler.class.getSimpleName(), new ConnectionHandler(cache, protocol));
+      }
+    })
+    .option(ChannelOption.SO_REUSEADDR, true)
+    .option(ChannelOption.SO_RCVBUF, getSocketBufferSize())
+    .childOption(ChannelOption.SO_KEEPALIVE, SocketCreator.ENABLE_TCP_KEEP_ALIVE)
+    .childOption(ChannelOption.TCP_NODELAY, true)
+    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
     if (logger.fineEnabled()) {
       logger.fine("GemFireMemcachedServer configured socket buffer size:"+getSocketBufferSize());
     }
-    final CountDownLatch latch = new CountDownLatch(1);
-    acceptor = new Thread(new Runnable() {
-      public void run() {
-        for (;;) {
-          Socket s = null;
-          try {
-            latch.countDown();
-            s = serverSocket.accept();
-            s.setKeepAlive(SocketCreator.ENABLE_TCP_KEEP_ALIVE);
-            handleNewClient(s);
-          } catch (ClosedByInterruptException e) {
-            try {
-              serverSocket.close();
-            } catch (IOException e1) {
-              e1.printStackTrace();
-            }
-            break;
-          } catch (IOException e) {
-            e.printStackTrace();
-            break;
-          }
-        }
-      }
-    }, "AcceptorThread");
-    acceptor.setDaemon(true);
-    acceptor.start();
-    latch.await();
+    this.serverChannel = b.bind(new InetSocketAddress(getBindAddress(), serverPort)).sync().channel();
     logger.config("GemFireMemcachedServer server started on host:"+SocketCreator.getLocalHost()+" port: "+this.serverPort);
   }
   
@@ -233,20 +250,20 @@ public class GemFireMemcachedServer {
     return system.getConfig().getSocketBufferSize();
   }
 
-  private void handleNewClient(Socket s) {
-    ConnectionHandler connHandler = new ConnectionHandler(s, cache, protocol);
-    executor.execute(connHandler);
-  }
-
   /**
    * shuts down this server and closes the embedded
    * GemFire caching node
    */
   public void shutdown() {
-    if (acceptor != null) {
-      this.acceptor.interrupt();
+    if (this.serverChannel != null) {
+      this.serverChannel.close().syncUninterruptibly();
+    }
+    if (this.bossGroup != null) {
+      this.bossGroup.shutdownGracefully();
+    }
+    if (this.workerGroup != null) {
+      this.workerGroup.shutdownGracefully().syncUninterruptibly();
     }
-    this.executor.shutdownNow();
     this.cache.close();
   }
   
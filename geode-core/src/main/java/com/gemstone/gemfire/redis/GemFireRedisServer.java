@@ -53,16 +53,22 @@ import java.util.concurrent.atomic.AtomicInteger;
  * or started through the provided static main class.
  * <p>
  * Each Redis data type instance is stored in a separate {@link Region} except
- * for the Strings and HyperLogLogs which are collectively stored in one Region
- * respectively. That Region along with a meta data region used internally are 
- * protected so the client may not store keys with the name {@link GemFireRedisServer#REDIS_META_DATA_REGION}
- * or {@link GemFireRedisServer#STRING_REGION}. The default Region type is 
+ * for the Strings, HyperLogLogs, SortedSets and Lists which are collectively stored in one Region
+ * respectively. Those Regions along with a meta data region used internally are 
+ * protected so the client may not store keys with the name {@link GemFireRedisServer#REDIS_META_DATA_REGION},
+ * {@link GemFireRedisServer#STRING_REGION}, {@link GemFireRedisServer#HLL_REGION},
+ * {@link GemFireRedisServer#SORTEDSET_REGION} or {@link GemFireRedisServer#LIST_REGION}. The default Region type is 
  * {@link RegionShortcut#PARTITION} although this can be changed by specifying the
  * SystemProperty {@value #DEFAULT_REGION_SYS_PROP_NAME} to a type defined by {@link RegionShortcut}.
  * If the {@link GemFireRedisServer#NUM_THREADS_SYS_PROP_NAME} system property is set to 0,
  * one thread per client will be created. Otherwise a worker thread pool of specified size is
  * used or a default size of 4 * {@link Runtime#availableProcessors()} if the property is not set.
  * <p>
+ * Commands pipelined by a client are executed as a batch and answered with a single flush.
+ * If the {@link GemFireRedisServer#PIPELINE_THREADS_SYS_PROP_NAME} system property is set to
+ * a positive number, a pool of that size is used to execute the commands of a batch on
+ * distinct keys in parallel.
+ * <p>
  * Setting the AUTH password requires setting the property "redis-password" just as "redis-port"
  * would be in xml or through GFSH.
  * <p>
@@ -192,6 +198,12 @@ public class GemFireRedisServer {
   private final static int numExpirationThreads = 1;
   private final ScheduledExecutorService expirationExecutor;
 
+  /**
+   * Pool used to execute pipelined commands on distinct keys in parallel,
+   * null if disabled
+   */
+  private final ExecutorService pipelineExecutor;
+
   /**
    * Map of futures to be executed for key expirations
    */
@@ -210,6 +222,18 @@ public class GemFireRedisServer {
    */
   public static final String HLL_REGION = "__HlL";
 
+  /**
+   * The field that defines the name of the {@link Region} which holds all of
+   * the SortedSets. The current value of this field is {@value #SORTEDSET_REGION}.
+   */
+  public static final String SORTEDSET_REGION = "__SoRtEdSeT";
+
+  /**
+   * The field that defines the name of the {@link Region} which holds all of
+   * the Lists. The current value of this field is {@value #LIST_REGION}.
+   */
+  public static final String LIST_REGION = "__LiSt";
+
   /**
    * The field that defines the name of the {@link Region} which holds all of
    * the Redis meta data. The current value of this field is {@value #REDIS_META_DATA_REGION}.
@@ -230,6 +254,13 @@ public class GemFireRedisServer {
    */
   public static final String NUM_THREADS_SYS_PROP_NAME = "gemfireredis.numthreads";
 
+  /**
+   * System property name that can be used to set the number of threads used
+   * to execute pipelined commands on distinct keys in parallel. Parallel
+   * execution is disabled by default
+   */
+  public static final String PIPELINE_THREADS_SYS_PROP_NAME = "gemfireredis.pipelinethreads";
+
   /**
    * The actual {@link RegionShortcut} type specified by the system property
    * {@value #DEFAULT_REGION_SYS_PROP_NAME}.
@@ -278,6 +309,34 @@ public class GemFireRedisServer {
     return threads;
   }
 
+  /**
+   * Helper method to create the pipeline executor
+   * 
+   * @return A pool with as many threads as set by the System property {@value #PIPELINE_THREADS_SYS_PROP_NAME},
+   * null if the property is not set or not a positive number
+   */
+  private static ExecutorService createPipelineExecutor() {
+    int threads;
+    try {
+      threads = Integer.parseInt(System.getProperty(PIPELINE_THREADS_SYS_PROP_NAME, "0"));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if (threads <= 0)
+      return null;
+    return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r);
+        t.setName("GemFireRedisServer-PipelineThread-" + counter.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+
+    });
+  }
+
   /**
    * Constructor for {@link GemFireRedisServer} that will start the
    * server on the given port and bind to the first non-loopback address
@@ -334,6 +393,7 @@ public class GemFireRedisServer {
       }
 
     });
+    this.pipelineExecutor = createPipelineExecutor();
     this.DEFAULT_REGION_TYPE = setRegionType();
     this.shutdown = false;
     this.started = false;
@@ -399,19 +459,29 @@ public class GemFireRedisServer {
       rfMeta.addCacheListener(this.metaListener);
       RegionFactory<ByteArrayWrapper, ByteArrayWrapper> rfString = cache.createRegionFactory(DEFAULT_REGION_TYPE);
       RegionFactory<ByteArrayWrapper, HyperLogLogPlus> rfHLL = cache.createRegionFactory(DEFAULT_REGION_TYPE);
+      RegionFactory<ByteArrayWrapper, RedisSortedSet> rfSortedSet = cache.createRegionFactory(DEFAULT_REGION_TYPE);
+      RegionFactory<ByteArrayWrapper, RedisList> rfList = cache.createRegionFactory(DEFAULT_REGION_TYPE);
       Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion;
       if ((stringsRegion = this.cache.getRegion(STRING_REGION)) == null)
         stringsRegion = rfString.create(GemFireRedisServer.STRING_REGION);
       Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion;
       if ((hLLRegion = this.cache.getRegion(HLL_REGION)) == null)
         hLLRegion = rfHLL.create(HLL_REGION);
+      Region<ByteArrayWrapper, RedisSortedSet> sortedSetsRegion;
+      if ((sortedSetsRegion = this.cache.getRegion(SORTEDSET_REGION)) == null)
+        sortedSetsRegion = rfSortedSet.create(SORTEDSET_REGION);
+      Region<ByteArrayWrapper, RedisList> listsRegion;
+      if ((listsRegion = this.cache.getRegion(LIST_REGION)) == null)
+        listsRegion = rfList.create(LIST_REGION);
       Region<String, RedisDataType> redisMetaData;
       if ((redisMetaData = this.cache.getRegion(REDIS_META_DATA_REGION)) == null)
         redisMetaData = rfMeta.create(REDIS_META_DATA_REGION);
-      this.regionCache = new RegionProvider(stringsRegion, hLLRegion, redisMetaData, expirationFutures, expirationExecutor, this.DEFAULT_REGION_TYPE);
+      this.regionCache = new RegionProvider(stringsRegion, hLLRegion, sortedSetsRegion, listsRegion, redisMetaData, expirationFutures, expirationExecutor, this.DEFAULT_REGION_TYPE);
       redisMetaData.put(REDIS_META_DATA_REGION, RedisDataType.REDIS_PROTECTED);
       redisMetaData.put(HLL_REGION, RedisDataType.REDIS_PROTECTED);
       redisMetaData.put(STRING_REGION, RedisDataType.REDIS_PROTECTED);
+      redisMetaData.put(SORTEDSET_REGION, RedisDataType.REDIS_PROTECTED);
+      redisMetaData.put(LIST_REGION, RedisDataType.REDIS_PROTECTED);
     }
     checkForRegions();
   }
@@ -422,7 +492,27 @@ public class GemFireRedisServer {
       String regionName = entry.getKey();
       RedisDataType type = entry.getValue();
       Region<?, ?> newRegion = cache.getRegion(regionName);
-      if (newRegion == null && type != RedisDataType.REDIS_STRING && type != RedisDataType.REDIS_HLL && type != RedisDataType.REDIS_PROTECTED) {
+      if (type == RedisDataType.REDIS_SORTEDSET) {
+        if (newRegion != null) {
+          // Sorted set stored in a Region of its own by an older version
+          try {
+            this.regionCache.migrateSortedSetRegion(Coder.stringToByteArrayWrapper(regionName), newRegion);
+          } catch (Exception e) {
+            if (logger.errorEnabled())
+              logger.error(e);
+          }
+        }
+      } else if (type == RedisDataType.REDIS_LIST) {
+        if (newRegion != null) {
+          // List stored in a Region of its own by an older version
+          try {
+            this.regionCache.migrateListRegion(Coder.stringToByteArrayWrapper(regionName), newRegion);
+          } catch (Exception e) {
+            if (logger.errorEnabled())
+              logger.error(e);
+          }
+        }
+      } else if (newRegion == null && type != RedisDataType.REDIS_STRING && type != RedisDataType.REDIS_HLL && type != RedisDataType.REDIS_PROTECTED) {
         try {
           this.regionCache.createRemoteRegionReferenceLocally(Coder.stringToByteArrayWrapper(regionName), type);
         } catch (Exception e) {
@@ -513,9 +603,8 @@ public class GemFireRedisServer {
 
   /**
    * Takes an entry event and processes it. If the entry denotes that a
-   * {@link RedisDataType#REDIS_LIST} or {@link RedisDataType#REDIS_SORTEDSET}
-   * was created then this function will call the necessary calls to create the 
-   * parameterized queries for those keys.
+   * key stored in a {@link Region} of its own was created then this function
+   * will get a local reference to that Region.
    * 
    * @param event EntryEvent from meta data region
    */
@@ -523,7 +612,7 @@ public class GemFireRedisServer {
     if (event.isOriginRemote()) {
       final String key = (String) event.getKey();
       final RedisDataType value = event.getNewValue();
-      if (value != RedisDataType.REDIS_STRING && value != RedisDataType.REDIS_HLL && value != RedisDataType.REDIS_PROTECTED) {
+      if (value != RedisDataType.REDIS_STRING && value != RedisDataType.REDIS_HLL && value != RedisDataType.REDIS_SORTEDSET && value != RedisDataType.REDIS_LIST && value != RedisDataType.REDIS_PROTECTED) {
         try {
           this.regionCache.createRemoteRegionReferenceLocally(Coder.stringToByteArrayWrapper(key), value);
         } catch (RegionDestroyedException ignore) { // Region already destroyed, ignore
@@ -533,15 +622,15 @@ public class GemFireRedisServer {
   }
 
   /**
-   * When a key is removed then this function will make sure the associated
-   * queries with the key are also removed from each vm to avoid unnecessary
+   * When a key is removed then this function will make sure the local
+   * reference to its Region is also removed from each vm to avoid unnecessary
    * data retention
    */
   private void afterKeyDestroy(EntryEvent<String, RedisDataType> event) {
     if (event.isOriginRemote()) {
       final String key = (String) event.getKey();
       final RedisDataType value = event.getOldValue();
-      if (value != null && value != RedisDataType.REDIS_STRING && value != RedisDataType.REDIS_HLL && value != RedisDataType.REDIS_PROTECTED) {
+      if (value != null && value != RedisDataType.REDIS_STRING && value != RedisDataType.REDIS_HLL && value != RedisDataType.REDIS_SORTEDSET && value != RedisDataType.REDIS_LIST && value != RedisDataType.REDIS_PROTECTED) {
         ByteArrayWrapper kW = Coder.stringToByteArrayWrapper(key);
         Region<?, ?> r = this.regionCache.getRegion(kW);
         if (r != null) { 
@@ -575,6 +664,15 @@ public class GemFireRedisServer {
     return system.getConfig().getSocketBufferSize();
   }
 
+  /**
+   * Getter for the pool executing pipelined commands in parallel
+   * 
+   * @return The pool, null if parallel pipeline execution is disabled
+   */
+  public ExecutorService getPipelineExecutor() {
+    return this.pipelineExecutor;
+  }
+
   /**
    * Shutdown method for {@link GemFireRedisServer}. This closes the {@link Cache},
    * interrupts all execution and forcefully closes all connections.
@@ -596,6 +694,8 @@ public class GemFireRedisServer {
         f.cancel(true);
       this.expirationFutures.clear();
       this.expirationExecutor.shutdownNow();
+      if (this.pipelineExecutor != null)
+        this.pipelineExecutor.shutdownNow();
       closeFuture.syncUninterruptibly();
       shutdown = true;
     }
@@ -268,6 +268,7 @@ public class AutoConnectionSourceImplJUnitTest {
     public boolean getThreadLocalConnections() {return false;}
     public boolean getSubscriptionEnabled() {return false;}
     public boolean getPRSingleHopEnabled() {return false;}
+    public boolean getValueCompression() {return false;}
     public int getSubscriptionRedundancy() {return 0;}
     public int getSubscriptionMessageTrackingTimeout() {return 0;}
     public String getServerGroup() {return "";}
@@ -37,6 +37,7 @@ import org.junit.experimental.categories.Category;
 import com.gemstone.gemfire.CancelCriterion;
 import com.gemstone.gemfire.LogWriter;
 import com.gemstone.gemfire.cache.client.NoAvailableServersException;
+import com.gemstone.gemfire.cache.client.ServerBusyException;
 import com.gemstone.gemfire.cache.client.ServerConnectivityException;
 import com.gemstone.gemfire.cache.client.ServerOperationException;
 import com.gemstone.gemfire.cache.client.internal.pooling.ConnectionManager;
@@ -239,6 +240,34 @@ public class OpExecutorImplJUnitTest {
     assertEquals(11, serverCrashes);
   }
 
+  @Test
+  public void testShedRequestIsRetriedOnEveryServer() throws Exception {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 0, 10, false, cancelCriterion, null);
+
+    manager.numServers = 3;
+    try {
+      exec.execute(new Op() {
+        @Override
+        public Object attempt(Connection cnx) throws Exception {
+          throw new ServerOperationException(new ServerBusyException("busy"));
+        }
+        @Override
+        public boolean useThreadLocalConnection() {
+          return false;
+        }
+      });
+      fail("Should have got an exception");
+    } catch(ServerBusyException expected) {
+      //do nothing
+    }
+    // the busy servers' connections are kept
+    assertEquals(3, borrows);
+    assertEquals(0, exchanges);
+    assertEquals(3, returns);
+    assertEquals(0, invalidateConnections);
+    assertEquals(0, serverCrashes);
+  }
+
   @Test
   public void testExecuteOn() throws Exception {
     OpExecutorImpl exec = new OpExecutorImpl(manager,queueManager, endpointManager, riTracker, 3, 10, false, cancelCriterion, null);
@@ -464,6 +493,15 @@ public class OpExecutorImplJUnitTest {
       return new DummyConnection(server);
     }
 
+    @Override
+    public Connection borrowConnection(Set excludedServers, long aquireTimeout) {
+      if(excludedServers.size() >= numServers) {
+        throw new NoAvailableServersException();
+      }
+      borrows++;
+      return new DummyConnection(new ServerLocation("localhost", currentServer++ % numServers));
+    }
+
     @Override
     public void close(boolean keepAlive) {
     }
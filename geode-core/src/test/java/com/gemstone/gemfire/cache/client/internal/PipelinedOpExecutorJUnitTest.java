@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Operation;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.cache.client.ServerOperationException;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.distributed.DistributedSystem;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.internal.cache.EntryEventImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.tier.sockets.VersionedObjectList;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.LOCATORS;
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link PipelinedOpExecutor} against a cache server in the same VM.
+ */
+@Category(IntegrationTest.class)
+public class PipelinedOpExecutorJUnitTest {
+
+  private Cache cache;
+  private CacheServer server;
+  private LocalRegion region;
+  private PoolImpl pool;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = CacheFactory.create(DistributedSystem.connect(props));
+    this.region = (LocalRegion) this.cache.createRegionFactory(RegionShortcut.REPLICATE).create("data");
+    int port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET);
+    this.server = this.cache.addCacheServer();
+    this.server.setPort(port);
+    this.server.start();
+    this.pool = (PoolImpl) PoolManager.createFactory().addServer("localhost", port).create("pipelinedPool");
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  private CompletableFuture<Object> putAsync(Object key, Object value) {
+    EntryEventImpl event = EntryEventImpl.create(this.region, Operation.UPDATE, key, value, null, false,
+        this.cache.getDistributedSystem().getDistributedMember());
+    event.setNewEventId(this.cache.getDistributedSystem());
+    return PutOp.executeAsync(this.pool, this.region, key, value, event, null);
+  }
+
+  @Test
+  public void testPipelinedOps() throws Exception {
+    List<CompletableFuture<Object>> puts = new ArrayList<CompletableFuture<Object>>();
+    for (int i = 0; i < 500; i++) {
+      puts.add(putAsync("key" + i, "value" + i));
+    }
+    for (CompletableFuture<Object> put : puts) {
+      put.get();
+    }
+    assertEquals(500, this.region.size());
+    assertEquals("value7", this.region.get("key7"));
+
+    List<CompletableFuture<Object>> gets = new ArrayList<CompletableFuture<Object>>();
+    for (int i = 0; i < 500; i++) {
+      gets.add(GetOp.executeAsync(this.pool, this.region, "key" + i, null));
+    }
+    for (int i = 0; i < 500; i++) {
+      assertEquals("value" + i, gets.get(i).get());
+    }
+    assertNull(GetOp.executeAsync(this.pool, this.region, "noSuchKey", null).get());
+
+    VersionedObjectList values = GetAllOp.executeAsync(this.pool, this.region.getFullPath(),
+        Arrays.asList("key1", "key2", "noSuchKey"), null).get();
+    assertEquals(3, values.size());
+    assertEquals("value1", values.getObjects().get(0));
+    assertEquals("value2", values.getObjects().get(1));
+  }
+
+  @Test
+  public void testDependentActionRunsInReaderThread() throws Exception {
+    CompletableFuture<String> threadName = new CompletableFuture<>();
+    CompletableFuture<Object> put = putAsync("key1", "value1");
+    put.thenRun(() -> threadName.complete(Thread.currentThread().getName()));
+    put.get(30, TimeUnit.SECONDS);
+    String name = threadName.get(30, TimeUnit.SECONDS);
+    // the action may run in this thread if the op completed before it was added
+    assertTrue(name, name.startsWith("Pipelined op reader") || name.equals(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void testDependentActionWithExecutorCanWaitForAnotherOp() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CompletableFuture<Object> chained = putAsync("key1", "value1")
+          .thenApplyAsync(result -> GetOp.executeAsync(this.pool, this.region, "key1", null).join(), executor);
+      assertEquals("value1", chained.get(30, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testServerErrorDoesNotFailPipeline() throws Exception {
+    this.region.put("key", "value");
+    LocalRegion otherRegion = (LocalRegion) this.cache.createRegionFactory(RegionShortcut.LOCAL).create("notOnServer");
+    otherRegion.localDestroyRegion();
+    CompletableFuture<Object> failed = GetOp.executeAsync(this.pool, otherRegion, "key", null);
+    CompletableFuture<Object> succeeded = GetOp.executeAsync(this.pool, this.region, "key", null);
+    try {
+      failed.get();
+      fail("expected ServerOperationException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof ServerOperationException);
+    }
+    assertEquals("value", succeeded.get());
+  }
+
+  @Test
+  public void testServerStopFailsOps() throws Exception {
+    this.region.put("key", "value");
+    assertEquals("value", GetOp.executeAsync(this.pool, this.region, "key", null).get());
+    this.server.stop();
+    try {
+      GetOp.executeAsync(this.pool, this.region, "key", null).get();
+      fail("expected ServerConnectivityException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof ServerConnectivityException);
+    }
+  }
+
+  @Test
+  public void testRegionDefaultsCompleteInCallingThread() throws Exception {
+    Region<String, String> local = this.cache.<String, String>createRegionFactory(RegionShortcut.LOCAL).create("local");
+    CompletableFuture<String> put = local.putAsync("key", "value");
+    assertTrue(put.isDone());
+    assertNull(put.get());
+    CompletableFuture<String> get = local.getAsync("key");
+    assertTrue(get.isDone());
+    assertEquals("value", get.get());
+    Map<String, String> all = local.getAllAsync(Arrays.asList("key", "other")).get();
+    assertEquals("value", all.get("key"));
+    assertTrue(all.containsKey("other"));
+    assertNull(all.get("other"));
+
+    CompletableFuture<String> failed = local.putAsync("key", null);
+    assertTrue(failed.isCompletedExceptionally());
+  }
+}
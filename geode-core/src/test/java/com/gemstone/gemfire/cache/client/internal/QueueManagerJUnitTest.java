@@ -392,6 +392,10 @@ public class QueueManagerJUnitTest {
     public boolean getPRSingleHopEnabled() {
       return false;
     }
+
+    public boolean getValueCompression() {
+      return false;
+    }
     
     public int getSubscriptionMessageTrackingTimeout() {
       return 0;
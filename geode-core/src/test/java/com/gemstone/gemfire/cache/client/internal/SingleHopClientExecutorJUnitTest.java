@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class SingleHopClientExecutorJUnitTest {
+
+  @Test
+  public void failedTasksReportTheirFailureAndReleasePermits() throws Exception {
+    final ServerConnectivityException failure = new ServerConnectivityException("test");
+    List<Callable> tasks = new ArrayList<Callable>();
+    for (int i = 0; i < 6; i++) {
+      final int id = i;
+      tasks.add(() -> {
+        if (id % 2 == 1) {
+          throw failure;
+        }
+        return "value" + id;
+      });
+    }
+
+    List<Future> futures = SingleHopClientExecutor.invokeAllBounded(tasks);
+    assertEquals(tasks.size(), futures.size());
+    for (int i = 0; i < futures.size(); i++) {
+      if (i % 2 == 1) {
+        try {
+          futures.get(i).get(30, TimeUnit.SECONDS);
+          fail("expected ServerConnectivityException");
+        } catch (ExecutionException expected) {
+          assertSame(failure, expected.getCause());
+        }
+      } else {
+        assertEquals("value" + i, futures.get(i).get(30, TimeUnit.SECONDS));
+      }
+    }
+    assertEquals(SingleHopClientExecutor.MAX_BULK_OP_THREADS,
+        SingleHopClientExecutor.getAvailableBulkOpPermits());
+  }
+
+  @Test
+  public void lastTaskFailingInCallingThreadIsReported() throws Exception {
+    final ServerConnectivityException failure = new ServerConnectivityException("test");
+    final Thread caller = Thread.currentThread();
+    List<Callable> tasks = new ArrayList<Callable>();
+    tasks.add(() -> "value");
+    tasks.add(() -> {
+      assertSame(caller, Thread.currentThread());
+      throw failure;
+    });
+
+    List<Future> futures = SingleHopClientExecutor.invokeAllBounded(tasks);
+    assertEquals("value", futures.get(0).get(30, TimeUnit.SECONDS));
+    assertTrue(futures.get(1).isDone());
+    try {
+      futures.get(1).get();
+      fail("expected ServerConnectivityException");
+    } catch (ExecutionException expected) {
+      assertSame(failure, expected.getCause());
+    }
+    assertEquals(SingleHopClientExecutor.MAX_BULK_OP_THREADS,
+        SingleHopClientExecutor.getAvailableBulkOpPermits());
+  }
+}
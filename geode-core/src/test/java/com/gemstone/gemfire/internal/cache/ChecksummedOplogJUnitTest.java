@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.AttributesFactory;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.DataPolicy;
+import com.gemstone.gemfire.cache.DiskAccessException;
+import com.gemstone.gemfire.cache.DiskStoreFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.distributed.DistributedSystem;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests oplogs whose values are checksummed and compressed.
+ */
+@Category(IntegrationTest.class)
+public class ChecksummedOplogJUnitTest {
+
+  private static final String STORE_NAME = "checksummedStore";
+
+  private static final int ENTRIES = 100;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File[] dirs;
+
+  private DistributedSystem ds;
+
+  private Cache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    this.dirs = new File[] { this.temporaryFolder.newFolder(STORE_NAME) };
+    System.clearProperty(DiskStoreImpl.CHECKSUM_VALUES_PROPERTY_NAME);
+    System.clearProperty(DiskStoreImpl.COMPRESS_VALUES_PROPERTY_NAME);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    closeCache();
+    System.clearProperty(DiskStoreImpl.CHECKSUM_VALUES_PROPERTY_NAME);
+    System.clearProperty(DiskStoreImpl.COMPRESS_VALUES_PROPERTY_NAME);
+    System.clearProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME);
+  }
+
+  @Test
+  public void valuesAreRecoveredFromChecksummedOplogs() throws Exception {
+    System.setProperty(DiskStoreImpl.CHECKSUM_VALUES_PROPERTY_NAME, "true");
+    putEntries(createRegion());
+    closeCache();
+
+    assertTrue(allCrfsChecksummed());
+    checkEntries(createRegion());
+    closeCache();
+
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "false");
+    checkEntries(createRegion());
+  }
+
+  @Test
+  public void compressedValuesAreRecovered() throws Exception {
+    System.setProperty(DiskStoreImpl.COMPRESS_VALUES_PROPERTY_NAME, "true");
+    Region region = createRegion();
+    putEntries(region);
+
+    DiskStoreStats stats = ((LocalRegion) region).getDiskStore().getStats();
+    assertEquals(ENTRIES, stats.getCompressedValues());
+    assertTrue(stats.getCompressedValueBytes() < stats.getUncompressedValueBytes());
+    closeCache();
+
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "false");
+    checkEntries(createRegion());
+  }
+
+  @Test
+  public void corruptValueIsDetectedOnFaultIn() throws Exception {
+    System.setProperty(DiskStoreImpl.CHECKSUM_VALUES_PROPERTY_NAME, "true");
+    putEntries(createRegion());
+    closeCache();
+    corruptValue(7);
+
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "false");
+    Region region = createRegion();
+    DiskStoreStats stats = ((LocalRegion) region).getDiskStore().getStats();
+    assertTrue(Arrays.equals(createValue(6), (byte[]) region.get(6)));
+    try {
+      region.get(7);
+      fail("expected DiskAccessException");
+    } catch (DiskAccessException expected) {
+    }
+    assertEquals(1, stats.getValueChecksumFailures());
+  }
+
+  @Test
+  public void offlineValidationDetectsCorruptValue() throws Exception {
+    System.setProperty(DiskStoreImpl.CHECKSUM_VALUES_PROPERTY_NAME, "true");
+    putEntries(createRegion());
+    closeCache();
+
+    DiskStoreImpl.validate(STORE_NAME, this.dirs);
+    corruptValue(7);
+    try {
+      DiskStoreImpl.validate(STORE_NAME, this.dirs);
+      fail("expected DiskAccessException");
+    } catch (DiskAccessException expected) {
+    }
+  }
+
+  @Test
+  public void offlineCompactionConvertsOplogs() throws Exception {
+    putEntries(createRegion());
+    closeCache();
+    assertFalse(allCrfsChecksummed());
+
+    System.setProperty(DiskStoreImpl.CHECKSUM_VALUES_PROPERTY_NAME, "true");
+    DiskStoreImpl.offlineCompact(STORE_NAME, this.dirs, false, -1);
+    assertTrue(allCrfsChecksummed());
+    checkEntries(createRegion());
+    closeCache();
+
+    System.clearProperty(DiskStoreImpl.CHECKSUM_VALUES_PROPERTY_NAME);
+    DiskStoreImpl.offlineCompact(STORE_NAME, this.dirs, false, -1);
+    assertFalse(allCrfsChecksummed());
+    checkEntries(createRegion());
+  }
+
+  private Region createRegion() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.ds = DistributedSystem.connect(props);
+    this.cache = CacheFactory.create(this.ds);
+    DiskStoreFactory dsf = this.cache.createDiskStoreFactory();
+    dsf.setDiskDirs(this.dirs);
+    dsf.setAutoCompact(false);
+    dsf.create(STORE_NAME);
+    AttributesFactory af = new AttributesFactory();
+    af.setDiskStoreName(STORE_NAME);
+    af.setDataPolicy(DataPolicy.PERSISTENT_REPLICATE);
+    return this.cache.createRegion("region", af.create());
+  }
+
+  private void closeCache() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+    if (this.ds != null) {
+      this.ds.disconnect();
+    }
+  }
+
+  /**
+   * Flips a bit in the value of the given entry in the crf it was written to.
+   */
+  private void corruptValue(int i) throws IOException {
+    byte[] value = createValue(i);
+    for (File crf : crfs()) {
+      byte[] bytes = Files.readAllBytes(crf.toPath());
+      for (int pos = 0; pos + value.length <= bytes.length; pos++) {
+        if (Arrays.equals(value, Arrays.copyOfRange(bytes, pos, pos + value.length))) {
+          RandomAccessFile raf = new RandomAccessFile(crf, "rw");
+          try {
+            raf.seek(pos);
+            raf.write(value[0] ^ 0x01);
+          } finally {
+            raf.close();
+          }
+          return;
+        }
+      }
+    }
+    fail("value of entry " + i + " not found in a crf");
+  }
+
+  private boolean allCrfsChecksummed() throws IOException {
+    File[] crfs = crfs();
+    assertTrue(crfs.length > 0);
+    for (File crf : crfs) {
+      DataInputStream in = new DataInputStream(new FileInputStream(crf));
+      try {
+        assertEquals(Oplog.OPLOG_MAGIC_SEQ_ID, in.readByte());
+        byte[] magic = new byte[Oplog.OPLOG_TYPE.getLen()];
+        in.readFully(magic);
+        if (!Arrays.equals(Oplog.OPLOG_TYPE.CHECKSUMMED_CRF.getBytes(), magic)) {
+          return false;
+        }
+      } finally {
+        in.close();
+      }
+    }
+    return true;
+  }
+
+  private File[] crfs() {
+    return this.dirs[0].listFiles((dir, name) -> name.endsWith(".crf"));
+  }
+
+  private static void putEntries(Region region) {
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, createValue(i));
+    }
+  }
+
+  private static void checkEntries(Region region) {
+    assertEquals(ENTRIES, region.size());
+    for (int i = 0; i < ENTRIES; i++) {
+      assertTrue(Arrays.equals(createValue(i), (byte[]) region.get(i)));
+    }
+  }
+
+  /**
+   * Returns a compressible value whose bytes differ from every other entry's.
+   */
+  private static byte[] createValue(int i) {
+    byte[] value = new byte[200];
+    for (int j = 0; j < value.length; j++) {
+      value[j] = (byte) (i + j / 50);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactionThrottleJUnitTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void disabledThrottleNeverWaits() {
+    CompactionThrottle throttle = new CompactionThrottle(0);
+
+    assertFalse(throttle.isEnabled());
+    assertEquals(0, throttle.charge(Integer.MAX_VALUE, 0));
+  }
+
+  @Test
+  public void copiesArePacedToTheBudget() {
+    CompactionThrottle throttle = new CompactionThrottle(1000);
+
+    assertEquals(SECOND, throttle.charge(1000, 0));
+    // the first copy is only paid for after a second
+    assertEquals(SECOND, throttle.charge(500, SECOND / 2));
+    assertEquals(0, throttle.charge(0, SECOND));
+    assertEquals(SECOND, throttle.charge(500, SECOND));
+  }
+
+  @Test
+  public void idleTimeIsNotSavedUp() {
+    CompactionThrottle throttle = new CompactionThrottle(1000);
+
+    throttle.charge(1000, 0);
+
+    assertEquals(SECOND, throttle.charge(1000, 10 * SECOND));
+  }
+
+  @Test
+  public void oplogsWithMoreGarbageAreWorthMore() {
+    long size = 1024 * 1024;
+    double empty = DiskStoreImpl.compactionBenefit(size, 0, 100);
+    double mostlyGarbage = DiskStoreImpl.compactionBenefit(size, 10, 100);
+    double halfGarbage = DiskStoreImpl.compactionBenefit(size, 50, 100);
+    double noGarbage = DiskStoreImpl.compactionBenefit(size, 100, 100);
+
+    assertTrue(empty > mostlyGarbage);
+    assertTrue(mostlyGarbage > halfGarbage);
+    assertTrue(halfGarbage > noGarbage);
+    assertEquals(0.0, noGarbage, 0.0);
+  }
+
+  @Test
+  public void fixedCostFavorsLargerOplogs() {
+    double small = DiskStoreImpl.compactionBenefit(DiskStoreImpl.COMPACTION_FIXED_COST_BYTES, 50, 100);
+    double large = DiskStoreImpl.compactionBenefit(100 * DiskStoreImpl.COMPACTION_FIXED_COST_BYTES, 50, 100);
+
+    assertTrue(large > small);
+  }
+}
@@ -49,6 +49,8 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     DiskStoreObserver.setInstance(null);
     System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "true");
     System.setProperty(DiskStoreImpl.RECOVER_VALUES_SYNC_PROPERTY_NAME, "false");
+    System.clearProperty(DiskStoreImpl.RECOVERY_THREADS_PROPERTY_NAME);
+    System.clearProperty(DiskStoreImpl.MAX_PREFETCHED_KRF_BYTES_PROPERTY_NAME);
   }
   
   @Test
@@ -327,6 +329,63 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     }
   }
   
+  @Test
+  public void testParallelRecovery() throws InterruptedException {
+    verifyParallelRecovery();
+  }
+
+  /**
+   * Tests recovery from krfs that are larger than the part of them read ahead
+   * of their oplog.
+   */
+  @Test
+  public void testParallelRecoveryOfPartlyPrefetchedKrfs() throws InterruptedException {
+    System.setProperty(DiskStoreImpl.MAX_PREFETCHED_KRF_BYTES_PROPERTY_NAME, "100");
+    verifyParallelRecovery();
+  }
+
+  private void verifyParallelRecovery() throws InterruptedException {
+    System.setProperty(DiskStoreImpl.RECOVERY_THREADS_PROPERTY_NAME, "4");
+    Region[] regions = new Region[6];
+    for (int i = 0; i < regions.length; i++) {
+      regions[i] = createRegion("region" + i);
+    }
+    DiskStoreImpl store = (DiskStoreImpl) cache.findDiskStore("store");
+    for (int roll = 0; roll < 4; roll++) {
+      for (int i = 0; i < regions.length; i++) {
+        putEntries(regions[i], roll * 10, 50, "A" + roll);
+      }
+      store.forceRoll();
+    }
+    
+    cache.close();
+    
+    cache = createCache();
+
+    final CountDownLatch recoveryDone = new CountDownLatch(1);
+    DiskStoreObserver.setInstance(new DiskStoreObserver() {
+
+      @Override
+      public void afterAsyncValueRecovery(DiskStoreImpl store) {
+        recoveryDone.countDown();
+      }
+    });
+    for (int i = 0; i < regions.length; i++) {
+      regions[i] = createRegion("region" + i);
+    }
+    recoveryDone.await();
+    
+    for (int i = 0; i < regions.length; i++) {
+      for (int roll = 0; roll < 4; roll++) {
+        checkEntriesInMemory(regions[i], roll * 10, roll * 10 + 10, "A" + roll, true);
+      }
+      checkEntriesInMemory(regions[i], 40, 50, "A3", true);
+    }
+    DiskStoreStats stats = ((DiskStoreImpl) cache.findDiskStore("store")).getStats();
+    assertTrue(stats.getKrfPrefetches() > 0);
+    assertEquals(regions.length * 50, stats.getRecoveredValues());
+  }
+  
   @Test
   public void testCloseOpenRegion() throws InterruptedException {
     Region region = createRegion();
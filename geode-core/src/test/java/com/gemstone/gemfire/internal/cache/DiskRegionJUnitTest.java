@@ -2981,6 +2981,48 @@ public class DiskRegionJUnitTest extends DiskRegionTestingBase
     assertEquals(true, compacted);
   }
 
+  /**
+   * Confirm that a compaction budget slows down compaction and that the
+   * bytes compaction rewrites are counted as write amplification
+   */
+  @Test
+  public void testThrottledCompaction() {
+    System.setProperty(DiskStoreImpl.COMPACTION_BYTES_PER_SECOND_PROPERTY_NAME, "100000");
+    try {
+      DiskRegionProperties props = new DiskRegionProperties();
+      props.setRegionName("testThrottledCompaction");
+      props.setRolling(false);
+      props.setDiskDirs(dirs);
+      props.setAllowForceCompaction(true);
+      props.setPersistBackup(true);
+      props.setCompactionThreshold(90);
+      region = DiskRegionHelperFactory.getSyncPersistOnlyRegion(cache, props, Scope.LOCAL);
+      DiskRegion dr = ((LocalRegion)region).getDiskRegion();
+      byte[] value = new byte[1000];
+      for (int i = 0; i < 20; i++) {
+        region.put("key" + i, value);
+      }
+      region.remove("key0");
+      region.remove("key1");
+      region.remove("key2");
+      Oplog oplog = dr.testHook_getChild();
+      DiskStoreStats stats = ((LocalRegion)region).getDiskStore().getStats();
+      assertEquals(1.0, stats.getWriteAmplification(), 0.0);
+
+      assertEquals(true, ((LocalRegion)region).getDiskStore().forceCompaction());
+      assertEquals(true, oplog.testConfirmCompacted());
+      assertTrue(stats.getCompactedBytes() > 17 * value.length);
+      // copying 17000 bytes at 100000 bytes per second takes 170ms
+      assertTrue(stats.getCompactionThrottleTime() > 0);
+      assertTrue(stats.getWriteAmplification() > 1.0);
+      for (int i = 3; i < 20; i++) {
+        assertEquals(value.length, ((byte[])region.get("key" + i)).length);
+      }
+    } finally {
+      System.clearProperty(DiskStoreImpl.COMPACTION_BYTES_PER_SECOND_PROPERTY_NAME);
+    }
+  }
+
   /**
    * Confirm that forceCompaction waits for the compaction to finish
    */
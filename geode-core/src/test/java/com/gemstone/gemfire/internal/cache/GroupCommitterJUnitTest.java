@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class GroupCommitterJUnitTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void writeIsDurableAfterAwait() throws Exception {
+    CountingSyncable syncable = new CountingSyncable();
+    GroupCommitter committer = new GroupCommitter(syncable, 0);
+
+    long sequence = committer.written();
+    committer.awaitDurable(sequence);
+
+    assertEquals(sequence, committer.getDurable());
+    assertEquals(1, syncable.syncs.get());
+    assertEquals(1, syncable.writes.get());
+
+    // already durable, so no further sync
+    committer.awaitDurable(sequence);
+    assertEquals(1, syncable.syncs.get());
+  }
+
+  @Test
+  public void writersWaitingDuringSyncShareTheNextSync() throws Exception {
+    final CountDownLatch syncStarted = new CountDownLatch(1);
+    final CountDownLatch releaseSync = new CountDownLatch(1);
+    final CountingSyncable syncable = new CountingSyncable() {
+      @Override
+      public void sync(long writes) throws IOException {
+        super.sync(writes);
+        if (this.syncs.get() == 1) {
+          syncStarted.countDown();
+          try {
+            releaseSync.await();
+          } catch (InterruptedException e) {
+            throw new IOException(e);
+          }
+        }
+      }
+    };
+    final GroupCommitter committer = new GroupCommitter(syncable, 0);
+
+    Future<?> first = this.executor.submit(awaitWrite(committer, committer.written()));
+    assertTrue(syncStarted.await(30, TimeUnit.SECONDS));
+
+    int writers = 10;
+    List<Future<?>> others = new ArrayList<Future<?>>();
+    for (int i = 0; i < writers; i++) {
+      others.add(this.executor.submit(awaitWrite(committer, committer.written())));
+    }
+    releaseSync.countDown();
+
+    first.get(30, TimeUnit.SECONDS);
+    for (Future<?> other : others) {
+      other.get(30, TimeUnit.SECONDS);
+    }
+    assertEquals(2, syncable.syncs.get());
+    assertEquals(writers + 1, syncable.writes.get());
+    assertEquals(writers + 1, committer.getDurable());
+  }
+
+  @Test
+  public void failedSyncFailsTheWritesItCovered() throws Exception {
+    final IOException failure = new IOException("sync failed");
+    CountingSyncable syncable = new CountingSyncable() {
+      @Override
+      public void sync(long writes) throws IOException {
+        super.sync(writes);
+        if (this.syncs.get() == 1) {
+          throw failure;
+        }
+      }
+    };
+    GroupCommitter committer = new GroupCommitter(syncable, 0);
+
+    long failed = committer.written();
+    try {
+      committer.awaitDurable(failed);
+      fail("expected IOException");
+    } catch (IOException expected) {
+      assertSame(failure, expected);
+    }
+    try {
+      committer.awaitDurable(failed);
+      fail("expected IOException");
+    } catch (IOException expected) {
+      assertSame(failure, expected.getCause());
+    }
+    assertEquals(0, committer.getDurable());
+
+    // later writes get a new sync
+    long next = committer.written();
+    committer.awaitDurable(next);
+    assertEquals(next, committer.getDurable());
+    assertEquals(2, syncable.syncs.get());
+  }
+
+  private static Callable<Void> awaitWrite(final GroupCommitter committer, final long sequence) {
+    return new Callable<Void>() {
+      public Void call() throws Exception {
+        committer.awaitDurable(sequence);
+        assertTrue(committer.getDurable() >= sequence);
+        return null;
+      }
+    };
+  }
+
+  private static class CountingSyncable implements GroupCommitter.Syncable {
+    final AtomicLong syncs = new AtomicLong();
+    final AtomicLong writes = new AtomicLong();
+
+    public void sync(long writes) throws IOException {
+      this.syncs.incrementAndGet();
+      this.writes.addAndGet(writes);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.LocalStatisticsFactory;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests faulting in values from the memory mapped crf files of oplogs that
+ * are no longer being written to.
+ */
+@Category(IntegrationTest.class)
+public class MappedOplogReadJUnitTest extends DiskRegionTestingBase {
+
+  private static final int ENTRIES = 200;
+
+  @After
+  public void tearDown() throws Exception {
+    super.tearDown();
+    System.clearProperty(DiskStoreImpl.MAP_SEALED_OPLOGS_PROPERTY_NAME);
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "true");
+  }
+
+  @Test
+  public void overflowedValuesAreReadFromMappedOplogs() {
+    System.setProperty(DiskStoreImpl.MAP_SEALED_OPLOGS_PROPERTY_NAME, "true");
+    region = DiskRegionHelperFactory.getSyncOverFlowOnlyRegion(cache, createDiskRegionProperties());
+    putEntries(region);
+
+    checkEntries(region);
+
+    DiskStoreStats stats = ((LocalRegion) region).getDiskStore().getStats();
+    assertTrue(stats.getMappedOplogReads() > 0);
+    assertTrue(stats.getMappedOplogs() > 0);
+    assertTrue(stats.getMappedOplogBytes() > 0);
+  }
+
+  @Test
+  public void recoveredValuesAreReadFromMappedOplogs() {
+    System.setProperty(DiskStoreImpl.MAP_SEALED_OPLOGS_PROPERTY_NAME, "true");
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "false");
+    region = DiskRegionHelperFactory.getSyncOverFlowAndPersistRegion(cache, createDiskRegionProperties());
+    putEntries(region);
+    cache.close();
+
+    cache = createCache();
+    region = DiskRegionHelperFactory.getSyncOverFlowAndPersistRegion(cache, createDiskRegionProperties());
+    checkEntries(region);
+
+    // every oplog recovered from is no longer written to
+    DiskStoreStats stats = ((LocalRegion) region).getDiskStore().getStats();
+    assertEquals(ENTRIES, stats.getMappedOplogReads());
+
+    cache.close();
+    assertEquals(0, stats.getMappedOplogs());
+    assertEquals(0, stats.getMappedOplogBytes());
+  }
+
+  @Test
+  public void closeUnmapsTheFile() throws Exception {
+    File f = new File(dirs[0], "closeUnmapsTheFile.crf");
+    byte[] bytes = createValue(7);
+    Files.write(f.toPath(), bytes);
+    DiskStoreStats stats = new DiskStoreStats(new LocalStatisticsFactory(null), "closeUnmapsTheFile");
+    try {
+      MappedOplogFile mapped = new MappedOplogFile(stats);
+
+      assertTrue(Arrays.equals(Arrays.copyOfRange(bytes, 10, 20), mapped.read(f, bytes.length, 10, 10)));
+      assertTrue(mapped.isMapped());
+      assertNull(mapped.read(f, bytes.length, 95, 10));
+      assertEquals(1, stats.getMappedOplogs());
+      assertEquals(1, stats.getMappedOplogReads());
+
+      mapped.close();
+
+      assertFalse(mapped.isMapped());
+      assertEquals(0, stats.getMappedOplogs());
+      assertEquals(0, stats.getMappedOplogBytes());
+      assertNull(mapped.read(f, bytes.length, 10, 10));
+      assertTrue(f.delete());
+    } finally {
+      stats.close();
+    }
+  }
+
+  @Test
+  public void valuesAreReadWithSeeksByDefault() {
+    region = DiskRegionHelperFactory.getSyncOverFlowOnlyRegion(cache, createDiskRegionProperties());
+    putEntries(region);
+
+    checkEntries(region);
+
+    DiskStoreStats stats = ((LocalRegion) region).getDiskStore().getStats();
+    assertEquals(0, stats.getMappedOplogReads());
+    assertEquals(0, stats.getMappedOplogs());
+  }
+
+  private DiskRegionProperties createDiskRegionProperties() {
+    DiskRegionProperties props = new DiskRegionProperties();
+    props.setDiskDirs(dirs);
+    props.setMaxOplogSize(4096);
+    props.setOverFlowCapacity(1);
+    props.setRolling(false);
+    return props;
+  }
+
+  private static void putEntries(Region region) {
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, createValue(i));
+    }
+  }
+
+  private static void checkEntries(Region region) {
+    for (int i = 0; i < ENTRIES; i++) {
+      assertTrue(Arrays.equals(createValue(i), (byte[]) region.get(i)));
+    }
+  }
+
+  private static byte[] createValue(int i) {
+    byte[] value = new byte[100];
+    Arrays.fill(value, (byte) i);
+    return value;
+  }
+}
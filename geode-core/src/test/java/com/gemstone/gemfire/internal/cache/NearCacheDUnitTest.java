@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.jayway.awaitility.Awaitility;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.ExpirationAction;
+import com.gemstone.gemfire.cache.ExpirationAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.ClientCache;
+import com.gemstone.gemfire.cache.client.ClientCacheFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.test.dunit.Host;
+import com.gemstone.gemfire.test.dunit.NetworkUtils;
+import com.gemstone.gemfire.test.dunit.VM;
+import com.gemstone.gemfire.test.dunit.cache.internal.JUnit4CacheTestCase;
+import com.gemstone.gemfire.test.junit.categories.DistributedTest;
+
+/**
+ * Tests client regions created with {@link ClientRegionFactory#setNearCache}.
+ */
+@Category(DistributedTest.class)
+public class NearCacheDUnitTest extends JUnit4CacheTestCase {
+
+  private static final String REGION_NAME = "NearCacheDUnitTest_region";
+
+  private static final int MAX_ENTRIES = 10;
+
+  private VM server;
+  private VM client;
+
+  @Override
+  public final void postSetUp() throws Exception {
+    Host host = Host.getHost(0);
+    this.server = host.getVM(0);
+    this.client = host.getVM(1);
+    final int port = this.server.invoke(() -> createServer());
+    final String hostName = NetworkUtils.getServerHostName(host);
+    this.client.invoke(() -> createClient(hostName, port));
+  }
+
+  private int createServer() throws Exception {
+    Region<String, String> region = getCache().<String, String>createRegionFactory(RegionShortcut.REPLICATE)
+        .create(REGION_NAME);
+    for (int i = 0; i < 300; i++) {
+      region.put("key" + i, "value" + i);
+    }
+    CacheServer server = getCache().addCacheServer();
+    server.setPort(AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET));
+    server.start();
+    return server.getPort();
+  }
+
+  private void createClient(String hostName, int port) {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    ClientCache cache = getClientCache(new ClientCacheFactory(props).addPoolServer(hostName, port)
+        .setPoolSubscriptionEnabled(true));
+    cache.createClientRegionFactory(ClientRegionShortcut.CACHING_PROXY).setNearCache(MAX_ENTRIES)
+        .create(REGION_NAME);
+  }
+
+  private static LocalRegion getRegion() {
+    return (LocalRegion) GemFireCacheImpl.getInstance().getRegion(REGION_NAME);
+  }
+
+  @Test
+  public void updatesOfReadKeysInvalidateThem() {
+    this.client.invoke(() -> {
+      LocalRegion region = getRegion();
+      assertTrue(region.isNearCache());
+      for (int i = 0; i < 5; i++) {
+        assertEquals("value" + i, region.get("key" + i));
+      }
+      assertEquals(5, region.getInterestList().size());
+    });
+    this.server.invoke(() -> {
+      Region<String, String> region = getCache().getRegion(REGION_NAME);
+      for (int i = 0; i < 300; i++) {
+        region.put("key" + i, "newValue" + i);
+      }
+    });
+    this.client.invoke(() -> {
+      LocalRegion region = getRegion();
+      Awaitility.await().atMost(30, TimeUnit.SECONDS).until(() -> !region.containsValueForKey("key4"));
+      for (int i = 0; i < 5; i++) {
+        assertFalse(region.containsValueForKey("key" + i));
+      }
+      // keys that were never read are not sent to the client at all
+      assertFalse(region.containsKey("key5"));
+      assertEquals("newValue0", region.get("key0"));
+      assertEquals(5, region.getInterestList().size());
+    });
+  }
+
+  @Test
+  public void evictedKeysAreUnregistered() {
+    this.client.invoke(() -> {
+      LocalRegion region = getRegion();
+      List<String> keys = new ArrayList<>();
+      for (int i = 0; i < 150; i++) {
+        assertEquals("value" + i, region.get("key" + i));
+      }
+      for (int i = 150; i < 300; i++) {
+        keys.add("key" + i);
+      }
+      assertEquals(150, region.getAll(keys).size());
+      assertTrue(region.size() <= MAX_ENTRIES);
+      Awaitility.await().atMost(30, TimeUnit.SECONDS)
+          .until(() -> region.getInterestList().size() < NearCacheInterest.UNREGISTER_BATCH_SIZE + MAX_ENTRIES);
+      assertTrue(region.getNearCacheInterest().getRegisteredKeyCount() <= MAX_ENTRIES);
+    });
+    this.server.invoke(() -> {
+      getCache().getRegion(REGION_NAME).put("key299", "newValue299");
+    });
+    this.client.invoke(() -> {
+      LocalRegion region = getRegion();
+      Awaitility.await().atMost(30, TimeUnit.SECONDS).until(() -> !region.containsValueForKey("key299"));
+      assertEquals("newValue299", region.get("key299"));
+    });
+  }
+
+  @Test
+  public void destroyedAndClearedKeysAreUnregistered() {
+    this.client.invoke(() -> {
+      LocalRegion region = getRegion();
+      for (int i = 0; i < 5; i++) {
+        assertEquals("value" + i, region.get("key" + i));
+      }
+      NearCacheInterest interest = region.getNearCacheInterest();
+      assertEquals(5, interest.getRegisteredKeyCount());
+      region.destroy("key0");
+      region.localDestroy("key1");
+      assertEquals(3, interest.getRegisteredKeyCount());
+      region.localClear();
+      assertEquals(0, interest.getRegisteredKeyCount());
+      Awaitility.await().atMost(30, TimeUnit.SECONDS).until(() -> region.getInterestList().isEmpty());
+
+      // a key read again is registered again
+      assertEquals("value2", region.get("key2"));
+      assertEquals(1, region.getInterestList().size());
+    });
+  }
+
+  @Test
+  public void expiredKeysAreUnregistered() {
+    final String expiringRegionName = REGION_NAME + "_expiring";
+    this.server.invoke(() -> {
+      Region<String, String> region = getCache().<String, String>createRegionFactory(RegionShortcut.REPLICATE)
+          .create(expiringRegionName);
+      for (int i = 0; i < 5; i++) {
+        region.put("key" + i, "value" + i);
+      }
+    });
+    this.client.invoke(() -> {
+      ClientCache cache = (ClientCache) GemFireCacheImpl.getInstance();
+      LocalRegion region = (LocalRegion) cache.<String, String>createClientRegionFactory(ClientRegionShortcut.CACHING_PROXY)
+          .setNearCache(MAX_ENTRIES).setStatisticsEnabled(true)
+          .setEntryTimeToLive(new ExpirationAttributes(1, ExpirationAction.LOCAL_DESTROY))
+          .create(expiringRegionName);
+      for (int i = 0; i < 5; i++) {
+        assertEquals("value" + i, region.get("key" + i));
+      }
+      NearCacheInterest interest = region.getNearCacheInterest();
+      assertEquals(5, interest.getRegisteredKeyCount());
+      Awaitility.await().atMost(30, TimeUnit.SECONDS).until(() -> interest.getRegisteredKeyCount() == 0);
+      assertEquals(0, region.size());
+    });
+  }
+}
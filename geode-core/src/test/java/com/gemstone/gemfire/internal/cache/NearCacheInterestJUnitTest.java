@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.DataPolicy;
+import com.gemstone.gemfire.cache.InterestResultPolicy;
+import com.gemstone.gemfire.cache.RegionAttributes;
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.cache.client.internal.ServerRegionProxy;
+import com.gemstone.gemfire.internal.cache.tier.InterestType;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class NearCacheInterestJUnitTest {
+
+  private ServerRegionProxy proxy;
+  private NearCacheInterest interest;
+
+  /** counted down when a registration reaches the server proxy */
+  private final CountDownLatch registering = new CountDownLatch(1);
+  /** counted down to let registrations that reached the server proxy finish */
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @Before
+  public void setUp() {
+    LocalRegion region = mock(LocalRegion.class);
+    RegionAttributes attributes = mock(RegionAttributes.class);
+    when(attributes.getDataPolicy()).thenReturn(DataPolicy.NORMAL);
+    when(region.getAttributes()).thenReturn(attributes);
+    this.proxy = mock(ServerRegionProxy.class);
+    this.interest = new NearCacheInterest(region, this.proxy);
+  }
+
+  private void registerInterest(String key) {
+    verify(this.proxy).registerInterest(eq(key), eq(InterestType.KEY), eq(InterestResultPolicy.NONE),
+        eq(false), eq(true), anyByte());
+  }
+
+  /**
+   * Makes registrations of the given key block until {@link #release} is
+   * counted down, then fail if <code>fail</code> is true.
+   */
+  private void blockRegistration(String key, boolean fail) {
+    when(this.proxy.registerInterest(eq(key), anyInt(), any(InterestResultPolicy.class),
+        anyBoolean(), anyBoolean(), anyByte())).thenAnswer(invocation -> {
+          this.registering.countDown();
+          this.release.await();
+          if (fail) {
+            throw new ServerConnectivityException("test");
+          }
+          return null;
+        }).thenReturn(null);
+  }
+
+  private static void assertNotDone(CompletableFuture<?> future) throws Exception {
+    try {
+      future.get(200, TimeUnit.MILLISECONDS);
+      fail("expected the access to wait for the registration in progress");
+    } catch (TimeoutException expected) {
+    }
+  }
+
+  @Test
+  public void accessWaitsForRegistrationInProgress() throws Exception {
+    blockRegistration("key", false);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> this.interest.beforeServerAccess("key"));
+    assertTrue(this.registering.await(30, TimeUnit.SECONDS));
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> this.interest.beforeServerAccess("key"));
+    assertNotDone(second);
+    assertEquals(0, this.interest.getRegisteredKeyCount());
+
+    this.release.countDown();
+    first.get(30, TimeUnit.SECONDS);
+    second.get(30, TimeUnit.SECONDS);
+    registerInterest("key");
+    assertEquals(1, this.interest.getRegisteredKeyCount());
+  }
+
+  @Test
+  public void keysAccessWaitForRegistrationInProgress() throws Exception {
+    blockRegistration("key", false);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> this.interest.beforeServerAccess("key"));
+    assertTrue(this.registering.await(30, TimeUnit.SECONDS));
+    CompletableFuture<Void> second = CompletableFuture.runAsync(
+        () -> this.interest.beforeServerAccess(Arrays.asList("key", "other1", "other2")));
+    assertNotDone(second);
+    // the keys not being registered are registered without waiting
+    verify(this.proxy).registerInterestList(eq(Arrays.asList("other1", "other2")),
+        eq(InterestResultPolicy.NONE), eq(false), eq(true), anyByte());
+
+    this.release.countDown();
+    first.get(30, TimeUnit.SECONDS);
+    second.get(30, TimeUnit.SECONDS);
+    registerInterest("key");
+    assertEquals(3, this.interest.getRegisteredKeyCount());
+  }
+
+  @Test
+  public void failedRegistrationIsNotRecorded() throws Exception {
+    when(this.proxy.registerInterest(eq("key"), anyInt(), any(InterestResultPolicy.class),
+        anyBoolean(), anyBoolean(), anyByte())).thenThrow(new ServerConnectivityException("test"))
+        .thenReturn(null);
+    try {
+      this.interest.beforeServerAccess("key");
+      fail("expected ServerConnectivityException");
+    } catch (ServerConnectivityException expected) {
+    }
+    assertEquals(0, this.interest.getRegisteredKeyCount());
+
+    this.interest.beforeServerAccess("key");
+    verify(this.proxy, times(2)).registerInterest(eq("key"), anyInt(), any(InterestResultPolicy.class),
+        anyBoolean(), anyBoolean(), anyByte());
+    assertEquals(1, this.interest.getRegisteredKeyCount());
+  }
+
+  @Test
+  public void waitingAccessRegistersKeyItselfIfRegistrationFails() throws Exception {
+    blockRegistration("key", true);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> this.interest.beforeServerAccess("key"));
+    assertTrue(this.registering.await(30, TimeUnit.SECONDS));
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> this.interest.beforeServerAccess("key"));
+    assertNotDone(second);
+
+    this.release.countDown();
+    try {
+      first.get(30, TimeUnit.SECONDS);
+      fail("expected ServerConnectivityException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof ServerConnectivityException);
+    }
+    second.get(30, TimeUnit.SECONDS);
+    verify(this.proxy, times(2)).registerInterest(eq("key"), anyInt(), any(InterestResultPolicy.class),
+        anyBoolean(), anyBoolean(), anyByte());
+    assertEquals(1, this.interest.getRegisteredKeyCount());
+  }
+
+  @Test
+  public void registeredKeyIsNotRegisteredAgain() {
+    this.interest.beforeServerAccess("key");
+    this.interest.beforeServerAccess("key");
+    List<String> keys = Arrays.asList("key", "other");
+    this.interest.beforeServerAccess(keys);
+    registerInterest("key");
+    registerInterest("other");
+    verifyNoMoreInteractions(this.proxy);
+    assertEquals(2, this.interest.getRegisteredKeyCount());
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.LocalStatisticsFactory;
+import com.gemstone.gemfire.internal.cache.tier.sockets.command.Put65;
+import com.gemstone.gemfire.management.OperationLatency;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OperationLatencyStatsJUnitTest {
+
+  /** named like the client ops, for example GetOp.GetOpImpl */
+  private static class GetOpImpl {
+  }
+
+  private LocalStatisticsFactory factory;
+  private OperationLatencyStats latencyStats;
+
+  @Before
+  public void setUp() {
+    factory = new LocalStatisticsFactory(null);
+    latencyStats = OperationLatencyStats.createClientStats(factory, "pool");
+  }
+
+  @After
+  public void tearDown() {
+    latencyStats.close();
+    factory.close();
+  }
+
+  @Test
+  public void bucketsCoverEveryLatency() {
+    assertEquals(0, OperationLatencyStats.getBucket(0));
+    assertEquals(0, OperationLatencyStats.getBucket(1023));
+    assertEquals(1, OperationLatencyStats.getBucket(1024));
+    assertEquals(1, OperationLatencyStats.getBucket(1535));
+    assertEquals(2, OperationLatencyStats.getBucket(1536));
+    assertEquals(2, OperationLatencyStats.getBucket(2047));
+    assertEquals(3, OperationLatencyStats.getBucket(2048));
+    assertEquals(OperationLatencyStats.BUCKETS - 2,
+        OperationLatencyStats.getBucket((1L << OperationLatencyStats.LAST_SHIFT) - 1));
+    assertEquals(OperationLatencyStats.BUCKETS - 1,
+        OperationLatencyStats.getBucket(1L << OperationLatencyStats.LAST_SHIFT));
+    assertEquals(OperationLatencyStats.BUCKETS - 1, OperationLatencyStats.getBucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void operationsAreNamedAfterTheirClass() {
+    assertEquals("GetOp", OperationLatencyStats.getOperationName(GetOpImpl.class));
+    assertEquals("Put65", OperationLatencyStats.getOperationName(Put65.class));
+  }
+
+  @Test
+  public void percentilesAreUpperBoundsOfTheirBucket() {
+    for (int i = 0; i < 990; i++) {
+      latencyStats.record(GetOpImpl.class, 100000);
+    }
+    for (int i = 0; i < 10; i++) {
+      latencyStats.record(GetOpImpl.class, 50000000);
+    }
+    latencyStats.record(Put65.class, 10);
+
+    OperationLatency[] latencies = latencyStats.getLatencies();
+    assertEquals(2, latencies.length);
+    OperationLatency get = latencies[0].getOperation().equals("GetOp") ? latencies[0] : latencies[1];
+    assertEquals(1000, get.getCount());
+    assertEquals(990L * 100000 + 10L * 50000000, get.getTotalTime());
+    // 100000ns falls in [98304, 131072) and 50000000ns in [50331648, 67108864)
+    assertEquals(131072, get.getP50());
+    assertEquals(131072, get.getP99());
+    assertEquals(50331648, get.getP999());
+  }
+
+  @Test
+  public void histogramsAreArchivedAsStatistics() {
+    latencyStats.record(GetOpImpl.class, 100000);
+    assertEquals(1, factory.findStatisticsByTextId("pool:GetOp").length);
+    assertEquals(1, factory.findStatisticsByTextId("pool:GetOp")[0].getLong("lessThan131072ns"));
+  }
+}
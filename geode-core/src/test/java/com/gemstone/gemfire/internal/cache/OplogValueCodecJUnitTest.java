@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OplogValueCodecJUnitTest {
+
+  @Test
+  public void rawValueRoundTrips() throws Exception {
+    byte[] value = randomBytes(1000);
+    byte[] frame = OplogValueCodec.encode(value, value.length, false);
+
+    assertFalse(OplogValueCodec.isCompressed(frame));
+    assertEquals(OplogValueCodec.HEADER_LENGTH + value.length, frame.length);
+    assertArrayEquals(value, OplogValueCodec.decode(frame, frame.length));
+  }
+
+  @Test
+  public void compressibleValueIsCompressed() throws Exception {
+    byte[] value = new byte[1000];
+    Arrays.fill(value, (byte) 7);
+    byte[] frame = OplogValueCodec.encode(value, value.length, true);
+
+    assertTrue(OplogValueCodec.isCompressed(frame));
+    assertTrue(frame.length < value.length);
+    assertArrayEquals(value, OplogValueCodec.decode(frame, frame.length));
+  }
+
+  @Test
+  public void incompressibleValueIsStoredRaw() throws Exception {
+    byte[] value = randomBytes(1000);
+    byte[] frame = OplogValueCodec.encode(value, value.length, true);
+
+    assertFalse(OplogValueCodec.isCompressed(frame));
+    assertArrayEquals(value, OplogValueCodec.decode(frame, frame.length));
+  }
+
+  @Test
+  public void smallValueIsNotCompressed() throws Exception {
+    byte[] value = new byte[OplogValueCodec.MIN_COMPRESS_LENGTH - 1];
+    byte[] frame = OplogValueCodec.encode(value, value.length, true);
+
+    assertFalse(OplogValueCodec.isCompressed(frame));
+  }
+
+  @Test
+  public void emptyValueIsNotFramed() throws Exception {
+    byte[] value = new byte[0];
+
+    assertSame(value, OplogValueCodec.encode(value, 0, true));
+    assertEquals(0, OplogValueCodec.decode(value, 0).length);
+  }
+
+  @Test
+  public void onlyTheGivenLengthIsDecoded() throws Exception {
+    byte[] value = randomBytes(100);
+    byte[] frame = OplogValueCodec.encode(value, value.length, false);
+    byte[] buffer = Arrays.copyOf(frame, frame.length + 50);
+
+    assertArrayEquals(value, OplogValueCodec.decode(buffer, frame.length));
+  }
+
+  @Test
+  public void corruptPayloadIsDetected() throws Exception {
+    assertCorruptionDetected(false, OplogValueCodec.HEADER_LENGTH + 10);
+    assertCorruptionDetected(true, OplogValueCodec.HEADER_LENGTH + 10);
+  }
+
+  @Test
+  public void corruptCodecIsDetected() throws Exception {
+    assertCorruptionDetected(false, 0);
+  }
+
+  @Test
+  public void truncatedFrameIsDetected() throws Exception {
+    byte[] frame = OplogValueCodec.encode(randomBytes(100), 100, false);
+    try {
+      OplogValueCodec.decode(frame, OplogValueCodec.HEADER_LENGTH - 1);
+      fail("expected IOException");
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void compactorValueWrapperWithLargerBufferIsCopied() throws Exception {
+    byte[] buffer = randomBytes(100);
+    byte[] bytes = OplogValueCodec.getBytes(new DiskEntry.Helper.CompactorValueWrapper(buffer, 60));
+
+    assertArrayEquals(Arrays.copyOf(buffer, 60), bytes);
+  }
+
+  private static void assertCorruptionDetected(boolean compress, int corruptOffset) {
+    byte[] value = new byte[1000];
+    Arrays.fill(value, (byte) 3);
+    byte[] frame = OplogValueCodec.encode(value, value.length, compress);
+    frame[corruptOffset] ^= 0x10;
+    try {
+      OplogValueCodec.decode(frame, frame.length);
+      fail("expected IOException");
+    } catch (IOException expected) {
+    }
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    return bytes;
+  }
+}
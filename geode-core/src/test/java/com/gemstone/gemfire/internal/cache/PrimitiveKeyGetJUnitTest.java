@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.CacheLoader;
+import com.gemstone.gemfire.cache.CacheLoaderException;
+import com.gemstone.gemfire.cache.CacheTransactionManager;
+import com.gemstone.gemfire.cache.LoaderHelper;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.DistributedSystemConfigProperties;
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Properties;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.LOCATORS;
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link LocalRegion#getIntKey} and {@link LocalRegion#getLongKey}.
+ */
+@Category(IntegrationTest.class)
+public class PrimitiveKeyGetJUnitTest {
+  private GemFireCacheImpl cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(DistributedSystemConfigProperties.OFF_HEAP_MEMORY_SIZE, "1m");
+    this.cache = (GemFireCacheImpl) new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  @Test
+  public void testIntKeys() {
+    LocalRegion r = (LocalRegion) this.cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL).create("intKeys");
+    for (int i = -100; i < 100; i++) {
+      r.put(i, "value" + i);
+    }
+    assertTrue(r.getRegionEntry(7) instanceof CustomEntryConcurrentHashMap.IntKeyHashEntry);
+    for (int i = -100; i < 100; i++) {
+      assertEquals("value" + i, r.getIntKey(i));
+    }
+    assertNull(r.getIntKey(100));
+    assertNull(r.getLongKey(7));
+    assertEquals(200, r.getCachePerfStats().getGets() - r.getCachePerfStats().getMisses());
+  }
+
+  @Test
+  public void testLongKeysOffHeap() {
+    LocalRegion r = (LocalRegion) this.cache.<Long, String>createRegionFactory(RegionShortcut.LOCAL).setOffHeap(true).create("longKeys");
+    long big = Long.MAX_VALUE - 1;
+    r.put(big, "big");
+    r.put(-1L, "minusOne");
+    assertTrue(r.getRegionEntry(big) instanceof CustomEntryConcurrentHashMap.LongKeyHashEntry);
+    assertEquals("big", r.getLongKey(big));
+    assertEquals("minusOne", r.getLongKey(-1L));
+    assertNull(r.getIntKey(-1));
+    assertNull(r.getLongKey(0L));
+  }
+
+  @Test
+  public void testMissInvalidAndLoad() {
+    LocalRegion r = (LocalRegion) this.cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL)
+        .setCacheLoader(new CacheLoader<Integer, String>() {
+          @Override
+          public String load(LoaderHelper<Integer, String> helper) throws CacheLoaderException {
+            return "loaded" + helper.getKey();
+          }
+          @Override
+          public void close() {
+          }
+        }).create("loadedKeys");
+    r.put(1, "one");
+    r.invalidate(1);
+    assertEquals("loaded1", r.getIntKey(1));
+    assertEquals("loaded2", r.getIntKey(2));
+    assertEquals("loaded2", r.getIntKey(2));
+  }
+
+  @Test
+  public void testTransactionalGet() {
+    LocalRegion r = (LocalRegion) this.cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL).create("txKeys");
+    r.put(1, "committed");
+    CacheTransactionManager txMgr = this.cache.getCacheTransactionManager();
+    txMgr.begin();
+    try {
+      r.put(1, "txValue");
+      assertEquals("txValue", r.getIntKey(1));
+    } finally {
+      txMgr.rollback();
+    }
+    assertEquals("committed", r.getIntKey(1));
+  }
+
+  @Test
+  public void testPlainMaps() {
+    CustomEntryConcurrentHashMap<Object, String> map = new CustomEntryConcurrentHashMap<Object, String>();
+    map.put(3, "int");
+    map.put(3L, "long");
+    map.put("3", "string");
+    assertEquals("int", map.getIntKey(3));
+    assertEquals("long", map.getLongKey(3L));
+    assertNull(map.getIntKey(4));
+    assertNull(map.getLongKey(4L));
+
+    CustomEntryConcurrentHashMap<Object, String> identityMap = new CustomEntryConcurrentHashMap<Object, String>(16, 0.75f, 16, true);
+    Integer small = 3;
+    identityMap.put(small, "int");
+    assertEquals("int", identityMap.getIntKey(3));
+    assertNull(identityMap.getIntKey(1000));
+  }
+}
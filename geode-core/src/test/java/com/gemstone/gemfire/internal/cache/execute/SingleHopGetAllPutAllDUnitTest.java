@@ -26,8 +26,10 @@ import java.util.Map.Entry;
 import org.junit.Ignore;
 
 import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.client.PoolManager;
 import com.gemstone.gemfire.cache.client.internal.ClientMetadataService;
 import com.gemstone.gemfire.cache.client.internal.ClientPartitionAdvisor;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
 import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
@@ -172,8 +174,11 @@ public class SingleHopGetAllPutAllDUnitTest extends PRClientServerTestBase{
       Map<String, String> resultMap = region.getAll(testKeysList);
       assertTrue(resultMap.equals(keysValuesMap));
       Wait.pause(2000);
+      PoolImpl pool = (PoolImpl)PoolManager.find(region.getAttributes().getPoolName());
+      long singleHopBulkOps = pool.getStats().getSingleHopBulkOps();
       Map<String, String> secondResultMap = region.getAll(testKeysList);
       assertTrue(secondResultMap.equals(keysValuesMap));
+      assertEquals(singleHopBulkOps + 1, pool.getStats().getSingleHopBulkOps());
 
       // Now test removeAll
       region.removeAll(testKeysList);
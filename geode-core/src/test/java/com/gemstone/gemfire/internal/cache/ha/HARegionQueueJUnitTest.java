@@ -24,8 +24,18 @@ import com.gemstone.gemfire.cache.*;
 import com.gemstone.gemfire.cache.util.CacheListenerAdapter;
 import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.internal.cache.Conflatable;
+import com.gemstone.gemfire.internal.cache.EnumListenerEvent;
 import com.gemstone.gemfire.internal.cache.EventID;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.RegionQueue;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ClientUpdateMessageImpl;
+import com.gemstone.gemfire.internal.cache.tier.sockets.HAEventWrapper;
+import com.gemstone.gemfire.internal.cache.tier.sockets.HandShake;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocatorImpl;
+import com.gemstone.gemfire.internal.offheap.NullOffHeapMemoryStats;
+import com.gemstone.gemfire.internal.offheap.NullOutOfOffHeapMemoryListener;
+import com.gemstone.gemfire.internal.offheap.SlabImpl;
 import com.gemstone.gemfire.test.dunit.ThreadUtils;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 import junit.framework.Assert;
@@ -834,6 +844,157 @@ public class HARegionQueueJUnitTest
     }
   }
 
+  /**
+   * Tests that peekAvailable picks up the events queued behind the ones
+   * already peeked, and that a single remove() removes all of them.
+   */
+  @Test
+  public void testPeekAvailable() throws Exception
+  {
+    HARegionQueue regionqueue = createHARegionQueue("testPeekAvailable");
+    verifyPeekAvailable(regionqueue);
+
+    regionqueue.remove();
+    assertEquals(0, regionqueue.size());
+    assertTrue(regionqueue.peekAvailable(10).isEmpty());
+  }
+
+  /**
+   * Tests peekAvailable on a durable queue, which takes peeked counters out of
+   * the available ids as it goes.
+   */
+  @Test
+  public void testPeekAvailableOnDurableQueue() throws Exception
+  {
+    HARegionQueue regionqueue = HARegionQueue.getHARegionQueueInstance(
+        "testPeekAvailableOnDurableQueue", cache,
+        HARegionQueue.BLOCKING_HA_QUEUE, true);
+    verifyPeekAvailable(regionqueue);
+  }
+
+  /**
+   * Tests that the events given back after a partially dispatched batch are
+   * peeked again, and that remove() only removes the ones that were kept.
+   */
+  @Test
+  public void testReturnPeeked() throws Exception
+  {
+    HARegionQueue regionqueue = createHARegionQueue("testReturnPeeked");
+    Conflatable[] events = putEventsForPeekAvailable(regionqueue);
+
+    assertEquals(events[0], regionqueue.peek());
+    assertEquals(Arrays.asList(events[1], events[2], events[3]),
+        regionqueue.peekAvailable(3));
+    regionqueue.returnPeeked(2);
+    regionqueue.remove();
+    assertEquals(3, regionqueue.size());
+
+    assertEquals(events[2], regionqueue.peek());
+    assertEquals(Arrays.asList(events[3], events[4]),
+        regionqueue.peekAvailable(10));
+  }
+
+  /**
+   * Tests that events given back on a durable queue, which took them out of
+   * the available ids when they were peeked, are peeked again in order.
+   */
+  @Test
+  public void testReturnPeekedOnDurableQueue() throws Exception
+  {
+    HARegionQueue regionqueue = HARegionQueue.getHARegionQueueInstance(
+        "testReturnPeekedOnDurableQueue", cache,
+        HARegionQueue.BLOCKING_HA_QUEUE, true);
+    Conflatable[] events = putEventsForPeekAvailable(regionqueue);
+
+    assertEquals(events[0], regionqueue.peek());
+    assertEquals(Arrays.asList(events[1], events[2], events[3]),
+        regionqueue.peekAvailable(3));
+    regionqueue.returnPeeked(2);
+    assertEquals(5, regionqueue.size());
+
+    assertEquals(events[2], regionqueue.peek());
+    assertEquals(Arrays.asList(events[3], events[4]),
+        regionqueue.peekAvailable(10));
+    assertTrue(regionqueue.peekAvailable(10).isEmpty());
+  }
+
+  /**
+   * Tests that conflating an event whose value is off-heap does not free the
+   * value while a dispatcher that peeked the event is still sending it.
+   */
+  @Test
+  public void testConflatingPeekedOffHeapEvent() throws Exception
+  {
+    MemoryAllocatorImpl allocator = MemoryAllocatorImpl.createForUnitTest(
+        new NullOutOfOffHeapMemoryListener(), new NullOffHeapMemoryStats(),
+        new SlabImpl[] { new SlabImpl(1024 * 1024) });
+    try {
+      LocalRegion region = (LocalRegion)cache.createRegionFactory(
+          RegionShortcut.LOCAL).create("data");
+      HARegionQueue regionqueue = HARegionQueue.getHARegionQueueInstance(
+          "testConflatingPeekedOffHeapEvent", (GemFireCacheImpl)cache,
+          HARegionQueueAttributes.DEFAULT_HARQ_ATTRIBUTES,
+          HARegionQueue.BLOCKING_HA_QUEUE, false,
+          new OffHeapHAContainerMap(new HashMap(), allocator, null), null,
+          HandShake.CONFLATION_ON, false, false);
+      HARegionQueue.peekedEventsContext.set(null);
+      byte[] value = new byte[1000];
+      Arrays.fill(value, (byte)1);
+      ClientUpdateMessageImpl peeked = new ClientUpdateMessageImpl(
+          EnumListenerEvent.AFTER_UPDATE, region, "key", value, (byte)0x00,
+          null, null, new EventID(new byte[] { 1 }, 1, 1));
+      regionqueue.put(new HAEventWrapper(peeked));
+
+      assertSame(peeked, regionqueue.peek());
+      assertTrue(peeked.isValueOffHeap());
+      assertTrue(peeked.retainValueForDispatch());
+
+      ClientUpdateMessageImpl latest = new ClientUpdateMessageImpl(
+          EnumListenerEvent.AFTER_UPDATE, region, "key", new byte[1000],
+          (byte)0x00, null, null, new EventID(new byte[] { 1 }, 1, 2));
+      regionqueue.put(new HAEventWrapper(latest));
+      assertEquals(1, regionqueue.size());
+
+      // conflation released the peeked value but the dispatcher still has it
+      assertTrue(peeked.isValueOffHeap());
+      assertTrue(Arrays.equals(value, (byte[])peeked.getValue()));
+      peeked.releaseValueForDispatch();
+      assertFalse(peeked.isValueOffHeap());
+      assertFalse(peeked.retainValueForDispatch());
+
+      regionqueue.remove();
+      assertSame(latest, regionqueue.peek());
+    }
+    finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
+  private void verifyPeekAvailable(HARegionQueue regionqueue) throws Exception
+  {
+    Conflatable[] events = putEventsForPeekAvailable(regionqueue);
+
+    assertEquals(events[0], regionqueue.peek());
+    assertEquals(Arrays.asList(events[1], events[2], events[3]),
+        regionqueue.peekAvailable(3));
+    assertEquals(Arrays.asList(events[4]), regionqueue.peekAvailable(10));
+    assertTrue(regionqueue.peekAvailable(10).isEmpty());
+  }
+
+  private Conflatable[] putEventsForPeekAvailable(HARegionQueue regionqueue)
+      throws Exception
+  {
+    // earlier tests may have peeked on this thread without removing
+    HARegionQueue.peekedEventsContext.set(null);
+    Conflatable[] events = new Conflatable[5];
+    for (int i = 0; i < events.length; i++) {
+      events[i] = new ConflatableObject("key" + i, "value" + i, new EventID(
+          new byte[] { 1 }, 1, i + 1), false, "testing");
+      regionqueue.put(events[i]);
+    }
+    return events;
+  }
+
   /**
    * test all relevant data structures are updated on a local put
    *  
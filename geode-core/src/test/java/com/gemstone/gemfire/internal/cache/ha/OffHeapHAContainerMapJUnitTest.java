@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.ha;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.LocalStatisticsFactory;
+import com.gemstone.gemfire.internal.cache.EventID;
+import com.gemstone.gemfire.internal.cache.tier.sockets.CacheClientNotifierStats;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ClientUpdateMessageImpl;
+import com.gemstone.gemfire.internal.cache.tier.sockets.HAEventWrapper;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocatorImpl;
+import com.gemstone.gemfire.internal.offheap.NullOffHeapMemoryStats;
+import com.gemstone.gemfire.internal.offheap.NullOutOfOffHeapMemoryListener;
+import com.gemstone.gemfire.internal.offheap.SlabImpl;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OffHeapHAContainerMapJUnitTest {
+
+  private static final int SLAB_SIZE = 1024 * 1024;
+
+  private MemoryAllocatorImpl allocator;
+  private CacheClientNotifierStats stats;
+  private OffHeapHAContainerMap container;
+
+  @Before
+  public void setUp() {
+    this.allocator = MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(),
+        new NullOffHeapMemoryStats(), new SlabImpl[] { new SlabImpl(SLAB_SIZE) });
+    this.stats = new CacheClientNotifierStats(new LocalStatisticsFactory(null));
+    this.container = new OffHeapHAContainerMap(new HashMap(), this.allocator, this.stats);
+  }
+
+  @After
+  public void tearDown() {
+    this.stats.close();
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  @Test
+  public void valueIsStoredOffHeapUntilRemoved() {
+    byte[] value = createValue(1000, 1);
+    ClientUpdateMessageImpl cum = createMessage(value);
+    HAEventWrapper wrapper = new HAEventWrapper(cum);
+
+    this.container.put(wrapper, cum);
+
+    assertTrue(cum.isValueOffHeap());
+    assertTrue(this.allocator.getUsedMemory() >= value.length);
+    assertTrue(Arrays.equals(value, (byte[]) ((ClientUpdateMessageImpl) this.container.get(wrapper)).getValue()));
+    assertEquals(1, this.stats.getOffHeapQueueEvents());
+    assertTrue(this.stats.getOffHeapQueueBytes() >= value.length);
+
+    assertSame(cum, this.container.remove(wrapper));
+
+    assertFalse(cum.isValueOffHeap());
+    assertEquals(0, this.allocator.getUsedMemory());
+    assertEquals(0, this.stats.getOffHeapQueueEvents());
+    assertEquals(0, this.stats.getOffHeapQueueBytes());
+  }
+
+  @Test
+  public void valueStaysOnHeapWhenOffHeapMemoryIsLow() {
+    byte[] value = createValue(SLAB_SIZE - SLAB_SIZE * OffHeapHAContainerMap.MIN_FREE_PERCENT / 100 + 1, 1);
+    ClientUpdateMessageImpl cum = createMessage(value);
+
+    this.container.put(new HAEventWrapper(cum), cum);
+
+    assertFalse(cum.isValueOffHeap());
+    assertSame(value, cum.getValue());
+    assertEquals(0, this.allocator.getUsedMemory());
+    assertEquals(1, this.stats.getOffHeapQueueEventsKeptOnHeap());
+  }
+
+  @Test
+  public void clearReleasesAllValues() {
+    for (int i = 1; i <= 10; i++) {
+      ClientUpdateMessageImpl cum = createMessage(createValue(1000, i));
+      this.container.put(new HAEventWrapper(cum), cum);
+    }
+    assertEquals(10, this.stats.getOffHeapQueueEvents());
+
+    this.container.clear();
+
+    assertEquals(0, this.container.size());
+    assertEquals(0, this.allocator.getUsedMemory());
+    assertEquals(0, this.stats.getOffHeapQueueEvents());
+    assertEquals(0, this.stats.getOffHeapQueueBytes());
+  }
+
+  private static ClientUpdateMessageImpl createMessage(byte[] value) {
+    ClientUpdateMessageImpl cum = new ClientUpdateMessageImpl();
+    cum.setEventIdentifier(new EventID(new byte[] { 1 }, 1, value[0]));
+    cum.importNewBytes(value, true);
+    return cum;
+  }
+
+  private static byte[] createValue(int size, int seed) {
+    byte[] value = new byte[size];
+    Arrays.fill(value, (byte) seed);
+    return value;
+  }
+}
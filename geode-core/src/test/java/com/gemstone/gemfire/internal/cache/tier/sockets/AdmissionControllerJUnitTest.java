@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.LocalStatisticsFactory;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.internal.cache.tier.sockets.AdmissionController.RequestClass;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AdmissionControllerJUnitTest {
+
+  private CacheServerStats stats;
+  private AdmissionController controller;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    stats = new CacheServerStats(new LocalStatisticsFactory(null), "AdmissionControllerJUnitTest", "CacheServerStats", null);
+    controller = new AdmissionController(stats);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    stats.close();
+  }
+
+  @Test
+  public void requestsAreClassifiedByMessageType() {
+    assertEquals(RequestClass.READ, AdmissionController.getRequestClass(MessageType.REQUEST));
+    assertEquals(RequestClass.WRITE, AdmissionController.getRequestClass(MessageType.PUTALL));
+    assertEquals(RequestClass.QUERY, AdmissionController.getRequestClass(MessageType.QUERY_WITH_PARAMETERS));
+    assertEquals(RequestClass.FUNCTION, AdmissionController.getRequestClass(MessageType.EXECUTE_FUNCTION));
+    assertNull(AdmissionController.getRequestClass(MessageType.PING));
+    assertNull(AdmissionController.getRequestClass(MessageType.REGISTER_INTEREST));
+  }
+
+  @Test
+  public void requestsAreAdmittedWhenNoLimitIsSet() {
+    for (RequestClass rc : RequestClass.values()) {
+      assertFalse(controller.isLimited(rc));
+      for (int i = 0; i < 10; i++) {
+        assertTrue(controller.admit(rc));
+      }
+    }
+    assertEquals(0, stats.getRequestsShed());
+  }
+
+  @Test
+  public void requestIsShedWhenQueueIsFull() {
+    controller.setLimit(RequestClass.READ, 1, 0, 60000);
+    assertTrue(controller.admit(RequestClass.READ));
+    assertFalse(controller.admit(RequestClass.READ));
+    assertEquals(1, stats.getRequestsShed());
+    // other classes are not held up
+    assertTrue(controller.admit(RequestClass.WRITE));
+
+    controller.release(RequestClass.READ);
+    assertTrue(controller.admit(RequestClass.READ));
+  }
+
+  @Test
+  public void requestIsShedWhenWaitTimesOut() {
+    controller.setLimit(RequestClass.QUERY, 1, 10, 10);
+    assertTrue(controller.admit(RequestClass.QUERY));
+    assertFalse(controller.admit(RequestClass.QUERY));
+    assertEquals(1, stats.getRequestsShed());
+  }
+
+  @Test
+  public void queuedRequestIsAdmittedWhenPermitIsReleased() throws Exception {
+    controller.setLimit(RequestClass.WRITE, 1, 1, 60000);
+    assertTrue(controller.admit(RequestClass.WRITE));
+    Future<Boolean> queued = executor.submit(() -> controller.admit(RequestClass.WRITE));
+    long giveUp = System.currentTimeMillis() + 30000;
+    while (stats.getStats().getInt("admissionQueueSize") == 0) {
+      assertTrue("request never queued", System.currentTimeMillis() < giveUp);
+      Thread.sleep(10);
+    }
+    // the queue is full so the next request is shed
+    assertFalse(controller.admit(RequestClass.WRITE));
+
+    controller.release(RequestClass.WRITE);
+    assertTrue(queued.get(30, TimeUnit.SECONDS));
+    assertEquals(0, stats.getStats().getInt("admissionQueueSize"));
+    assertEquals(1, stats.getStats().getLong("admissionWaits"));
+    assertEquals(1, stats.getRequestsShed());
+  }
+}
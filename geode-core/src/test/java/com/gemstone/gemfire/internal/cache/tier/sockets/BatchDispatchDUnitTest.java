@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.jayway.awaitility.Awaitility;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.ClientCache;
+import com.gemstone.gemfire.cache.client.ClientCacheFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.test.dunit.Host;
+import com.gemstone.gemfire.test.dunit.NetworkUtils;
+import com.gemstone.gemfire.test.dunit.VM;
+import com.gemstone.gemfire.test.dunit.cache.internal.JUnit4CacheTestCase;
+import com.gemstone.gemfire.test.junit.categories.DistributedTest;
+
+/**
+ * Tests the batches in which a cache server dispatches subscription events
+ * to a client.
+ */
+@Category(DistributedTest.class)
+public class BatchDispatchDUnitTest extends JUnit4CacheTestCase {
+
+  private static final String REGION_NAME = "BatchDispatchDUnitTest_region";
+
+  /** the largest message the server sends during these tests */
+  private static final int MAX_MESSAGE_SIZE = 100 * 1024;
+
+  private VM server;
+  private VM client;
+
+  @Override
+  public final void postSetUp() throws Exception {
+    Host host = Host.getHost(0);
+    this.server = host.getVM(0);
+    this.client = host.getVM(1);
+    final int port = this.server.invoke(() -> createServer());
+    final String hostName = NetworkUtils.getServerHostName(host);
+    this.client.invoke(() -> createClient(hostName, port));
+  }
+
+  @Override
+  public final void preTearDownCacheTestCase() throws Exception {
+    this.server.invoke(() -> {
+      CacheClientProxy.isSlowStartForTesting = false;
+      System.clearProperty("slowStartTimeForTesting");
+      Message.MAX_MESSAGE_SIZE = Message.DEFAULT_MAX_MESSAGE_SIZE;
+    });
+  }
+
+  private int createServer() throws Exception {
+    // keep the dispatcher from sending anything until all the events are queued
+    CacheClientProxy.isSlowStartForTesting = true;
+    System.setProperty("slowStartTimeForTesting", "120000");
+    Message.MAX_MESSAGE_SIZE = MAX_MESSAGE_SIZE;
+    getCache().createRegionFactory(RegionShortcut.REPLICATE).create(REGION_NAME);
+    CacheServer server = getCache().addCacheServer();
+    server.setPort(AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET));
+    server.start();
+    return server.getPort();
+  }
+
+  private void createClient(String hostName, int port) {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    ClientCache cache = getClientCache(new ClientCacheFactory(props).addPoolServer(hostName, port)
+        .setPoolSubscriptionEnabled(true));
+    Region<String, byte[]> region = cache.<String, byte[]>createClientRegionFactory(ClientRegionShortcut.CACHING_PROXY)
+        .create(REGION_NAME);
+    region.registerInterest("ALL_KEYS");
+  }
+
+  @Test
+  public void messageTooLargeInBatchIsSkipped() {
+    this.server.invoke(() -> {
+      Region<String, byte[]> region = getCache().getRegion(REGION_NAME);
+      for (int i = 0; i < 10; i++) {
+        region.put("key" + i, new byte[i == 4 ? 2 * MAX_MESSAGE_SIZE : 10]);
+      }
+      // the dispatcher now finds all the events queued and sends them in one batch
+      CacheClientProxy.isSlowStartForTesting = false;
+    });
+    this.client.invoke(() -> {
+      Region<String, byte[]> region = getCache().getRegion(REGION_NAME);
+      Awaitility.await().atMost(60, TimeUnit.SECONDS).until(() -> region.containsKey("key9"));
+      for (int i = 0; i < 10; i++) {
+        assertEquals(i != 4, region.containsKey("key" + i));
+      }
+    });
+    // later events are still dispatched
+    this.server.invoke(() -> {
+      getCache().getRegion(REGION_NAME).put("key10", new byte[10]);
+    });
+    this.client.invoke(() -> {
+      Region<String, byte[]> region = getCache().getRegion(REGION_NAME);
+      Awaitility.await().atMost(60, TimeUnit.SECONDS).until(() -> region.containsKey("key10"));
+      assertFalse(region.containsKey("key4"));
+    });
+  }
+}
@@ -19,14 +19,19 @@ package com.gemstone.gemfire.internal.cache.tier.sockets;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.internal.offheap.StoredObject;
 import com.gemstone.gemfire.test.junit.categories.UnitTest;
 
 @Category(UnitTest.class)
@@ -120,6 +125,100 @@ public class MessageJUnitTest {
     verify(mockPart1, times(2)).clear();
   }
 
+  @Test
+  public void compressedObjectPartIsDecompressedWhenRead() throws Exception {
+    byte[] value = new byte[64 * 1024];
+    for (int i = 0; i < value.length; i++) {
+      value[i] = (byte)(i % 16);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Message sent = new Message(2, Version.CURRENT);
+    sent.setComms(mockSocket, null, out, ByteBuffer.allocate(1000), mockStats);
+    sent.setMessageType(MessageType.REQUEST);
+    sent.addRawPart(value, true);
+    sent.addRawPart(new byte[] { 1, 2, 3 }, true);
+    sent.getPart(0).setSendCompressed(true);
+    sent.getPart(1).setSendCompressed(true);
+    sent.send(false);
+    assertTrue(out.size() < value.length / 2);
+
+    Message received = new Message(2, Version.CURRENT);
+    received.setComms(mockSocket, new ByteArrayInputStream(out.toByteArray()), null,
+        ByteBuffer.allocate(1000), mockStats);
+    received.recv();
+    Part valuePart = received.getPart(0);
+    assertTrue(valuePart.isObject());
+    assertArrayEquals(value, valuePart.getSerializedForm());
+    assertNotNull(valuePart.getCompressedForm());
+    // parts smaller than MIN_COMPRESSED_LENGTH are sent as they are
+    assertNull(received.getPart(1).getCompressedForm());
+
+    // a retry on a server that does not accept compression sends the original
+    out.reset();
+    sent.getPart(0).setSendCompressed(false);
+    sent.send();
+    assertTrue(out.size() > value.length);
+  }
+
+  @Test
+  public void directPartsAreWrittenWithGatheringWrites() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    SocketChannel mockChannel = mock(SocketChannel.class);
+    // accept at most 3000 bytes per call to exercise partial writes
+    when(mockChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+      ByteBuffer[] bufs = (ByteBuffer[]) invocation.getArguments()[0];
+      int offset = (Integer) invocation.getArguments()[1];
+      int length = (Integer) invocation.getArguments()[2];
+      long written = 0;
+      for (int i = offset; i < offset + length && written < 3000; i++) {
+        while (bufs[i].hasRemaining() && written < 3000) {
+          out.write(bufs[i].get());
+          written++;
+        }
+      }
+      return written;
+    });
+    when(mockChannel.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+      ByteBuffer bb = (ByteBuffer) invocation.getArguments()[0];
+      int written = bb.remaining();
+      while (bb.hasRemaining()) {
+        out.write(bb.get());
+      }
+      return written;
+    });
+    Socket channelSocket = mock(Socket.class);
+    when(channelSocket.getChannel()).thenReturn(mockChannel);
+
+    byte[] value = new byte[20000];
+    for (int i = 0; i < value.length; i++) {
+      value[i] = (byte) i;
+    }
+    final ByteBuffer direct = ByteBuffer.allocateDirect(value.length);
+    direct.put(value);
+    direct.flip();
+    StoredObject mockValue = mock(StoredObject.class);
+    when(mockValue.hasRefCount()).thenReturn(true);
+    when(mockValue.getDataSize()).thenReturn(value.length);
+    when(mockValue.createDirectByteBuffer()).thenAnswer(invocation -> direct.duplicate());
+
+    Message sent = new Message(3, Version.CURRENT);
+    sent.setComms(channelSocket, ByteBuffer.allocateDirect(1000), mockStats);
+    sent.setMessageType(MessageType.REQUEST);
+    sent.addStringPart("key");
+    sent.addPartInAnyForm(mockValue, false);
+    sent.addIntPart(7);
+    sent.send();
+    verify(mockStats).incSentBytes(out.size());
+
+    Message received = new Message(3, Version.CURRENT);
+    received.setComms(mockSocket, new ByteArrayInputStream(out.toByteArray()), null,
+        ByteBuffer.allocate(1000), mockStats);
+    received.recv();
+    assertEquals("key", received.getPart(0).getString());
+    assertArrayEquals(value, received.getPart(1).getSerializedForm());
+    assertEquals(7, received.getPart(2).getInt());
+  }
+
   // TODO many more tests are needed
 
 }
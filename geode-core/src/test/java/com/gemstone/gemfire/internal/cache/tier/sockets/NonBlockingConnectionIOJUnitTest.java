@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.internal.offheap.StoredObject;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests {@link NonBlockingConnectionIO} on a connected pair of socket channels.
+ */
+@Category(IntegrationTest.class)
+public class NonBlockingConnectionIOJUnitTest {
+
+  private SocketChannel client;
+  private SocketChannel server;
+  private ServerConnection connection;
+  private AcceptorImpl acceptor;
+  private NonBlockingConnectionIO io;
+
+  @Before
+  public void setUp() throws Exception {
+    ServerSocketChannel listener = ServerSocketChannel.open();
+    try {
+      listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      this.client = SocketChannel.open(listener.getLocalAddress());
+      this.server = listener.accept();
+    } finally {
+      listener.close();
+    }
+    this.server.configureBlocking(false);
+    this.server.socket().setSendBufferSize(8192);
+    this.client.socket().setReceiveBufferSize(8192);
+    this.connection = mock(ServerConnection.class);
+    this.acceptor = mock(AcceptorImpl.class);
+    when(this.connection.getAcceptor()).thenReturn(this.acceptor);
+    this.io = new NonBlockingConnectionIO(this.connection, this.server);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    this.client.close();
+    this.server.close();
+  }
+
+  private byte[] requestBytes(int partLength) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Message msg = new Message(1, Version.CURRENT);
+    msg.setComms(mock(Socket.class), null, out, ByteBuffer.allocate(100), null);
+    msg.setMessageType(MessageType.REQUEST);
+    msg.addRawPart(new byte[partLength], false);
+    msg.send();
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns a mock off-heap value whose data the message can write from a
+   * direct buffer.
+   */
+  private StoredObject directValue(byte[] value) {
+    ByteBuffer direct = ByteBuffer.allocateDirect(value.length);
+    direct.put(value);
+    direct.flip();
+    StoredObject storedObject = mock(StoredObject.class);
+    when(storedObject.hasRefCount()).thenReturn(true);
+    when(storedObject.getDataSize()).thenReturn(value.length);
+    when(storedObject.createDirectByteBuffer()).thenAnswer(invocation -> direct.duplicate());
+    return storedObject;
+  }
+
+  private static byte[] pattern(int length) {
+    byte[] value = new byte[length];
+    for (int i = 0; i < value.length; i++) {
+      value[i] = (byte)i;
+    }
+    return value;
+  }
+
+  /**
+   * Reads a whole reply on the client, having the connection write its queued
+   * replies if <code>writeQueued</code>, and returns it as a message.
+   */
+  private Message readReply(boolean writeQueued) throws Exception {
+    ByteBuffer header = ByteBuffer.allocate(17);
+    readFully(header, writeQueued);
+    ByteBuffer received = ByteBuffer.allocate(17 + header.getInt(4));
+    header.flip();
+    received.put(header);
+    readFully(received, writeQueued);
+    Message msg = new Message(2, Version.CURRENT);
+    msg.setComms(mock(Socket.class), new ByteArrayInputStream(received.array()), null,
+        ByteBuffer.allocate(1000), null);
+    msg.recv();
+    return msg;
+  }
+
+  private void readFully(ByteBuffer bb, boolean writeQueued) throws Exception {
+    while (bb.hasRemaining()) {
+      this.client.read(bb);
+      if (writeQueued) {
+        this.io.writeQueuedReplies();
+      }
+    }
+  }
+
+  private boolean readRequestWhenAvailable() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      if (this.io.readRequest()) {
+        return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
+  @Test
+  public void requestIsOnlyReadableOnceComplete() throws Exception {
+    byte[] request = requestBytes(1000);
+    this.client.write(ByteBuffer.wrap(request, 0, 10));
+    assertFalse(readRequestWhenAvailable());
+    this.client.write(ByteBuffer.wrap(request, 10, 500));
+    assertFalse(readRequestWhenAvailable());
+    this.client.write(ByteBuffer.wrap(request, 510, request.length - 510));
+    assertTrue(readRequestWhenAvailable());
+
+    Message msg = new Message(1, Version.CURRENT);
+    msg.setComms(this.connection, mock(Socket.class), this.io.getInputStream(), null,
+        ByteBuffer.allocate(100), null);
+    msg.recv();
+    assertEquals(MessageType.REQUEST, msg.getMessageType());
+    assertEquals(1000, msg.getPart(0).getSerializedForm().length);
+    assertEquals(-1, this.io.getInputStream().read());
+
+    // the next request starts from an empty buffer
+    this.client.write(ByteBuffer.wrap(requestBytes(10)));
+    assertTrue(readRequestWhenAvailable());
+    msg.recv();
+    assertEquals(10, msg.getPart(0).getSerializedForm().length);
+  }
+
+  @Test
+  public void closedConnectionFailsRead() throws Exception {
+    this.client.close();
+    assertTrue(readRequestWhenAvailable());
+    try {
+      this.io.getInputStream().read(new byte[10], 0, 10);
+      fail("expected EOFException");
+    } catch (EOFException expected) {
+    }
+  }
+
+  @Test
+  public void repliesTheSocketDoesNotAcceptAreQueued() throws Exception {
+    byte[] reply = new byte[512 * 1024];
+    Arrays.fill(reply, (byte)3);
+    this.io.getOutputStream().write(reply);
+    assertTrue(this.io.hasQueuedReplies());
+    verify(this.acceptor).registerSC(this.connection);
+
+    ByteBuffer received = ByteBuffer.allocate(reply.length);
+    while (received.hasRemaining()) {
+      this.client.read(received);
+      this.io.writeQueuedReplies();
+    }
+    assertFalse(this.io.hasQueuedReplies());
+    assertArrayEquals(reply, received.array());
+  }
+
+  @Test
+  public void directPartsOfRepliesAreGathered() throws Exception {
+    byte[] value = pattern(256 * 1024);
+    StoredObject storedObject = directValue(value);
+    Message reply = new Message(2, Version.CURRENT);
+    reply.setComms(this.connection, mock(Socket.class), this.io, ByteBuffer.allocateDirect(1000), null);
+    reply.setMessageType(MessageType.RESPONSE);
+    reply.addStringPart("key");
+    reply.addPartInAnyForm(storedObject, false);
+    reply.send();
+    verify(storedObject).createDirectByteBuffer();
+    // the socket did not take the whole value, the rest was copied and queued
+    assertTrue(this.io.hasQueuedReplies());
+
+    Message msg = readReply(true);
+    assertFalse(this.io.hasQueuedReplies());
+    assertEquals("key", msg.getPart(0).getString());
+    assertArrayEquals(value, msg.getPart(1).getSerializedForm());
+  }
+
+  @Test
+  public void messageWaitsForNonBlockingChannelToBeWritable() throws Exception {
+    byte[] value = pattern(256 * 1024);
+    Message reply = new Message(2, Version.CURRENT);
+    reply.setComms(this.server.socket(), ByteBuffer.allocateDirect(1000), null);
+    reply.setMessageType(MessageType.RESPONSE);
+    reply.addStringPart("key");
+    reply.addPartInAnyForm(directValue(value), false);
+    CompletableFuture<Void> sent = CompletableFuture.runAsync(() -> {
+      try {
+        reply.send();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    Message msg = readReply(false);
+    sent.get(30, TimeUnit.SECONDS);
+    assertEquals("key", msg.getPart(0).getString());
+    assertArrayEquals(value, msg.getPart(1).getSerializedForm());
+  }
+
+  @Test
+  public void interestOpsFollowState() throws Exception {
+    assertEquals(SelectionKey.OP_READ, this.io.getInterestOps());
+    this.io.setProcessing(true);
+    assertEquals(0, this.io.getInterestOps());
+  }
+
+  @Test
+  public void oversizedRequestFailsBeforeItsPayloadIsRead() throws Exception {
+    this.io = new NonBlockingConnectionIO(this.connection, this.server, 100, null);
+    this.client.write(ByteBuffer.wrap(requestBytes(1000), 0, 17));
+    assertTrue(readRequestWhenAvailable());
+    try {
+      this.io.getInputStream().read(new byte[10], 0, 10);
+      fail("expected IOException");
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void requestWaitsForDataLimiterPermits() throws Exception {
+    Semaphore dataLimiter = new Semaphore(2000, true);
+    this.io = new NonBlockingConnectionIO(this.connection, this.server, 2000, dataLimiter);
+    dataLimiter.acquire(1500);
+    byte[] request = requestBytes(1000);
+    int payloadLength = request.length - 17;
+    this.client.write(ByteBuffer.wrap(request));
+    assertFalse(readRequestWhenAvailable());
+    assertTrue(this.io.isAwaitingPermits());
+    assertEquals(0, this.io.getInterestOps());
+
+    dataLimiter.release(1500);
+    assertTrue(readRequestWhenAvailable());
+    assertFalse(this.io.isAwaitingPermits());
+    assertEquals(request.length, this.io.getInputStream().available());
+    assertEquals(2000 - payloadLength, dataLimiter.availablePermits());
+
+    // the permits are held until the request has been processed
+    this.io.setProcessing(true);
+    this.io.setProcessing(false);
+    assertEquals(2000, dataLimiter.availablePermits());
+
+    this.client.write(ByteBuffer.wrap(request));
+    assertTrue(readRequestWhenAvailable());
+    this.io.close();
+    assertEquals(2000, dataLimiter.availablePermits());
+  }
+}
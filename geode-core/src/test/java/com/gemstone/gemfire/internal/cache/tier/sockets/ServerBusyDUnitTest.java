@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.ClientCache;
+import com.gemstone.gemfire.cache.client.ClientCacheFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.cache.execute.FunctionAdapter;
+import com.gemstone.gemfire.cache.execute.FunctionContext;
+import com.gemstone.gemfire.cache.execute.FunctionService;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.internal.cache.CacheServerImpl;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.test.dunit.Host;
+import com.gemstone.gemfire.test.dunit.NetworkUtils;
+import com.gemstone.gemfire.test.dunit.VM;
+import com.gemstone.gemfire.test.dunit.cache.internal.JUnit4CacheTestCase;
+import com.gemstone.gemfire.test.junit.categories.DistributedTest;
+
+/**
+ * Tests that a request shed by a busy cache server reaches the client as a
+ * {@link com.gemstone.gemfire.cache.client.ServerBusyException} for every
+ * form of reply, and that the client retries it on another server without
+ * giving up its connection to the busy one.
+ */
+@Category(DistributedTest.class)
+public class ServerBusyDUnitTest extends JUnit4CacheTestCase {
+
+  private static final String REGION_NAME = "ServerBusyDUnitTest_region";
+
+  private VM busyServer;
+  private VM idleServer;
+  private VM client;
+
+  @Override
+  public final void postSetUp() throws Exception {
+    Host host = Host.getHost(0);
+    this.busyServer = host.getVM(0);
+    this.idleServer = host.getVM(1);
+    this.client = host.getVM(2);
+    final int busyPort = this.busyServer.invoke(() -> createServer(true));
+    final int idlePort = this.idleServer.invoke(() -> createServer(false));
+    final String hostName = NetworkUtils.getServerHostName(host);
+    this.client.invoke(() -> createClient(hostName, busyPort, idlePort));
+  }
+
+  @Override
+  public final void preTearDownCacheTestCase() throws Exception {
+    this.client.invoke(() -> System.clearProperty(DistributionConfig.GEMFIRE_PREFIX + "bridge.disableShufflingOfEndpoints"));
+  }
+
+  private int createServer(boolean busy) throws Exception {
+    Region<String, String> region = getCache().<String, String>createRegionFactory(RegionShortcut.REPLICATE)
+        .create(REGION_NAME);
+    for (int i = 0; i < 10; i++) {
+      region.put("key" + i, "value" + i);
+    }
+    FunctionService.registerFunction(new IsLimitedFunction());
+    CacheServer server = getCache().addCacheServer();
+    server.setPort(AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET));
+    server.start();
+    if (busy) {
+      // shed every request without queuing it
+      AdmissionController admissionController = ((CacheServerImpl) server).getAcceptor().getAdmissionController();
+      for (AdmissionController.RequestClass requestClass : AdmissionController.RequestClass.values()) {
+        admissionController.setLimit(requestClass, 0, 0, 0);
+      }
+    }
+    return server.getPort();
+  }
+
+  private void createClient(String hostName, int busyPort, int idlePort) {
+    // the first connection the pool creates is to the busy server
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "bridge.disableShufflingOfEndpoints", "true");
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    ClientCache cache = getClientCache(new ClientCacheFactory(props).addPoolServer(hostName, busyPort)
+        .addPoolServer(hostName, idlePort).setPoolMinConnections(0).setPoolIdleTimeout(-1)
+        .setPoolRetryAttempts(0));
+    cache.createClientRegionFactory(ClientRegionShortcut.PROXY).create(REGION_NAME);
+  }
+
+  private static PoolImpl getPool() {
+    return (PoolImpl) PoolManager.getAll().values().iterator().next();
+  }
+
+  private static long getRequestsShed() {
+    CacheServerImpl server = (CacheServerImpl) GemFireCacheImpl.getInstance().getCacheServers().get(0);
+    return server.getAcceptor().getStats().getRequestsShed();
+  }
+
+  /**
+   * Checks that the busy server shed one request and that the client kept its
+   * connection to it.
+   */
+  private void checkRequestShed() {
+    assertEquals(1L, (long) this.busyServer.invoke(() -> getRequestsShed()));
+    assertEquals(0L, (long) this.idleServer.invoke(() -> getRequestsShed()));
+    this.client.invoke(() -> {
+      PoolImpl pool = getPool();
+      assertEquals(2, pool.getConnectionCount());
+      assertEquals(2, pool.getConnectedServerCount());
+      assertEquals(0, pool.getStats().getDisConnects());
+    });
+  }
+
+  @Test
+  public void shedGetIsRetried() {
+    this.client.invoke(() -> {
+      Region<String, String> region = GemFireCacheImpl.getInstance().getRegion(REGION_NAME);
+      assertEquals("value1", region.get("key1"));
+    });
+    checkRequestShed();
+  }
+
+  @Test
+  public void shedGetAllIsRetried() {
+    this.client.invoke(() -> {
+      Region<String, String> region = GemFireCacheImpl.getInstance().getRegion(REGION_NAME);
+      List<String> keys = Arrays.asList("key1", "key2", "key3");
+      Map<String, String> values = region.getAll(keys);
+      assertEquals(3, values.size());
+      assertEquals("value2", values.get("key2"));
+    });
+    checkRequestShed();
+  }
+
+  @Test
+  public void shedQueryIsRetried() {
+    this.client.invoke(() -> {
+      SelectResults<?> results = (SelectResults<?>) getPool().getQueryService()
+          .newQuery("select * from /" + REGION_NAME).execute();
+      assertEquals(10, results.size());
+    });
+    checkRequestShed();
+  }
+
+  @Test
+  public void shedFunctionIsRetried() {
+    this.client.invoke(() -> {
+      List<?> results = (List<?>) FunctionService.onServer(getPool())
+          .execute(IsLimitedFunction.ID).getResult();
+      assertEquals(Collections.singletonList(Boolean.FALSE), results);
+    });
+    checkRequestShed();
+  }
+
+  /**
+   * Returns whether the server it executes on limits function executions.
+   */
+  private static class IsLimitedFunction extends FunctionAdapter {
+    static final String ID = "ServerBusyDUnitTest_function";
+
+    @Override
+    public void execute(FunctionContext context) {
+      CacheServerImpl server = (CacheServerImpl) GemFireCacheImpl.getInstance().getCacheServers().get(0);
+      context.getResultSender().lastResult(Boolean.valueOf(
+          server.getAcceptor().getAdmissionController().isLimited(AdmissionController.RequestClass.FUNCTION)));
+    }
+
+    @Override
+    public String getId() {
+      return ID;
+    }
+  }
+}
@@ -864,6 +864,104 @@ public class FreeListManagerTest {
     assertThat(this.freeListManager.isAdjacent(lowAddr, 4, highAddr));
     assertThat(!this.freeListManager.isAdjacent(highAddr, 4, lowAddr));
   }
+  @Test
+  public void freedTinyChunkIsReusedFromThreadCache() {
+    this.freeListManager = new ThreadCachingFreeListManager(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)});
+    int dataSize = 10;
+
+    OffHeapStoredObject c = this.freeListManager.allocate(dataSize);
+    verify(this.stats).incThreadCacheMisses(1);
+    long addr = c.getAddress();
+    OffHeapStoredObject.release(addr, this.freeListManager);
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(dataSize));
+
+    c = this.freeListManager.allocate(dataSize);
+
+    assertThat(c.getAddress()).isEqualTo(addr);
+    validateChunkSizes(c, dataSize);
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+  }
+
+  @Test
+  public void fullThreadCacheReturnsChunksToSharedFreeList() {
+    this.freeListManager = new ThreadCachingFreeListManager(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)});
+    int dataSize = 10;
+    List<OffHeapStoredObject> chunks = new ArrayList<OffHeapStoredObject>();
+    for (int i=0; i < ThreadCachingFreeListManager.CACHE_SIZE+2; i++) {
+      chunks.add(this.freeListManager.allocate(dataSize));
+    }
+    for (OffHeapStoredObject c: chunks) {
+      OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    }
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(chunks.size()*computeExpectedSize(dataSize));
+    verify(this.stats).incThreadCacheMemory((ThreadCachingFreeListManager.CACHE_SIZE/2)*computeExpectedSize(dataSize));
+
+    for (int i=0; i < chunks.size(); i++) {
+      validateChunkSizes(this.freeListManager.allocate(dataSize), dataSize);
+    }
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+  }
+
+  @Test
+  public void defragmentationDrainsThreadCaches() {
+    int chunkSize = FreeListManager.THREAD_CACHE_MAX_CHUNK_SIZE;
+    this.freeListManager = new ThreadCachingFreeListManager(ma, new Slab[] {new SlabImpl(chunkSize)});
+    OffHeapStoredObject c = this.freeListManager.allocate(chunkSize - OffHeapStoredObject.HEADER_SIZE);
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+
+    // a different size class misses the thread cache and the slab is used up
+    // so only a defragmentation that drains the thread cache can satisfy it
+    c = this.freeListManager.allocate(chunkSize/2);
+
+    validateChunkSizes(c, chunkSize/2);
+  }
+
+  @Test
+  public void threadCacheOfTerminatedThreadIsDrained() throws Exception {
+    this.freeListManager = new ThreadCachingFreeListManager(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)});
+    final int dataSize = 10;
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        OffHeapStoredObject c = freeListManager.allocate(dataSize);
+        OffHeapStoredObject.release(c.getAddress(), freeListManager);
+      }
+    });
+    t.start();
+    t.join();
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(dataSize));
+
+    this.freeListManager.drainThreadCaches();
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(dataSize));
+    OffHeapStoredObject c = this.freeListManager.allocate(dataSize);
+    validateChunkSizes(c, dataSize);
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+  }
+
+  @Test
+  public void allocateBelowOnlyReturnsFreeChunksAtLowerAddresses() {
+    setUpSingleSlabManager();
+    int dataSize = 100;
+    OffHeapStoredObject low = this.freeListManager.allocate(dataSize);
+    OffHeapStoredObject high = this.freeListManager.allocate(dataSize);
+    assertThat(low.getAddress()).isLessThan(high.getAddress());
+
+    assertThat(this.freeListManager.allocateBelow(dataSize, high.getAddress())).isNull();
+
+    OffHeapStoredObject.release(high.getAddress(), this.freeListManager);
+    assertThat(this.freeListManager.allocateBelow(dataSize, low.getAddress())).isNull();
+    // the rejected chunk went back to its free list
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(dataSize));
+
+    OffHeapStoredObject.release(low.getAddress(), this.freeListManager);
+    OffHeapStoredObject c = this.freeListManager.allocateBelow(dataSize, high.getAddress());
+    assertThat(c.getAddress()).isEqualTo(low.getAddress());
+    validateChunkSizes(c, dataSize);
+    assertThat(c.getRefCount()).isEqualTo(1);
+  }
+
   @Test
   public void isSmallEnoughBoundaryConditions() {
     SlabImpl chunk = new SlabImpl(10);
@@ -949,4 +1047,17 @@ public class FreeListManagerTest {
 
     
   }
+
+  private static class ThreadCachingFreeListManager extends TestableFreeListManager {
+    static final int CACHE_SIZE = 4;
+
+    public ThreadCachingFreeListManager(MemoryAllocatorImpl ma, Slab[] slabs) {
+      super(ma, slabs);
+    }
+
+    @Override
+    protected int getThreadCacheSize() {
+      return CACHE_SIZE;
+    }
+  }
 }
@@ -99,6 +99,34 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
     return 0;
   }
   @Override
+  public void incThreadCacheHits(int value) {
+  }
+  @Override
+  public long getThreadCacheHits() {
+    return 0;
+  }
+  @Override
+  public void incThreadCacheMisses(int value) {
+  }
+  @Override
+  public long getThreadCacheMisses() {
+    return 0;
+  }
+  @Override
+  public void incThreadCacheMemory(long value) {
+  }
+  @Override
+  public long getThreadCacheMemory() {
+    return 0;
+  }
+  @Override
+  public void incRelocations(int value) {
+  }
+  @Override
+  public long getRelocations() {
+    return 0;
+  }
+  @Override
   public void close() {
     this.isClosed = true;
   }
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.OffHeapRegionEntry;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class OffHeapDefragmenterJUnitTest {
+  private GemFireCacheImpl gfc;
+  private MemoryAllocatorImpl ma;
+  private OffHeapDefragmenter defragmenter;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(OFF_HEAP_MEMORY_SIZE, "2m");
+    this.gfc = (GemFireCacheImpl) new CacheFactory(props).create();
+    this.ma = MemoryAllocatorImpl.getAllocator();
+    // never started; the tests drive it directly
+    this.defragmenter = new OffHeapDefragmenter(this.ma, 1000);
+  }
+
+  @After
+  public void tearDown() {
+    this.gfc.close();
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  private Region<Integer, byte[]> createRegion() {
+    return this.gfc.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL).setOffHeap(true).create("defragRegion");
+  }
+
+  private static byte[] value(int i) {
+    byte[] result = new byte[100];
+    for (int j=0; j < result.length; j++) {
+      result[j] = (byte) (i + j);
+    }
+    return result;
+  }
+
+  private long getAddress(Region<Integer, byte[]> r, int key) {
+    return ((OffHeapRegionEntry) ((LocalRegion) r).getRegionEntry(key)).getAddress();
+  }
+
+  @Test
+  public void valuesMoveIntoFreedMemoryAtLowerAddresses() {
+    Region<Integer, byte[]> r = createRegion();
+    for (int i=0; i < 200; i++) {
+      r.put(i, value(i));
+    }
+    long highAddress = getAddress(r, 199);
+    for (int i=0; i < 100; i++) {
+      r.destroy(i);
+    }
+    long usedMemory = this.ma.getUsedMemory();
+
+    int relocated = this.defragmenter.relocateValues();
+
+    assertTrue("relocated=" + relocated, relocated > 0);
+    assertTrue(getAddress(r, 199) < highAddress);
+    assertEquals(usedMemory, this.ma.getUsedMemory());
+    for (int i=100; i < 200; i++) {
+      assertArrayEquals(value(i), r.get(i));
+    }
+    assertTrue(this.ma.getLostChunks().isEmpty());
+  }
+
+  @Test
+  public void eachPassResumesWhereTheLastOneStopped() {
+    Region<Integer, byte[]> r = createRegion();
+    for (int i=0; i < 100; i++) {
+      r.put(i, value(i));
+    }
+    final List<OffHeapRegionEntry> examined = new ArrayList<>();
+    OffHeapDefragmenter limited = new OffHeapDefragmenter(this.ma, 1000, 40) {
+      @Override
+      boolean relocateValue(OffHeapRegionEntry re) {
+        examined.add(re);
+        return false;
+      }
+    };
+
+    limited.relocateValues();
+    assertEquals(40, examined.size());
+    limited.relocateValues();
+    assertEquals(80, examined.size());
+    limited.relocateValues();
+    assertEquals(100, examined.size());
+    assertEquals(100, new HashSet<>(examined).size());
+
+    // every entry has been examined so the next pass starts over
+    limited.relocateValues();
+    assertEquals(140, examined.size());
+    assertEquals(examined.subList(0, 40), examined.subList(100, 140));
+  }
+
+  @Test
+  public void retainedValueStaysValidAfterRelocation() {
+    Region<Integer, byte[]> r = createRegion();
+    r.put(0, value(0));
+    r.put(1, value(1));
+    OffHeapRegionEntry re = (OffHeapRegionEntry) ((LocalRegion) r).getRegionEntry(1);
+    r.destroy(0);
+    long oldAddress = re.getAddress();
+    OffHeapStoredObject retained = new OffHeapStoredObject(oldAddress);
+    assertTrue(retained.retain());
+
+    assertTrue(OffHeapRegionEntryHelper.relocateValue(re, this.ma));
+
+    assertTrue(re.getAddress() != oldAddress);
+    assertEquals(1, retained.getRefCount());
+    assertArrayEquals(value(1), (byte[]) retained.getDeserializedForReading());
+    assertArrayEquals(value(1), r.get(1));
+    retained.release();
+    assertEquals(0, OffHeapStoredObject.getRefCount(oldAddress));
+  }
+
+  @Test
+  public void defragmentsOnlyWhenFreeListsHoldMostFreeMemory() {
+    Region<Integer, byte[]> r = createRegion();
+    assertFalse(this.defragmenter.defragmentIfNeeded());
+    for (int i=0; i < 10000 && this.ma.getFreeListManager().getFreeFragmentMemory() > 0; i++) {
+      r.put(i, value(i));
+    }
+    r.clear();
+    int defragmentations = this.ma.getStats().getDefragmentations();
+
+    assertTrue(this.defragmenter.defragmentIfNeeded());
+
+    assertEquals(defragmentations+1, this.ma.getStats().getDefragmentations());
+    assertFalse(this.defragmenter.defragmentIfNeeded());
+  }
+}
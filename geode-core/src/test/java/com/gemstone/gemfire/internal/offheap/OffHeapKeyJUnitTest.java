@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.DistributedSystemConfigProperties;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.*;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.LOCATORS;
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+@Category(IntegrationTest.class)
+public class OffHeapKeyJUnitTest {
+  static {
+    // read once when OffHeapRegionEntryHelper is loaded
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_REGION_KEYS", "true");
+  }
+
+  private static final int KEY_COUNT = 100;
+
+  private GemFireCacheImpl gfc;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(DistributedSystemConfigProperties.OFF_HEAP_MEMORY_SIZE, "1m");
+    this.gfc = (GemFireCacheImpl) new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    this.gfc.close();
+  }
+
+  private long getUsedMemory() {
+    return MemoryAllocatorImpl.getAllocator().getUsedMemory();
+  }
+
+  private LocalRegion createRegion() {
+    return (LocalRegion) this.gfc.createRegionFactory(RegionShortcut.LOCAL).setConcurrencyChecksEnabled(false).setOffHeap(true).create("offHeapKeyRegion");
+  }
+
+  private static String createKey(int i) {
+    return "a key that is much too long to be inlined " + i;
+  }
+
+  @Test
+  public void testSerializedKey() {
+    LocalRegion lr = createRegion();
+    String key = "a key that is much too long to be inlined";
+    long usedBefore = getUsedMemory();
+    VMThinRegionEntryOffHeapSerializedKey re = new VMThinRegionEntryOffHeapSerializedKey(lr, key, null);
+    // the key stays on the heap until the entry is added to a region map
+    assertEquals(0L, re.getKeyAddress());
+    assertSame(key, re.getKey());
+    assertEquals(usedBefore, getUsedMemory());
+
+    OffHeapRegionEntryHelper.storeKeyOffHeap(re);
+    long keyAddress = re.getKeyAddress();
+    assertTrue(OffHeapRegionEntryHelper.isOffHeap(keyAddress));
+    assertTrue(getUsedMemory() > usedBefore);
+    assertNull(re.getHeapKey());
+    assertEquals(key, re.getKey());
+    assertNotSame(key, re.getKey());
+    assertTrue(re.isKeyEqual(key));
+    assertTrue(re.isKeyEqual(new String(key)));
+    assertFalse(re.isKeyEqual("some other key"));
+    assertFalse(re.isKeyEqual(key + "x"));
+    assertFalse(re.isKeyEqual(key.substring(1)));
+    assertFalse(re.isKeyEqual(Integer.valueOf(1)));
+    // storing the key again must not allocate it twice
+    OffHeapRegionEntryHelper.storeKeyOffHeap(re);
+    assertEquals(keyAddress, re.getKeyAddress());
+
+    re.release();
+    assertEquals(0L, re.getKeyAddress());
+    assertEquals(usedBefore, getUsedMemory());
+    // the key stays readable after the entry has been removed
+    assertEquals(key, re.getKey());
+    assertTrue(re.isKeyEqual(key));
+  }
+
+  @Test
+  public void testNonAsciiKeysAreComparedSerialized() {
+    LocalRegion lr = createRegion();
+    StringBuilder huge = new StringBuilder();
+    while (huge.length() < 70000) {
+      huge.append("a huge key ");
+    }
+    String[] keys = new String[] { "a key with non ascii chars \u00e9\u00e8\u4e2d\u0000", huge.toString(), huge.toString() + "\u4e2d" };
+    for (String key : keys) {
+      VMThinRegionEntryOffHeapSerializedKey re = new VMThinRegionEntryOffHeapSerializedKey(lr, key, null);
+      OffHeapRegionEntryHelper.storeKeyOffHeap(re);
+      assertTrue(OffHeapRegionEntryHelper.isOffHeap(re.getKeyAddress()));
+      assertEquals(key, re.getKey());
+      assertTrue(re.isKeyEqual(new String(key)));
+      assertFalse(re.isKeyEqual(key.substring(0, key.length() - 1)));
+      assertFalse(re.isKeyEqual(key.substring(0, key.length() - 1) + "b"));
+      re.release();
+    }
+  }
+
+  @Test
+  public void testKeyStaysOnHeapIfItCanNotBeAllocated() {
+    LocalRegion lr = createRegion();
+    StringBuilder huge = new StringBuilder();
+    while (huge.length() < 2 * 1024 * 1024) {
+      huge.append("a key larger than off-heap memory ");
+    }
+    String key = huge.toString();
+    long usedBefore = getUsedMemory();
+    VMThinRegionEntryOffHeapSerializedKey re = new VMThinRegionEntryOffHeapSerializedKey(lr, key, null);
+    System.setProperty(OffHeapStorage.STAY_CONNECTED_ON_OUTOFOFFHEAPMEMORY_PROPERTY, "true");
+    try {
+      OffHeapRegionEntryHelper.storeKeyOffHeap(re);
+    } finally {
+      System.clearProperty(OffHeapStorage.STAY_CONNECTED_ON_OUTOFOFFHEAPMEMORY_PROPERTY);
+    }
+    assertEquals(0L, re.getKeyAddress());
+    assertSame(key, re.getHeapKey());
+    assertSame(key, re.getKey());
+    assertTrue(re.isKeyEqual(new String(key)));
+    assertEquals(usedBefore, getUsedMemory());
+    re.release();
+  }
+
+  @Test
+  public void testTinyKeyIsEncodedInAddress() {
+    LocalRegion lr = createRegion();
+    long usedBefore = getUsedMemory();
+    VMThinRegionEntryOffHeapSerializedKey re = new VMThinRegionEntryOffHeapSerializedKey(lr, "abcd", null);
+    OffHeapRegionEntryHelper.storeKeyOffHeap(re);
+    long keyAddress = re.getKeyAddress();
+    assertFalse(OffHeapRegionEntryHelper.isOffHeap(keyAddress));
+    assertTrue(keyAddress != 0L);
+    assertEquals(usedBefore, getUsedMemory());
+    assertEquals("abcd", re.getKey());
+    assertTrue(re.isKeyEqual("abcd"));
+    re.release();
+    assertEquals("abcd", re.getKey());
+  }
+
+  @Test
+  public void testRegionOperations() {
+    assertTrue("OFF_HEAP_REGION_KEYS must be set before OffHeapRegionEntryHelper is loaded", OffHeapRegionEntryHelper.OFF_HEAP_REGION_KEYS);
+    LocalRegion lr = createRegion();
+    long usedBefore = getUsedMemory();
+    for (int i = 0; i < KEY_COUNT; i++) {
+      lr.put(createKey(i), "value" + i);
+    }
+    assertTrue(getUsedMemory() > usedBefore);
+    for (int i = 0; i < KEY_COUNT; i++) {
+      String key = createKey(i);
+      RegionEntry re = lr.getRegionEntry(key);
+      assertTrue(re instanceof OffHeapKeyRegionEntry);
+      assertTrue(OffHeapRegionEntryHelper.isOffHeap(((OffHeapKeyRegionEntry) re).getKeyAddress()));
+      assertEquals(key, re.getKey());
+      assertEquals("value" + i, lr.get(key));
+      assertTrue(lr.containsKey(key));
+    }
+    assertEquals(KEY_COUNT, lr.keySet().size());
+    assertTrue(lr.keySet().contains(createKey(7)));
+
+    for (int i = 0; i < KEY_COUNT; i++) {
+      lr.destroy(createKey(i));
+    }
+    assertEquals(0, lr.size());
+    assertEquals(usedBefore, getUsedMemory());
+  }
+
+  @Test
+  public void testEntryThatLosesCreateRaceHoldsNoOffHeapKey() {
+    LocalRegion lr = createRegion();
+    String key = createKey(0);
+    lr.put(key, "value");
+    RegionEntry installed = lr.getRegionEntry(key);
+    long usedBefore = getUsedMemory();
+
+    RegionEntry newRe = lr.getRegionMap().getEntryFactory().createEntry(lr, key, null);
+    assertTrue(newRe instanceof OffHeapKeyRegionEntry);
+    assertSame(installed, lr.getRegionMap().putEntryIfAbsent(key, newRe));
+    assertEquals(0L, ((OffHeapKeyRegionEntry) newRe).getKeyAddress());
+    assertEquals(usedBefore, getUsedMemory());
+
+    lr.destroy(key);
+    assertEquals(0, lr.size());
+  }
+
+  @Test
+  public void testConcurrentCreatesDoNotLeakKeys() throws Exception {
+    final LocalRegion lr = createRegion();
+    long usedBefore = getUsedMemory();
+    final int threadCount = 4;
+    final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+    final List<Throwable> failures = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      final int id = t;
+      Thread thread = new Thread(() -> {
+        try {
+          for (int round = 0; round < 10; round++) {
+            barrier.await();
+            for (int i = 0; i < KEY_COUNT; i++) {
+              lr.putIfAbsent(createKey(i), "value" + id);
+            }
+            barrier.await();
+            if (id == 0) {
+              for (int i = 0; i < KEY_COUNT; i++) {
+                lr.destroy(createKey(i));
+              }
+            }
+          }
+        } catch (Throwable e) {
+          synchronized (failures) {
+            failures.add(e);
+          }
+          barrier.reset();
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join(60000);
+      assertFalse(thread.isAlive());
+    }
+    assertEquals(new ArrayList<Throwable>(), failures);
+    assertEquals(0, lr.size());
+    assertEquals(usedBefore, getUsedMemory());
+  }
+}
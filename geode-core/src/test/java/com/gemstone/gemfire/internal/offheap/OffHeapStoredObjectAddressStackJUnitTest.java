@@ -93,6 +93,35 @@ public class OffHeapStoredObjectAddressStackJUnitTest {
     }
   }
 
+  @Test
+  public void batchOfferAndPollKeepStackOrder() {
+    SlabImpl slab = new SlabImpl(1024);
+    try {
+      MemoryAllocatorImpl ma = MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(), new NullOffHeapMemoryStats(), new SlabImpl[]{slab});
+      long[] addrs = new long[4];
+      for (int i=0; i < addrs.length; i++) {
+        addrs[i] = ma.allocate(100).getAddress();
+      }
+
+      OffHeapStoredObjectAddressStack stack = new OffHeapStoredObjectAddressStack();
+      stack.offer(addrs[0]);
+      stack.offer(addrs, 1, 3);
+      assertEquals(addrs[3], stack.getTopAddress());
+
+      long[] polled = new long[4];
+      assertEquals(2, stack.poll(polled, 2));
+      assertEquals(addrs[3], polled[0]);
+      assertEquals(addrs[2], polled[1]);
+      assertEquals(2, stack.poll(polled, 4));
+      assertEquals(addrs[1], polled[0]);
+      assertEquals(addrs[0], polled[1]);
+      assertEquals(true, stack.isEmpty());
+      assertEquals(0, stack.poll(polled, 4));
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
   @Test
   public void stackWithChunkIsNotEmpty() {
     SlabImpl slab = new SlabImpl(1024);
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class RedisListJUnitTest {
+
+  private static ByteArrayWrapper element(String s) {
+    return new ByteArrayWrapper(Coder.stringToBytes(s));
+  }
+
+  private static void applyDelta(RedisList from, RedisList to) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    from.toDelta(new DataOutputStream(bytes));
+    to.fromDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  @Test
+  public void testRandomOperationsMatchModel() {
+    Random random = new Random(11);
+    RedisList list = new RedisList();
+    LinkedList<ByteArrayWrapper> model = new LinkedList<ByteArrayWrapper>();
+    for (int i = 0; i < 20000; i++) {
+      ByteArrayWrapper e = element("e" + random.nextInt(20));
+      switch (random.nextInt(7)) {
+      case 0:
+      case 1:
+        list.pushLeft(e);
+        model.addFirst(e);
+        break;
+      case 2:
+      case 3:
+        list.pushRight(e);
+        model.addLast(e);
+        break;
+      case 4:
+        assertEquals(model.pollFirst(), list.popLeft());
+        break;
+      case 5:
+        assertEquals(model.pollLast(), list.popRight());
+        break;
+      default:
+        if (!model.isEmpty()) {
+          int index = random.nextInt(model.size());
+          assertTrue(list.set(index, e));
+          model.set(index, e);
+        }
+      }
+      assertEquals(model.size(), list.size());
+    }
+    assertEquals(model, list.elements());
+    for (int i = 0; i < model.size(); i++)
+      assertEquals(model.get(i), list.get(i));
+    assertNull(list.get(model.size()));
+    assertFalse(list.set(model.size(), element("x")));
+  }
+
+  @Test
+  public void testQueueUsageKeepsWorking() {
+    RedisList list = new RedisList();
+    for (int i = 0; i < 100000; i++) {
+      list.pushRight(element(String.valueOf(i)));
+      if (i >= 10)
+        assertEquals(element(String.valueOf(i - 10)), list.popLeft());
+    }
+    assertEquals(10, list.size());
+    assertEquals(element("99990"), list.get(0));
+  }
+
+  @Test
+  public void testRangeTrimAndRemove() {
+    RedisList list = new RedisList();
+    List<ByteArrayWrapper> model = new ArrayList<ByteArrayWrapper>();
+    for (int i = 0; i < 200; i++) {
+      ByteArrayWrapper e = element(String.valueOf(i % 3));
+      list.pushRight(e);
+      model.add(e);
+    }
+    assertEquals(model.subList(70, 131), list.range(70, 130));
+
+    list.trim(10, 189);
+    model = new ArrayList<ByteArrayWrapper>(model.subList(10, 190));
+    assertEquals(model, list.elements());
+
+    assertEquals(2, list.remove(element("0"), 2));
+    int removed = 0;
+    for (Iterator<ByteArrayWrapper> it = model.iterator(); it.hasNext() && removed < 2;) {
+      if (it.next().equals(element("0"))) {
+        it.remove();
+        removed++;
+      }
+    }
+    assertEquals(model, list.elements());
+
+    assertEquals(3, list.remove(element("1"), -3));
+    removed = 0;
+    for (int i = model.size() - 1; i >= 0 && removed < 3; i--) {
+      if (model.get(i).equals(element("1"))) {
+        model.remove(i);
+        removed++;
+      }
+    }
+    assertEquals(model, list.elements());
+
+    int twos = 0;
+    for (ByteArrayWrapper e : model)
+      if (e.equals(element("2")))
+        twos++;
+    assertEquals(twos, list.remove(element("2"), 0));
+
+    list.trim(5, 1);
+    assertTrue(list.isEmpty());
+  }
+
+  @Test
+  public void testSerializationAndDelta() throws Exception {
+    RedisList primary = new RedisList();
+    for (int i = 0; i < 10; i++)
+      primary.pushRight(element(String.valueOf(i)));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    primary.toData(new DataOutputStream(bytes));
+    RedisList secondary = new RedisList();
+    secondary.fromData(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(primary.elements(), secondary.elements());
+
+    primary.toDelta(new DataOutputStream(new ByteArrayOutputStream()));
+    assertFalse(primary.hasDelta());
+
+    primary.pushLeft(element("a"));
+    primary.popRight();
+    primary.set(3, element("b"));
+    primary.trim(1, 7);
+    primary.remove(element("5"), 0);
+    primary.pushRight(element("c"));
+    assertTrue(primary.hasDelta());
+    applyDelta(primary, secondary);
+    assertFalse(primary.hasDelta());
+    assertEquals(primary.elements(), secondary.elements());
+    // the delta bytes are forwarded as received, so applying them records nothing
+    assertFalse(secondary.hasDelta());
+  }
+
+  @Test
+  public void testPromotedCopySendsOnlyItsOwnOperations() throws Exception {
+    RedisList primary = new RedisList();
+    RedisList secondary = new RedisList();
+    primary.pushRight(element("a"));
+    primary.pushRight(element("b"));
+    primary.popLeft();
+    applyDelta(primary, secondary);
+
+    // the secondary becomes primary and pushes one element
+    secondary.pushLeft(element("c"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    secondary.toDelta(new DataOutputStream(bytes));
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    assertEquals(1, in.readInt());
+
+    RedisList other = new RedisList();
+    other.pushRight(element("b"));
+    other.fromDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(secondary.elements(), other.elements());
+  }
+
+  @Test
+  public void testLongDeltaIsSentAsWholeList() throws Exception {
+    RedisList primary = new RedisList();
+    RedisList secondary = new RedisList();
+    for (int i = 0; i < 1000; i++) {
+      primary.pushRight(element(String.valueOf(i)));
+      primary.popLeft();
+    }
+    primary.pushRight(element("last"));
+    applyDelta(primary, secondary);
+    assertEquals(primary.elements(), secondary.elements());
+    assertEquals(1, secondary.size());
+    assertFalse(secondary.hasDelta());
+  }
+}
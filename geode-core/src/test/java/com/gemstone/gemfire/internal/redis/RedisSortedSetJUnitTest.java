@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class RedisSortedSetJUnitTest {
+
+  private static ByteArrayWrapper member(String s) {
+    return new ByteArrayWrapper(Coder.stringToBytes(s));
+  }
+
+  /**
+   * Builds the expected ordering of a model map: ascending score, ties broken
+   * by member.
+   */
+  private static List<ByteArrayWrapper> expectedOrder(Map<ByteArrayWrapper, Double> model) {
+    TreeMap<Double, List<ByteArrayWrapper>> byScore = new TreeMap<Double, List<ByteArrayWrapper>>();
+    for (Entry<ByteArrayWrapper, Double> e : model.entrySet()) {
+      List<ByteArrayWrapper> l = byScore.get(e.getValue());
+      if (l == null) {
+        l = new ArrayList<ByteArrayWrapper>();
+        byScore.put(e.getValue(), l);
+      }
+      l.add(e.getKey());
+    }
+    List<ByteArrayWrapper> order = new ArrayList<ByteArrayWrapper>();
+    for (List<ByteArrayWrapper> l : byScore.values()) {
+      Collections.sort(l);
+      order.addAll(l);
+    }
+    return order;
+  }
+
+  private static List<ByteArrayWrapper> members(List<Entry<ByteArrayWrapper, DoubleWrapper>> entries) {
+    List<ByteArrayWrapper> l = new ArrayList<ByteArrayWrapper>();
+    for (Entry<ByteArrayWrapper, DoubleWrapper> e : entries)
+      l.add(e.getKey());
+    return l;
+  }
+
+  @Test
+  public void testRandomOperationsMatchModel() {
+    Random random = new Random(7);
+    RedisSortedSet set = new RedisSortedSet();
+    Map<ByteArrayWrapper, Double> model = new HashMap<ByteArrayWrapper, Double>();
+    for (int i = 0; i < 5000; i++) {
+      ByteArrayWrapper m = member("m" + random.nextInt(300));
+      if (random.nextInt(4) == 0) {
+        assertEquals(model.remove(m) != null, set.remove(m));
+      } else {
+        double score = random.nextInt(50);
+        assertEquals(!model.containsKey(m), set.add(m, score));
+        model.put(m, score);
+      }
+    }
+    List<ByteArrayWrapper> order = expectedOrder(model);
+    assertEquals(order.size(), set.size());
+    assertEquals(order, members(set.entries()));
+    for (int i = 0; i < order.size(); i++) {
+      assertEquals(i, set.rank(order.get(i), false));
+      assertEquals(order.size() - 1 - i, set.rank(order.get(i), true));
+    }
+    assertEquals(-1, set.rank(member("absent"), false));
+    assertEquals(order.subList(10, 21), members(set.rangeByRank(10, 20, false)));
+  }
+
+  @Test
+  public void testScoreRanges() {
+    RedisSortedSet set = new RedisSortedSet();
+    for (int i = 0; i < 10; i++)
+      set.add(member("m" + i), i);
+    assertEquals(5, set.countByScore(2, true, 6, true));
+    assertEquals(3, set.countByScore(2, false, 6, false));
+    assertEquals(10, set.countByScore(Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, true));
+    assertEquals(0, set.countByScore(6, true, 2, true));
+    List<ByteArrayWrapper> range = members(set.rangeByScore(2, true, 6, true, 1, 2, false));
+    assertEquals(2, range.size());
+    assertEquals(member("m3"), range.get(0));
+    range = members(set.rangeByScore(2, true, 6, true, 0, -1, true));
+    assertEquals(member("m6"), range.get(0));
+    assertEquals(member("m2"), range.get(4));
+    assertEquals(4, set.removeRangeByScore(0, true, 3, true));
+    assertEquals(6, set.size());
+    assertEquals(0, set.rank(member("m4"), false));
+  }
+
+  @Test
+  public void testLexRanges() {
+    RedisSortedSet set = new RedisSortedSet();
+    for (String s : new String[] {"a", "b", "c", "d", "e"})
+      set.add(member(s), 0);
+    assertEquals(5, set.countByLex(null, false, null, false));
+    assertEquals(3, set.countByLex(member("b"), true, member("d"), true));
+    assertEquals(1, set.countByLex(member("b"), false, member("d"), false));
+    List<ByteArrayWrapper> range = set.rangeByLex(member("b"), true, null, false, 1, 2);
+    assertEquals(2, range.size());
+    assertEquals(member("c"), range.get(0));
+    assertEquals(2, set.removeRangeByLex(null, false, member("b"), true));
+    assertEquals(3, set.size());
+    assertEquals(2, set.removeRangeByRank(1, 2));
+    assertEquals(member("c"), set.entries().get(0).getKey());
+  }
+
+  @Test
+  public void testSerializationAndDelta() throws Exception {
+    RedisSortedSet primary = new RedisSortedSet();
+    primary.add(member("a"), 1);
+    primary.add(member("b"), 2);
+    primary.add(member("c"), 3);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    primary.toData(new DataOutputStream(bytes));
+    RedisSortedSet secondary = new RedisSortedSet();
+    secondary.fromData(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(members(primary.entries()), members(secondary.entries()));
+
+    primary.toDelta(new DataOutputStream(new ByteArrayOutputStream()));
+    assertFalse(primary.hasDelta());
+
+    primary.add(member("a"), 5);
+    primary.remove(member("b"));
+    primary.add(member("d"), 0);
+    assertTrue(primary.hasDelta());
+    bytes = new ByteArrayOutputStream();
+    primary.toDelta(new DataOutputStream(bytes));
+    assertFalse(primary.hasDelta());
+
+    secondary.fromDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(members(primary.entries()), members(secondary.entries()));
+    assertEquals(Double.valueOf(5), secondary.getScore(member("a")));
+    assertNull(secondary.getScore(member("b")));
+    // the delta bytes are forwarded as received, so applying them records nothing
+    assertFalse(secondary.hasDelta());
+  }
+
+  @Test
+  public void testPromotedCopySendsOnlyItsOwnChanges() throws Exception {
+    RedisSortedSet primary = new RedisSortedSet();
+    RedisSortedSet secondary = new RedisSortedSet();
+    primary.add(member("a"), 1);
+    primary.add(member("b"), 2);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    primary.toDelta(new DataOutputStream(bytes));
+    secondary.fromDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    // the secondary becomes primary and changes one member
+    secondary.add(member("c"), 3);
+    bytes = new ByteArrayOutputStream();
+    secondary.toDelta(new DataOutputStream(bytes));
+
+    RedisSortedSet other = new RedisSortedSet();
+    other.add(member("a"), 10);
+    other.fromDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(2, other.size());
+    assertEquals(Double.valueOf(10), other.getScore(member("a")));
+    assertEquals(Double.valueOf(3), other.getScore(member("c")));
+  }
+
+  @Test
+  public void testLongDeltaIsSentAsWholeSortedSet() throws Exception {
+    RedisSortedSet primary = new RedisSortedSet();
+    for (int i = 0; i < 1000; i++) {
+      primary.add(member("m" + i), i);
+      primary.remove(member("m" + i));
+    }
+    primary.add(member("last"), 1);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    primary.toDelta(new DataOutputStream(bytes));
+    // the pending changes are bounded by the size of the sorted set
+    assertTrue(bytes.size() < 100);
+
+    RedisSortedSet secondary = new RedisSortedSet();
+    secondary.add(member("stale"), 2);
+    secondary.fromDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(members(primary.entries()), members(secondary.entries()));
+
+    assertEquals(Double.valueOf(1), secondary.getScore(member("last")));
+    assertFalse(secondary.hasDelta());
+  }
+}
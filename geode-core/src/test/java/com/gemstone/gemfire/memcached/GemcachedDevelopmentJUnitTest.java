@@ -29,11 +29,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.logging.Logger;
@@ -122,7 +131,36 @@ public class GemcachedDevelopmentJUnitTest {
     Thread.sleep(1100);
     assertEquals("World", client.get("Hello"));
   }
-  
+
+  @Test
+  public void testMultiGetWithMisses() throws Exception {
+    MemcachedClient client = bootstrapClient();
+    List<String> keys = new ArrayList<String>();
+    for (int i=0; i<20; i++) {
+      keys.add("mk"+i);
+      if (i % 3 != 0) {
+        client.set("mk"+i, 0, "mv"+i).get();
+      }
+    }
+    Map<String, Object> val = client.getBulk(keys);
+    assertEquals(13, val.size());
+    for (int i=0; i<20; i++) {
+      assertEquals(i % 3 == 0 ? null : "mv"+i, val.get("mk"+i));
+    }
+  }
+
+  @Test
+  public void testLargeValue() throws Exception {
+    MemcachedClient client = bootstrapClient();
+    byte[] value = new byte[512 * 1024];
+    new Random(7).nextBytes(value);
+    assertTrue(client.set("largekey", 0, value).get());
+    assertArrayEquals(value, (byte[]) client.get("largekey"));
+    Map<String, Object> val = client.getBulk("key", "largekey");
+    assertEquals("myStringValue", val.get("key"));
+    assertArrayEquals(value, (byte[]) val.get("largekey"));
+  }
+
   @Test
   public void testDelete() throws Exception {
     MemcachedClient client = bootstrapClient();
@@ -244,6 +282,63 @@ public class GemcachedDevelopmentJUnitTest {
     assertTrue(client.add("keystats", 1, "stats").get());
   }
   
+  @Test
+  public void testInvalidValueLengthIsRejected() throws Exception {
+    assertValueLengthRejected(-17, "negative value length -17");
+    assertValueLengthRejected(Integer.MAX_VALUE, "value length " + Integer.MAX_VALUE + " exceeds the maximum of 104857600");
+    MemcachedClient client = bootstrapClient();
+    assertEquals("myStringValue", client.get("key"));
+  }
+
+  @Test
+  public void testLongLineIsRejected() throws Exception {
+    // a line that never ends must not be buffered without limit
+    byte[] request = new byte[3000];
+    Arrays.fill(request, (byte) 'a');
+    assertRequestRejected(request, "line too long");
+    MemcachedClient client = bootstrapClient();
+    assertEquals("myStringValue", client.get("key"));
+  }
+
+  /**
+   * Sends the start of a set request with the given value length and
+   * checks that it is rejected.
+   */
+  private void assertValueLengthRejected(int valueLength, String error) throws IOException {
+    if (getProtocol() == Protocol.ASCII) {
+      assertRequestRejected(("set badkey 0 0 " + valueLength + "\r\n").getBytes("US-ASCII"), error);
+    } else {
+      ByteBuffer header = ByteBuffer.allocate(24);
+      header.put(0, (byte) 0x80); // request magic
+      header.put(1, (byte) 0x01); // set
+      header.putInt(8, valueLength); // total body length
+      assertRequestRejected(header.array(), error);
+    }
+  }
+
+  /**
+   * Sends the given bytes and checks that the server replies with the given
+   * client error, if the protocol has one, and closes the connection.
+   */
+  private void assertRequestRejected(byte[] request, String error) throws IOException {
+    Socket socket = new Socket(InetAddress.getLocalHost(), PORT);
+    try {
+      socket.setSoTimeout(30000);
+      OutputStream out = socket.getOutputStream();
+      out.write(request);
+      out.flush();
+      InputStream in = socket.getInputStream();
+      ByteArrayOutputStream reply = new ByteArrayOutputStream();
+      for (int b = in.read(); b != -1; b = in.read()) {
+        reply.write(b);
+      }
+      String expected = getProtocol() == Protocol.ASCII ? "CLIENT_ERROR " + error + "\r\n" : "";
+      assertEquals(expected, reply.toString("US-ASCII"));
+    } finally {
+      socket.close();
+    }
+  }
+
   private MemcachedClient bootstrapClient() throws IOException,
       UnknownHostException, InterruptedException, ExecutionException {
     MemcachedClient client = createMemcachedClient();
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.redis;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.GemFireCache;
+import com.gemstone.gemfire.internal.AvailablePortHelper;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.gemstone.gemfire.distributed.DistributedSystemConfigProperties.*;
+import static org.junit.Assert.*;
+
+/**
+ * Pipelined load against the {@link GemFireRedisServer} in the spirit of
+ * redis-benchmark -P, run with parallel pipeline execution enabled
+ */
+@Category(IntegrationTest.class)
+public class PipelineJUnitTest {
+
+  private static final int PIPELINE_DEPTH = 64;
+
+  private static Jedis jedis;
+  private static GemFireRedisServer server;
+  private static GemFireCache cache;
+  private static int port = 6379;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    System.setProperty(GemFireRedisServer.PIPELINE_THREADS_SYS_PROP_NAME, "4");
+    CacheFactory cf = new CacheFactory();
+    cf.set(LOG_LEVEL, "error");
+    cf.set(MCAST_PORT, "0");
+    cf.set(LOCATORS, "");
+    cache = cf.create();
+    port = AvailablePortHelper.getRandomAvailableTCPPort();
+    server = new GemFireRedisServer("localhost", port);
+
+    server.start();
+    jedis = new Jedis("localhost", port, 10000000);
+  }
+
+  @Test
+  public void testPipelinedRepliesInOrder() {
+    Pipeline p = jedis.pipelined();
+    List<Response<String>> gets = new ArrayList<Response<String>>();
+    for (int i = 0; i < PIPELINE_DEPTH; i++) {
+      String key = "key" + (i % 8);
+      p.set(key, "value" + i);
+      gets.add(p.get(key));
+    }
+    p.sync();
+
+    for (int i = 0; i < PIPELINE_DEPTH; i++)
+      assertEquals("value" + i, gets.get(i).get());
+  }
+
+  @Test
+  public void testPipelinedCountersOnSharedKeys() {
+    Pipeline p = jedis.pipelined();
+    List<Response<Long>> incrs = new ArrayList<Response<Long>>();
+    for (int i = 0; i < PIPELINE_DEPTH; i++)
+      incrs.add(p.incr("counter" + (i % 4)));
+    p.sync();
+
+    for (int i = 0; i < PIPELINE_DEPTH; i++)
+      assertEquals(Long.valueOf(i / 4 + 1), incrs.get(i).get());
+  }
+
+  @Test
+  public void testPipelinedErrorDoesNotStopBatch() {
+    Pipeline p = jedis.pipelined();
+    p.set("string", "value");
+    Response<Long> wrongType = p.lpush("string", "element");
+    Response<Long> push = p.rpush("list", "a", "b", "c");
+    Response<String> get = p.get("string");
+    p.sync();
+
+    try {
+      wrongType.get();
+      fail("Expected a wrong type error");
+    } catch (JedisDataException expected) {
+    }
+    assertEquals(Long.valueOf(3), push.get());
+    assertEquals("value", get.get());
+  }
+
+  @Test
+  public void testPipelinedTransaction() {
+    Pipeline p = jedis.pipelined();
+    p.multi();
+    p.set("txKey", "1");
+    p.incr("txKey");
+    Response<List<Object>> exec = p.exec();
+    Response<String> get = p.get("txKey");
+    p.sync();
+
+    assertEquals(2, exec.get().size());
+    assertEquals("2", get.get());
+  }
+
+  @Test
+  public void testPipelinedLoad() throws Exception {
+    final int clients = 4;
+    final int rounds = 200;
+    ExecutorService pool = Executors.newFixedThreadPool(clients);
+    List<Future<Long>> results = new ArrayList<Future<Long>>();
+    for (int c = 0; c < clients; c++) {
+      final int client = c;
+      results.add(pool.submit(new Callable<Long>() {
+        @Override
+        public Long call() {
+          Jedis j = new Jedis("localhost", port, 10000000);
+          try {
+            long ops = 0;
+            for (int r = 0; r < rounds; r++) {
+              Pipeline p = j.pipelined();
+              List<Response<String>> gets = new ArrayList<Response<String>>(PIPELINE_DEPTH / 2);
+              for (int i = 0; i < PIPELINE_DEPTH / 2; i++) {
+                String key = "load" + client + ":" + i;
+                p.set(key, Integer.toString(r));
+                gets.add(p.get(key));
+              }
+              p.sync();
+              for (Response<String> get : gets)
+                assertEquals(Integer.toString(r), get.get());
+              ops += PIPELINE_DEPTH;
+            }
+            return ops;
+          } finally {
+            j.close();
+          }
+        }
+      }));
+    }
+    long total = 0;
+    for (Future<Long> f : results)
+      total += f.get();
+    pool.shutdown();
+
+    assertEquals((long) clients * rounds * PIPELINE_DEPTH, total);
+    assertEquals(Long.valueOf(clients * PIPELINE_DEPTH / 2), jedis.dbSize());
+  }
+
+  @After
+  public void flushAll() {
+    jedis.flushAll();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    jedis.close();
+    cache.close();
+    server.shutdown();
+    System.clearProperty(GemFireRedisServer.PIPELINE_THREADS_SYS_PROP_NAME);
+  }
+}